@@ -0,0 +1,66 @@
+package org.apereo.cas.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This is {@link RegisteredServiceIndex}, which describes a secondary index of registered services
+ * of a given type by a key that identifies them, such as the client id of OAuth services.
+ * Indexes are identified by instance, so each index should be defined once and shared,
+ * typically as a constant.
+ *
+ * @author Misagh Moayyed
+ * @param <T> the type of the indexed services
+ * @since 5.1.0
+ */
+public class RegisteredServiceIndex<T extends RegisteredService> {
+
+    private final Class<T> type;
+
+    private final Function<T, String> key;
+
+    /**
+     * Instantiates a new registered service index.
+     *
+     * @param type the type of the indexed services
+     * @param key  the function that produces the key of a service, which may produce null for services that are not indexed
+     */
+    public RegisteredServiceIndex(final Class<T> type, final Function<T, String> key) {
+        this.type = type;
+        this.key = key;
+    }
+
+    public Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the key of the registered service.
+     *
+     * @param registeredService the registered service
+     * @return the key, or null if the service is not of the indexed type or has no key
+     */
+    public String getKey(final RegisteredService registeredService) {
+        return this.type.isInstance(registeredService) ? this.key.apply(this.type.cast(registeredService)) : null;
+    }
+
+    /**
+     * Build the index of the given services. Services are expected in evaluation order;
+     * when several services share a key, the first one is kept.
+     *
+     * @param services the services, in evaluation order
+     * @return the services by key
+     */
+    public Map<String, T> build(final Collection<RegisteredService> services) {
+        final Map<String, T> index = new HashMap<>();
+        services.forEach(r -> {
+            final String k = getKey(r);
+            if (k != null) {
+                index.putIfAbsent(k, this.type.cast(r));
+            }
+        });
+        return index;
+    }
+}
@@ -35,4 +35,16 @@ public interface ResourceBasedServiceRegistryDao extends ServiceRegistryDao {
      * @return the registered service
      */
     RegisteredService load(File file);
+
+    /**
+     * Remove the registered service that was loaded from the given file,
+     * once the file has been deleted. By default, all service definitions are loaded again.
+     *
+     * @param file the file
+     * @return the registered service that was removed, or null
+     */
+    default RegisteredService remove(final File file) {
+        load();
+        return null;
+    }
 }
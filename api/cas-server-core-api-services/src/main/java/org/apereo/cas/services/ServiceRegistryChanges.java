@@ -0,0 +1,40 @@
+package org.apereo.cas.services;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * This is {@link ServiceRegistryChanges}, which describes how a service registry
+ * has changed since a given point in time. It carries the services that were saved since then,
+ * along with the ids of all services in the registry, so that services that were
+ * deleted since then can be told apart.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class ServiceRegistryChanges {
+
+    private final Collection<RegisteredService> changedServices;
+
+    private final Set<Long> serviceIds;
+
+    /**
+     * Instantiates new service registry changes.
+     *
+     * @param changedServices the services that were saved since the point in time
+     * @param serviceIds      the ids of all services in the registry
+     */
+    public ServiceRegistryChanges(final Collection<RegisteredService> changedServices, final Set<Long> serviceIds) {
+        this.changedServices = Collections.unmodifiableCollection(changedServices);
+        this.serviceIds = Collections.unmodifiableSet(serviceIds);
+    }
+
+    public Collection<RegisteredService> getChangedServices() {
+        return this.changedServices;
+    }
+
+    public Set<Long> getServiceIds() {
+        return this.serviceIds;
+    }
+}
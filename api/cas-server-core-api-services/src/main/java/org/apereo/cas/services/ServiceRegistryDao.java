@@ -34,6 +34,20 @@ public interface ServiceRegistryDao {
      */
     List<RegisteredService> load();
 
+    /**
+     * Retrieve the services that were saved in the data store at or after the given time,
+     * along with the ids of all services in the data store. Data stores that can answer this
+     * more cheaply than {@link #load()} should override this method, so that callers
+     * may only apply what changed to services they have loaded before.
+     *
+     * @param timestamp the time in milliseconds since the epoch
+     * @return the changes, or null if the data store cannot tell which services changed.
+     * @since 5.1.0
+     */
+    default ServiceRegistryChanges loadChangesSince(final long timestamp) {
+        return null;
+    }
+
     /**
      * Find service by the numeric id.
      *
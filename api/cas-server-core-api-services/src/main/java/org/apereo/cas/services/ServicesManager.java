@@ -5,6 +5,8 @@ import org.apereo.cas.authentication.principal.Service;
 import com.google.common.base.Predicate;
 
 import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Manages the storage, retrieval, and matching of Services wishing to use CAS
@@ -55,6 +57,37 @@ public interface ServicesManager {
      */
     Collection<RegisteredService> findServiceBy(Predicate<RegisteredService> clazz);
 
+    /**
+     * Find the services of the given type, in evaluation order.
+     *
+     * @param <T>   the type of the services
+     * @param clazz the type of the services
+     * @return the services of the given type
+     */
+    default <T extends RegisteredService> Collection<T> findServicesBy(final Class<T> clazz) {
+        return getAllServices().stream()
+                .filter(clazz::isInstance)
+                .map(clazz::cast)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find the first service, in evaluation order, whose key in the given index matches the supplied key.
+     * Implementations may keep the index up to date as services change, so that services
+     * are located without evaluating every service.
+     *
+     * @param <T>   the type of the indexed services
+     * @param index the index
+     * @param key   the key to match with
+     * @return the service whose key matches, or null
+     */
+    default <T extends RegisteredService> T findServiceBy(final RegisteredServiceIndex<T> index, final String key) {
+        return findServicesBy(index.getType()).stream()
+                .filter(r -> Objects.equals(key, index.getKey(r)))
+                .findFirst()
+                .orElse(null);
+    }
+
     /**
      * Find a RegisteredService by matching with the supplied id.
      *
@@ -3,6 +3,7 @@ package org.apereo.cas.ticket;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import java.io.Serializable;
+import java.time.ZonedDateTime;
 
 /**
  * Strategy that determines if the ticket is expired. Implementations of the
@@ -40,4 +41,17 @@ public interface ExpirationPolicy extends Serializable {
      * by the implementation.
      */
     Long getTimeToIdle();
+
+    /**
+     * Describes the instant after which the ticket is guaranteed to be considered
+     * expired by this policy, based on its time windows alone. The ticket may expire
+     * sooner for other reasons, such as the number of uses. Registries may use this
+     * instant to locate expired tickets without examining each one.
+     *
+     * @param ticketState the snapshot of the current ticket state
+     * @return the expiration instant, or null if the policy cannot determine it.
+     */
+    default ZonedDateTime getExpirationTime(final TicketState ticketState) {
+        return null;
+    }
 }
@@ -1,8 +1,11 @@
 package org.apereo.cas.ticket.registry;
 
 import java.util.Collection;
+import java.util.stream.Collectors;
 
 import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
 
 /**
  * Interface for a registry that stores tickets. The underlying registry can be
@@ -59,6 +62,59 @@ public interface TicketRegistry {
      */
     Collection<Ticket> getTickets();
 
+    /**
+     * Retrieve a batch of expired tickets from the registry.
+     * Registries that are able to track ticket expiration should
+     * override this operation to avoid examining every ticket,
+     * along with {@link #isExpirationTracked()}.
+     *
+     * @param limit the maximum number of tickets to return
+     * @return collection of expired tickets, that may be empty.
+     */
+    default Collection<Ticket> getExpiredTickets(final int limit) {
+        return getTickets().stream().filter(Ticket::isExpired).limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Indicates whether the registry locates expired tickets without examining every ticket.
+     * Expired tickets are then requested in several batches; otherwise, they are requested
+     * once per cleanup run, so that the registry is examined only once.
+     *
+     * @return true if expired tickets are located cheaply.
+     */
+    default boolean isExpirationTracked() {
+        return false;
+    }
+
+    /**
+     * Remove, in bulk, expired tickets that require no further processing
+     * once expired, such as service tickets and tokens. Registries that are able
+     * to locate such tickets by their expiration time should override this operation.
+     *
+     * @return the number of tickets removed, or zero if bulk removal is not supported.
+     */
+    default int deleteExpiredTickets() {
+        return 0;
+    }
+
+    /**
+     * Retrieve the ticket-granting tickets, excluding proxy-granting tickets,
+     * that are established for the given principal. Registries that are able to
+     * index tickets by principal should override this operation to avoid
+     * examining every ticket.
+     *
+     * @param principalId the principal id
+     * @return collection of ticket-granting tickets, that may be empty.
+     */
+    default Collection<TicketGrantingTicket> getSessionsFor(final String principalId) {
+        return getTickets().stream()
+                .filter(t -> t instanceof TicketGrantingTicket && !(t instanceof ProxyGrantingTicket))
+                .map(TicketGrantingTicket.class::cast)
+                .filter(t -> t.getAuthentication() != null
+                        && t.getAuthentication().getPrincipal().getId().equals(principalId))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Update the received ticket.
      *
@@ -82,4 +138,27 @@ public interface TicketRegistry {
      */
     long serviceTicketCount();
 
+    /**
+     * Computes the number of proxy-granting tickets stored in the ticket registry.
+     * Registries that keep track of their tickets as they are added and removed
+     * should override this operation.
+     *
+     * @return Number of proxy-granting tickets in the registry at time of invocation
+     *         or {@link Integer#MIN_VALUE} if unknown.
+     */
+    default long proxyGrantingTicketCount() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Computes the number of distinct principals with SSO sessions stored in the ticket registry.
+     * Registries that index their sessions by principal should override this operation.
+     *
+     * @return Number of principals in the registry at time of invocation
+     *         or {@link Integer#MIN_VALUE} if unknown.
+     */
+    default long principalCount() {
+        return Integer.MIN_VALUE;
+    }
+
 }
@@ -0,0 +1,29 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.ticket.Ticket;
+
+/**
+ * This is {@link TicketSerializer}. It turns tickets into bytes and back
+ * when ticket registries encode tickets before they are stored.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public interface TicketSerializer {
+
+    /**
+     * Serialize the ticket.
+     *
+     * @param ticket the ticket
+     * @return the serialized ticket
+     */
+    byte[] serialize(Ticket ticket);
+
+    /**
+     * Deserialize the ticket.
+     *
+     * @param data the serialized ticket
+     * @return the ticket
+     */
+    Ticket deserialize(byte[] data);
+}
@@ -4,6 +4,7 @@ package org.apereo.cas.authentication;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apereo.cas.services.MultifactorAuthenticationProvider;
+import org.apereo.cas.services.MultifactorAuthenticationProviderRegistry;
 import org.apereo.cas.services.MultifactorAuthenticationProviderBypass;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.RegisteredServiceMultifactorPolicy;
@@ -169,7 +170,7 @@ public class DefaultAuthenticationContextValidator implements AuthenticationCont
      */
     private Map<String, MultifactorAuthenticationProvider> getAllMultifactorAuthenticationProvidersFromApplicationContext() {
         try {
-            return this.applicationContext.getBeansOfType(MultifactorAuthenticationProvider.class, false, true);
+            return MultifactorAuthenticationProviderRegistry.getInstance(this.applicationContext).getProviders();
         } catch (final Exception e) {
             logger.warn("Could not locate beans of type {} in the application context", MultifactorAuthenticationProvider.class);
         }
@@ -0,0 +1,175 @@
+package org.apereo.cas.authentication.principal;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apereo.cas.util.MetricsUtils;
+import org.apereo.services.persondir.IPersonAttributeDao;
+import org.apereo.services.persondir.IPersonAttributes;
+import org.apereo.services.persondir.support.MergingPersonAttributeDaoImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This is {@link ParallelMergingPersonAttributeDaoImpl}. It queries all attribute repository sources
+ * at the same time, rather than one after another, so that the latency of a query is that of the slowest
+ * source rather than the sum of all of them. Results are merged by the configured merger in the order of
+ * the sources, as {@link MergingPersonAttributeDaoImpl} would.
+ * <p>
+ * Sources that do not respond within the timeout are skipped and the results of the others are returned.
+ * Sources that fail are skipped as well, unless exceptions are not to be recovered.
+ * Sources are queried one after another if the query is to stop on the first success.
+ * <p>
+ * Queries run on a bounded pool of threads. Once all threads are busy and the queue is full,
+ * the calling thread queries the source itself. The latency of each source is recorded by a {@link Timer},
+ * which may be registered with a {@link MetricRegistry}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class ParallelMergingPersonAttributeDaoImpl extends MergingPersonAttributeDaoImpl implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMergingPersonAttributeDaoImpl.class);
+
+    private static final int QUEUED_QUERIES_PER_THREAD = 10;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutInMillis;
+
+    private final List<Timer> latencies = new ArrayList<>();
+
+    private final List<Counter> timeouts = new ArrayList<>();
+
+    /**
+     * Instantiates a new parallel merging person attribute dao.
+     *
+     * @param personAttributeDaos the attribute repository sources, in the order their results are merged
+     * @param threads             the number of threads that query sources
+     * @param timeoutInMillis     the time to wait for sources to respond, in milliseconds
+     */
+    public ParallelMergingPersonAttributeDaoImpl(final List<IPersonAttributeDao> personAttributeDaos,
+                                                 final int threads, final long timeoutInMillis) {
+        setPersonAttributeDaos(personAttributeDaos);
+        this.timeoutInMillis = timeoutInMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(threads * QUEUED_QUERIES_PER_THREAD),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("attribute-repository-%d").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        personAttributeDaos.forEach(dao -> {
+            this.latencies.add(new Timer());
+            this.timeouts.add(new Counter());
+        });
+    }
+
+    @Override
+    public Set<IPersonAttributes> getPeopleWithMultivaluedAttributes(final Map<String, List<Object>> query) {
+        if (isStopOnSuccess()) {
+            return super.getPeopleWithMultivaluedAttributes(query);
+        }
+
+        final List<IPersonAttributeDao> daos = getPersonAttributeDaos();
+        final List<Future<Set<IPersonAttributes>>> futures = new ArrayList<>(daos.size());
+        for (int i = 0; i < daos.size(); i++) {
+            final IPersonAttributeDao dao = daos.get(i);
+            final Timer latency = this.latencies.get(i);
+            futures.add(this.executor.submit(() -> {
+                try (Timer.Context ignored = latency.time()) {
+                    return getAttributesFromDao(query, true, dao, null);
+                }
+            }));
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeoutInMillis);
+        Set<IPersonAttributes> resultPeople = null;
+        for (int i = 0; i < futures.size(); i++) {
+            final Set<IPersonAttributes> currentPeople = getResult(daos.get(i), futures.get(i), this.timeouts.get(i), deadline);
+            if (currentPeople != null) {
+                resultPeople = resultPeople == null ? new LinkedHashSet<>(currentPeople) : getMerger().mergeResults(resultPeople, currentPeople);
+            }
+        }
+        LOGGER.debug("Aggregated search results [{}] for query [{}]", resultPeople, query);
+        return resultPeople == null ? null : Collections.unmodifiableSet(resultPeople);
+    }
+
+    /**
+     * Register the latency and timeouts of each source with the registry,
+     * replacing those that were registered by a previous instance.
+     *
+     * @param registry the registry
+     */
+    public void registerMetrics(final MetricRegistry registry) {
+        final List<IPersonAttributeDao> daos = getPersonAttributeDaos();
+        for (int i = 0; i < daos.size(); i++) {
+            final String prefix = MetricRegistry.name(getClass(), i + "-" + daos.get(i).getClass().getSimpleName());
+            MetricsUtils.register(registry, MetricRegistry.name(prefix, "latency"), this.latencies.get(i));
+            MetricsUtils.register(registry, MetricRegistry.name(prefix, "timeouts"), this.timeouts.get(i));
+        }
+    }
+
+    /**
+     * The latency of each source, in the order of the sources.
+     *
+     * @return the latencies
+     */
+    public List<Timer> getLatencies() {
+        return Collections.unmodifiableList(this.latencies);
+    }
+
+    /**
+     * The number of timeouts of each source, in the order of the sources.
+     *
+     * @return the timeouts
+     */
+    public List<Counter> getTimeouts() {
+        return Collections.unmodifiableList(this.timeouts);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private Set<IPersonAttributes> getResult(final IPersonAttributeDao dao, final Future<Set<IPersonAttributes>> future,
+                                             final Counter timeouts, final long deadline) {
+        try {
+            final Set<IPersonAttributes> people = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            LOGGER.debug("Retrieved attributes [{}] from [{}]", people, dao);
+            return people;
+        } catch (final TimeoutException e) {
+            future.cancel(true);
+            timeouts.inc();
+            LOGGER.warn("Attribute repository source [{}] did not respond within [{}] ms and is skipped", dao, this.timeoutInMillis);
+            return null;
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for attribute repository source [{}]", dao);
+            return null;
+        } catch (final ExecutionException e) {
+            final RuntimeException cause = e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+            if (isRecoverExceptions()) {
+                LOGGER.warn("Recovering from exception thrown by [{}]", dao, cause);
+                return null;
+            }
+            LOGGER.error("Failing from exception thrown by [{}]", dao, cause);
+            throw cause;
+        }
+    }
+}
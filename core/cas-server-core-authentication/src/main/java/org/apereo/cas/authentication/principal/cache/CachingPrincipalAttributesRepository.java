@@ -1,21 +1,25 @@
 package org.apereo.cas.authentication.principal.cache;
 
 import com.google.common.collect.Maps;
+import org.apereo.cas.authentication.principal.DefaultPrincipalFactory;
 import org.apereo.cas.authentication.principal.Principal;
-
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
+import org.apereo.cas.util.ApplicationContextProvider;
+import org.apereo.services.persondir.IPersonAttributeDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Wrapper around an attribute repository where attributes cached for a configurable period
  * based on google guava's caching library.
+ * <p>
+ * Attributes are kept in the {@link PrincipalAttributesCache} that is defined in the application
+ * context as {@code principalAttributesCache}, or in its default instance otherwise. The cache is
+ * shared by all services, sized once for all of them, and caches principals without attributes too.
+ *
  * @author Misagh Moayyed
  * @since 4.2
  */
@@ -24,11 +28,11 @@ public class CachingPrincipalAttributesRepository extends AbstractPrincipalAttri
     private static final long DEFAULT_MAXIMUM_CACHE_SIZE = 1000;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CachingPrincipalAttributesRepository.class);
-    
-    private transient Cache<String, Map<String, Object>> cache;
-    private transient PrincipalAttributesCacheLoader cacheLoader =
-            new PrincipalAttributesCacheLoader();
 
+    /**
+     * Kept for compatibility with existing service definitions.
+     * The size of the cache is defined by {@link PrincipalAttributesCache}.
+     */
     private long maxCacheSize = DEFAULT_MAXIMUM_CACHE_SIZE;
 
     /**
@@ -36,8 +40,6 @@ public class CachingPrincipalAttributesRepository extends AbstractPrincipalAttri
      */
     private CachingPrincipalAttributesRepository() {
         super();
-        this.cache = CacheBuilder.newBuilder().maximumSize(this.maxCacheSize)
-                .expireAfterWrite(getExpiration(), TimeUnit.valueOf(getTimeUnit())).build(this.cacheLoader);
     }
 
     /**
@@ -62,39 +64,44 @@ public class CachingPrincipalAttributesRepository extends AbstractPrincipalAttri
                                                 final long expiryDuration) {
         super(expiryDuration, timeUnit);
         this.maxCacheSize = maxCacheSize;
+    }
 
-        this.cache = CacheBuilder.newBuilder().maximumSize(maxCacheSize)
-                .expireAfterWrite(getExpiration(), TimeUnit.valueOf(getTimeUnit())).build(this.cacheLoader);
+    @Override
+    public Map<String, Object> getAttributes(final Principal p) {
+        final IPersonAttributeDao attributeRepository = getAttributeRepository();
+        if (attributeRepository == null) {
+            LOGGER.debug("No attribute repository is defined for [{}]. Returning no attributes for {}",
+                    getClass().getName(), p.getId());
+            return Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+        }
+        return getPrincipalAttributesCache().get(this, attributeRepository, p);
     }
 
     @Override
     protected void addPrincipalAttributes(final String id, final Map<String, Object> attributes) {
-        this.cache.put(id, attributes);
+        getPrincipalAttributesCache().put(this, getAttributeRepository(), new DefaultPrincipalFactory().createPrincipal(id), attributes);
         LOGGER.debug("Cached attributes for {}", id);
     }
 
     @Override
     protected Map<String, Object> getPrincipalAttributes(final Principal p) {
-        try {
-            return this.cache.get(p.getId(), () -> {
-                LOGGER.debug("No cached attributes could be found for {}", p.getId());
-                return Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
-            });
-        } catch (final Exception e) {
-            LOGGER.error(e.getMessage(), e);
+        final Map<String, Object> attributes = getPrincipalAttributesCache().getIfPresent(this, getAttributeRepository(), p);
+        if (attributes == null) {
+            LOGGER.debug("No cached attributes could be found for {}", p.getId());
         }
-        return null;
+        return attributes;
     }
 
     @Override
     public void close() throws IOException {
-        this.cache.cleanUp();
+        getPrincipalAttributesCache().cleanUp();
     }
 
-    private static class PrincipalAttributesCacheLoader extends CacheLoader<String, Map<String, Object>> {
-        @Override
-        public Map<String, Object> load(final String key) throws Exception {
-            return Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+    private static PrincipalAttributesCache getPrincipalAttributesCache() {
+        final ApplicationContext context = ApplicationContextProvider.getApplicationContext();
+        if (context != null && context.containsBean("principalAttributesCache")) {
+            return context.getBean("principalAttributesCache", PrincipalAttributesCache.class);
         }
+        return PrincipalAttributesCache.getDefaultInstance();
     }
 }
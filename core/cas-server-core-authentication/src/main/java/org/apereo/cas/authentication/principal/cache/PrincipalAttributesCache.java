@@ -0,0 +1,290 @@
+package org.apereo.cas.authentication.principal.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apereo.cas.authentication.principal.Principal;
+import org.apereo.cas.util.MetricsUtils;
+import org.apereo.services.persondir.IPersonAttributeDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This is {@link PrincipalAttributesCache}. It holds the attributes that
+ * {@link CachingPrincipalAttributesRepository} instances retrieve, in a single cache of bounded size
+ * that is shared by all services. Entries are keyed by the configuration of the repository,
+ * the attribute repository it consults and the principal id, so that services with the same
+ * configuration share their entries.
+ * <p>
+ * Each entry expires once the expiration of its repository has passed since it was loaded.
+ * Entries that are read after a given share of that time has passed are reloaded in the background,
+ * while the attributes that were previously loaded continue to be returned. Principals without
+ * attributes are cached as well.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class PrincipalAttributesCache implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrincipalAttributesCache.class);
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private static final int DEFAULT_REFRESH_AHEAD_PERCENT = 80;
+
+    private static final int DEFAULT_REFRESH_THREADS = 2;
+
+    private static final int PERCENT = 100;
+
+    private static final PrincipalAttributesCache DEFAULT_INSTANCE =
+            new PrincipalAttributesCache(DEFAULT_MAXIMUM_SIZE, DEFAULT_REFRESH_AHEAD_PERCENT, DEFAULT_REFRESH_THREADS);
+
+    private final LoadingCache<Key, CachedAttributes> cache;
+
+    private final ExecutorService refreshExecutor;
+
+    private final int refreshAheadPercent;
+
+    private final Ticker ticker;
+
+    /**
+     * Instantiates a new principal attributes cache.
+     *
+     * @param maximumSize         the maximum number of principals whose attributes are cached
+     * @param refreshAheadPercent the share of the expiration, in percent, after which entries that are read
+     *                            are reloaded in the background. Entries are not refreshed ahead of their
+     *                            expiration if this is not below 100.
+     * @param refreshThreads      the number of threads that reload entries in the background
+     */
+    public PrincipalAttributesCache(final long maximumSize, final int refreshAheadPercent, final int refreshThreads) {
+        this(maximumSize, refreshAheadPercent,
+                refreshAheadPercent > 0 && refreshAheadPercent < PERCENT && refreshThreads > 0
+                        ? Executors.newFixedThreadPool(refreshThreads,
+                        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("principal-attributes-refresh-%d").build())
+                        : null,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * Instantiates a new principal attributes cache.
+     *
+     * @param maximumSize         the maximum number of principals whose attributes are cached
+     * @param refreshAheadPercent the share of the expiration, in percent, after which entries that are read
+     *                            are reloaded in the background
+     * @param refreshExecutor     the executor that reloads entries in the background, or null if entries
+     *                            are not refreshed ahead of their expiration
+     * @param ticker              the ticker that tells the time entries were loaded and read
+     */
+    PrincipalAttributesCache(final long maximumSize, final int refreshAheadPercent,
+                             final ExecutorService refreshExecutor, final Ticker ticker) {
+        this.refreshAheadPercent = refreshAheadPercent;
+        this.refreshExecutor = refreshExecutor;
+        this.ticker = ticker;
+
+        final CacheLoader<Key, CachedAttributes> loader = new CacheLoader<Key, CachedAttributes>() {
+            @Override
+            public CachedAttributes load(final Key key) throws Exception {
+                return new CachedAttributes(key.repository.retrievePrincipalAttributes(key.principal), ticker.read());
+            }
+        };
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+        if (refreshExecutor != null) {
+            this.cache = builder.build(CacheLoader.asyncReloading(loader, refreshExecutor));
+        } else {
+            this.cache = builder.build(loader);
+        }
+    }
+
+    /**
+     * The cache that is used when none is defined in the application context.
+     *
+     * @return the default instance
+     */
+    public static PrincipalAttributesCache getDefaultInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Gets the attributes of the principal, and loads them from the repository
+     * if they are not cached or have expired.
+     *
+     * @param repository          the repository whose configuration and expiration apply
+     * @param attributeRepository the attribute repository that is consulted
+     * @param principal           the principal
+     * @return the attributes
+     */
+    public Map<String, Object> get(final CachingPrincipalAttributesRepository repository,
+                                   final IPersonAttributeDao attributeRepository,
+                                   final Principal principal) {
+        final Key key = new Key(repository, attributeRepository, principal);
+        final long expiration = TimeUnit.valueOf(repository.getTimeUnit()).toNanos(repository.getExpiration());
+        try {
+            CachedAttributes cached = this.cache.get(key);
+            final long age = this.ticker.read() - cached.loadedAt;
+            if (age >= expiration) {
+                LOGGER.debug("Cached attributes for [{}] have expired", principal.getId());
+                this.cache.asMap().remove(key, cached);
+                cached = this.cache.get(key);
+            } else if (this.refreshExecutor != null && age >= expiration * this.refreshAheadPercent / PERCENT
+                    && cached.refreshing.compareAndSet(false, true)) {
+                LOGGER.debug("Refreshing cached attributes for [{}] ahead of their expiration", principal.getId());
+                this.cache.refresh(key);
+            }
+            return cached.attributes;
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Gets the attributes of the principal if they are cached and have not expired.
+     *
+     * @param repository          the repository whose configuration and expiration apply
+     * @param attributeRepository the attribute repository that is consulted
+     * @param principal           the principal
+     * @return the attributes, or null
+     */
+    public Map<String, Object> getIfPresent(final CachingPrincipalAttributesRepository repository,
+                                            final IPersonAttributeDao attributeRepository,
+                                            final Principal principal) {
+        final CachedAttributes cached = this.cache.getIfPresent(new Key(repository, attributeRepository, principal));
+        if (cached == null) {
+            return null;
+        }
+        final long expiration = TimeUnit.valueOf(repository.getTimeUnit()).toNanos(repository.getExpiration());
+        return this.ticker.read() - cached.loadedAt < expiration ? cached.attributes : null;
+    }
+
+    /**
+     * Put the attributes of the principal into the cache.
+     *
+     * @param repository          the repository whose configuration and expiration apply
+     * @param attributeRepository the attribute repository that is consulted
+     * @param principal           the principal
+     * @param attributes          the attributes
+     */
+    public void put(final CachingPrincipalAttributesRepository repository,
+                    final IPersonAttributeDao attributeRepository,
+                    final Principal principal,
+                    final Map<String, Object> attributes) {
+        this.cache.put(new Key(repository, attributeRepository, principal), new CachedAttributes(attributes, this.ticker.read()));
+    }
+
+    /**
+     * Register gauges for the size of the cache and its statistics,
+     * such as the hit rate and the average load time.
+     *
+     * @param registry the registry
+     */
+    public void registerMetrics(final MetricRegistry registry) {
+        MetricsUtils.registerCacheMetrics(registry, MetricRegistry.name(getClass()), this.cache);
+    }
+
+    /**
+     * The number of principals whose attributes are cached.
+     *
+     * @return the size
+     */
+    public long size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Perform pending maintenance operations on the cache.
+     */
+    public void cleanUp() {
+        this.cache.cleanUp();
+    }
+
+    @Override
+    public void close() {
+        if (this.refreshExecutor != null) {
+            this.refreshExecutor.shutdownNow();
+        }
+        this.cache.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("size", this.cache.size())
+                .append("refreshAheadPercent", this.refreshAheadPercent)
+                .toString();
+    }
+
+    /**
+     * Attributes along with the time they were loaded.
+     */
+    private static class CachedAttributes {
+        private final Map<String, Object> attributes;
+
+        private final long loadedAt;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedAttributes(final Map<String, Object> attributes, final long loadedAt) {
+            this.attributes = attributes == null ? Collections.emptyMap() : attributes;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Identifies cached attributes by the configuration of the repository, the attribute
+     * repository that is consulted and the principal id. The repository and the principal
+     * are kept so that attributes may be reloaded.
+     */
+    private static class Key {
+        private final CachingPrincipalAttributesRepository repository;
+
+        private final IPersonAttributeDao attributeRepository;
+
+        private final Principal principal;
+
+        private final int hashCode;
+
+        Key(final CachingPrincipalAttributesRepository repository, final IPersonAttributeDao attributeRepository,
+            final Principal principal) {
+            this.repository = repository;
+            this.attributeRepository = attributeRepository;
+            this.principal = principal;
+            this.hashCode = Objects.hash(repository.getTimeUnit(), repository.getExpiration(), repository.getMergingStrategy(),
+                    System.identityHashCode(attributeRepository), principal.getId());
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key rhs = (Key) obj;
+            return this.attributeRepository == rhs.attributeRepository
+                    && this.principal.getId().equals(rhs.principal.getId())
+                    && this.repository.getExpiration() == rhs.repository.getExpiration()
+                    && Objects.equals(this.repository.getTimeUnit(), rhs.repository.getTimeUnit())
+                    && this.repository.getMergingStrategy() == rhs.repository.getMergingStrategy();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
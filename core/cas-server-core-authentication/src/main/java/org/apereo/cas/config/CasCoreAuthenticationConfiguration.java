@@ -1,5 +1,6 @@
 package org.apereo.cas.config;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apereo.cas.authentication.AcceptUsersAuthenticationHandler;
@@ -42,7 +43,9 @@ import org.apereo.cas.authentication.support.PasswordPolicyConfiguration;
 import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.model.core.authentication.AuthenticationPolicyProperties;
 import org.apereo.cas.configuration.support.Beans;
+import org.apereo.cas.services.MultifactorAuthenticationProviderRegistry;
 import org.apereo.cas.services.ServicesManager;
+import org.apereo.cas.util.GroovyScriptCache;
 import org.apereo.cas.util.http.HttpClient;
 import org.apereo.cas.util.http.SimpleHttpClientFactoryBean;
 import org.apereo.cas.web.flow.AuthenticationExceptionHandler;
@@ -53,12 +56,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -84,6 +89,9 @@ public class CasCoreAuthenticationConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Autowired(required = false)
     @Qualifier("geoLocationService")
     private GeoLocationService geoLocationService;
@@ -104,6 +112,10 @@ public class CasCoreAuthenticationConfiguration {
     @Qualifier("attributeRepository")
     private IPersonAttributeDao attributeRepository;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metrics;
+
     @Bean
     public PrincipalFactory jaasPrincipalFactory() {
         return new DefaultPrincipalFactory();
@@ -178,6 +190,11 @@ public class CasCoreAuthenticationConfiguration {
         return val;
     }
 
+    @Bean(name = MultifactorAuthenticationProviderRegistry.BEAN_NAME)
+    public MultifactorAuthenticationProviderRegistry multifactorAuthenticationProviderRegistry() {
+        return new MultifactorAuthenticationProviderRegistry(this.applicationContext);
+    }
+
     @Bean
     public AuthenticationSystemSupport defaultAuthenticationSystemSupport(@Qualifier(BEAN_NAME_HTTP_CLIENT)
                                                                           final HttpClient httpClient) {
@@ -374,4 +391,11 @@ public class CasCoreAuthenticationConfiguration {
         p.setAdaptiveAuthenticationProperties(casProperties.getAuthn().getAdaptive());
         return p;
     }
+
+    @PostConstruct
+    public void registerGroovyScriptCacheMetrics() {
+        if (this.metrics != null) {
+            GroovyScriptCache.getInstance().registerMetrics(this.metrics);
+        }
+    }
 }
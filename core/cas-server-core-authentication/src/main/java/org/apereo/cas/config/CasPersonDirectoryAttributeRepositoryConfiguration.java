@@ -1,5 +1,6 @@
 package org.apereo.cas.config;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
@@ -7,6 +8,8 @@ import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyObject;
 import org.apache.commons.collections.map.HashedMap;
 import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.authentication.principal.ParallelMergingPersonAttributeDaoImpl;
+import org.apereo.cas.authentication.principal.cache.PrincipalAttributesCache;
 import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.model.core.authentication.PrincipalAttributesProperties;
 import org.apereo.cas.configuration.support.Beans;
@@ -27,6 +30,7 @@ import org.apereo.services.persondir.support.merger.ReplacingAttributeAdder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
@@ -60,6 +64,10 @@ public class CasPersonDirectoryAttributeRepositoryConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metrics;
+
     @ConditionalOnMissingBean(name = "attributeRepository")
     @Bean(name = {"stubAttributeRepository", "attributeRepository"})
     public IPersonAttributeDao attributeRepository() {
@@ -74,6 +82,19 @@ public class CasPersonDirectoryAttributeRepositoryConfiguration {
         return composeMergedAndCachedAttributeRepositories(list);
     }
 
+    @ConditionalOnMissingBean(name = "principalAttributesCache")
+    @Bean
+    public PrincipalAttributesCache principalAttributesCache() {
+        final PrincipalAttributesProperties.PrincipalAttributesCache cache =
+                casProperties.getAuthn().getAttributeRepository().getPrincipalAttributesCache();
+        final PrincipalAttributesCache c =
+                new PrincipalAttributesCache(cache.getMaximumSize(), cache.getRefreshAheadPercent(), cache.getRefreshThreads());
+        if (this.metrics != null) {
+            c.registerMetrics(this.metrics);
+        }
+        return c;
+    }
+
     private void addJsonAttributeRepository(final List<IPersonAttributeDao> list) {
         casProperties.getAuthn().getAttributeRepository().getJson().forEach(json -> {
             final Resource r = json.getConfig().getLocation();
@@ -100,7 +121,7 @@ public class CasPersonDirectoryAttributeRepositoryConfiguration {
     }
 
     private IPersonAttributeDao composeMergedAndCachedAttributeRepositories(final List<IPersonAttributeDao> list) {
-        final MergingPersonAttributeDaoImpl mergingDao = new MergingPersonAttributeDaoImpl();
+        final MergingPersonAttributeDaoImpl mergingDao = createMergingAttributeRepository(list);
 
         final String merger = StringUtils.defaultIfBlank(casProperties.getAuthn().getAttributeRepository().getMerger(), "replace".trim());
         LOGGER.debug("Configured merging strategy for attribute sources is [{}]", merger);
@@ -127,7 +148,6 @@ public class CasPersonDirectoryAttributeRepositoryConfiguration {
                 .expireAfterWrite(casProperties.getAuthn().getAttributeRepository().getExpireInMinutes(), TimeUnit.MINUTES)
                 .build();
         impl.setUserInfoCache(graphs.asMap());
-        mergingDao.setPersonAttributeDaos(list);
         impl.setCachedPersonAttributesDao(mergingDao);
 
         if (list.isEmpty()) {
@@ -140,6 +160,24 @@ public class CasPersonDirectoryAttributeRepositoryConfiguration {
         return impl;
     }
 
+    private MergingPersonAttributeDaoImpl createMergingAttributeRepository(final List<IPersonAttributeDao> list) {
+        final PrincipalAttributesProperties.Parallel parallel = casProperties.getAuthn().getAttributeRepository().getParallel();
+        if (!parallel.isEnabled() || list.size() < 2) {
+            final MergingPersonAttributeDaoImpl mergingDao = new MergingPersonAttributeDaoImpl();
+            mergingDao.setPersonAttributeDaos(list);
+            return mergingDao;
+        }
+
+        LOGGER.debug("Attribute repository sources will be queried in parallel by [{}] thread(s), waiting for [{}] ms",
+                parallel.getThreads(), parallel.getTimeoutInMillis());
+        final ParallelMergingPersonAttributeDaoImpl mergingDao =
+                new ParallelMergingPersonAttributeDaoImpl(list, parallel.getThreads(), parallel.getTimeoutInMillis());
+        if (this.metrics != null) {
+            mergingDao.registerMetrics(this.metrics);
+        }
+        return mergingDao;
+    }
+
     private void addStubAttributeRepositoryIfNothingElse(final List<IPersonAttributeDao> list) {
         if (!casProperties.getAuthn().getAttributeRepository().getAttributes().isEmpty() && list.isEmpty()) {
             final boolean foundAttrs = casProperties.getAuthn().getLdap().stream().filter(p ->
@@ -0,0 +1,162 @@
+package org.apereo.cas.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.OrderComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is {@link MultifactorAuthenticationProviderRegistry}. It holds the {@link MultifactorAuthenticationProvider}
+ * beans of the application context, so that providers are not located by scanning every bean definition
+ * of the context on each request. Providers are located once, and again after the context
+ * or the refresh scope is refreshed, or the environment changes.
+ * <p>
+ * Providers are kept by bean name, in order of rank, and the provider that matches a given identifier
+ * is remembered once it is looked up.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class MultifactorAuthenticationProviderRegistry {
+    /**
+     * The name of the registry bean.
+     */
+    public static final String BEAN_NAME = "multifactorAuthenticationProviderRegistry";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultifactorAuthenticationProviderRegistry.class);
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Providers providers;
+
+    /**
+     * Instantiates a new multifactor authentication provider registry.
+     *
+     * @param applicationContext the application context
+     */
+    public MultifactorAuthenticationProviderRegistry(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Gets the registry of the application context. A registry that locates providers
+     * anew is returned if the context defines none.
+     *
+     * @param applicationContext the application context
+     * @return the registry
+     */
+    public static MultifactorAuthenticationProviderRegistry getInstance(final ApplicationContext applicationContext) {
+        if (applicationContext.containsBean(BEAN_NAME)) {
+            return applicationContext.getBean(BEAN_NAME, MultifactorAuthenticationProviderRegistry.class);
+        }
+        return new MultifactorAuthenticationProviderRegistry(applicationContext);
+    }
+
+    /**
+     * Gets all providers, by bean name.
+     *
+     * @return the providers
+     */
+    public Map<String, MultifactorAuthenticationProvider> getProviders() {
+        return getOrLocateProviders().byName;
+    }
+
+    /**
+     * Gets all providers, in order of rank.
+     *
+     * @return the providers
+     */
+    public List<MultifactorAuthenticationProvider> getRankedProviders() {
+        return getOrLocateProviders().ranked;
+    }
+
+    /**
+     * Find the first provider that matches the identifier, such as {@code mfa-duo}.
+     *
+     * @param identifier the identifier
+     * @return the provider
+     */
+    public Optional<MultifactorAuthenticationProvider> findProvider(final String identifier) {
+        final Providers current = getOrLocateProviders();
+        return current.byIdentifier.computeIfAbsent(identifier,
+                id -> current.byName.values().stream().filter(p -> p.matches(id)).findFirst());
+    }
+
+    /**
+     * Discard the providers, so that they are located again once they are requested.
+     */
+    public void refresh() {
+        LOGGER.debug("Multifactor authentication providers will be located again");
+        this.providers = null;
+    }
+
+    /**
+     * Handle the refresh of the application context.
+     *
+     * @param event the event
+     */
+    @EventListener
+    public void handleContextRefreshedEvent(final ContextRefreshedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Handle the refresh of the refresh scope.
+     *
+     * @param event the event
+     */
+    @EventListener
+    public void handleRefreshScopeRefreshedEvent(final RefreshScopeRefreshedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Handle changes to the environment.
+     *
+     * @param event the event
+     */
+    @EventListener
+    public void handleEnvironmentChangeEvent(final EnvironmentChangeEvent event) {
+        refresh();
+    }
+
+    private Providers getOrLocateProviders() {
+        Providers current = this.providers;
+        if (current == null) {
+            current = new Providers(this.applicationContext.getBeansOfType(MultifactorAuthenticationProvider.class, false, true));
+            LOGGER.debug("Located multifactor authentication providers {}", current.byName.keySet());
+            this.providers = current;
+        }
+        return current;
+    }
+
+    /**
+     * Providers located at a given point in time, along with the providers matched by identifier.
+     */
+    private static class Providers {
+        private final Map<String, MultifactorAuthenticationProvider> byName;
+
+        private final List<MultifactorAuthenticationProvider> ranked;
+
+        private final Map<String, Optional<MultifactorAuthenticationProvider>> byIdentifier = new ConcurrentHashMap<>();
+
+        Providers(final Map<String, MultifactorAuthenticationProvider> providers) {
+            this.byName = Collections.unmodifiableMap(new LinkedHashMap<>(providers));
+            final List<MultifactorAuthenticationProvider> sorted = new ArrayList<>(providers.values());
+            OrderComparator.sort(sorted);
+            this.ranked = Collections.unmodifiableList(sorted);
+        }
+    }
+}
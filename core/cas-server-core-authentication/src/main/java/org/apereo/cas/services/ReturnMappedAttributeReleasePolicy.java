@@ -1,18 +1,15 @@
 package org.apereo.cas.services;
 
-import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apereo.cas.util.GroovyScriptCache;
 import org.apereo.cas.util.RegexUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
@@ -22,6 +19,7 @@ import java.util.regex.Pattern;
 /**
  * Return a collection of allowed attributes for the principal, but additionally,
  * offers the ability to rename attributes on a per-service level.
+ * Groovy scripts that produce attribute values are compiled once by {@link GroovyScriptCache}.
  *
  * @author Misagh Moayyed
  * @since 4.1.0
@@ -90,7 +88,7 @@ public class ReturnMappedAttributeReleasePolicy extends AbstractRegisteredServic
 
             if (matcherInline.find()) {
                 LOGGER.debug("Found inline groovy script to execute for attribute mapping {}", entry[0]);
-                final Object result = getGroovyAttributeValue(matcherInline.group(1), resolvedAttributes);
+                final Object result = getGroovyAttributeValue(matcherInline.group(1), null, resolvedAttributes);
                 if (result != null) {
                     LOGGER.debug("Mapped attribute {} to {} from script", entry[0], result);
                     attributesToRelease.put(entry[0].toString(), result);
@@ -98,18 +96,13 @@ public class ReturnMappedAttributeReleasePolicy extends AbstractRegisteredServic
                     LOGGER.warn("Groovy-scripted attribute returned no value for {}", entry[0]);
                 }
             } else if (matcherFile.find()) {
-                try {
-                    LOGGER.debug("Found groovy script to execute for attribute mapping {}", entry[0]);
-                    final String script = FileUtils.readFileToString(new File(matcherFile.group(1)), StandardCharsets.UTF_8);
-                    final Object result = getGroovyAttributeValue(script, resolvedAttributes);
-                    if (result != null) {
-                        LOGGER.debug("Mapped attribute {} to {} from script", entry[0], result);
-                        attributesToRelease.put(entry[0].toString(), result);
-                    } else {
-                        LOGGER.warn("Groovy-scripted attribute returned no value for {}", entry[0]);
-                    }
-                } catch (final IOException e) {
-                    LOGGER.error(e.getMessage(), e);
+                LOGGER.debug("Found groovy script to execute for attribute mapping {}", entry[0]);
+                final Object result = getGroovyAttributeValue(null, new File(matcherFile.group(1)), resolvedAttributes);
+                if (result != null) {
+                    LOGGER.debug("Mapped attribute {} to {} from script", entry[0], result);
+                    attributesToRelease.put(entry[0].toString(), result);
+                } else {
+                    LOGGER.warn("Groovy-scripted attribute returned no value for {}", entry[0]);
                 }
             } else {
                 LOGGER.debug("Found attribute [{}] in the list of allowed attributes, mapped to the name [{}]",
@@ -121,20 +114,20 @@ public class ReturnMappedAttributeReleasePolicy extends AbstractRegisteredServic
     }
 
     private static Object getGroovyAttributeValue(final String groovyScript,
-                                           final Map<String, Object> resolvedAttributes) {
+                                                  final File groovyFile,
+                                                  final Map<String, Object> resolvedAttributes) {
         try {
-            final Binding binding = new Binding();
-            final GroovyShell shell = new GroovyShell(binding);
-            binding.setVariable("attributes", resolvedAttributes);
-            final Object res = shell.evaluate(groovyScript);
-            return res;
+            final Map<String, Object> variables = Collections.singletonMap("attributes", resolvedAttributes);
+            if (groovyFile != null) {
+                return GroovyScriptCache.getInstance().evaluate(groovyFile, variables);
+            }
+            return GroovyScriptCache.getInstance().evaluate(groovyScript, variables);
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
         return null;
     }
 
-
     @Override
     public boolean equals(final Object obj) {
         if (obj == null) {
@@ -0,0 +1,271 @@
+package org.apereo.cas.util;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyObject;
+import groovy.lang.Script;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is {@link GroovyScriptCache}. It compiles groovy scripts once, whether inline or
+ * stored in files, and keeps their classes so that scripts may be run again without
+ * generating new classes. Script files are read as UTF-8, and are compiled again once they are
+ * modified, which is told by their modification time, size and content.
+ * <p>
+ * Each run creates a new instance of the compiled class, with its own binding or arguments,
+ * so that concurrent runs of a script share no state. Each script is compiled by its own
+ * class loader, which lets classes of scripts that are evicted or modified be unloaded.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class GroovyScriptCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroovyScriptCache.class);
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private static final String INLINE_PREFIX = "inline:";
+
+    private static final String FILE_PREFIX = "file:";
+
+    private static final long MODIFICATION_TIME_RESOLUTION = TimeUnit.SECONDS.toMillis(2);
+
+    private static final GroovyScriptCache INSTANCE = new GroovyScriptCache(DEFAULT_MAXIMUM_SIZE);
+
+    private final LoadingCache<String, CompiledScript> cache;
+
+    private final LongAdder executionCount = new LongAdder();
+
+    private final LongAdder executionTime = new LongAdder();
+
+    /**
+     * Instantiates a new groovy script cache.
+     *
+     * @param maximumSize the maximum number of compiled scripts that are kept
+     */
+    public GroovyScriptCache(final long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(new CacheLoader<String, CompiledScript>() {
+                    @Override
+                    public CompiledScript load(final String key) throws Exception {
+                        return compile(key);
+                    }
+                });
+    }
+
+    /**
+     * The cache that is shared by components that are not managed by the application context.
+     *
+     * @return the shared instance
+     */
+    public static GroovyScriptCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Evaluate an inline script, with the given variables bound to it.
+     *
+     * @param script    the script source
+     * @param variables the variables
+     * @return the result of the script
+     */
+    public Object evaluate(final String script, final Map<String, Object> variables) {
+        return run(getCompiledScript(INLINE_PREFIX + script), variables);
+    }
+
+    /**
+     * Evaluate a script file, with the given variables bound to it.
+     *
+     * @param file      the script file
+     * @param variables the variables
+     * @return the result of the script
+     */
+    public Object evaluate(final File file, final Map<String, Object> variables) {
+        return run(getCompiledScript(file), variables);
+    }
+
+    /**
+     * Invoke a method of an instance of the class defined by the script file.
+     *
+     * @param file       the script file
+     * @param methodName the method name
+     * @param args       the arguments
+     * @return the result of the method
+     */
+    public Object invokeMethod(final File file, final String methodName, final Object... args) {
+        final CompiledScript compiled = getCompiledScript(file);
+        final long start = System.nanoTime();
+        try {
+            final GroovyObject groovyObject = (GroovyObject) compiled.type.newInstance();
+            return groovyObject.invokeMethod(methodName, args);
+        } catch (final InstantiationException | IllegalAccessException e) {
+            throw Throwables.propagate(e);
+        } finally {
+            recordExecution(start);
+        }
+    }
+
+    /**
+     * Register gauges for the number of compiled scripts and their statistics, such as the
+     * number of compilations and the time they took as loads, along with the number of runs
+     * and the time they took on average in milliseconds.
+     *
+     * @param registry the registry
+     */
+    public void registerMetrics(final MetricRegistry registry) {
+        final String prefix = MetricRegistry.name(getClass());
+        MetricsUtils.registerCacheMetrics(registry, prefix, this.cache);
+        MetricsUtils.register(registry, MetricRegistry.name(prefix, "runs"), (Gauge<Long>) this::getExecutionCount);
+        MetricsUtils.register(registry, MetricRegistry.name(prefix, "averageRunTime"),
+                (Gauge<Double>) () -> (double) getTotalExecutionTime() / Math.max(1, getExecutionCount())
+                        / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /**
+     * The number of times scripts were run.
+     *
+     * @return the execution count
+     */
+    public long getExecutionCount() {
+        return this.executionCount.sum();
+    }
+
+    /**
+     * The total time scripts took to run.
+     *
+     * @return the execution time in nanoseconds
+     */
+    public long getTotalExecutionTime() {
+        return this.executionTime.sum();
+    }
+
+    /**
+     * Discard all compiled scripts.
+     */
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    private Object run(final CompiledScript compiled, final Map<String, Object> variables) {
+        final long start = System.nanoTime();
+        try {
+            final Binding binding = new Binding();
+            variables.forEach(binding::setVariable);
+            final Script script = InvokerHelper.createScript(compiled.type, binding);
+            return script.run();
+        } finally {
+            recordExecution(start);
+        }
+    }
+
+    private void recordExecution(final long start) {
+        this.executionCount.increment();
+        this.executionTime.add(System.nanoTime() - start);
+    }
+
+    private CompiledScript getCompiledScript(final File file) {
+        try {
+            final String key = FILE_PREFIX + file.getCanonicalPath();
+            final CompiledScript compiled = getCompiledScript(key);
+            if (compiled.isModified(file)) {
+                LOGGER.debug("Groovy script [{}] has been modified and will be compiled again", file);
+                this.cache.asMap().remove(key, compiled);
+                return getCompiledScript(key);
+            }
+            return compiled;
+        } catch (final IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private CompiledScript getCompiledScript(final String key) {
+        try {
+            return this.cache.get(key);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static CompiledScript compile(final String key) throws IOException {
+        try (GroovyClassLoader loader = new GroovyClassLoader(GroovyScriptCache.class.getClassLoader())) {
+            if (key.startsWith(FILE_PREFIX)) {
+                final File file = new File(key.substring(FILE_PREFIX.length()));
+                final long lastModified = file.lastModified();
+                final long length = file.length();
+                final byte[] content = Files.toByteArray(file);
+                LOGGER.debug("Compiling groovy script [{}]", file);
+                final Class type = loader.parseClass(new String(content, StandardCharsets.UTF_8), file.getName());
+                return new CompiledScript(type, lastModified, length, Hashing.sha256().hashBytes(content));
+            }
+            LOGGER.debug("Compiling inline groovy script");
+            return new CompiledScript(loader.parseClass(key.substring(INLINE_PREFIX.length())), 0, 0, null);
+        }
+    }
+
+    private static HashCode hash(final File file) throws IOException {
+        return Files.asByteSource(file).hash(Hashing.sha256());
+    }
+
+    /**
+     * The class of a compiled script, along with the state of its file.
+     * The content of the file is compared when its modification time and size have not changed,
+     * since modification times may be too coarse to tell files that are written in quick succession apart.
+     * Once the modification time is old enough that later writes are bound to change it, the content
+     * is compared one last time and then no longer read.
+     */
+    private static class CompiledScript {
+        private final Class type;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final HashCode hash;
+
+        private volatile boolean settled;
+
+        CompiledScript(final Class type, final long lastModified, final long length, final HashCode hash) {
+            this.type = type;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        boolean isModified(final File file) throws IOException {
+            if (file.lastModified() != this.lastModified || file.length() != this.length) {
+                return true;
+            }
+            if (this.settled) {
+                return false;
+            }
+            final boolean settledBeforeRead = System.currentTimeMillis() - this.lastModified > MODIFICATION_TIME_RESOLUTION;
+            if (!hash(file).equals(this.hash)) {
+                return true;
+            }
+            this.settled = settledBeforeRead;
+            return false;
+        }
+    }
+}
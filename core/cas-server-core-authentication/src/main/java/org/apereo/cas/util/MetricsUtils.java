@@ -0,0 +1,56 @@
+package org.apereo.cas.util;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link MetricsUtils}. It registers metrics so that registering them again,
+ * such as when a bean is refreshed, replaces the metrics that were previously registered.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public final class MetricsUtils {
+
+    private MetricsUtils() {
+    }
+
+    /**
+     * Register the metric under the given name, replacing any metric already registered under it.
+     *
+     * @param <T>      the type of the metric
+     * @param registry the registry
+     * @param name     the name
+     * @param metric   the metric
+     * @return the metric
+     */
+    public static <T extends Metric> T register(final MetricRegistry registry, final String name, final T metric) {
+        registry.remove(name);
+        return registry.register(name, metric);
+    }
+
+    /**
+     * Register gauges for the size of the cache and its statistics, such as hits, misses,
+     * loads and the average time loads took in milliseconds. Statistics are only recorded
+     * by caches that are built to record them.
+     *
+     * @param registry the registry
+     * @param prefix   the prefix of the names of the gauges
+     * @param cache    the cache
+     */
+    public static void registerCacheMetrics(final MetricRegistry registry, final String prefix, final Cache<?, ?> cache) {
+        register(registry, MetricRegistry.name(prefix, "size"), (Gauge<Long>) cache::size);
+        register(registry, MetricRegistry.name(prefix, "hits"), (Gauge<Long>) () -> cache.stats().hitCount());
+        register(registry, MetricRegistry.name(prefix, "misses"), (Gauge<Long>) () -> cache.stats().missCount());
+        register(registry, MetricRegistry.name(prefix, "hitRate"), (Gauge<Double>) () -> cache.stats().hitRate());
+        register(registry, MetricRegistry.name(prefix, "loads"), (Gauge<Long>) () -> cache.stats().loadCount());
+        register(registry, MetricRegistry.name(prefix, "loadFailures"), (Gauge<Long>) () -> cache.stats().loadExceptionCount());
+        register(registry, MetricRegistry.name(prefix, "averageLoadTime"),
+                (Gauge<Double>) () -> cache.stats().averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        register(registry, MetricRegistry.name(prefix, "evictions"), (Gauge<Long>) () -> cache.stats().evictionCount());
+    }
+}
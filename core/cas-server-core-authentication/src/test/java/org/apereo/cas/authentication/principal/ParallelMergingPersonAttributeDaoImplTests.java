@@ -0,0 +1,134 @@
+package org.apereo.cas.authentication.principal;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import org.apereo.services.persondir.IPersonAttributeDao;
+import org.apereo.services.persondir.IPersonAttributes;
+import org.apereo.services.persondir.support.StubPersonAttributeDao;
+import org.apereo.services.persondir.support.merger.MultivaluedAttributeMerger;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link ParallelMergingPersonAttributeDaoImplTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class ParallelMergingPersonAttributeDaoImplTests {
+
+    private static final String UID = "uid";
+
+    private static final long DELAY = 500;
+
+    private static final Map<String, List<Object>> QUERY = Collections.singletonMap("username", Collections.singletonList("casuser"));
+
+    @Test
+    public void verifySourcesAreQueriedInParallelAndMergedInOrder() {
+        final ParallelMergingPersonAttributeDaoImpl dao = new ParallelMergingPersonAttributeDaoImpl(
+                Lists.newArrayList(new DelayedPersonAttributeDao("first", DELAY), new DelayedPersonAttributeDao("second", DELAY),
+                        new DelayedPersonAttributeDao("third", DELAY)), 3, 5000);
+        dao.setMerger(new MultivaluedAttributeMerger());
+        try {
+            final long start = System.currentTimeMillis();
+            final Set<IPersonAttributes> people = dao.getPeopleWithMultivaluedAttributes(QUERY);
+            assertTrue(System.currentTimeMillis() - start < DELAY * 2);
+            assertEquals(Lists.newArrayList("first", "second", "third"), people.iterator().next().getAttributeValues(UID));
+            dao.getLatencies().forEach(timer -> assertEquals(1, timer.getCount()));
+        } finally {
+            dao.close();
+        }
+    }
+
+    @Test
+    public void verifySlowSourcesAreSkipped() {
+        final ParallelMergingPersonAttributeDaoImpl dao = new ParallelMergingPersonAttributeDaoImpl(
+                Lists.newArrayList(new DelayedPersonAttributeDao("first", 0), new DelayedPersonAttributeDao("slow", DELAY * 10),
+                        new DelayedPersonAttributeDao("third", 0)), 3, DELAY);
+        dao.setMerger(new MultivaluedAttributeMerger());
+        try {
+            final Set<IPersonAttributes> people = dao.getPeopleWithMultivaluedAttributes(QUERY);
+            assertEquals(Lists.newArrayList("first", "third"), people.iterator().next().getAttributeValues(UID));
+            assertEquals(1, dao.getTimeouts().get(1).getCount());
+            assertEquals(0, dao.getTimeouts().get(0).getCount());
+        } finally {
+            dao.close();
+        }
+    }
+
+    @Test
+    public void verifyFailingSourcesAreRecovered() {
+        final IPersonAttributeDao failing = new DelayedPersonAttributeDao("failing", 0) {
+            @Override
+            public Set<IPersonAttributes> getPeopleWithMultivaluedAttributes(final Map<String, List<Object>> query) {
+                throw new IllegalStateException("Source is unavailable");
+            }
+        };
+        final ParallelMergingPersonAttributeDaoImpl dao = new ParallelMergingPersonAttributeDaoImpl(
+                Lists.newArrayList(failing, new DelayedPersonAttributeDao("second", 0)), 2, DELAY);
+        try {
+            final Set<IPersonAttributes> people = dao.getPeopleWithMultivaluedAttributes(QUERY);
+            assertEquals(Collections.singletonList("second"), people.iterator().next().getAttributeValues(UID));
+
+            dao.setRecoverExceptions(false);
+            try {
+                dao.getPeopleWithMultivaluedAttributes(QUERY);
+                fail("Exception should have been thrown");
+            } catch (final IllegalStateException e) {
+                assertEquals("Source is unavailable", e.getMessage());
+            }
+        } finally {
+            dao.close();
+        }
+    }
+
+    @Test
+    public void verifyMetricsAreRegistered() {
+        final ParallelMergingPersonAttributeDaoImpl dao = new ParallelMergingPersonAttributeDaoImpl(
+                Lists.newArrayList(new DelayedPersonAttributeDao("first", 0), new DelayedPersonAttributeDao("second", 0)), 2, DELAY);
+        try {
+            final MetricRegistry registry = new MetricRegistry();
+            dao.registerMetrics(registry);
+            assertEquals(2, registry.getTimers().size());
+            assertEquals(2, registry.getCounters().size());
+
+            final ParallelMergingPersonAttributeDaoImpl refreshed = new ParallelMergingPersonAttributeDaoImpl(
+                    Lists.newArrayList(new DelayedPersonAttributeDao("first", 0), new DelayedPersonAttributeDao("second", 0)), 2, DELAY);
+            try {
+                refreshed.registerMetrics(registry);
+                assertEquals(2, registry.getTimers().size());
+                assertSame(refreshed.getLatencies().get(0), registry.getTimers().values().iterator().next());
+            } finally {
+                refreshed.close();
+            }
+        } finally {
+            dao.close();
+        }
+    }
+
+    private static class DelayedPersonAttributeDao extends StubPersonAttributeDao {
+        private final long delay;
+
+        DelayedPersonAttributeDao(final String value, final long delay) {
+            super(Collections.singletonMap(UID, Collections.singletonList(value)));
+            this.delay = delay;
+        }
+
+        @Override
+        public Set<IPersonAttributes> getPeopleWithMultivaluedAttributes(final Map<String, List<Object>> query) {
+            try {
+                Thread.sleep(this.delay);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return super.getPeopleWithMultivaluedAttributes(query);
+        }
+    }
+}
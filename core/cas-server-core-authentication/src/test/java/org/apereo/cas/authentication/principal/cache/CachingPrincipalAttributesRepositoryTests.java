@@ -1,15 +1,24 @@
 package org.apereo.cas.authentication.principal.cache;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.commons.io.FileUtils;
+import org.apereo.cas.authentication.principal.DefaultPrincipalFactory;
+import org.apereo.cas.authentication.principal.Principal;
 import org.apereo.cas.authentication.principal.PrincipalAttributesRepository;
+import org.apereo.services.persondir.IPersonAttributeDao;
+import org.apereo.services.persondir.IPersonAttributes;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Handles tests for {@link CachingPrincipalAttributesRepository}.
@@ -21,6 +30,10 @@ public class CachingPrincipalAttributesRepositoryTests extends AbstractCachingPr
     private static final File JSON_FILE = new File(FileUtils.getTempDirectoryPath(), "cachingPrincipalAttributesRepository.json");
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    private static final long REFRESH_TEST_EXPIRATION = 10;
+
+    private static final int REFRESH_TEST_AHEAD_PERCENT = 80;
+
     @Override
     protected AbstractPrincipalAttributesRepository getPrincipalAttributesRepository(final String unit, final long duration) {
         final CachingPrincipalAttributesRepository repo = new CachingPrincipalAttributesRepository(unit, duration);
@@ -38,4 +51,84 @@ public class CachingPrincipalAttributesRepositoryTests extends AbstractCachingPr
 
         assertEquals(repositoryWritten, repositoryRead);
     }
+
+    @Test
+    public void verifyPrincipalsWithoutAttributesAreCached() throws Exception {
+        final IPersonAttributeDao emptyDao = mock(IPersonAttributeDao.class);
+        final Principal principal = new DefaultPrincipalFactory().createPrincipal("nobody");
+        try (CachingPrincipalAttributesRepository repository = new CachingPrincipalAttributesRepository(TimeUnit.SECONDS.name(), 5)) {
+            repository.setAttributeRepository(emptyDao);
+            assertTrue(repository.getAttributes(principal).isEmpty());
+            assertTrue(repository.getAttributes(principal).isEmpty());
+        }
+        verify(emptyDao, times(1)).getPerson("nobody");
+    }
+
+    @Test
+    public void verifyCacheIsSharedByRepositoriesWithSameConfiguration() throws Exception {
+        final Principal principal = new DefaultPrincipalFactory().createPrincipal("shared");
+        try (CachingPrincipalAttributesRepository first = new CachingPrincipalAttributesRepository(TimeUnit.SECONDS.name(), 5);
+             CachingPrincipalAttributesRepository second = new CachingPrincipalAttributesRepository(TimeUnit.SECONDS.name(), 5);
+             CachingPrincipalAttributesRepository other = new CachingPrincipalAttributesRepository(TimeUnit.SECONDS.name(), 10)) {
+            first.setAttributeRepository(this.dao);
+            second.setAttributeRepository(this.dao);
+            other.setAttributeRepository(this.dao);
+
+            assertFalse(first.getAttributes(principal).isEmpty());
+            assertEquals(first.getAttributes(principal), second.getAttributes(principal));
+            verify(this.dao, times(1)).getPerson("shared");
+
+            assertFalse(other.getAttributes(principal).isEmpty());
+            verify(this.dao, times(2)).getPerson("shared");
+        }
+    }
+
+    @Test
+    public void verifyAttributesAreRefreshedAheadOfExpiration() throws Exception {
+        final Principal principal = new DefaultPrincipalFactory().createPrincipal("refreshed");
+        final IPersonAttributeDao changingDao = mock(IPersonAttributeDao.class);
+        final IPersonAttributes before = mock(IPersonAttributes.class);
+        when(before.getAttributes()).thenReturn(Collections.singletonMap("mail", Collections.singletonList("before@example.org")));
+        final IPersonAttributes after = mock(IPersonAttributes.class);
+        when(after.getAttributes()).thenReturn(Collections.singletonMap("mail", Collections.singletonList("after@example.org")));
+        when(changingDao.getPerson("refreshed")).thenReturn(before, after);
+
+        final FakeTicker ticker = new FakeTicker();
+        final MetricRegistry metrics = new MetricRegistry();
+        try (CachingPrincipalAttributesRepository repository =
+                     new CachingPrincipalAttributesRepository(TimeUnit.SECONDS.name(), REFRESH_TEST_EXPIRATION);
+             PrincipalAttributesCache cache = new PrincipalAttributesCache(10, REFRESH_TEST_AHEAD_PERCENT,
+                     MoreExecutors.newDirectExecutorService(), ticker)) {
+            repository.setAttributeRepository(changingDao);
+            cache.registerMetrics(metrics);
+            assertEquals("before@example.org", cache.get(repository, changingDao, principal).get("mail"));
+
+            ticker.advance(REFRESH_TEST_EXPIRATION * REFRESH_TEST_AHEAD_PERCENT / 100 - 1, TimeUnit.SECONDS);
+            assertEquals("before@example.org", cache.get(repository, changingDao, principal).get("mail"));
+            verify(changingDao, times(1)).getPerson("refreshed");
+
+            ticker.advance(1, TimeUnit.SECONDS);
+            assertEquals("before@example.org", cache.get(repository, changingDao, principal).get("mail"));
+            verify(changingDao, times(2)).getPerson("refreshed");
+            assertEquals("after@example.org", cache.get(repository, changingDao, principal).get("mail"));
+
+            final String prefix = MetricRegistry.name(PrincipalAttributesCache.class);
+            assertEquals(1L, metrics.getGauges().get(MetricRegistry.name(prefix, "size")).getValue());
+            assertEquals(2L, metrics.getGauges().get(MetricRegistry.name(prefix, "loads")).getValue());
+            assertEquals(3L, metrics.getGauges().get(MetricRegistry.name(prefix, "hits")).getValue());
+        }
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return this.nanos;
+        }
+
+        void advance(final long duration, final TimeUnit unit) {
+            this.nanos += unit.toNanos(duration);
+        }
+    }
 }
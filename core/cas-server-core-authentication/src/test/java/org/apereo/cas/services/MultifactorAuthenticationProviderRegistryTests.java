@@ -0,0 +1,72 @@
+package org.apereo.cas.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link MultifactorAuthenticationProviderRegistryTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class MultifactorAuthenticationProviderRegistryTests {
+
+    private StaticApplicationContext applicationContext;
+
+    private MultifactorAuthenticationProviderRegistry registry;
+
+    @Before
+    public void setUp() {
+        this.applicationContext = new StaticApplicationContext();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(this.applicationContext);
+        this.applicationContext.getBeanFactory().registerSingleton("duoProvider", newProvider("mfa-duo", 10));
+        this.applicationContext.getBeanFactory().registerSingleton("gauthProvider", newProvider("mfa-gauth", 1));
+        this.registry = new MultifactorAuthenticationProviderRegistry(this.applicationContext);
+        this.applicationContext.getBeanFactory().registerSingleton(MultifactorAuthenticationProviderRegistry.BEAN_NAME, this.registry);
+        this.applicationContext.refresh();
+    }
+
+    @Test
+    public void verifyProvidersAreRankedAndFound() {
+        assertEquals(2, this.registry.getProviders().size());
+        assertEquals("mfa-gauth", this.registry.getRankedProviders().get(0).getId());
+        assertEquals("mfa-duo", this.registry.findProvider("mfa-duo").get().getId());
+        assertFalse(this.registry.findProvider("mfa-unknown").isPresent());
+        assertSame(this.registry, MultifactorAuthenticationProviderRegistry.getInstance(this.applicationContext));
+    }
+
+    @Test
+    public void verifyProvidersAreLocatedOnceUntilRefreshed() {
+        final Optional<MultifactorAuthenticationProvider> duo = this.registry.findProvider("mfa-duo");
+        this.applicationContext.getBeanFactory().registerSingleton("radiusProvider", newProvider("mfa-radius", 5));
+        assertEquals(2, this.registry.getProviders().size());
+        assertSame(duo.get(), this.registry.findProvider("mfa-duo").get());
+        assertFalse(this.registry.findProvider("mfa-radius").isPresent());
+
+        this.applicationContext.publishEvent(new RefreshScopeRefreshedEvent());
+        assertEquals(3, this.registry.getProviders().size());
+        assertEquals("mfa-radius", this.registry.getRankedProviders().get(1).getId());
+        assertTrue(this.registry.findProvider("mfa-radius").isPresent());
+    }
+
+    private static MultifactorAuthenticationProvider newProvider(final String id, final int order) {
+        final AbstractMultifactorAuthenticationProvider provider = new AbstractMultifactorAuthenticationProvider() {
+            private static final long serialVersionUID = -2346283449302826452L;
+
+            @Override
+            protected boolean isAvailable() {
+                return true;
+            }
+        };
+        provider.setId(id);
+        provider.setOrder(order);
+        return provider;
+    }
+}
@@ -0,0 +1,121 @@
+package org.apereo.cas.util;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link GroovyScriptCacheTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class GroovyScriptCacheTests {
+
+    private static final Map<String, Object> VARIABLES = Collections.singletonMap("attributes",
+            Collections.singletonMap("uid", "casuser"));
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private GroovyScriptCache newCache() {
+        final GroovyScriptCache cache = new GroovyScriptCache(10);
+        cache.registerMetrics(this.metrics);
+        return cache;
+    }
+
+    private Object getMetric(final String name) {
+        return this.metrics.getGauges().get(MetricRegistry.name(GroovyScriptCache.class, name)).getValue();
+    }
+
+    @Test
+    public void verifyInlineScriptIsCompiledOnce() {
+        final GroovyScriptCache cache = newCache();
+        assertEquals("CASUSER", cache.evaluate("attributes['uid'].toUpperCase()", VARIABLES));
+        assertEquals("casuser", cache.evaluate("attributes['uid'].toLowerCase()", VARIABLES));
+        assertEquals("CASUSER", cache.evaluate("attributes['uid'].toUpperCase()",
+                Collections.singletonMap("attributes", Collections.singletonMap("uid", "casuser"))));
+        assertEquals(2L, getMetric("loads"));
+        assertEquals(3L, getMetric("runs"));
+        assertTrue(cache.getTotalExecutionTime() > 0);
+    }
+
+    @Test
+    public void verifyModifiedScriptFileIsCompiledAgain() throws Exception {
+        final File file = File.createTempFile("groovyScriptCache", ".groovy");
+        file.deleteOnExit();
+        FileUtils.write(file, "attributes['uid'] + '-1'", StandardCharsets.UTF_8);
+
+        final GroovyScriptCache cache = newCache();
+        assertEquals("casuser-1", cache.evaluate(file, VARIABLES));
+        assertEquals("casuser-1", cache.evaluate(file, VARIABLES));
+        assertEquals(1L, getMetric("loads"));
+
+        FileUtils.write(file, "attributes['uid'] + '-22'", StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertEquals("casuser-22", cache.evaluate(file, VARIABLES));
+        assertEquals(2L, getMetric("loads"));
+    }
+
+    @Test
+    public void verifyScriptFileWithSameModificationTimeAndSizeIsCompiledAgain() throws Exception {
+        final File file = File.createTempFile("groovyScriptCache", ".groovy");
+        file.deleteOnExit();
+        FileUtils.write(file, "attributes['uid'] + '-1'", StandardCharsets.UTF_8);
+        final long lastModified = file.lastModified();
+
+        final GroovyScriptCache cache = newCache();
+        assertEquals("casuser-1", cache.evaluate(file, VARIABLES));
+
+        FileUtils.write(file, "attributes['uid'] + '-2'", StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals("casuser-2", cache.evaluate(file, VARIABLES));
+        assertEquals(2L, getMetric("loads"));
+        assertEquals("casuser-2", cache.evaluate(file, VARIABLES));
+        assertEquals(2L, getMetric("loads"));
+    }
+
+    @Test
+    public void verifyScriptFileIsNotReadAgainOnceItsModificationTimeIsSettled() throws Exception {
+        final File file = File.createTempFile("groovyScriptCache", ".groovy");
+        file.deleteOnExit();
+        FileUtils.write(file, "attributes['uid'] + '-1'", StandardCharsets.UTF_8);
+        final long lastModified = file.lastModified() - 10000;
+        assertTrue(file.setLastModified(lastModified));
+
+        final GroovyScriptCache cache = newCache();
+        assertEquals("casuser-1", cache.evaluate(file, VARIABLES));
+        assertEquals("casuser-1", cache.evaluate(file, VARIABLES));
+
+        FileUtils.write(file, "attributes['uid'] + '-2'", StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals("casuser-1", cache.evaluate(file, VARIABLES));
+        assertEquals(1L, getMetric("loads"));
+    }
+
+    @Test
+    public void verifyScriptFileIsReadAsUtf8() throws Exception {
+        final File file = File.createTempFile("groovyScriptCache", ".groovy");
+        file.deleteOnExit();
+        FileUtils.write(file, "attributes['uid'] + '-\u00e9\u00df'", StandardCharsets.UTF_8);
+        assertEquals("casuser-\u00e9\u00df", newCache().evaluate(file, VARIABLES));
+    }
+
+    @Test
+    public void verifyMethodIsInvokedOnNewInstances() throws Exception {
+        final File file = File.createTempFile("groovyScriptCache", ".groovy");
+        file.deleteOnExit();
+        FileUtils.write(file, "class Counter { int count\n def run(Object... args) { ++count } }", StandardCharsets.UTF_8);
+
+        final GroovyScriptCache cache = newCache();
+        assertEquals(1, cache.invokeMethod(file, "run", "first"));
+        assertEquals(1, cache.invokeMethod(file, "run", "second"));
+        assertEquals(1L, getMetric("loads"));
+    }
+}
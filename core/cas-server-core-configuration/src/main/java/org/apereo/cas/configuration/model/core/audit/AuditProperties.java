@@ -78,6 +78,8 @@ public class AuditProperties {
         private String isolationLevelName = "ISOLATION_READ_COMMITTED";
         private String propagationBehaviorName = "PROPAGATION_REQUIRED";
 
+        private Queue queue = new Queue();
+
         public int getMaxAgeDays() {
             return maxAgeDays;
         }
@@ -101,5 +103,79 @@ public class AuditProperties {
         public void setIsolationLevelName(final String isolationLevelName) {
             this.isolationLevelName = isolationLevelName;
         }
+
+        public Queue getQueue() {
+            return queue;
+        }
+
+        public void setQueue(final Queue queue) {
+            this.queue = queue;
+        }
+    }
+
+    public static class Queue {
+        private boolean enabled = true;
+        private int capacity = 10000;
+        private int batchSize = 100;
+        private long flushInterval = 1000;
+        private long shutdownTimeout = 10000;
+        private String overflowPolicy = "BLOCK";
+        private String spillFile = "";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(final long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public long getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(final long shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+
+        public String getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(final String overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public String getSpillFile() {
+            return spillFile;
+        }
+
+        public void setSpillFile(final String spillFile) {
+            this.spillFile = spillFile;
+        }
     }
 }
@@ -33,6 +33,26 @@ public class PrincipalAttributesProperties {
     private List<Ldap> ldap = new ArrayList();
     private List<Json> json = new ArrayList();
 
+    private PrincipalAttributesCache principalAttributesCache = new PrincipalAttributesCache();
+
+    private Parallel parallel = new Parallel();
+
+    public Parallel getParallel() {
+        return parallel;
+    }
+
+    public void setParallel(final Parallel parallel) {
+        this.parallel = parallel;
+    }
+
+    public PrincipalAttributesCache getPrincipalAttributesCache() {
+        return principalAttributesCache;
+    }
+
+    public void setPrincipalAttributesCache(final PrincipalAttributesCache principalAttributesCache) {
+        this.principalAttributesCache = principalAttributesCache;
+    }
+
     public List<Groovy> getGroovy() {
         return groovy;
     }
@@ -105,6 +125,66 @@ public class PrincipalAttributesProperties {
         this.defaultAttributesToRelease = defaultAttributesToRelease;
     }
 
+    public static class Parallel {
+        private boolean enabled;
+        private int threads = 10;
+        private long timeoutInMillis = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(final int threads) {
+            this.threads = threads;
+        }
+
+        public long getTimeoutInMillis() {
+            return timeoutInMillis;
+        }
+
+        public void setTimeoutInMillis(final long timeoutInMillis) {
+            this.timeoutInMillis = timeoutInMillis;
+        }
+    }
+
+    public static class PrincipalAttributesCache {
+        private long maximumSize = 10000;
+        private int refreshAheadPercent = 80;
+        private int refreshThreads = 2;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(final long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public int getRefreshAheadPercent() {
+            return refreshAheadPercent;
+        }
+
+        public void setRefreshAheadPercent(final int refreshAheadPercent) {
+            this.refreshAheadPercent = refreshAheadPercent;
+        }
+
+        public int getRefreshThreads() {
+            return refreshThreads;
+        }
+
+        public void setRefreshThreads(final int refreshThreads) {
+            this.refreshThreads = refreshThreads;
+        }
+    }
+
     public static class Jdbc extends AbstractJpaProperties {
         private String sql;
         private boolean singleRow = true;
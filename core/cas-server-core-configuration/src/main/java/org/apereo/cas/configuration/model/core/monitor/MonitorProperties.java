@@ -26,6 +26,8 @@ public class MonitorProperties {
     private Jdbc jdbc = new Jdbc();
     
     private Ldap ldap = new Ldap();
+
+    private SsoSessions ssoSessions = new SsoSessions();
     
     public Jdbc getJdbc() {
         return jdbc;
@@ -75,6 +77,35 @@ public class MonitorProperties {
         this.ldap = ldap;
     }
 
+    public SsoSessions getSsoSessions() {
+        return ssoSessions;
+    }
+
+    public void setSsoSessions(final SsoSessions ssoSessions) {
+        this.ssoSessions = ssoSessions;
+    }
+
+    public static class SsoSessions {
+        private int pageSize = 1000;
+        private int maxPageSize = 10000;
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(final int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(final int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+    }
+
     public static class St {
         @NestedConfigurationProperty
         private Warn warn = new Warn(5000);
@@ -39,6 +39,8 @@ public class ServiceRegistryProperties extends AbstractConfigProperties {
 
     private boolean watcherEnabled = true;
 
+    private long cacheSize = 10_000;
+
     /**
      * Instantiates a new Service registry properties.
      */
@@ -62,6 +64,14 @@ public class ServiceRegistryProperties extends AbstractConfigProperties {
         this.watcherEnabled = watcherEnabled;
     }
 
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(final long cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
     public long getStartDelay() {
         return Beans.newDuration(startDelay).toMillis();
     }
@@ -12,6 +12,7 @@ public class TicketGrantingTicketProperties {
     private int maxTimeToLiveInSeconds = 28_800;
     private int timeToKillInSeconds = 7_200;
     private boolean onlyTrackMostRecentSession = true;
+    private int maxUpdateAttempts = 3;
 
     private HardTimeout hardTimeout = new HardTimeout();
     private ThrottledTimeout throttledTimeout = new ThrottledTimeout();
@@ -74,6 +75,14 @@ public class TicketGrantingTicketProperties {
         this.maxTimeToLiveInSeconds = maxTimeToLiveInSeconds;
     }
 
+    public int getMaxUpdateAttempts() {
+        return maxUpdateAttempts;
+    }
+
+    public void setMaxUpdateAttempts(final int maxUpdateAttempts) {
+        this.maxUpdateAttempts = maxUpdateAttempts;
+    }
+
     public int getMaxLength() {
         return maxLength;
     }
@@ -44,6 +44,19 @@ public class TicketRegistryProperties {
     private InMemory inMemory = new InMemory();
     private Cleaner cleaner = new Cleaner();
 
+    /**
+     * How tickets are serialized before they are encrypted: {@code JAVA} or {@code COMPACT}.
+     */
+    private String serializer = "JAVA";
+
+    public String getSerializer() {
+        return serializer;
+    }
+
+    public void setSerializer(final String serializer) {
+        this.serializer = serializer;
+    }
+
     public InMemory getInMemory() {
         return inMemory;
     }
@@ -161,6 +174,8 @@ public class TicketRegistryProperties {
         private boolean enabled = true;
         private String startDelay = "PT10S";
         private String repeatInterval = "PT1M";
+        private int batchSize = 500;
+        private int maxTicketsPerRun = 10000;
 
         private String appId = "cas-ticket-registry-cleaner";
 
@@ -195,5 +210,21 @@ public class TicketRegistryProperties {
         public void setRepeatInterval(final String repeatInterval) {
             this.repeatInterval = repeatInterval;
         }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxTicketsPerRun() {
+            return maxTicketsPerRun;
+        }
+
+        public void setMaxTicketsPerRun(final int maxTicketsPerRun) {
+            this.maxTicketsPerRun = maxTicketsPerRun;
+        }
     }
 }
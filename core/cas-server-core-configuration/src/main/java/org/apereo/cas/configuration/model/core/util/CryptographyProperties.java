@@ -15,6 +15,8 @@ public class CryptographyProperties {
 
     private String alg = "AES";
 
+    private boolean authenticatedEncryption;
+
     public Encryption getEncryption() {
         return encryption;
     }
@@ -39,6 +41,14 @@ public class CryptographyProperties {
         this.alg = alg;
     }
 
+    public boolean isAuthenticatedEncryption() {
+        return authenticatedEncryption;
+    }
+
+    public void setAuthenticatedEncryption(final boolean authenticatedEncryption) {
+        this.authenticatedEncryption = authenticatedEncryption;
+    }
+
     /**
      * Encryption.
      */
@@ -16,8 +16,13 @@ public class JpaTicketRegistryProperties extends AbstractJpaProperties {
 
     /** Default lock timeout is 1 hour. */
     public static final String DEFAULT_LOCK_TIMEOUT = "PT1H";
+
+    /** Default JDBC batch size, allowing tickets written in the same transaction to be sent together. */
+    public static final String DEFAULT_BATCH_SIZE = "50";
     
     private boolean jpaLockingTgtEnabled = true;
+
+    private boolean jpaLockingTgtOptimistic;
     
     private String jpaLockingTimeout = DEFAULT_LOCK_TIMEOUT;
 
@@ -26,6 +31,7 @@ public class JpaTicketRegistryProperties extends AbstractJpaProperties {
 
     public JpaTicketRegistryProperties() {
         super.setUrl("jdbc:hsqldb:mem:cas-ticket-registry");
+        super.setBatchSize(DEFAULT_BATCH_SIZE);
     }
     
     public CryptographyProperties getCrypto() {
@@ -44,6 +50,14 @@ public class JpaTicketRegistryProperties extends AbstractJpaProperties {
         this.jpaLockingTgtEnabled = jpaLockingTgtEnabled;
     }
 
+    public boolean isJpaLockingTgtOptimistic() {
+        return jpaLockingTgtOptimistic;
+    }
+
+    public void setJpaLockingTgtOptimistic(final boolean jpaLockingTgtOptimistic) {
+        this.jpaLockingTgtOptimistic = jpaLockingTgtOptimistic;
+    }
+
     public long getJpaLockingTimeout() {
         return Beans.newDuration(jpaLockingTimeout).getSeconds();
     }
@@ -15,6 +15,8 @@ public class MemcachedTicketRegistryProperties {
     private String failureMode = "Redistribute";
     private String locatorType = "ARRAY_MOD";
     private String hashAlgorithm = "FNV1_64_HASH";
+    private int kryoCompressionThreshold;
+    private boolean kryoRegistrationRequired;
 
     @NestedConfigurationProperty
     private CryptographyProperties crypto = new CryptographyProperties();
@@ -58,7 +60,20 @@ public class MemcachedTicketRegistryProperties {
     public void setHashAlgorithm(final String hashAlgorithm) {
         this.hashAlgorithm = hashAlgorithm;
     }
-}
 
+    public int getKryoCompressionThreshold() {
+        return kryoCompressionThreshold;
+    }
 
+    public void setKryoCompressionThreshold(final int kryoCompressionThreshold) {
+        this.kryoCompressionThreshold = kryoCompressionThreshold;
+    }
 
+    public boolean isKryoRegistrationRequired() {
+        return kryoRegistrationRequired;
+    }
+
+    public void setKryoRegistrationRequired(final boolean kryoRegistrationRequired) {
+        this.kryoRegistrationRequired = kryoRegistrationRequired;
+    }
+}
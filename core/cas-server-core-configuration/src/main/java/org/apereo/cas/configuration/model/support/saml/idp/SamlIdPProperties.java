@@ -76,6 +76,8 @@ public class SamlIdPProperties {
         private boolean failFast = true;
         private boolean requireValidMetadata = true;
         private long cacheExpirationMinutes = 30;
+        private long cacheRefreshAheadMinutes = 5;
+        private long cacheMaximumSize = 500;
         private Resource location = new FileSystemResource("/etc/cas/saml");
         private String privateKeyAlgName = "RSA";
         private String basicAuthnUsername;
@@ -106,6 +108,22 @@ public class SamlIdPProperties {
             this.cacheExpirationMinutes = cacheExpirationMinutes;
         }
 
+        public long getCacheRefreshAheadMinutes() {
+            return cacheRefreshAheadMinutes;
+        }
+
+        public void setCacheRefreshAheadMinutes(final long cacheRefreshAheadMinutes) {
+            this.cacheRefreshAheadMinutes = cacheRefreshAheadMinutes;
+        }
+
+        public long getCacheMaximumSize() {
+            return cacheMaximumSize;
+        }
+
+        public void setCacheMaximumSize(final long cacheMaximumSize) {
+            this.cacheMaximumSize = cacheMaximumSize;
+        }
+
         public Resource getLocation() {
             return location;
         }
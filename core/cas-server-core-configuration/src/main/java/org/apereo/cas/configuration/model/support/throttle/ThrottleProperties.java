@@ -18,6 +18,7 @@ public class ThrottleProperties {
         
     private Failure failure = new Failure();
     private Jdbc jdbc = new Jdbc();
+    private Bucket bucket = new Bucket();
     
     private String usernameParameter;
     private String appcode = DEFAULT_APPLICATION_CODE;
@@ -33,6 +34,14 @@ public class ThrottleProperties {
         return failure;
     }
 
+    public Bucket getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(final Bucket bucket) {
+        this.bucket = bucket;
+    }
+
     public void setFailure(final Failure failure) {
         this.failure = failure;
     }
@@ -69,6 +78,32 @@ public class ThrottleProperties {
         this.startDelay = startDelay;
     }
 
+    /**
+     * Token buckets of the in-memory throttle.
+     */
+    public static class Bucket {
+        private static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+        private int capacity = 1;
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(final int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
     /**
      * Failure.
      */
@@ -105,9 +140,20 @@ public class ThrottleProperties {
     public static class Jdbc extends AbstractJpaProperties {
         private static final String SQL_AUDIT_QUERY = "SELECT AUD_DATE FROM COM_AUDIT_TRAIL WHERE AUD_CLIENT_IP = ? AND AUD_USER = ? "
                 + "AND AUD_ACTION = ? AND APPLIC_CD = ? AND AUD_DATE >= ? ORDER BY AUD_DATE DESC";
+
+        private static final String SQL_RECENT_FAILURES_QUERY = "SELECT AUD_CLIENT_IP, AUD_USER, AUD_DATE FROM COM_AUDIT_TRAIL "
+                + "WHERE AUD_ACTION = ? AND APPLIC_CD = ? AND AUD_DATE >= ?";
         
         private String auditQuery = SQL_AUDIT_QUERY;
 
+        private String recentFailuresQuery = SQL_RECENT_FAILURES_QUERY;
+
+        private boolean inMemory;
+
+        private boolean synchronize;
+
+        private int maxEntries = 100_000;
+
         public String getAuditQuery() {
             return auditQuery;
         }
@@ -115,6 +161,38 @@ public class ThrottleProperties {
         public void setAuditQuery(final String auditQuery) {
             this.auditQuery = auditQuery;
         }
+
+        public String getRecentFailuresQuery() {
+            return recentFailuresQuery;
+        }
+
+        public void setRecentFailuresQuery(final String recentFailuresQuery) {
+            this.recentFailuresQuery = recentFailuresQuery;
+        }
+
+        public boolean isInMemory() {
+            return inMemory;
+        }
+
+        public void setInMemory(final boolean inMemory) {
+            this.inMemory = inMemory;
+        }
+
+        public boolean isSynchronize() {
+            return synchronize;
+        }
+
+        public void setSynchronize(final boolean synchronize) {
+            this.synchronize = synchronize;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(final int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
     }
     
     
@@ -164,6 +164,8 @@ public class Beans {
         properties.put("hibernate.dialect", jpaProperties.getDialect());
         properties.put("hibernate.hbm2ddl.auto", jpaProperties.getDdlAuto());
         properties.put("hibernate.jdbc.batch_size", jpaProperties.getBatchSize());
+        properties.put("hibernate.order_inserts", Boolean.TRUE.toString());
+        properties.put("hibernate.order_updates", Boolean.TRUE.toString());
         bean.setJpaProperties(properties);
         return bean;
     }
@@ -441,12 +443,14 @@ public class Beans {
     public static CipherExecutor newTicketRegistryCipherExecutor(final CryptographyProperties registry) {
         if (StringUtils.isNotBlank(registry.getEncryption().getKey())
                 && StringUtils.isNotBlank(registry.getEncryption().getKey())) {
-            return new DefaultTicketCipherExecutor(
+            final DefaultTicketCipherExecutor cipher = new DefaultTicketCipherExecutor(
                     registry.getEncryption().getKey(),
                     registry.getSigning().getKey(),
                     registry.getAlg(),
                     registry.getSigning().getKeySize(),
                     registry.getEncryption().getKeySize());
+            cipher.setAuthenticatedEncryption(registry.isAuthenticatedEncryption());
+            return cipher;
         }
         LOGGER.info("Ticket registry encryption/signing is turned off. This MAY NOT be safe in a "
                 + "clustered production environment. "
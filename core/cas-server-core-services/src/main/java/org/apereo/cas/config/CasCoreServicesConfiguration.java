@@ -104,6 +104,7 @@ public class CasCoreServicesConfiguration {
         final DefaultServicesManagerImpl impl = new DefaultServicesManagerImpl();
         impl.setServiceRegistryDao(serviceRegistryDao);
         impl.setServiceFactory(this.webApplicationServiceFactory());
+        impl.setMatchingCacheSize(casProperties.getServiceRegistry().getCacheSize());
         return impl;
     }
 
@@ -126,6 +126,13 @@ public abstract class AbstractRegisteredService implements RegisteredService, Co
     @JoinTable(name="RegisteredServiceImpl_Props")
     private Map<String, DefaultRegisteredServiceProperty> properties = new HashMap<>();
 
+    /**
+     * The time at which the service was last saved, in milliseconds since the epoch.
+     * Used by service registries to tell which services changed, and is not part of the service definition.
+     */
+    @Column(name = "last_modified", nullable = true)
+    private Long lastModified;
+
     @Override
     public long getId() {
         return this.id;
@@ -485,4 +492,13 @@ public abstract class AbstractRegisteredService implements RegisteredService, Co
     public void setMultifactorPolicy(final RegisteredServiceMultifactorPolicy multifactorPolicy) {
         this.multifactorPolicy = multifactorPolicy;
     }
+
+    @JsonIgnore
+    public Long getLastModified() {
+        return this.lastModified;
+    }
+
+    public void setLastModified(final Long lastModified) {
+        this.lastModified = lastModified;
+    }
 }
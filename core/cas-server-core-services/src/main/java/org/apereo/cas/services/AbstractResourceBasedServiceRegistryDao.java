@@ -1,7 +1,8 @@
 package org.apereo.cas.services;
 
-import org.apache.commons.io.FileUtils;
+import com.google.common.base.Throwables;
 import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.util.DigestUtils;
 import org.apereo.cas.util.LockedOutputStream;
 import org.apereo.cas.util.ResourceUtils;
 import org.apereo.cas.util.serialization.StringSerializer;
@@ -12,22 +13,35 @@ import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
 
 import javax.annotation.PreDestroy;
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.Watchable;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This is {@link AbstractResourceBasedServiceRegistryDao}.
+ * <p>
+ * Services loaded from files are remembered along with the modification time, size and content digest
+ * of each file. Subsequent loads only read files whose modification time or size changed, and only
+ * parse those whose content changed. Files are parsed in parallel on a bounded pool.
  *
  * @author Misagh Moayyed
  * @since 5.0.0
@@ -36,6 +50,8 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractResourceBasedServiceRegistryDao.class);
 
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
     /**
      * The Service registry directory.
      */
@@ -55,6 +71,13 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
 
     private ServiceRegistryConfigWatcher serviceRegistryConfigWatcher;
 
+    /**
+     * Map of service definition files to what was last loaded from them.
+     */
+    private final Map<Path, LoadedResource> loadedResources = new ConcurrentHashMap<>();
+
+    private ForkJoinPool loadingPool;
+
     /**
      * Instantiates a new service registry dao.
      *
@@ -120,6 +143,12 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
         if (serviceRegistryWatcherThread != null) {
             this.serviceRegistryWatcherThread.interrupt();
         }
+        synchronized (this) {
+            if (this.loadingPool != null) {
+                this.loadingPool.shutdownNow();
+                this.loadingPool = null;
+            }
+        }
     }
 
     @Override
@@ -151,6 +180,7 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
                 LOGGER.warn("Failed to delete service definition file [{}]", f.getCanonicalPath());
             } else {
                 this.serviceMap.remove(service.getId());
+                this.loadedResources.remove(f.toPath());
                 LOGGER.debug("Successfully deleted service definition file [{}]", f.getCanonicalPath());
             }
             return result;
@@ -161,14 +191,42 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
 
     @Override
     public synchronized List<RegisteredService> load() {
+        final List<File> files;
+        try (Stream<Path> paths = Files.walk(this.serviceRegistryDirectory, FileVisitOption.FOLLOW_LINKS)) {
+            files = paths.filter(path -> path.getFileName().toString().endsWith('.' + getExtension()))
+                    .map(Path::toFile)
+                    .filter(file -> file.isFile() && file.length() > 0)
+                    .collect(Collectors.toList());
+        } catch (final IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException("Unable to list service definitions in " + this.serviceRegistryDirectory, e);
+        }
+
+        final List<RegisteredService> loaded;
+        try {
+            loaded = getLoadingPool().submit(() -> files.parallelStream()
+                    .map(file -> {
+                        final RegisteredService service = load(file, true);
+                        if (service == null) {
+                            LOGGER.warn("Could not load service definition from file {}", file);
+                        }
+                        return service;
+                    })
+                    .collect(Collectors.toList())).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading service definitions", e);
+        } catch (final ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+
+        final Set<Path> paths = files.stream().map(File::toPath).collect(Collectors.toSet());
+        this.loadedResources.keySet().retainAll(paths);
+
         final Map<Long, RegisteredService> temp = new ConcurrentHashMap<>();
-        final int[] errorCount = {0};
-        final Collection<File> c = FileUtils.listFiles(this.serviceRegistryDirectory.toFile(), new String[]{getExtension()}, true);
-        c.stream().filter(file -> file.length() > 0).forEach(file -> {
-            final RegisteredService service = load(file);
+        int errorCount = 0;
+        for (final RegisteredService service : loaded) {
             if (service == null) {
-                LOGGER.warn("Could not load service definition from file {}", file);
-                errorCount[0]++;
+                errorCount++;
             } else {
                 if (temp.containsKey(service.getId())) {
                     LOGGER.warn("Found a service definition [{}] with a duplicate id [{}]. "
@@ -178,25 +236,37 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
                 }
                 temp.put(service.getId(), service);
             }
-        });
+        }
 
-        if (errorCount[0] == 0) {
+        if (errorCount == 0) {
             this.serviceMap = temp;
         } else {
             LOGGER.warn("{} errors encountered when loading service definitions. New definitions are not loaded until errors are "
-                    + "corrected", errorCount[0]);
+                    + "corrected", errorCount);
         }
         return new ArrayList(this.serviceMap.values());
     }
 
     /**
-     * Load registered service from file.
+     * Load registered service from file. The file is always read, since it may have changed
+     * without its modification time or size being updated yet; it is only parsed again if its content changed.
      *
      * @param file the file
      * @return the registered service, or null if file cannot be read, is not found, is empty or parsing error occurs.
      */
     @Override
     public RegisteredService load(final File file) {
+        return load(file, false);
+    }
+
+    /**
+     * Load registered service from file.
+     *
+     * @param file           the file
+     * @param skipUnmodified whether files whose modification time and size are unchanged are not read again
+     * @return the registered service, or null if file cannot be read, is not found, is empty or parsing error occurs.
+     */
+    private RegisteredService load(final File file, final boolean skipUnmodified) {
         if (!file.canRead()) {
             LOGGER.warn("[{}] is not readable. Check file permissions", file.getName());
             return null;
@@ -212,14 +282,50 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
             return null;
         }
 
-        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file))) {
-            return this.registeredServiceSerializer.from(in);
+        final Path path = file.toPath();
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            final LoadedResource previous = this.loadedResources.get(path);
+            if (skipUnmodified && previous != null && previous.isUnchanged(attributes)) {
+                LOGGER.trace("[{}] is unchanged since it was last loaded", file.getName());
+                return previous.getService();
+            }
+
+            final byte[] content = Files.readAllBytes(path);
+            final byte[] digest = DigestUtils.rawDigest(DIGEST_ALGORITHM, content);
+            final RegisteredService service;
+            if (previous != null && Arrays.equals(previous.getDigest(), digest)) {
+                LOGGER.trace("[{}] was touched, but its content is unchanged since it was last loaded", file.getName());
+                service = previous.getService();
+            } else {
+                service = this.registeredServiceSerializer.from(new ByteArrayInputStream(content));
+            }
+            if (service != null) {
+                this.loadedResources.put(path, new LoadedResource(attributes, digest, service));
+            }
+            return service;
         } catch (final Exception e) {
             LOGGER.error("Error reading configuration file {}", file.getName(), e);
         }
         return null;
     }
 
+    @Override
+    public RegisteredService remove(final File file) {
+        final LoadedResource resource = this.loadedResources.remove(file.toPath());
+        if (resource == null) {
+            LOGGER.debug("No service definition was loaded from [{}]", file);
+            return null;
+        }
+        final RegisteredService service = resource.getService();
+        if (this.loadedResources.values().stream().anyMatch(r -> r.getService().getId() == service.getId())) {
+            LOGGER.debug("Service definition [{}] is also loaded from another file and is kept", service.getId());
+            return null;
+        }
+        this.serviceMap.remove(service.getId());
+        return service;
+    }
+
 
     @Override
     public RegisteredService save(final RegisteredService service) {
@@ -235,6 +341,7 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
                 LOGGER.debug("Found existing service definition by id [{}]. Saving...", service.getId());
             }
             this.serviceMap.put(service.getId(), service);
+            this.loadedResources.remove(f.toPath());
             LOGGER.debug("Saved service to [{}]", f.getCanonicalPath());
         } catch (final IOException e) {
             throw new IllegalArgumentException("IO error opening file stream.", e);
@@ -280,4 +387,43 @@ public abstract class AbstractResourceBasedServiceRegistryDao implements Resourc
     public void update(final RegisteredService service) {
         this.serviceMap.put(service.getId(), service);
     }
+
+    private synchronized ForkJoinPool getLoadingPool() {
+        if (this.loadingPool == null) {
+            this.loadingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return this.loadingPool;
+    }
+
+    /**
+     * A service definition loaded from a file, with the state of the file at the time.
+     */
+    private static class LoadedResource {
+        private final FileTime lastModified;
+
+        private final long size;
+
+        private final byte[] digest;
+
+        private final RegisteredService service;
+
+        LoadedResource(final BasicFileAttributes attributes, final byte[] digest, final RegisteredService service) {
+            this.lastModified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.digest = digest;
+            this.service = service;
+        }
+
+        boolean isUnchanged(final BasicFileAttributes attributes) {
+            return this.lastModified.equals(attributes.lastModifiedTime()) && this.size == attributes.size();
+        }
+
+        byte[] getDigest() {
+            return this.digest;
+        }
+
+        RegisteredService getService() {
+            return this.service;
+        }
+    }
 }
@@ -14,11 +14,17 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -33,6 +39,12 @@ public class DefaultServicesManagerImpl implements ServicesManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultServicesManagerImpl.class);
 
+    private static final long DEFAULT_MATCHING_CACHE_SIZE = 10_000;
+
+    private static final long DEFAULT_CHANGES_OVERLAP = 60_000;
+
+    private static final String RESOLVED_SERVICES_ATTRIBUTE = DefaultServicesManagerImpl.class.getName() + ".resolvedServices";
+
     private ServiceRegistryDao serviceRegistryDao;
 
     private ServiceFactory serviceFactory;
@@ -42,6 +54,15 @@ public class DefaultServicesManagerImpl implements ServicesManager {
 
     private Map<Long, RegisteredService> services = new ConcurrentHashMap<>();
 
+    private long matchingCacheSize = DEFAULT_MATCHING_CACHE_SIZE;
+
+    private volatile RegisteredServiceMatchingIndex matchingIndex =
+            new RegisteredServiceMatchingIndex(Collections.emptyList(), DEFAULT_MATCHING_CACHE_SIZE);
+
+    private volatile ServiceIndexes serviceIndexes = new ServiceIndexes(Collections.emptyList());
+
+    private long lastLoadedAt;
+
     public DefaultServicesManagerImpl() {
     }
 
@@ -62,6 +83,10 @@ public class DefaultServicesManagerImpl implements ServicesManager {
         this.serviceFactory = serviceFactory;
     }
 
+    public void setMatchingCacheSize(final long matchingCacheSize) {
+        this.matchingCacheSize = matchingCacheSize;
+    }
+
     @Audit(action = "DELETE_SERVICE", actionResolverName = "DELETE_SERVICE_ACTION_RESOLVER",
             resourceResolverName = "DELETE_SERVICE_RESOURCE_RESOLVER")
     @Override
@@ -72,7 +97,11 @@ public class DefaultServicesManagerImpl implements ServicesManager {
         }
 
         this.serviceRegistryDao.delete(r);
-        this.services.remove(id);
+        final RegisteredService previous = this.services.remove(id);
+        if (previous != null) {
+            this.matchingIndex = this.matchingIndex.withChanges(Collections.emptyList(), Collections.singletonList(previous));
+            rebuildServiceIndexes();
+        }
 
         publishEvent(new CasRegisteredServiceDeletedEvent(this, r));
         return r;
@@ -81,13 +110,17 @@ public class DefaultServicesManagerImpl implements ServicesManager {
 
     @Override
     public RegisteredService findServiceBy(final Service service) {
-        final TreeSet<RegisteredService> c = convertToTreeSet();
-        return c.stream().filter(r -> r.matches(service)).findFirst().orElse(null);
+        final RegisteredServiceMatchingIndex index = this.matchingIndex;
+        final ResolvedServices resolved = service == null ? null : getResolvedServices(index);
+        if (resolved == null) {
+            return index.find(service);
+        }
+        return resolved.services.computeIfAbsent(service.getId(), id -> Optional.ofNullable(index.find(service))).orElse(null);
     }
 
     @Override
     public Collection<RegisteredService> findServiceBy(final Predicate<RegisteredService> predicate) {
-        final Collection<RegisteredService> c = convertToTreeSet()
+        final Collection<RegisteredService> c = getAllServices()
                 .stream()
                 .filter(predicate::apply)
                 .collect(Collectors.toSet());
@@ -116,7 +149,22 @@ public class DefaultServicesManagerImpl implements ServicesManager {
 
     @Override
     public Collection<RegisteredService> getAllServices() {
-        return Collections.unmodifiableCollection(convertToTreeSet());
+        return this.serviceIndexes.all;
+    }
+
+    @Override
+    public <T extends RegisteredService> Collection<T> findServicesBy(final Class<T> clazz) {
+        final ServiceIndexes indexes = this.serviceIndexes;
+        return (Collection<T>) indexes.types.computeIfAbsent(clazz, indexes::buildTypeIndex);
+    }
+
+    @Override
+    public <T extends RegisteredService> T findServiceBy(final RegisteredServiceIndex<T> index, final String key) {
+        if (key == null) {
+            return null;
+        }
+        final ServiceIndexes indexes = this.serviceIndexes;
+        return (T) indexes.keys.computeIfAbsent(index, indexes::buildKeyIndex).get(key);
     }
 
     @Override
@@ -129,7 +177,10 @@ public class DefaultServicesManagerImpl implements ServicesManager {
     @Override
     public synchronized RegisteredService save(final RegisteredService registeredService) {
         final RegisteredService r = this.serviceRegistryDao.save(registeredService);
-        this.services.put(r.getId(), r);
+        final RegisteredService previous = this.services.put(r.getId(), r);
+        this.matchingIndex = this.matchingIndex.withChanges(Collections.singletonList(r),
+                previous == null ? Collections.emptyList() : Collections.singletonList(previous));
+        rebuildServiceIndexes();
         publishEvent(new CasRegisteredServiceSavedEvent(this, r));
         return r;
     }
@@ -141,15 +192,73 @@ public class DefaultServicesManagerImpl implements ServicesManager {
                fixedDelayString = "${cas.serviceRegistry.repeatInterval:60000}")
     @Override
     @PostConstruct
-    public void load() {
-        LOGGER.debug("Loading services from {}", this.serviceRegistryDao);
-        this.services = this.serviceRegistryDao.load().stream()
-                .collect(Collectors.toConcurrentMap(r -> {
-                    LOGGER.debug("Adding registered service {}", r.getServiceId());
-                    return r.getId();
-                }, r -> r, (r, s) -> s == null ? r : s == null ? r : s));
-        LOGGER.info("Loaded {} services from {}.", this.services.size(),
-                this.serviceRegistryDao);
+    public synchronized void load() {
+        final long loadedAt = System.currentTimeMillis();
+        final ServiceRegistryChanges changes = this.lastLoadedAt > 0
+                ? this.serviceRegistryDao.loadChangesSince(this.lastLoadedAt - DEFAULT_CHANGES_OVERLAP)
+                : null;
+        if (changes == null) {
+            LOGGER.debug("Loading services from {}", this.serviceRegistryDao);
+            this.services = this.serviceRegistryDao.load().stream()
+                    .collect(Collectors.toConcurrentMap(r -> {
+                        LOGGER.debug("Adding registered service {}", r.getServiceId());
+                        return r.getId();
+                    }, r -> r, (r, s) -> s == null ? r : s == null ? r : s));
+            rebuildMatchingIndex();
+            LOGGER.info("Loaded {} services from {}.", this.services.size(),
+                    this.serviceRegistryDao);
+        } else {
+            applyChanges(changes);
+        }
+        this.lastLoadedAt = loadedAt;
+    }
+
+    /**
+     * Apply the changes reported by the service registry to the loaded services.
+     *
+     * @param changes the changes
+     */
+    private void applyChanges(final ServiceRegistryChanges changes) {
+        final List<RegisteredService> deleted = this.services.values().stream()
+                .filter(r -> !changes.getServiceIds().contains(r.getId()))
+                .collect(Collectors.toList());
+        final List<RegisteredService> saved = changes.getChangedServices().stream()
+                .filter(r -> isModified(this.services.get(r.getId()), r))
+                .collect(Collectors.toList());
+        if (saved.isEmpty() && deleted.isEmpty()) {
+            LOGGER.debug("No services have changed in {}", this.serviceRegistryDao);
+            return;
+        }
+
+        final List<RegisteredService> removed = new ArrayList<>(deleted);
+        deleted.forEach(r -> this.services.remove(r.getId()));
+        saved.forEach(r -> {
+            LOGGER.debug("Updating registered service {}", r.getServiceId());
+            final RegisteredService previous = this.services.put(r.getId(), r);
+            if (previous != null) {
+                removed.add(previous);
+            }
+        });
+        this.matchingIndex = this.matchingIndex.withChanges(saved, removed);
+        rebuildServiceIndexes();
+        LOGGER.info("Applied {} saved and {} deleted services from {}. {} services are loaded.", saved.size(), deleted.size(),
+                this.serviceRegistryDao, this.services.size());
+    }
+
+    /**
+     * Whether the changed service differs from the loaded one, by last modified time.
+     *
+     * @param loaded  the service that is loaded, or null
+     * @param changed the service reported as changed
+     * @return true if the changed service should be applied
+     */
+    private static boolean isModified(final RegisteredService loaded, final RegisteredService changed) {
+        if (loaded instanceof AbstractRegisteredService && changed instanceof AbstractRegisteredService) {
+            final Long loadedAt = ((AbstractRegisteredService) loaded).getLastModified();
+            final Long changedAt = ((AbstractRegisteredService) changed).getLastModified();
+            return loadedAt == null || !loadedAt.equals(changedAt);
+        }
+        return true;
     }
 
     @Override
@@ -177,9 +286,85 @@ public class DefaultServicesManagerImpl implements ServicesManager {
         load();
     }
     
+    /**
+     * Compile the current set of services into a new matching index.
+     */
+    private void rebuildMatchingIndex() {
+        this.matchingIndex = new RegisteredServiceMatchingIndex(this.services.values(), this.matchingCacheSize);
+        rebuildServiceIndexes();
+    }
+
+    /**
+     * Rebuild the indexes by type and by key.
+     */
+    private void rebuildServiceIndexes() {
+        final ServiceIndexes previous = this.serviceIndexes;
+        final ServiceIndexes indexes = new ServiceIndexes(convertToTreeSet());
+        previous.types.keySet().forEach(clazz -> indexes.types.put(clazz, indexes.buildTypeIndex(clazz)));
+        previous.keys.keySet().forEach(index -> indexes.keys.put(index, indexes.buildKeyIndex(index)));
+        this.serviceIndexes = indexes;
+    }
+
+    /**
+     * Gets the services that were located during the current request, if any.
+     *
+     * @param index the current matching index
+     * @return the resolved services, or null outside of a request
+     */
+    private static ResolvedServices getResolvedServices(final RegisteredServiceMatchingIndex index) {
+        final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        ResolvedServices resolved = (ResolvedServices) attributes.getAttribute(RESOLVED_SERVICES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved == null || resolved.index != index) {
+            resolved = new ResolvedServices(index);
+            attributes.setAttribute(RESOLVED_SERVICES_ATTRIBUTE, resolved, RequestAttributes.SCOPE_REQUEST);
+        }
+        return resolved;
+    }
+
     private void publishEvent(final ApplicationEvent event) {
         if (this.eventPublisher != null) {
             this.eventPublisher.publishEvent(event);
         }
     }
+
+    /**
+     * Services located during a request, by service id.
+     */
+    private static class ResolvedServices {
+        private final RegisteredServiceMatchingIndex index;
+
+        private final Map<String, Optional<RegisteredService>> services = new HashMap<>();
+
+        ResolvedServices(final RegisteredServiceMatchingIndex index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * An unmodifiable snapshot of services in evaluation order, with their indexes by type and by key.
+     */
+    private static class ServiceIndexes {
+        private final List<RegisteredService> all;
+
+        private final Map<Class<?>, Collection<? extends RegisteredService>> types = new ConcurrentHashMap<>();
+
+        private final Map<RegisteredServiceIndex<?>, Map<String, ? extends RegisteredService>> keys = new ConcurrentHashMap<>();
+
+        ServiceIndexes(final Collection<RegisteredService> services) {
+            this.all = Collections.unmodifiableList(new ArrayList<>(services));
+        }
+
+        Collection<? extends RegisteredService> buildTypeIndex(final Class<?> clazz) {
+            return Collections.unmodifiableList(this.all.stream()
+                    .filter(clazz::isInstance)
+                    .collect(Collectors.toList()));
+        }
+
+        Map<String, ? extends RegisteredService> buildKeyIndex(final RegisteredServiceIndex<?> index) {
+            return index.build(this.all);
+        }
+    }
 }
@@ -0,0 +1,319 @@
+package org.apereo.cas.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.authentication.principal.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This is {@link RegisteredServiceMatchingIndex}. It is an immutable, compiled view
+ * of a set of registered services that is used to locate the service matching
+ * a given service id without evaluating every registered service definition.
+ * <p>
+ * Each {@link RegexRegisteredService} contributes the literal prefix of its pattern
+ * (typically the scheme, host and a leading path) to a character trie.
+ * Every node of the trie holds the precomputed, sorted list of candidates whose literal
+ * prefix is a prefix of any service id that reaches that node, so a lookup walks the trie
+ * once and evaluates only the candidates, in evaluation order.
+ * Services whose pattern has no usable literal prefix are candidates for every lookup.
+ * <p>
+ * Results of recent lookups are remembered in a bounded cache that lives and dies
+ * with the index, so rebuilding the index when the registry changes also invalidates
+ * any previously cached matches.
+ * <p>
+ * When only a few services change, {@link #withChanges(Collection, Collection)} produces
+ * a new index that shares the parts of the trie that are not affected by the changes,
+ * along with the cached matches for service ids that none of the changed services could match.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class RegisteredServiceMatchingIndex {
+
+    private static final int MAX_ASCII_CHAR = 127;
+
+    private final Node root;
+
+    private final Cache<String, Optional<RegisteredService>> matches;
+
+    private final long maxCacheSize;
+
+    /**
+     * Instantiates a new matching index.
+     *
+     * @param services     the services to index
+     * @param maxCacheSize the max number of lookup results to remember
+     */
+    public RegisteredServiceMatchingIndex(final Collection<RegisteredService> services, final long maxCacheSize) {
+        this(new Node(), maxCacheSize);
+        services.forEach(r -> this.root.insert(getLiteralPrefix(r), 0, r));
+        this.root.compile(Collections.emptyList());
+    }
+
+    private RegisteredServiceMatchingIndex(final Node root, final long maxCacheSize) {
+        this.root = root;
+        this.maxCacheSize = maxCacheSize;
+        this.matches = CacheBuilder.newBuilder().maximumSize(maxCacheSize).build();
+    }
+
+    /**
+     * Produce a new index that reflects the given changes. Services are identified by their numeric id;
+     * a service that is updated should be passed with its previous definition in the removed services
+     * and its new definition in the added services. This index is left unchanged.
+     *
+     * @param added   the services to add
+     * @param removed the previous definitions of services to remove
+     * @return the new index
+     */
+    public RegisteredServiceMatchingIndex withChanges(final Collection<RegisteredService> added,
+                                                      final Collection<RegisteredService> removed) {
+        final Map<String, List<RegisteredService>> additions = new HashMap<>();
+        added.forEach(r -> additions.computeIfAbsent(getLiteralPrefix(r), k -> new ArrayList<>()).add(r));
+        final Map<String, Set<Long>> removals = new HashMap<>();
+        removed.forEach(r -> removals.computeIfAbsent(getLiteralPrefix(r), k -> new HashSet<>()).add(r.getId()));
+
+        final TreeSet<String> affected = new TreeSet<>(additions.keySet());
+        affected.addAll(removals.keySet());
+
+        final Node newRoot = this.root.update(StringUtils.EMPTY, affected, additions, removals,
+                Collections.emptyList(), false);
+        final RegisteredServiceMatchingIndex index = new RegisteredServiceMatchingIndex(
+                newRoot != null ? newRoot : new Node(), this.maxCacheSize);
+        this.matches.asMap().forEach((id, result) -> {
+            if (affected.stream().noneMatch(prefix -> startsWithPrefix(id, prefix))) {
+                index.matches.put(id, result);
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Find the first registered service, in evaluation order, that matches the service.
+     *
+     * @param service the service
+     * @return the registered service, or null
+     */
+    public RegisteredService find(final Service service) {
+        if (service == null || StringUtils.isBlank(service.getId())) {
+            return null;
+        }
+        final String id = service.getId();
+        Optional<RegisteredService> result = this.matches.getIfPresent(id);
+        if (result == null) {
+            result = this.root.locate(id).candidates.stream().filter(r -> r.matches(service)).findFirst();
+            this.matches.put(id, result);
+        }
+        return result.orElse(null);
+    }
+
+    /**
+     * Calculate the literal prefix of the registered service pattern.
+     * The prefix is lower-cased and limited to ASCII characters, given
+     * service patterns are matched case-insensitively. Services whose
+     * pattern may match a service id that does not start with a fixed
+     * prefix produce an empty prefix.
+     *
+     * @param registeredService the registered service
+     * @return the literal prefix
+     */
+    static String getLiteralPrefix(final RegisteredService registeredService) {
+        if (!(registeredService instanceof RegexRegisteredService)
+                || StringUtils.isBlank(registeredService.getServiceId())) {
+            return StringUtils.EMPTY;
+        }
+        final String pattern = registeredService.getServiceId();
+        if (hasTopLevelAlternation(pattern)) {
+            return StringUtils.EMPTY;
+        }
+
+        final StringBuilder prefix = new StringBuilder();
+        int i = pattern.startsWith("^") ? 1 : 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= pattern.length() || Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                    break;
+                }
+                prefix.append(normalize(pattern.charAt(i + 1)));
+                i += 2;
+            } else if (c == '?' || c == '*' || c == '{') {
+                if (prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            } else if (".+^$|()[]".indexOf(c) >= 0) {
+                break;
+            } else {
+                prefix.append(normalize(c));
+                i++;
+            }
+        }
+
+        for (int j = 0; j < prefix.length(); j++) {
+            if (prefix.charAt(j) > MAX_ASCII_CHAR) {
+                prefix.setLength(j);
+                break;
+            }
+        }
+        return prefix.toString();
+    }
+
+    private static boolean hasTopLevelAlternation(final String pattern) {
+        int depth = 0;
+        boolean inCharacterClass = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inCharacterClass) {
+                inCharacterClass = c != ']';
+            } else if (c == '[') {
+                inCharacterClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth <= 0) {
+                return true;
+            }
+            i++;
+        }
+        return false;
+    }
+
+    private static boolean startsWithPrefix(final String id, final String prefix) {
+        if (id.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (normalize(id.charAt(i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char normalize(final char c) {
+        return c <= MAX_ASCII_CHAR ? Character.toLowerCase(c) : c;
+    }
+
+    /**
+     * A node in the prefix trie.
+     */
+    private static class Node {
+        private static final Node EMPTY = new Node();
+
+        private final Map<Character, Node> children;
+
+        private final List<RegisteredService> services;
+
+        private List<RegisteredService> candidates = Collections.emptyList();
+
+        Node() {
+            this.children = new HashMap<>();
+            this.services = new ArrayList<>();
+        }
+
+        Node(final Node source) {
+            this.children = new HashMap<>(source.children);
+            this.services = new ArrayList<>(source.services);
+            this.candidates = source.candidates;
+        }
+
+        void insert(final String prefix, final int position, final RegisteredService service) {
+            if (position == prefix.length()) {
+                this.services.add(service);
+            } else {
+                this.children.computeIfAbsent(prefix.charAt(position), k -> new Node())
+                        .insert(prefix, position + 1, service);
+            }
+        }
+
+        void compile(final List<RegisteredService> inherited) {
+            compileCandidates(inherited);
+            this.children.values().forEach(n -> n.compile(this.candidates));
+        }
+
+        private void compileCandidates(final List<RegisteredService> inherited) {
+            if (this.services.isEmpty()) {
+                this.candidates = inherited;
+            } else {
+                final TreeSet<RegisteredService> sorted = new TreeSet<>(inherited);
+                sorted.addAll(this.services);
+                this.candidates = Collections.unmodifiableList(new ArrayList<>(sorted));
+            }
+        }
+
+        /**
+         * Copy the parts of the trie under this node that are affected by changes to the given prefixes.
+         * Nodes that are not affected are shared with the previous trie.
+         *
+         * @param path      the prefix of this node
+         * @param affected  the prefixes of changed services
+         * @param additions services to add, by prefix
+         * @param removals  ids of services to remove, by prefix
+         * @param inherited the candidates of the parent node
+         * @param dirty     whether the candidates of this node must be compiled again
+         * @return the updated node, or null if it holds nothing
+         */
+        Node update(final String path, final NavigableSet<String> affected,
+                    final Map<String, List<RegisteredService>> additions, final Map<String, Set<Long>> removals,
+                    final List<RegisteredService> inherited, final boolean dirty) {
+            final boolean changed = affected.contains(path);
+            final NavigableSet<String> below = affected.subSet(path, false, path + Character.MAX_VALUE, true);
+            if (!dirty && !changed && below.isEmpty()) {
+                return this;
+            }
+
+            final Node copy = new Node(this);
+            final Set<Long> removedIds = removals.getOrDefault(path, Collections.emptySet());
+            copy.services.removeIf(r -> removedIds.contains(r.getId()));
+            copy.services.addAll(additions.getOrDefault(path, Collections.emptyList()));
+
+            final boolean compile = dirty || changed;
+            if (compile) {
+                copy.compileCandidates(inherited);
+            }
+            final Set<Character> next = new HashSet<>();
+            below.forEach(prefix -> next.add(prefix.charAt(path.length())));
+            if (compile) {
+                next.addAll(copy.children.keySet());
+            }
+            for (final Character c : next) {
+                final Node child = copy.children.getOrDefault(c, EMPTY);
+                final Node updated = child.update(path + c, affected, additions, removals, copy.candidates, compile);
+                if (updated == null) {
+                    copy.children.remove(c);
+                } else {
+                    copy.children.put(c, updated);
+                }
+            }
+            return copy.services.isEmpty() && copy.children.isEmpty() && !path.isEmpty() ? null : copy;
+        }
+
+        Node locate(final String id) {
+            Node current = this;
+            for (int i = 0; i < id.length(); i++) {
+                final Node next = current.children.get(normalize(id.charAt(i)));
+                if (next == null) {
+                    break;
+                }
+                current = next;
+            }
+            return current;
+        }
+    }
+}
@@ -116,7 +116,7 @@ class ServiceRegistryConfigWatcher implements Runnable, Closeable {
                 if (kind.name().equals(ENTRY_CREATE.name()) && file.exists()) {
                     handleCreateEvent(file);
                 } else if (kind.name().equals(ENTRY_DELETE.name())) {
-                    handleDeleteEvent();
+                    handleDeleteEvent(file);
                 } else if (kind.name().equals(ENTRY_MODIFY.name()) && file.exists()) {
                     handleModifyEvent(file);
                 }
@@ -150,9 +150,16 @@ class ServiceRegistryConfigWatcher implements Runnable, Closeable {
 
     /**
      * Handle delete event.
+     *
+     * @param file the file
      */
-    private void handleDeleteEvent() {
-        this.serviceRegistryDao.load();
+    private void handleDeleteEvent(final File file) {
+        final RegisteredService service = this.serviceRegistryDao.remove(file);
+        if (service == null) {
+            LOGGER.debug("No single service definition was removed for [{}]", file);
+        } else {
+            LOGGER.debug("Removed service [{}] loaded from [{}]", service.getId(), file);
+        }
         this.applicationEventPublisher.publishEvent(new CasRegisteredServicesRefreshEvent(this));
     }
 
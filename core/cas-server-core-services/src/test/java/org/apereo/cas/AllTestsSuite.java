@@ -16,6 +16,7 @@ import org.apereo.cas.services.InMemoryServiceRegistryDaoImplTests;
 import org.apereo.cas.services.PrincipalAttributeRegisteredServiceUsernameProviderTests;
 import org.apereo.cas.services.RegexRegisteredServiceTests;
 import org.apereo.cas.services.RegisteredServiceAuthenticationHandlerResolverTests;
+import org.apereo.cas.services.RegisteredServiceMatchingIndexTests;
 import org.apereo.cas.services.SimpleServiceTests;
 import org.apereo.cas.services.TimeBasedRegisteredServiceAccessStrategyTests;
 import org.apereo.cas.services.UnauthorizedProxyingExceptionTests;
@@ -42,6 +43,7 @@ import org.junit.runners.Suite;
         PrincipalAttributeRegisteredServiceUsernameProviderTests.class,
         RegexRegisteredServiceTests.class,
         RegisteredServiceAuthenticationHandlerResolverTests.class,
+        RegisteredServiceMatchingIndexTests.class,
         SimpleServiceTests.class,
         TimeBasedRegisteredServiceAccessStrategyTests.class,
         UnauthorizedProxyingExceptionTests.class,
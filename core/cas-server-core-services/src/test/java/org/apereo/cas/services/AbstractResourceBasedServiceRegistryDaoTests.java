@@ -10,7 +10,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 
+import java.io.File;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -389,4 +391,66 @@ public abstract class AbstractResourceBasedServiceRegistryDaoTests {
         final RegisteredServiceProperty prop = r.getProperties().get("field1");
         assertEquals(prop.getValues().size(), 2);
     }
+
+    @Test
+    public void verifyUnchangedFilesAreNotParsedAgain() throws Exception {
+        prepTests();
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setServiceId("^https://.+");
+        r.setName("verifyUnchangedFilesAreNotParsedAgain");
+        r.setId(5000);
+        this.dao.save(r);
+
+        final RegisteredService loaded = this.dao.load().get(0);
+        assertSame(loaded, this.dao.load().get(0));
+
+        final File file = FileUtils.listFiles(RESOURCE.getFile(), null, false).iterator().next();
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertSame(loaded, this.dao.load().get(0));
+
+        r.setTheme("theme");
+        this.dao.save(r);
+        final RegisteredService reloaded = this.dao.load().get(0);
+        assertNotSame(loaded, reloaded);
+        assertEquals("theme", reloaded.getTheme());
+    }
+
+    @Test
+    public void verifyWatchedFileIsLoadedWhenModificationTimeAndSizeAreUnchanged() throws Exception {
+        prepTests();
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setServiceId("^https://.+");
+        r.setName("verifyWatchedFileIsLoaded");
+        r.setId(7000);
+        r.setTheme("before");
+        this.dao.save(r);
+        assertEquals("before", this.dao.load().get(0).getTheme());
+
+        final File file = FileUtils.listFiles(RESOURCE.getFile(), null, false).iterator().next();
+        final long lastModified = file.lastModified();
+        final String content = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        FileUtils.write(file, content.replace("before", "after_"), StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(lastModified));
+
+        final ResourceBasedServiceRegistryDao resourceDao = (ResourceBasedServiceRegistryDao) this.dao;
+        assertEquals("after_", resourceDao.load(file).getTheme());
+    }
+
+    @Test
+    public void verifyServiceRemovedWithItsFile() throws Exception {
+        prepTests();
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setServiceId("^https://.+");
+        r.setName("verifyServiceRemovedWithItsFile");
+        r.setId(6000);
+        this.dao.save(r);
+        assertEquals(1, this.dao.load().size());
+
+        final File file = FileUtils.listFiles(RESOURCE.getFile(), null, false).iterator().next();
+        assertTrue(file.delete());
+        final ResourceBasedServiceRegistryDao resourceDao = (ResourceBasedServiceRegistryDao) this.dao;
+        assertEquals(r.getId(), resourceDao.remove(file).getId());
+        assertNull(this.dao.findServiceById(r.getId()));
+        assertNull(resourceDao.remove(file));
+    }
 }
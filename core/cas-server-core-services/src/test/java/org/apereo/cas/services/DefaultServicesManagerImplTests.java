@@ -1,12 +1,18 @@
 package org.apereo.cas.services;
 
+import com.google.common.collect.Lists;
 import org.apereo.cas.authentication.principal.Principal;
 import org.apereo.cas.authentication.principal.Service;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -132,6 +138,11 @@ public class DefaultServicesManagerImplTests {
         assertEquals(2, this.defaultServicesManagerImpl.getAllServices().size());
         assertTrue(this.defaultServicesManagerImpl.getAllServices().contains(r));
     }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void verifyAllServicesCannotBeModified() {
+        this.defaultServicesManagerImpl.getAllServices().clear();
+    }
     
     @Test
     public void verifyRegexService() {
@@ -195,6 +206,162 @@ public class DefaultServicesManagerImplTests {
 
     }
 
+    @Test
+    public void verifyChangesAreLoadedWithoutFullReload() {
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setId(1);
+        r.setName("first");
+        r.setServiceId("https://first.example.org/.*");
+
+        final RegexRegisteredService r2 = new RegexRegisteredService();
+        r2.setId(2);
+        r2.setName("second");
+        r2.setServiceId("https://second.example.org/.*");
+
+        final ChangeTrackingServiceRegistryDao dao = new ChangeTrackingServiceRegistryDao();
+        dao.setRegisteredServices(Lists.newArrayList(r, r2));
+        final DefaultServicesManagerImpl manager = new DefaultServicesManagerImpl(dao);
+        manager.load();
+        assertEquals(1, dao.loads);
+
+        final RegexRegisteredService updated = new RegexRegisteredService();
+        updated.setId(2);
+        updated.setName("second");
+        updated.setServiceId("https://other.example.org/.*");
+
+        final RegexRegisteredService added = new RegexRegisteredService();
+        added.setId(3);
+        added.setName("third");
+        added.setServiceId("https://third.example.org/.*");
+
+        dao.changes = new ServiceRegistryChanges(Lists.newArrayList(updated, added), new HashSet<>(Lists.newArrayList(2L, 3L)));
+        manager.load();
+        assertEquals(1, dao.loads);
+
+        assertEquals(2, manager.getAllServices().size());
+        assertNull(manager.findServiceBy(1));
+        assertNull(manager.findServiceBy(new SimpleService("https://first.example.org/app")));
+        assertNull(manager.findServiceBy(new SimpleService("https://second.example.org/app")));
+        assertEquals(updated, manager.findServiceBy(new SimpleService("https://other.example.org/app")));
+        assertEquals(added, manager.findServiceBy(new SimpleService("https://third.example.org/app")));
+    }
+
+    @Test
+    public void verifyChangesAreComparedByLastModifiedTime() {
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setId(1);
+        r.setName("first");
+        r.setServiceId("https://first.example.org/.*");
+        r.setLastModified(1000L);
+
+        final ChangeTrackingServiceRegistryDao dao = new ChangeTrackingServiceRegistryDao();
+        dao.setRegisteredServices(Lists.newArrayList(r));
+        final DefaultServicesManagerImpl manager = new DefaultServicesManagerImpl(dao);
+        manager.load();
+
+        final RegexRegisteredService unchanged = new RegexRegisteredService();
+        unchanged.setId(1);
+        unchanged.setName("first");
+        unchanged.setServiceId("https://first.example.org/.*");
+        unchanged.setLastModified(1000L);
+        dao.changes = new ServiceRegistryChanges(Lists.newArrayList(unchanged), new HashSet<>(Lists.newArrayList(1L)));
+        manager.load();
+        assertSame(r, manager.getAllServices().iterator().next());
+
+        final RegexRegisteredService modified = new RegexRegisteredService();
+        modified.setId(1);
+        modified.setName("first");
+        modified.setServiceId("https://first.example.org/.*");
+        modified.setLastModified(2000L);
+        assertEquals(r, modified);
+        dao.changes = new ServiceRegistryChanges(Lists.newArrayList(modified), new HashSet<>(Lists.newArrayList(1L)));
+        manager.load();
+        assertSame(modified, manager.getAllServices().iterator().next());
+        assertEquals(1, dao.loads);
+    }
+
+    @Test
+    public void verifyServicesAreResolvedOncePerRequestUntilChanged() {
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setId(1);
+        r.setName("first");
+        r.setServiceId("https://app.example.org/.*");
+        r.setEvaluationOrder(10);
+        this.defaultServicesManagerImpl.save(r);
+
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            final Service service = new SimpleService("https://app.example.org/login");
+            assertEquals(r, this.defaultServicesManagerImpl.findServiceBy(service));
+            assertEquals(r, this.defaultServicesManagerImpl.findServiceBy(service));
+            assertNull(this.defaultServicesManagerImpl.findServiceBy(new SimpleService("https://unknown.example.org")));
+            assertEquals(1, Collections.list(request.getAttributeNames()).size());
+
+            final RegexRegisteredService r2 = new RegexRegisteredService();
+            r2.setId(2);
+            r2.setName("second");
+            r2.setServiceId("https://app.example.org/login");
+            r2.setEvaluationOrder(1);
+            this.defaultServicesManagerImpl.save(r2);
+            assertEquals(r2, this.defaultServicesManagerImpl.findServiceBy(service));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void verifyServicesAreIndexedByTypeAndKey() {
+        final RegisteredServiceIndex<RegexRegisteredService> byName =
+                new RegisteredServiceIndex<>(RegexRegisteredService.class, RegisteredService::getName);
+
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setId(1);
+        r.setName("indexed");
+        r.setServiceId("https://first.example.org/.*");
+        r.setEvaluationOrder(10);
+        this.defaultServicesManagerImpl.save(r);
+
+        assertEquals(r, this.defaultServicesManagerImpl.findServiceBy(byName, "indexed"));
+        assertNull(this.defaultServicesManagerImpl.findServiceBy(byName, "unknown"));
+        assertNull(this.defaultServicesManagerImpl.findServiceBy(byName, null));
+        assertEquals(2, this.defaultServicesManagerImpl.findServicesBy(RegexRegisteredService.class).size());
+
+        final RegexRegisteredService r2 = new RegexRegisteredService();
+        r2.setId(2);
+        r2.setName("indexed");
+        r2.setServiceId("https://second.example.org/.*");
+        r2.setEvaluationOrder(1);
+        this.defaultServicesManagerImpl.save(r2);
+        assertEquals(r2, this.defaultServicesManagerImpl.findServiceBy(byName, "indexed"));
+        assertEquals(3, this.defaultServicesManagerImpl.findServicesBy(RegexRegisteredService.class).size());
+        assertEquals(3, this.defaultServicesManagerImpl.getAllServices().size());
+
+        this.defaultServicesManagerImpl.delete(2);
+        assertEquals(r, this.defaultServicesManagerImpl.findServiceBy(byName, "indexed"));
+        assertEquals(2, this.defaultServicesManagerImpl.findServicesBy(RegexRegisteredService.class).size());
+
+        this.defaultServicesManagerImpl.load();
+        assertEquals(r, this.defaultServicesManagerImpl.findServiceBy(byName, "indexed"));
+    }
+
+    private static class ChangeTrackingServiceRegistryDao extends InMemoryServiceRegistryDaoImpl {
+        private int loads;
+
+        private ServiceRegistryChanges changes;
+
+        @Override
+        public List<RegisteredService> load() {
+            this.loads++;
+            return super.load();
+        }
+
+        @Override
+        public ServiceRegistryChanges loadChangesSince(final long timestamp) {
+            return this.changes;
+        }
+    }
+
     private static class SimpleService implements Service {
 
         /**
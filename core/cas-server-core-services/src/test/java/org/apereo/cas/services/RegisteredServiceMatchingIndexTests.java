@@ -0,0 +1,127 @@
+package org.apereo.cas.services;
+
+import com.google.common.collect.Lists;
+import org.apereo.cas.authentication.principal.Service;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link RegisteredServiceMatchingIndexTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class RegisteredServiceMatchingIndexTests {
+
+    private static RegexRegisteredService newService(final long id, final String serviceId, final int order) {
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setId(id);
+        r.setName("service" + id);
+        r.setServiceId(serviceId);
+        r.setEvaluationOrder(order);
+        return r;
+    }
+
+    @Test
+    public void verifyLiteralPrefix() {
+        assertEquals("https://www.example.org/",
+                RegisteredServiceMatchingIndex.getLiteralPrefix(newService(1, "^https://www\\.example\\.org/.*", 0)));
+        assertEquals("http", RegisteredServiceMatchingIndex.getLiteralPrefix(newService(1, "https?://.+", 0)));
+        assertEquals("https://app", RegisteredServiceMatchingIndex.getLiteralPrefix(newService(1, "HTTPS://App\\d+", 0)));
+        assertEquals("", RegisteredServiceMatchingIndex.getLiteralPrefix(newService(1, "^(https|imaps)://.*", 0)));
+        assertEquals("", RegisteredServiceMatchingIndex.getLiteralPrefix(newService(1, "https://a.+|https://b.+", 0)));
+        assertEquals("https://", RegisteredServiceMatchingIndex.getLiteralPrefix(newService(1, "https://(a|b)\\..+", 0)));
+    }
+
+    @Test
+    public void verifyEvaluationOrderIsHonored() {
+        final RegexRegisteredService wildcard = newService(1, "^(https|imaps)://.*", 100);
+        final RegexRegisteredService specific = newService(2, "https://www\\.example\\.org/app/.*", 10);
+        final RegexRegisteredService domain = newService(3, "https://www\\.example\\.org/.*", 1);
+        final RegisteredServiceMatchingIndex index =
+                new RegisteredServiceMatchingIndex(Lists.newArrayList(wildcard, specific, domain), 100);
+
+        assertSame(domain, index.find(RegisteredServiceTestUtils.getService("https://www.example.org/app/login")));
+        assertSame(domain, index.find(RegisteredServiceTestUtils.getService("HTTPS://WWW.EXAMPLE.ORG/other")));
+        assertSame(wildcard, index.find(RegisteredServiceTestUtils.getService("https://another.example.org")));
+        assertNull(index.find(RegisteredServiceTestUtils.getService("ftp://www.example.org/")));
+    }
+
+    @Test
+    public void verifyWildcardPrecedesSpecificService() {
+        final RegexRegisteredService wildcard = newService(1, ".*", 0);
+        final RegexRegisteredService specific = newService(2, "https://www\\.example\\.org/.*", 10);
+        final RegisteredServiceMatchingIndex index =
+                new RegisteredServiceMatchingIndex(Lists.newArrayList(specific, wildcard), 100);
+        assertSame(wildcard, index.find(RegisteredServiceTestUtils.getService("https://www.example.org/app")));
+    }
+
+    @Test
+    public void verifyBlankServiceDoesNotMatch() {
+        final RegisteredServiceMatchingIndex index =
+                new RegisteredServiceMatchingIndex(Collections.singletonList(newService(1, ".*", 0)), 100);
+        assertNull(index.find(null));
+        assertNull(index.find(RegisteredServiceTestUtils.getService("")));
+    }
+
+    @Test
+    public void verifyChangesAreApplied() {
+        final RegexRegisteredService domain = newService(1, "https://www\\.example\\.org/.*", 10);
+        final RegexRegisteredService other = newService(2, "https://app\\.example\\.net/.*", 10);
+        final RegisteredServiceMatchingIndex index =
+                new RegisteredServiceMatchingIndex(Lists.newArrayList(domain, other), 100);
+        assertSame(other, index.find(RegisteredServiceTestUtils.getService("https://app.example.net/login")));
+        assertNull(index.find(RegisteredServiceTestUtils.getService("https://www.example.com/login")));
+
+        final RegexRegisteredService specific = newService(3, "https://www\\.example\\.org/app/.*", 1);
+        final RegexRegisteredService updated = newService(1, "https://www\\.example\\.(org|com)/.*", 10);
+        final RegisteredServiceMatchingIndex changed = index.withChanges(Lists.newArrayList(specific, updated),
+                Collections.singletonList(domain));
+
+        assertSame(specific, changed.find(RegisteredServiceTestUtils.getService("https://www.example.org/app/login")));
+        assertSame(updated, changed.find(RegisteredServiceTestUtils.getService("https://www.example.org/login")));
+        assertSame(updated, changed.find(RegisteredServiceTestUtils.getService("https://www.example.com/login")));
+        assertSame(other, changed.find(RegisteredServiceTestUtils.getService("https://app.example.net/login")));
+        assertSame(domain, index.find(RegisteredServiceTestUtils.getService("https://www.example.org/app/login")));
+
+        final RegisteredServiceMatchingIndex removed = changed.withChanges(Collections.emptyList(),
+                Lists.newArrayList(specific, updated));
+        assertNull(removed.find(RegisteredServiceTestUtils.getService("https://www.example.org/app/login")));
+        assertSame(other, removed.find(RegisteredServiceTestUtils.getService("https://app.example.net/login")));
+    }
+
+    @Test
+    public void verifyChangesMatchRebuiltIndex() {
+        final List<RegisteredService> services = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            services.add(newService(i, "https://app" + (i % 7) + "\\.example\\.org/" + i + "/.*", i % 5));
+        }
+        services.add(newService(100, "^(https|imaps)://app3.*", 3));
+        final RegisteredServiceMatchingIndex index = new RegisteredServiceMatchingIndex(services, 100);
+
+        final List<RegisteredService> added = new ArrayList<>();
+        final List<RegisteredService> removed = new ArrayList<>();
+        for (int i = 0; i < 50; i += 3) {
+            removed.add(services.get(i));
+            added.add(newService(i, "https://app" + (i % 4) + "\\.example\\.org/.*", i % 6));
+        }
+        removed.add(services.get(50));
+        final List<RegisteredService> current = new ArrayList<>(services);
+        current.removeAll(removed);
+        current.addAll(added);
+
+        final RegisteredServiceMatchingIndex changed = index.withChanges(added, removed);
+        final RegisteredServiceMatchingIndex rebuilt = new RegisteredServiceMatchingIndex(current, 100);
+        for (int app = 0; app < 8; app++) {
+            for (int i = 0; i < 52; i++) {
+                final Service service = RegisteredServiceTestUtils.getService("https://app" + app + ".example.org/" + i + "/x");
+                assertSame(rebuilt.find(service), changed.find(service));
+            }
+        }
+    }
+}
@@ -20,13 +20,17 @@ import org.apereo.cas.ticket.proxy.ProxyHandler;
 import org.apereo.cas.ticket.proxy.ProxyTicketFactory;
 import org.apereo.cas.ticket.proxy.support.Cas10ProxyHandler;
 import org.apereo.cas.ticket.proxy.support.Cas20ProxyHandler;
+import org.apereo.cas.ticket.registry.CompactTicketSerializer;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistry;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistrySupport;
+import org.apereo.cas.ticket.registry.JavaTicketSerializer;
 import org.apereo.cas.ticket.registry.NoOpLockingStrategy;
+import org.apereo.cas.ticket.registry.TicketExpirationIndex;
 import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.TicketRegistrySupport;
+import org.apereo.cas.ticket.registry.TicketSerializer;
 import org.apereo.cas.ticket.registry.support.LockingStrategy;
 import org.apereo.cas.ticket.support.AlwaysExpiresExpirationPolicy;
 import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
@@ -166,9 +170,20 @@ public class CasCoreTicketsConfiguration {
                 Beans.newTicketRegistryCipherExecutor(
                         casProperties.getTicket().getRegistry().getInMemory().getCrypto())
         );
+        r.setTicketSerializer(ticketSerializer());
+        r.setExpirationIndex(new TicketExpirationIndex(casProperties.getTicket().getRegistry().getCleaner().getRepeatInterval()));
         return r;
     }
 
+    @ConditionalOnMissingBean(name = "ticketSerializer")
+    @Bean
+    public TicketSerializer ticketSerializer() {
+        if ("COMPACT".equalsIgnoreCase(casProperties.getTicket().getRegistry().getSerializer())) {
+            return new CompactTicketSerializer();
+        }
+        return new JavaTicketSerializer();
+    }
+
     @ConditionalOnMissingBean(name = "defaultTicketRegistrySupport")
     @Bean
     public TicketRegistrySupport defaultTicketRegistrySupport() {
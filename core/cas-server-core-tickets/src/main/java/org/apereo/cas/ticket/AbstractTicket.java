@@ -5,6 +5,8 @@ import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.springframework.util.Assert;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
 import javax.persistence.Column;
 import javax.persistence.Id;
 import javax.persistence.Lob;
@@ -29,6 +31,7 @@ import java.time.ZonedDateTime;
  * @since 3.0.0
  */
 @MappedSuperclass
+@Access(AccessType.FIELD)
 @JsonIdentityInfo(generator=ObjectIdGenerators.IntSequenceGenerator.class)
 public abstract class AbstractTicket implements Ticket, TicketState {
 
@@ -152,6 +155,29 @@ public abstract class AbstractTicket implements Ticket, TicketState {
         return this.expirationPolicy;
     }
 
+    /**
+     * Gets the instant after which this ticket is known to be expired, as reported by
+     * its expiration policy. The value is derived from the ticket state and is persisted
+     * only so that expired tickets can be located by an indexed query.
+     *
+     * @return the expiration time, or null if it cannot be determined.
+     */
+    @Access(AccessType.PROPERTY)
+    @Column(name="EXPIRATION_TIME")
+    protected ZonedDateTime getExpirationTime() {
+        return this.expirationPolicy == null ? null : this.expirationPolicy.getExpirationTime(this);
+    }
+
+    /**
+     * The expiration time is always derived from the expiration policy;
+     * the persisted value is never read back.
+     *
+     * @param expirationTime the expiration time
+     */
+    protected void setExpirationTime(final ZonedDateTime expirationTime) {
+        // nothing to do
+    }
+
     @Override
     public int compareTo(final Ticket o) {
         return getId().compareTo(o.getId());
@@ -18,6 +18,7 @@ import javax.persistence.DiscriminatorColumn;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -42,7 +43,7 @@ import java.util.Set;
  * @since 3.0.0
  */
 @Entity
-@Table(name="TICKETGRANTINGTICKET")
+@Table(name="TICKETGRANTINGTICKET", indexes = @Index(name = "IDX_TGT_EXPIRATION_TIME", columnList = "EXPIRATION_TIME"))
 @DiscriminatorColumn(name = "TYPE")
 @DiscriminatorValue(TicketGrantingTicket.PREFIX)
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -77,6 +78,13 @@ public class TicketGrantingTicketImpl extends AbstractTicket implements TicketGr
     @ManyToOne(targetEntity = TicketGrantingTicketImpl.class)
     private TicketGrantingTicket ticketGrantingTicket;
 
+    /**
+     * The version of this ticket, incremented by registries that verify
+     * no concurrent update took place before writing the ticket.
+     */
+    @Column(name="VERSION", columnDefinition = "integer DEFAULT 0", nullable=false)
+    private long version;
+
     /** The PGTs associated to this ticket. */
     @OneToMany(targetEntity = TicketGrantingTicketImpl.class, mappedBy = "ticketGrantingTicket", fetch = FetchType.EAGER)
     private Set<ProxyGrantingTicket> proxyGrantingTickets = new HashSet<>();
@@ -282,6 +290,15 @@ public class TicketGrantingTicketImpl extends AbstractTicket implements TicketGr
         return this.proxiedBy;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(final long version) {
+        this.version = version;
+    }
+
 
     @Override
     public boolean equals(final Object object) {
@@ -13,7 +13,6 @@ import org.apereo.cas.ticket.Ticket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
 import org.apereo.cas.util.DigestUtils;
-import org.apereo.cas.util.serialization.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
@@ -33,7 +32,9 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
 
     protected transient Logger logger = LoggerFactory.getLogger(getClass());
 
-    private CipherExecutor cipherExecutor;
+    private CipherExecutor<byte[], byte[]> cipherExecutor;
+
+    private TicketSerializer ticketSerializer = new JavaTicketSerializer();
 
     /**
      * Default constructor.
@@ -175,6 +176,10 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
         this.cipherExecutor = cipherExecutor;
     }
 
+    public void setTicketSerializer(final TicketSerializer ticketSerializer) {
+        this.ticketSerializer = ticketSerializer;
+    }
+
     /**
      * Encode ticket id into a SHA-512.
      *
@@ -211,8 +216,7 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
         }
 
         logger.info("Encoding [{}]", ticket);
-        final byte[] encodedTicketObject = SerializationUtils.serializeAndEncodeObject(
-                this.cipherExecutor, ticket);
+        final byte[] encodedTicketObject = this.cipherExecutor.encode(this.ticketSerializer.serialize(ticket));
         final String encodedTicketId = encodeTicketId(ticket.getId());
         final Ticket encodedTicket = new EncodedTicket(
                 ByteSource.wrap(encodedTicketObject),
@@ -241,8 +245,8 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
         logger.info("Attempting to decode {}", result);
         final EncodedTicket encodedTicket = (EncodedTicket) result;
 
-        final Ticket ticket = SerializationUtils.decodeAndSerializeObject(
-                encodedTicket.getEncoded(), this.cipherExecutor, Ticket.class);
+        final byte[] decoded = this.cipherExecutor.decode(encodedTicket.getEncoded());
+        final Ticket ticket = this.ticketSerializer.deserialize(decoded);
         logger.info("Decoded {}", ticket);
         return ticket;
     }
@@ -0,0 +1,267 @@
+package org.apereo.cas.ticket.registry;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.util.serialization.SerializationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamConstants;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * This is {@link CompactTicketSerializer}. It relies on Java serialization of tickets,
+ * but avoids most of its overhead in size and processing time:
+ * <ul>
+ * <li>Class descriptors that describe every field of every class in the ticket graph are not written.
+ * Classes are instead identified by their position in a fixed dictionary of classes commonly
+ * found in tickets, or by name otherwise, along with their serial version id and a hash of their
+ * serializable fields. Field layouts are taken from the local classes when tickets are read,
+ * and tickets written with a different field layout are rejected, since serial version ids
+ * are kept the same across changes to fields.</li>
+ * <li>Strings that are equal, such as service URLs and attribute names repeated across the ticket graph,
+ * are written once and referenced thereafter.</li>
+ * </ul>
+ * Tickets that were serialized with default Java serialization can still be read.
+ * <p>
+ * The dictionary is part of the serialized form, and classes may only be appended to it.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class CompactTicketSerializer implements TicketSerializer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactTicketSerializer.class);
+
+    private static final int MAGIC = 0xCA5C;
+
+    private static final int VERSION = 1;
+
+    private static final int MAX_DICTIONARY_SIZE = 255;
+
+    private static final List<String> DICTIONARY = ImmutableList.of(
+            "org.apereo.cas.ticket.AbstractTicket",
+            "org.apereo.cas.ticket.TicketGrantingTicketImpl",
+            "org.apereo.cas.ticket.ServiceTicketImpl",
+            "org.apereo.cas.ticket.ProxyGrantingTicketImpl",
+            "org.apereo.cas.ticket.ProxyTicketImpl",
+            "org.apereo.cas.ticket.code.OAuthCodeImpl",
+            "org.apereo.cas.ticket.accesstoken.AccessTokenImpl",
+            "org.apereo.cas.ticket.refreshtoken.RefreshTokenImpl",
+            "org.apereo.cas.ticket.support.AbstractCasExpirationPolicy",
+            "org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy",
+            "org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy",
+            "org.apereo.cas.ticket.support.TimeoutExpirationPolicy",
+            "org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy",
+            "org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy",
+            "org.apereo.cas.ticket.support.RememberMeDelegatingExpirationPolicy",
+            "org.apereo.cas.ticket.support.ThrottledUseAndTimeoutExpirationPolicy",
+            "org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy$ServiceTicketExpirationPolicy",
+            "org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy$ProxyTicketExpirationPolicy",
+            "org.apereo.cas.authentication.DefaultAuthentication",
+            "org.apereo.cas.authentication.DefaultHandlerResult",
+            "org.apereo.cas.authentication.BasicCredentialMetaData",
+            "org.apereo.cas.authentication.UsernamePasswordCredential",
+            "org.apereo.cas.authentication.HttpBasedServiceCredential",
+            "org.apereo.cas.authentication.principal.SimplePrincipal",
+            "org.apereo.cas.authentication.principal.AbstractWebApplicationService",
+            "org.apereo.cas.authentication.principal.SimpleWebApplicationServiceImpl",
+            "org.apereo.cas.authentication.principal.AbstractWebApplicationServiceResponseBuilder",
+            "org.apereo.cas.authentication.principal.WebApplicationServiceResponseBuilder",
+            "org.apereo.cas.authentication.principal.Response$ResponseType",
+            "org.apereo.cas.validation.ValidationResponseType",
+            "java.lang.Enum",
+            "java.lang.Number",
+            "java.lang.Boolean",
+            "java.lang.Integer",
+            "java.lang.Long",
+            "java.time.Ser",
+            "java.util.ArrayList",
+            "java.util.LinkedList",
+            "java.util.HashMap",
+            "java.util.LinkedHashMap",
+            "java.util.TreeMap",
+            "java.util.HashSet",
+            "java.util.LinkedHashSet",
+            "java.util.TreeSet",
+            "java.util.concurrent.ConcurrentHashMap",
+            "java.util.Collections$EmptyMap",
+            "java.util.Collections$EmptyList",
+            "java.util.Collections$EmptySet",
+            "java.util.Collections$SingletonList",
+            "java.util.Collections$SingletonMap",
+            "java.util.Collections$SingletonSet",
+            "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableList",
+            "java.util.Collections$UnmodifiableRandomAccessList",
+            "java.util.Collections$UnmodifiableMap",
+            "java.util.Collections$UnmodifiableSet",
+            "[Ljava.lang.Object;",
+            "[Ljava.lang.String;",
+            "[B"
+    );
+
+    private static final Map<String, Integer> DICTIONARY_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.size(); i++) {
+            DICTIONARY_INDEX.put(DICTIONARY.get(i), i + 1);
+        }
+        if (DICTIONARY.size() > MAX_DICTIONARY_SIZE) {
+            throw new IllegalStateException("Ticket class dictionary cannot hold more than " + MAX_DICTIONARY_SIZE + " classes");
+        }
+    }
+
+    @Override
+    public byte[] serialize(final Ticket ticket) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new CompactObjectOutputStream(bytes)) {
+            out.writeObject(ticket);
+        } catch (final IOException e) {
+            throw Throwables.propagate(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Ticket deserialize(final byte[] data) {
+        if (data.length >= Short.BYTES && ByteBuffer.wrap(data).getShort() == ObjectStreamConstants.STREAM_MAGIC) {
+            LOGGER.trace("Ticket was serialized with default Java serialization");
+            return SerializationUtils.deserializeAndCheckObject(data, Ticket.class);
+        }
+        try (ObjectInputStream in = new CompactObjectInputStream(new ByteArrayInputStream(data))) {
+            final Object result = in.readObject();
+            if (!(result instanceof Ticket)) {
+                throw new ClassCastException("Decoded object is of type " + result.getClass()
+                        + " when we were expecting " + Ticket.class);
+            }
+            return (Ticket) result;
+        } catch (final IOException | ClassNotFoundException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Gets a hash of the names and types of the serializable fields declared by the class.
+     * Fields are listed by {@link ObjectStreamClass} in a canonical order, and the hash
+     * does not depend on the JVM, so it can be compared across nodes.
+     *
+     * @param desc the class descriptor
+     * @return the field layout hash
+     */
+    private static int getFieldLayoutHash(final ObjectStreamClass desc) {
+        final StringBuilder layout = new StringBuilder();
+        for (final ObjectStreamField field : desc.getFields()) {
+            layout.append(field.getName()).append(' ')
+                    .append(field.isPrimitive() ? String.valueOf(field.getTypeCode()) : field.getTypeString())
+                    .append(';');
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(layout.toString().getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Output stream that writes class references instead of class descriptors,
+     * and writes equal strings once.
+     */
+    private static class CompactObjectOutputStream extends ObjectOutputStream {
+        private final Map<String, String> strings = new HashMap<>();
+
+        CompactObjectOutputStream(final OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException {
+            writeShort(MAGIC);
+            writeByte(VERSION);
+        }
+
+        @Override
+        protected void writeClassDescriptor(final ObjectStreamClass desc) throws IOException {
+            final Integer index = DICTIONARY_INDEX.get(desc.getName());
+            if (index != null) {
+                writeByte(index);
+            } else {
+                writeByte(0);
+                writeUTF(desc.getName());
+            }
+            writeLong(desc.getSerialVersionUID());
+            writeInt(getFieldLayoutHash(desc));
+        }
+
+        @Override
+        protected Object replaceObject(final Object obj) throws IOException {
+            if (obj instanceof String) {
+                final String value = (String) obj;
+                final String existing = this.strings.putIfAbsent(value, value);
+                return existing != null ? existing : value;
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * Input stream that resolves class references against local classes.
+     */
+    private static class CompactObjectInputStream extends ObjectInputStream {
+
+        CompactObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected void readStreamHeader() throws IOException {
+            final int magic = readUnsignedShort();
+            final int version = readUnsignedByte();
+            if (magic != MAGIC || version != VERSION) {
+                throw new StreamCorruptedException(String.format("Invalid ticket stream header: %04X, version %d", magic, version));
+            }
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            final int index = readUnsignedByte();
+            final String name;
+            if (index == 0) {
+                name = readUTF();
+            } else if (index <= DICTIONARY.size()) {
+                name = DICTIONARY.get(index - 1);
+            } else {
+                throw new StreamCorruptedException("Unknown ticket class reference " + index);
+            }
+            final long serialVersionUID = readLong();
+            final Class<?> clazz = ClassUtils.forName(name, ClassUtils.getDefaultClassLoader());
+            final ObjectStreamClass desc = ObjectStreamClass.lookupAny(clazz);
+            if (desc.getSerialVersionUID() != serialVersionUID) {
+                throw new InvalidClassException(name, "local class is incompatible: stream classdesc serialVersionUID = "
+                        + serialVersionUID + ", local class serialVersionUID = " + desc.getSerialVersionUID());
+            }
+            final int fieldLayoutHash = readInt();
+            if (getFieldLayoutHash(desc) != fieldLayoutHash) {
+                throw new InvalidClassException(name, "local class is incompatible: serializable fields of the local class "
+                        + "differ from the fields the ticket was written with");
+            }
+            return desc;
+        }
+    }
+}
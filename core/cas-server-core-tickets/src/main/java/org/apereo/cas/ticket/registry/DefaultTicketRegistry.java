@@ -1,13 +1,23 @@
 package org.apereo.cas.ticket.registry;
 
+import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the TicketRegistry that is backed by a ConcurrentHashMap.
@@ -20,7 +30,28 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
     /**
      * A HashMap to contain the tickets.
      */
-    private Map<String, Ticket> cache;
+    private ConcurrentMap<String, Ticket> cache;
+
+    /**
+     * Tracks when tickets are due to be examined for expiration.
+     */
+    private TicketExpirationIndex expirationIndex = new TicketExpirationIndex();
+
+    /**
+     * Ids of ticket-granting tickets keyed by the principal id.
+     */
+    private final ConcurrentMap<String, Set<String>> sessionsByPrincipal = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of tickets keyed by the id of the ticket-granting ticket that granted them.
+     */
+    private final ConcurrentMap<String, Set<String>> childrenByGrantingTicket = new ConcurrentHashMap<>();
+
+    private final AtomicLong sessionCount = new AtomicLong();
+
+    private final AtomicLong serviceTicketCount = new AtomicLong();
+
+    private final AtomicLong proxyGrantingTicketCount = new AtomicLong();
 
     /**
      * Instantiates a new default ticket registry.
@@ -53,7 +84,13 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
         Assert.notNull(ticket, "ticket cannot be null");
 
         logger.debug("Added ticket [{}] to registry.", ticket.getId());
-        this.cache.put(ticket.getId(), ticket);
+        this.cache.compute(ticket.getId(), (id, existing) -> {
+            if (existing == null) {
+                index(ticket);
+            }
+            this.expirationIndex.schedule(ticket);
+            return ticket;
+        });
     }
 
     /**
@@ -76,7 +113,74 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
 
     @Override
     public boolean deleteSingleTicket(final String ticketId) {
-        return this.cache.remove(ticketId) != null;
+        final AtomicBoolean removed = new AtomicBoolean();
+        this.cache.computeIfPresent(ticketId, (id, ticket) -> {
+            this.expirationIndex.remove(id);
+            unindex(ticket);
+            removed.set(true);
+            return null;
+        });
+        return removed.get();
+    }
+
+    /**
+     * Delete the tickets granted by the ticket-granting ticket, as tracked
+     * by the registry rather than by the ticket itself. Proxy-granting tickets
+     * are removed along with their own children.
+     *
+     * @param ticket the ticket
+     * @return the count of tickets that were removed
+     */
+    @Override
+    public int deleteChildren(final TicketGrantingTicket ticket) {
+        final Set<String> children = this.childrenByGrantingTicket.remove(ticket.getId());
+        if (children == null) {
+            return 0;
+        }
+        final AtomicInteger count = new AtomicInteger(0);
+        children.forEach(ticketId -> {
+            final Ticket child = this.cache.get(ticketId);
+            if (child instanceof TicketGrantingTicket) {
+                count.addAndGet(deleteTicket(ticketId));
+            } else if (deleteSingleTicket(ticketId)) {
+                logger.debug("Removed ticket [{}]", ticketId);
+                count.incrementAndGet();
+            }
+        });
+        return count.intValue();
+    }
+
+    @Override
+    public long sessionCount() {
+        return this.sessionCount.get();
+    }
+
+    @Override
+    public long serviceTicketCount() {
+        return this.serviceTicketCount.get();
+    }
+
+    @Override
+    public long proxyGrantingTicketCount() {
+        return this.proxyGrantingTicketCount.get();
+    }
+
+    @Override
+    public long principalCount() {
+        return this.sessionsByPrincipal.size();
+    }
+
+    @Override
+    public Collection<TicketGrantingTicket> getSessionsFor(final String principalId) {
+        final Set<String> ids = this.sessionsByPrincipal.get(principalId);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        return ids.stream()
+                .map(this.cache::get)
+                .filter(Objects::nonNull)
+                .map(t -> (TicketGrantingTicket) decodeTicket(t))
+                .collect(Collectors.toList());
     }
 
 
@@ -85,8 +189,103 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
         return Collections.unmodifiableCollection(this.cache.values());
     }
     
+    @Override
+    public boolean isExpirationTracked() {
+        return true;
+    }
+
+    @Override
+    public Collection<Ticket> getExpiredTickets(final int limit) {
+        final Collection<Ticket> expired = new ArrayList<>();
+        this.expirationIndex.pollDue(limit).forEach(id -> {
+            final Ticket ticket = decodeTicket(this.cache.get(id));
+            if (ticket != null) {
+                this.expirationIndex.reschedule(ticket);
+                if (ticket.isExpired()) {
+                    expired.add(ticket);
+                }
+            }
+        });
+        logger.debug("Located [{}] expired tickets in the registry", expired.size());
+        return expired;
+    }
+
     @Override
     public void updateTicket(final Ticket ticket) {
         addTicket(ticket);
     }
+
+    public void setExpirationIndex(final TicketExpirationIndex expirationIndex) {
+        this.expirationIndex = expirationIndex;
+    }
+
+    private void index(final Ticket ticket) {
+        if (ticket instanceof TicketGrantingTicket) {
+            this.sessionCount.incrementAndGet();
+            if (ticket instanceof ProxyGrantingTicket) {
+                this.proxyGrantingTicketCount.incrementAndGet();
+            }
+            final String principalId = getPrincipalId((TicketGrantingTicket) ticket);
+            if (principalId != null) {
+                addToIndex(this.sessionsByPrincipal, principalId, ticket.getId());
+            }
+        } else if (ticket instanceof ServiceTicket) {
+            this.serviceTicketCount.incrementAndGet();
+        }
+
+        final TicketGrantingTicket grantingTicket = getGrantingTicket(ticket);
+        if (grantingTicket != null) {
+            addToIndex(this.childrenByGrantingTicket, grantingTicket.getId(), ticket.getId());
+        }
+    }
+
+    private void unindex(final Ticket ticket) {
+        if (ticket instanceof TicketGrantingTicket) {
+            this.sessionCount.decrementAndGet();
+            if (ticket instanceof ProxyGrantingTicket) {
+                this.proxyGrantingTicketCount.decrementAndGet();
+            }
+            final String principalId = getPrincipalId((TicketGrantingTicket) ticket);
+            if (principalId != null) {
+                removeFromIndex(this.sessionsByPrincipal, principalId, ticket.getId());
+            }
+            this.childrenByGrantingTicket.remove(ticket.getId());
+        } else if (ticket instanceof ServiceTicket) {
+            this.serviceTicketCount.decrementAndGet();
+        }
+
+        final TicketGrantingTicket grantingTicket = getGrantingTicket(ticket);
+        if (grantingTicket != null) {
+            removeFromIndex(this.childrenByGrantingTicket, grantingTicket.getId(), ticket.getId());
+        }
+    }
+
+    private static void addToIndex(final ConcurrentMap<String, Set<String>> index, final String key, final String ticketId) {
+        index.compute(key, (k, ids) -> {
+            final Set<String> result = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            result.add(ticketId);
+            return result;
+        });
+    }
+
+    private static void removeFromIndex(final ConcurrentMap<String, Set<String>> index, final String key, final String ticketId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(ticketId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String getPrincipalId(final TicketGrantingTicket ticket) {
+        if (ticket instanceof ProxyGrantingTicket || ticket.getAuthentication() == null) {
+            return null;
+        }
+        return ticket.getAuthentication().getPrincipal().getId();
+    }
+
+    private static TicketGrantingTicket getGrantingTicket(final Ticket ticket) {
+        if (ticket instanceof EncodedTicket) {
+            return null;
+        }
+        return ticket.getGrantingTicket();
+    }
 }
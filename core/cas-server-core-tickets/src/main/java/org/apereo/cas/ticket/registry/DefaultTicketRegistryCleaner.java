@@ -1,6 +1,8 @@
 package org.apereo.cas.ticket.registry;
 
+import com.google.common.collect.Iterables;
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.ticket.registry.TicketRegistryProperties;
 import org.apereo.cas.logout.LogoutManager;
 import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
@@ -14,7 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.support.SpringBeanAutowiringSupport;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
  * This is {@link DefaultTicketRegistryCleaner}.
@@ -60,24 +62,16 @@ public class DefaultTicketRegistryCleaner implements TicketRegistryCleaner {
             }
             LOGGER.debug("Acquired lock.  Proceeding with cleanup.");
            
-            final Collection<Ticket> ticketsToRemove = ticketRegistry.getTickets()
-                    .stream()
-                    .filter(Ticket::isExpired)
-                    .collect(Collectors.toSet());
-            LOGGER.debug("{} expired tickets found.", ticketsToRemove.size());
-
-            int count = 0;
-
-            for (final Ticket ticket : ticketsToRemove) {
-                if (ticket instanceof TicketGrantingTicket) {
-                    LOGGER.debug("Cleaning up expired ticket-granting ticket [{}]", ticket.getId());
-                    logoutManager.performLogout((TicketGrantingTicket) ticket);
-                    count += ticketRegistry.deleteTicket(ticket.getId());
-                } else if (ticket instanceof ServiceTicket) {
-                    LOGGER.debug("Cleaning up expired service ticket [{}]", ticket.getId());
-                    count += ticketRegistry.deleteTicket(ticket.getId());
-                } else {
-                    LOGGER.warn("Unknown ticket type [{} found to clean", ticket.getClass().getSimpleName());
+            final TicketRegistryProperties.Cleaner cleaner = casProperties.getTicket().getRegistry().getCleaner();
+            int count = ticketRegistry.deleteExpiredTickets();
+            LOGGER.debug("{} expired tickets removed in bulk.", count);
+            if (ticketRegistry.isExpirationTracked()) {
+                count += cleanInBatches(cleaner);
+            } else {
+                final Collection<Ticket> ticketsToRemove = ticketRegistry.getExpiredTickets(cleaner.getMaxTicketsPerRun());
+                LOGGER.debug("{} expired tickets found.", ticketsToRemove.size());
+                for (final List<Ticket> batch : Iterables.partition(ticketsToRemove, cleaner.getBatchSize())) {
+                    count += batch.stream().mapToInt(this::cleanTicket).sum();
                 }
             }
             LOGGER.info("{} expired tickets removed.", count);
@@ -91,6 +85,51 @@ public class DefaultTicketRegistryCleaner implements TicketRegistryCleaner {
         }
     }
 
+    /**
+     * Clean expired tickets by requesting them from the registry in batches,
+     * until no more are found or the maximum number of tickets per run is reached.
+     *
+     * @param cleaner the cleaner settings
+     * @return the number of tickets removed from the registry
+     */
+    private int cleanInBatches(final TicketRegistryProperties.Cleaner cleaner) {
+        int count = 0;
+        int processed = 0;
+        while (processed < cleaner.getMaxTicketsPerRun()) {
+            final int limit = Math.min(cleaner.getBatchSize(), cleaner.getMaxTicketsPerRun() - processed);
+            final Collection<Ticket> ticketsToRemove = ticketRegistry.getExpiredTickets(limit);
+            LOGGER.debug("{} expired tickets found.", ticketsToRemove.size());
+            processed += ticketsToRemove.size();
+
+            final int removed = ticketsToRemove.stream().mapToInt(this::cleanTicket).sum();
+            count += removed;
+            if (ticketsToRemove.size() < limit || removed == 0) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Clean a single expired ticket, performing logout for ticket-granting tickets.
+     *
+     * @param ticket the ticket
+     * @return the number of tickets removed from the registry
+     */
+    private int cleanTicket(final Ticket ticket) {
+        if (ticket instanceof TicketGrantingTicket) {
+            LOGGER.debug("Cleaning up expired ticket-granting ticket [{}]", ticket.getId());
+            logoutManager.performLogout((TicketGrantingTicket) ticket);
+            return ticketRegistry.deleteTicket(ticket.getId());
+        }
+        if (ticket instanceof ServiceTicket) {
+            LOGGER.debug("Cleaning up expired service ticket [{}]", ticket.getId());
+            return ticketRegistry.deleteTicket(ticket.getId());
+        }
+        LOGGER.warn("Unknown ticket type [{} found to clean", ticket.getClass().getSimpleName());
+        return 0;
+    }
+
     /**
      * Indicates whether the registry supports automatic ticket cleanup.
      * Generally, a registry that is able to return a collection of available
@@ -0,0 +1,23 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.util.serialization.SerializationUtils;
+
+/**
+ * This is {@link JavaTicketSerializer} that relies on default Java serialization.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class JavaTicketSerializer implements TicketSerializer {
+
+    @Override
+    public byte[] serialize(final Ticket ticket) {
+        return SerializationUtils.serialize(ticket);
+    }
+
+    @Override
+    public Ticket deserialize(final byte[] data) {
+        return SerializationUtils.deserializeAndCheckObject(data, Ticket.class);
+    }
+}
@@ -0,0 +1,182 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.ticket.ExpirationPolicy;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link TicketExpirationIndex}. It keeps the ids of registered tickets ordered by the
+ * instant at which each ticket should next be examined for expiration, so that expired tickets
+ * can be located without walking the entire registry.
+ * <p>
+ * The instant is the expiration time reported by the ticket expiration policy. Since expiration policies
+ * are free to expire tickets for other reasons (i.e. number of uses, or explicit expiration), the instant is
+ * only treated as a hint: tickets whose policy does not report an expiration time are due
+ * immediately, and tickets that turn out not to be expired when examined are simply rescheduled.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class TicketExpirationIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketExpirationIndex.class);
+
+    private static final long DEFAULT_RECHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final ConcurrentSkipListSet<Entry> schedule = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Entry::getDueTime).thenComparing(Entry::getTicketId));
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long recheckInterval;
+
+    /**
+     * Instantiates a new index that reschedules tickets no sooner than a minute later.
+     */
+    public TicketExpirationIndex() {
+        this(DEFAULT_RECHECK_INTERVAL);
+    }
+
+    /**
+     * Instantiates a new index.
+     *
+     * @param recheckInterval the minimum amount of time, in milliseconds, before a ticket
+     *                        that was examined and rescheduled becomes due again.
+     */
+    public TicketExpirationIndex(final long recheckInterval) {
+        this.recheckInterval = recheckInterval;
+    }
+
+    /**
+     * Track the ticket, or refresh its due time if it is already tracked.
+     *
+     * @param ticket the ticket
+     */
+    public void schedule(final Ticket ticket) {
+        put(ticket.getId(), calculateDueTime(ticket));
+    }
+
+    /**
+     * Track the ticket again after it has been examined, ensuring the ticket
+     * is not due before the recheck interval has passed.
+     *
+     * @param ticket the ticket
+     */
+    public void reschedule(final Ticket ticket) {
+        put(ticket.getId(), Math.max(calculateDueTime(ticket), System.currentTimeMillis() + this.recheckInterval));
+    }
+
+    /**
+     * Stop tracking the ticket.
+     *
+     * @param ticketId the ticket id
+     */
+    public void remove(final String ticketId) {
+        this.entries.computeIfPresent(ticketId, (k, current) -> {
+            this.schedule.remove(current);
+            return null;
+        });
+    }
+
+    /**
+     * Remove and return the ids of tickets that are due for examination.
+     * Tickets are returned in order of their due time.
+     *
+     * @param limit the maximum number of ticket ids to return
+     * @return the ticket ids
+     */
+    public Collection<String> pollDue(final int limit) {
+        final long now = System.currentTimeMillis();
+        final Collection<String> due = new ArrayList<>();
+        final Iterator<Entry> it = this.schedule.iterator();
+        while (due.size() < limit && it.hasNext()) {
+            final Entry entry = it.next();
+            if (entry.getDueTime() > now) {
+                break;
+            }
+            if (this.entries.remove(entry.getTicketId(), entry)) {
+                due.add(entry.getTicketId());
+            }
+            this.schedule.remove(entry);
+        }
+        return due;
+    }
+
+    /**
+     * Number of tracked tickets.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    private void put(final String ticketId, final long dueTime) {
+        this.entries.compute(ticketId, (k, current) -> {
+            if (current != null) {
+                this.schedule.remove(current);
+            }
+            final Entry entry = new Entry(ticketId, dueTime);
+            this.schedule.add(entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Calculate the earliest instant at which the ticket may expire by time.
+     *
+     * @param ticket the ticket
+     * @return the due time in milliseconds, or the current time if it cannot be determined
+     */
+    private static long calculateDueTime(final Ticket ticket) {
+        final long now = System.currentTimeMillis();
+        try {
+            final ExpirationPolicy policy = ticket.getExpirationPolicy();
+            if (policy == null) {
+                return now;
+            }
+            if (ticket instanceof TicketState) {
+                final ZonedDateTime expirationTime = policy.getExpirationTime((TicketState) ticket);
+                if (expirationTime != null) {
+                    return expirationTime.toInstant().toEpochMilli();
+                }
+            }
+            return now;
+        } catch (final Exception e) {
+            LOGGER.trace("Unable to calculate expiration time for [{}]: {}", ticket.getId(), e.getMessage());
+            return now;
+        }
+    }
+
+    /**
+     * Scheduled entry for a single ticket.
+     */
+    private static class Entry {
+        private final String ticketId;
+        private final long dueTime;
+
+        Entry(final String ticketId, final long dueTime) {
+            this.ticketId = ticketId;
+            this.dueTime = dueTime;
+        }
+
+        String getTicketId() {
+            return this.ticketId;
+        }
+
+        long getDueTime() {
+            return this.dueTime;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
+import java.time.ZonedDateTime;
 
 /**
  * Delegates to different expiration policies depending on whether remember me
@@ -103,6 +104,22 @@ public class RememberMeDelegatingExpirationPolicy extends AbstractCasExpirationP
         return 0L;
     }
 
+    @Override
+    public ZonedDateTime getExpirationTime(final TicketState ticketState) {
+        if (this.rememberMeExpirationPolicy != null && this.sessionExpirationPolicy != null) {
+            if (ticketState.getAuthentication() == null) {
+                return null;
+            }
+            final Boolean b = (Boolean) ticketState.getAuthentication().getAttributes().
+                    get(RememberMeCredential.AUTHENTICATION_ATTRIBUTE_REMEMBER_ME);
+            if (b == null || b.equals(Boolean.FALSE)) {
+                return this.sessionExpirationPolicy.getExpirationTime(ticketState);
+            }
+            return this.rememberMeExpirationPolicy.getExpirationTime(ticketState);
+        }
+        return null;
+    }
+
     public void setRememberMeExpirationPolicy(final ExpirationPolicy rememberMeExpirationPolicy) {
         this.rememberMeExpirationPolicy = rememberMeExpirationPolicy;
     }
@@ -93,6 +93,11 @@ public class ThrottledUseAndTimeoutExpirationPolicy extends AbstractCasExpiratio
         return this.timeInBetweenUsesInSeconds;
     }
 
+    @Override
+    public ZonedDateTime getExpirationTime(final TicketState ticketState) {
+        return ticketState.getLastTimeUsed().plus(this.timeToKillInSeconds, ChronoUnit.SECONDS);
+    }
+
 
     @Override
     public boolean equals(final Object obj) {
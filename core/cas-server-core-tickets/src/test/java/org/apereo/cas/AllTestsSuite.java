@@ -6,8 +6,10 @@ import org.apereo.cas.ticket.TicketGrantingTicketImplTests;
 import org.apereo.cas.ticket.UnrecognizableServiceForServiceTicketValidationExceptionTests;
 import org.apereo.cas.ticket.proxy.support.Cas10ProxyHandlerTests;
 import org.apereo.cas.ticket.proxy.support.Cas20ProxyHandlerTests;
+import org.apereo.cas.ticket.registry.CompactTicketSerializerTests;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistryTests;
 import org.apereo.cas.ticket.registry.DistributedTicketRegistryTests;
+import org.apereo.cas.ticket.registry.TicketExpirationIndexTests;
 import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicyTests;
 import org.apereo.cas.ticket.support.RememberMeDelegatingExpirationPolicyTests;
 import org.apereo.cas.ticket.support.ThrottledUseAndTimeoutExpirationPolicyTests;
@@ -28,7 +30,7 @@ import org.junit.runners.Suite;
         MultiTimeUseOrTimeoutExpirationPolicyTests.class, RememberMeDelegatingExpirationPolicyTests.class,
         ThrottledUseAndTimeoutExpirationPolicyTests.class, TicketGrantingTicketExpirationPolicyTests.class,
         TimeoutExpirationPolicyTests.class, DefaultTicketRegistryTests.class,
-        DistributedTicketRegistryTests.class, Cas10ProxyHandlerTests.class,
-        Cas20ProxyHandlerTests.class})
+        DistributedTicketRegistryTests.class, TicketExpirationIndexTests.class, Cas10ProxyHandlerTests.class,
+        Cas20ProxyHandlerTests.class, CompactTicketSerializerTests.class})
 public class AllTestsSuite {
 }
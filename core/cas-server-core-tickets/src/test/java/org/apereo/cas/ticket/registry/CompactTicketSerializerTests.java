@@ -0,0 +1,106 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
+import org.apereo.cas.util.cipher.BinaryCipherExecutor;
+import org.junit.Test;
+
+import java.io.InvalidClassException;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link CompactTicketSerializerTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class CompactTicketSerializerTests {
+
+    private final TicketSerializer serializer = new CompactTicketSerializer();
+
+    private final TicketGrantingTicket tgt = new TicketGrantingTicketImpl("TGT-1",
+            CoreAuthenticationTestUtils.getAuthentication("casuser"), new TicketGrantingTicketExpirationPolicy(100, 100));
+
+    @Test
+    public void verifyTicketsRoundTrip() {
+        final ServiceTicket st = tgt.grantServiceTicket("ST-1", RegisteredServiceTestUtils.getService("https://example.org"),
+                new MultiTimeUseOrTimeoutExpirationPolicy(1, 10), false, true);
+        final ProxyGrantingTicket pgt = st.grantProxyGrantingTicket("PGT-1",
+                CoreAuthenticationTestUtils.getAuthentication("casuser"), new HardTimeoutExpirationPolicy(100));
+        final Ticket pt = pgt.grantProxyTicket("PT-1", RegisteredServiceTestUtils.getService("https://example.net"),
+                new MultiTimeUseOrTimeoutExpirationPolicy(1, 10), true);
+
+        for (final Ticket ticket : new Ticket[]{tgt, st, pgt, pt}) {
+            final Ticket result = serializer.deserialize(serializer.serialize(ticket));
+            assertEquals(ticket, result);
+            assertEquals(ticket.getClass(), result.getClass());
+            assertEquals(ticket.getCreationTime(), result.getCreationTime());
+        }
+        final TicketGrantingTicket result = (TicketGrantingTicket) serializer.deserialize(serializer.serialize(tgt));
+        assertEquals(tgt.getAuthentication(), result.getAuthentication());
+        assertEquals(tgt.getServices().keySet(), result.getServices().keySet());
+    }
+
+    @Test
+    public void verifyTicketsAreSmallerThanJavaSerialization() {
+        for (int i = 0; i < 5; i++) {
+            tgt.grantServiceTicket("ST-" + i, RegisteredServiceTestUtils.getService("https://example.org"),
+                    new MultiTimeUseOrTimeoutExpirationPolicy(1, 10), false, true);
+        }
+        final byte[] compact = serializer.serialize(tgt);
+        final byte[] java = new JavaTicketSerializer().serialize(tgt);
+        assertTrue(compact.length * 2 < java.length);
+    }
+
+    @Test
+    public void verifyJavaSerializedTicketsAreRead() {
+        final byte[] java = new JavaTicketSerializer().serialize(tgt);
+        assertEquals(tgt, serializer.deserialize(java));
+    }
+
+    @Test
+    public void verifyEncodedTicketsInRegistry() {
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        registry.setCipherExecutor(new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16));
+        registry.setTicketSerializer(serializer);
+        final Ticket encoded = registry.encodeTicket(tgt);
+        assertTrue(encoded instanceof EncodedTicket);
+        final TicketGrantingTicket result = (TicketGrantingTicket) registry.decodeTicket(encoded);
+        assertEquals(tgt, result);
+        assertEquals(tgt.getAuthentication().getPrincipal(), result.getAuthentication().getPrincipal());
+    }
+
+    @Test
+    public void verifyTicketsWithDifferentFieldLayoutAreRejected() {
+        final byte[] data = serializer.serialize(tgt);
+        final long serialVersionUID = ObjectStreamClass.lookup(TicketGrantingTicketImpl.class).getSerialVersionUID();
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        int position = -1;
+        for (int i = 0; i + Byte.BYTES + Long.BYTES + Integer.BYTES <= data.length && position < 0; i++) {
+            if (data[i] == 2 && buffer.getLong(i + Byte.BYTES) == serialVersionUID) {
+                position = i + Byte.BYTES + Long.BYTES;
+            }
+        }
+        assertTrue(position > 0);
+        buffer.putInt(position, buffer.getInt(position) + 1);
+
+        try {
+            serializer.deserialize(data);
+            fail("Ticket written with a different field layout should not be read");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvalidClassException);
+        }
+    }
+}
@@ -1,7 +1,23 @@
 package org.apereo.cas.ticket.registry;
 
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.authentication.principal.Service;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static org.junit.Assert.*;
 
 /**
@@ -22,4 +38,113 @@ public class DefaultTicketRegistryTests extends AbstractTicketRegistryTests {
     public void verifyOtherConstructor() {
         assertNotNull(new DefaultTicketRegistry(10, 10F, 5));
     }
+
+    @Test
+    public void verifyCountsAndSessionsAreIndexed() {
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        final TicketGrantingTicket tgt1 = new TicketGrantingTicketImpl("TGT-1",
+                CoreAuthenticationTestUtils.getAuthentication("casuser"), new NeverExpiresExpirationPolicy());
+        final TicketGrantingTicket tgt2 = new TicketGrantingTicketImpl("TGT-2",
+                CoreAuthenticationTestUtils.getAuthentication("casuser"), new NeverExpiresExpirationPolicy());
+        final TicketGrantingTicket tgt3 = new TicketGrantingTicketImpl("TGT-3",
+                CoreAuthenticationTestUtils.getAuthentication("other"), new NeverExpiresExpirationPolicy());
+        registry.addTicket(tgt1);
+        registry.addTicket(tgt2);
+        registry.addTicket(tgt3);
+        registry.updateTicket(tgt1);
+
+        final Service service = RegisteredServiceTestUtils.getService("TGT_DELETE_TEST");
+        registry.addTicket(tgt1.grantServiceTicket("ST-1", service, new NeverExpiresExpirationPolicy(), false, true));
+
+        assertEquals(3, registry.sessionCount());
+        assertEquals(1, registry.serviceTicketCount());
+        assertEquals(2, registry.principalCount());
+        assertEquals(2, registry.getSessionsFor("casuser").size());
+        assertEquals(1, registry.getSessionsFor("other").size());
+        assertTrue(registry.getSessionsFor("unknown").isEmpty());
+
+        assertEquals(1, registry.deleteTicket("TGT-2"));
+        assertEquals(2, registry.sessionCount());
+        assertEquals(1, registry.getSessionsFor("casuser").size());
+    }
+
+    @Test
+    public void verifyProxyGrantingTicketsAreCounted() {
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl("TGT",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(tgt);
+
+        final Service service = RegisteredServiceTestUtils.getService("TGT_DELETE_TEST");
+        final ServiceTicket st = tgt.grantServiceTicket("ST", service, new NeverExpiresExpirationPolicy(), false, false);
+        registry.addTicket(st);
+        registry.addTicket(st.grantProxyGrantingTicket("PGT", CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy()));
+
+        assertEquals(2, registry.sessionCount());
+        assertEquals(1, registry.proxyGrantingTicketCount());
+        assertEquals(1, registry.principalCount());
+
+        registry.deleteTicket(tgt.getId());
+        assertEquals(0, registry.proxyGrantingTicketCount());
+        assertEquals(0, registry.principalCount());
+    }
+
+    @Test
+    public void verifyChildrenAreDeletedAndCounted() {
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl("TGT",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(tgt);
+
+        final Service service = RegisteredServiceTestUtils.getService("TGT_DELETE_TEST");
+        final ServiceTicket st1 = tgt.grantServiceTicket("ST1", service, new NeverExpiresExpirationPolicy(), false, false);
+        final ServiceTicket st2 = tgt.grantServiceTicket("ST2", service, new NeverExpiresExpirationPolicy(), false, false);
+        registry.addTicket(st1);
+        registry.addTicket(st2);
+
+        assertEquals(3, registry.deleteTicket(tgt.getId()));
+        assertNull(registry.getTicket("ST1"));
+        assertNull(registry.getTicket("ST2"));
+        assertEquals(0, registry.sessionCount());
+        assertEquals(0, registry.serviceTicketCount());
+    }
+
+    @Test
+    public void verifyIndexesStayConsistentWhenTicketsAreUpdatedAndDeletedConcurrently() throws Exception {
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        final List<TicketGrantingTicket> tickets = IntStream.range(0, 10)
+                .mapToObj(i -> new TicketGrantingTicketImpl("TGT-" + i,
+                        CoreAuthenticationTestUtils.getAuthentication("casuser"), new NeverExpiresExpirationPolicy()))
+                .collect(Collectors.toList());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Callable<Object>> tasks = IntStream.range(0, 4).mapToObj(t -> (Callable<Object>) () -> {
+                for (int i = 0; i < 2000; i++) {
+                    final TicketGrantingTicket ticket = tickets.get(i % tickets.size());
+                    if ((i + t) % 2 == 0) {
+                        registry.updateTicket(ticket);
+                    } else {
+                        registry.deleteTicket(ticket.getId());
+                    }
+                }
+                return null;
+            }).collect(Collectors.toList());
+            for (final Future<Object> result : executor.invokeAll(tasks, 30, TimeUnit.SECONDS)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final long sessions = registry.getTickets().size();
+        assertEquals(sessions, registry.sessionCount());
+        assertEquals(sessions, registry.getSessionsFor("casuser").size());
+        assertEquals(sessions > 0 ? 1 : 0, registry.principalCount());
+
+        tickets.forEach(ticket -> registry.deleteTicket(ticket.getId()));
+        assertEquals(0, registry.sessionCount());
+        assertEquals(0, registry.principalCount());
+    }
 }
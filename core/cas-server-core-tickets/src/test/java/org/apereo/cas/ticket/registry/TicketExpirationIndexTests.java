@@ -0,0 +1,95 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.AlwaysExpiresExpirationPolicy;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
+import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link TicketExpirationIndexTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class TicketExpirationIndexTests {
+
+    @Test
+    public void verifyOnlyDueTicketsArePolled() {
+        final TicketExpirationIndex index = new TicketExpirationIndex();
+        index.schedule(new TicketGrantingTicketImpl("TGT-1", CoreAuthenticationTestUtils.getAuthentication(),
+                new AlwaysExpiresExpirationPolicy()));
+        index.schedule(new TicketGrantingTicketImpl("TGT-2", CoreAuthenticationTestUtils.getAuthentication(),
+                new HardTimeoutExpirationPolicy(3600)));
+        index.schedule(new TicketGrantingTicketImpl("TGT-3", CoreAuthenticationTestUtils.getAuthentication(),
+                new TicketGrantingTicketExpirationPolicy(7200, 3600)));
+        assertEquals(3, index.size());
+
+        final Collection<String> due = index.pollDue(10);
+        assertEquals(1, due.size());
+        assertTrue(due.contains("TGT-1"));
+        assertEquals(2, index.size());
+        assertTrue(index.pollDue(10).isEmpty());
+    }
+
+    @Test
+    public void verifyTicketWithoutExpirationTimeIsDueAndDeferredOnceExamined() {
+        final TicketExpirationIndex index = new TicketExpirationIndex();
+        final Ticket ticket = new TicketGrantingTicketImpl("TGT-1", CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy());
+        index.schedule(ticket);
+        assertTrue(index.pollDue(10).contains("TGT-1"));
+        index.reschedule(ticket);
+        assertEquals(1, index.size());
+        assertTrue(index.pollDue(10).isEmpty());
+    }
+
+    @Test
+    public void verifyRemovedTicketIsNotPolled() {
+        final TicketExpirationIndex index = new TicketExpirationIndex();
+        index.schedule(new TicketGrantingTicketImpl("TGT-1", CoreAuthenticationTestUtils.getAuthentication(),
+                new AlwaysExpiresExpirationPolicy()));
+        index.remove("TGT-1");
+        assertEquals(0, index.size());
+        assertTrue(index.pollDue(10).isEmpty());
+    }
+
+    @Test
+    public void verifyPollIsBoundedAndRescheduleDefersTicket() {
+        final TicketExpirationIndex index = new TicketExpirationIndex();
+        for (int i = 0; i < 5; i++) {
+            index.schedule(new TicketGrantingTicketImpl("TGT-" + i, CoreAuthenticationTestUtils.getAuthentication(),
+                    new AlwaysExpiresExpirationPolicy()));
+        }
+        assertEquals(2, index.pollDue(2).size());
+        assertEquals(3, index.size());
+
+        final Ticket ticket = new TicketGrantingTicketImpl("TGT-0", CoreAuthenticationTestUtils.getAuthentication(),
+                new AlwaysExpiresExpirationPolicy());
+        index.reschedule(ticket);
+        assertEquals(3, index.pollDue(10).size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void verifyRegistryReturnsExpiredTickets() {
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        registry.addTicket(new TicketGrantingTicketImpl("TGT-1", CoreAuthenticationTestUtils.getAuthentication(),
+                new AlwaysExpiresExpirationPolicy()));
+        registry.addTicket(new TicketGrantingTicketImpl("TGT-2", CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy()));
+
+        final Collection<Ticket> expired = registry.getExpiredTickets(10);
+        assertEquals(1, expired.size());
+        assertEquals("TGT-1", expired.iterator().next().getId());
+        assertEquals(1, registry.deleteTicket("TGT-1"));
+        assertTrue(registry.getExpiredTickets(10).isEmpty());
+    }
+}
@@ -1,24 +1,48 @@
 package org.apereo.cas.util.cipher;
 
+import com.google.common.base.Throwables;
 import org.apereo.cas.CipherExecutor;
 import org.apereo.cas.util.EncodingUtils;
+import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.keys.AesKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.crypto.Mac;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
 
 /**
  * Abstract cipher to provide common operations around signing objects.
+ * <p>
+ * Values are signed as compact JSON web signatures using {@code HS512}.
+ * The signing header and key are prepared once, and each thread reuses its own
+ * {@link Mac} instance to sign and verify values. Signing keys that are too
+ * short for {@code HS512}, or signatures that were produced with other headers,
+ * are handed over to {@link EncodingUtils}.
+ *
  * @author Misagh Moayyed
  * @since 4.2
  */
 public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T, R> {
+    private static final String MAC_ALGORITHM = "HmacSHA512";
+
+    private static final int MIN_SIGNING_KEY_LENGTH = 64;
+
+    private static final byte SEPARATOR = '.';
+
+    private static final byte[] SIGNING_HEADER = Base64.getUrlEncoder().withoutPadding()
+            .encode(("{\"alg\":\"" + AlgorithmIdentifiers.HMAC_SHA512 + "\"}").getBytes(StandardCharsets.UTF_8));
+
     /** Logger instance. */
     protected transient Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private AesKey signingKey;
 
+    private ThreadLocal<Mac> signingMac;
+
     /**
      * Instantiates a new cipher executor.
      *
@@ -34,8 +58,27 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
         setSigningKey(signingSecretKey);
     }
 
+    /**
+     * Sets signing key, and prepares the signing algorithm if the key is long enough.
+     *
+     * @param signingSecretKey the signing secret key
+     */
     public void setSigningKey(final String signingSecretKey) {
-        this.signingKey = new AesKey(signingSecretKey.getBytes(StandardCharsets.UTF_8));
+        final AesKey key = new AesKey(signingSecretKey.getBytes(StandardCharsets.UTF_8));
+        this.signingKey = key;
+        if (key.getEncoded().length >= MIN_SIGNING_KEY_LENGTH) {
+            this.signingMac = ThreadLocal.withInitial(() -> {
+                try {
+                    final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                    mac.init(key);
+                    return mac;
+                } catch (final Exception e) {
+                    throw Throwables.propagate(e);
+                }
+            });
+        } else {
+            this.signingMac = null;
+        }
     }
 
     /**
@@ -45,7 +88,20 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
      * @return the byte [ ]
      */
     protected byte[] sign(final byte[] value) {
-        return EncodingUtils.signJws(this.signingKey, value);
+        if (this.signingMac == null) {
+            return EncodingUtils.signJws(this.signingKey, value);
+        }
+        final byte[] payload = Base64.getUrlEncoder().withoutPadding().encode(EncodingUtils.encodeBase64ToByteArray(value));
+        final byte[] signingInput = new byte[SIGNING_HEADER.length + 1 + payload.length];
+        System.arraycopy(SIGNING_HEADER, 0, signingInput, 0, SIGNING_HEADER.length);
+        signingInput[SIGNING_HEADER.length] = SEPARATOR;
+        System.arraycopy(payload, 0, signingInput, SIGNING_HEADER.length + 1, payload.length);
+
+        final byte[] signature = Base64.getUrlEncoder().withoutPadding().encode(this.signingMac.get().doFinal(signingInput));
+        final byte[] result = Arrays.copyOf(signingInput, signingInput.length + 1 + signature.length);
+        result[signingInput.length] = SEPARATOR;
+        System.arraycopy(signature, 0, result, signingInput.length + 1, signature.length);
+        return result;
     }
 
     /**
@@ -56,11 +112,49 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
      * be decoded, or null.
      */
     protected byte[] verifySignature(final byte[] value) {
-        return EncodingUtils.verifyJwsSignature(this.signingKey, value);
+        if (this.signingMac == null || !isSignedWithSigningHeader(value)) {
+            return EncodingUtils.verifyJwsSignature(this.signingKey, value);
+        }
+        final int signatureSeparator = lastIndexOfSeparator(value);
+        if (signatureSeparator <= SIGNING_HEADER.length) {
+            return EncodingUtils.verifyJwsSignature(this.signingKey, value);
+        }
+        final byte[] signature = Base64.getUrlDecoder().decode(
+                Arrays.copyOfRange(value, signatureSeparator + 1, value.length));
+        final Mac mac = this.signingMac.get();
+        mac.update(value, 0, signatureSeparator);
+        if (!MessageDigest.isEqual(mac.doFinal(), signature)) {
+            logger.debug("Signature of the value could not be verified");
+            return null;
+        }
+        final byte[] payload = Base64.getUrlDecoder().decode(
+                Arrays.copyOfRange(value, SIGNING_HEADER.length + 1, signatureSeparator));
+        return EncodingUtils.decodeBase64(payload);
     }
 
     @Override
     public boolean isEnabled() {
         return this.signingKey != null;
     }
+
+    private static boolean isSignedWithSigningHeader(final byte[] value) {
+        if (value.length <= SIGNING_HEADER.length || value[SIGNING_HEADER.length] != SEPARATOR) {
+            return false;
+        }
+        for (int i = 0; i < SIGNING_HEADER.length; i++) {
+            if (value[i] != SIGNING_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lastIndexOfSeparator(final byte[] value) {
+        for (int i = value.length - 1; i >= 0; i--) {
+            if (value[i] == SEPARATOR) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
@@ -3,31 +3,57 @@ package org.apereo.cas.util.cipher;
 import com.google.common.base.Throwables;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.shiro.crypto.AesCipherService;
-import org.apache.shiro.crypto.CipherService;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.OctJwkGenerator;
 import org.jose4j.jwk.OctetSequenceJsonWebKey;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
  * A implementation that is based on algorithms
  * provided by the default platform's JCE. By default AES encryption is
  * used.
+ * <p>
+ * The encryption key is prepared once, and each thread reuses its own
+ * {@link Cipher} instances. Values are encrypted with AES-CBC and then signed,
+ * or encrypted and authenticated in one pass with AES-GCM if
+ * {@link #setAuthenticatedEncryption(boolean) authenticated encryption} is turned on.
  * @author Misagh Moayyed
  * @since 4.2
  */
 public class BinaryCipherExecutor extends AbstractCipherExecutor<byte[], byte[]> {
+    private static final String ENCRYPTION_ALGORITHM = "AES";
 
-    /** Secret key IV algorithm. Default is {@code AES}. */
-    private String secretKeyAlgorithm = "AES";
+    private static final String CBC_TRANSFORMATION = ENCRYPTION_ALGORITHM + "/CBC/PKCS5Padding";
+
+    private static final String GCM_TRANSFORMATION = ENCRYPTION_ALGORITHM + "/GCM/NoPadding";
+
+    private static final int GCM_IV_LENGTH = 12;
+
+    private static final int GCM_TAG_LENGTH = 128;
+
+    private static final byte AUTHENTICATED_ENCRYPTION_MARKER = 1;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     private String encryptionSecretKey;
 
+    private boolean authenticatedEncryption;
+
+    private Key encryptionKey;
+
+    private ThreadLocal<Cipher> cbcCipher;
+
+    private ThreadLocal<Cipher> gcmCipher;
+
 
     /**
      * Instantiates a new cryptic ticket cipher executor.
@@ -59,21 +85,56 @@ public class BinaryCipherExecutor extends AbstractCipherExecutor<byte[], byte[]>
         } else {
             this.encryptionSecretKey = encryptionSecretKey;
         }
+        initializeCiphers();
     }
 
 
+    /**
+     * Sets secret key algorithm. Values are always encrypted with AES,
+     * as they have been before, and other algorithms are only noted.
+     *
+     * @param secretKeyAlgorithm the secret key algorithm
+     */
     public void setSecretKeyAlgorithm(final String secretKeyAlgorithm) {
-        this.secretKeyAlgorithm = secretKeyAlgorithm;
+        if (!ENCRYPTION_ALGORITHM.equalsIgnoreCase(secretKeyAlgorithm)) {
+            logger.warn("Secret key algorithm {} is not supported. Values are encrypted with {}", secretKeyAlgorithm, ENCRYPTION_ALGORITHM);
+        }
+    }
+
+    /**
+     * Encrypt and authenticate values in one pass with AES-GCM,
+     * instead of encrypting them with AES-CBC and then signing the result.
+     * Signed values can always be decoded, while values encrypted with AES-GCM
+     * are only decoded if this is turned on, since they are not signed.
+     *
+     * @param authenticatedEncryption the authenticated encryption
+     */
+    public void setAuthenticatedEncryption(final boolean authenticatedEncryption) {
+        this.authenticatedEncryption = authenticatedEncryption;
     }
 
     @Override
     public byte[] encode(final byte[] value) {
         try {
-            final Key key = new SecretKeySpec(this.encryptionSecretKey.getBytes(StandardCharsets.UTF_8),
-                    this.secretKeyAlgorithm);
-            final CipherService cipher = new AesCipherService();
-            final byte[] result = cipher.encrypt(value, key.getEncoded()).getBytes();
-            return sign(result);
+            if (this.authenticatedEncryption) {
+                final byte[] iv = new byte[GCM_IV_LENGTH];
+                RANDOM.nextBytes(iv);
+                final Cipher cipher = this.gcmCipher.get();
+                cipher.init(Cipher.ENCRYPT_MODE, this.encryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+                final byte[] result = new byte[1 + iv.length + cipher.getOutputSize(value.length)];
+                result[0] = AUTHENTICATED_ENCRYPTION_MARKER;
+                System.arraycopy(iv, 0, result, 1, iv.length);
+                cipher.doFinal(value, 0, value.length, result, 1 + iv.length);
+                return result;
+            }
+            final Cipher cipher = this.cbcCipher.get();
+            final byte[] iv = new byte[cipher.getBlockSize()];
+            RANDOM.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, this.encryptionKey, new IvParameterSpec(iv));
+            final byte[] result = new byte[iv.length + cipher.getOutputSize(value.length)];
+            System.arraycopy(iv, 0, result, 0, iv.length);
+            final int length = cipher.doFinal(value, 0, value.length, result, iv.length);
+            return sign(Arrays.copyOf(result, iv.length + length));
         } catch (final Exception e) {
             logger.error(e.getMessage(), e);
             throw Throwables.propagate(e);
@@ -83,18 +144,44 @@ public class BinaryCipherExecutor extends AbstractCipherExecutor<byte[], byte[]>
     @Override
     public byte[] decode(final byte[] value) {
         try {
+            if (value.length > 0 && value[0] == AUTHENTICATED_ENCRYPTION_MARKER) {
+                if (!this.authenticatedEncryption) {
+                    throw new IllegalArgumentException("Value is not signed, and authenticated encryption is not turned on");
+                }
+                final Cipher cipher = this.gcmCipher.get();
+                cipher.init(Cipher.DECRYPT_MODE, this.encryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH, value, 1, GCM_IV_LENGTH));
+                return cipher.doFinal(value, 1 + GCM_IV_LENGTH, value.length - 1 - GCM_IV_LENGTH);
+            }
             final byte[] verifiedValue = verifySignature(value);
-            final Key key = new SecretKeySpec(this.encryptionSecretKey.getBytes(StandardCharsets.UTF_8),
-                    this.secretKeyAlgorithm);
-            final CipherService cipher = new AesCipherService();
-            final byte[] result = cipher.decrypt(verifiedValue, key.getEncoded()).getBytes();
-            return result;
+            if (verifiedValue == null) {
+                throw new IllegalArgumentException("Signature of the value could not be verified");
+            }
+            final Cipher cipher = this.cbcCipher.get();
+            final int ivLength = cipher.getBlockSize();
+            cipher.init(Cipher.DECRYPT_MODE, this.encryptionKey, new IvParameterSpec(verifiedValue, 0, ivLength));
+            return cipher.doFinal(verifiedValue, ivLength, verifiedValue.length - ivLength);
         } catch (final Exception e) {
             logger.error(e.getMessage(), e);
             throw Throwables.propagate(e);
         }
     }
 
+    private void initializeCiphers() {
+        this.encryptionKey = new SecretKeySpec(this.encryptionSecretKey.getBytes(StandardCharsets.UTF_8), ENCRYPTION_ALGORITHM);
+        this.cbcCipher = newCipher(CBC_TRANSFORMATION);
+        this.gcmCipher = newCipher(GCM_TRANSFORMATION);
+    }
+
+    private static ThreadLocal<Cipher> newCipher(final String transformation) {
+        return ThreadLocal.withInitial(() -> {
+            try {
+                return Cipher.getInstance(transformation);
+            } catch (final Exception e) {
+                throw Throwables.propagate(e);
+            }
+        });
+    }
+
     private String generateOctetJsonWebKeyOfSize(final int size) {
         try {
             final OctetSequenceJsonWebKey octetKey = OctJwkGenerator.generateJwk(size);
@@ -0,0 +1,62 @@
+package org.apereo.cas.util;
+
+import org.apereo.cas.util.cipher.AbstractCipherExecutor;
+import org.jose4j.keys.AesKey;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link AbstractCipherExecutor}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class AbstractCipherExecutorTests {
+
+    private static final String SIGNING_KEY = "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w";
+
+    private static final byte[] VALUE = "ThisIsATestValueThatIsGoingToBeSignedAndVerified".getBytes(StandardCharsets.UTF_8);
+
+    private final SigningCipherExecutor cipher = new SigningCipherExecutor(SIGNING_KEY);
+
+    private final AesKey key = new AesKey(SIGNING_KEY.getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    public void verifyValuesSignedWithJose4jAreVerified() {
+        final byte[] signed = EncodingUtils.signJws(this.key, VALUE);
+        assertArrayEquals(VALUE, this.cipher.decode(signed));
+    }
+
+    @Test
+    public void verifySignedValuesAreVerifiedWithJose4j() {
+        final byte[] signed = this.cipher.encode(VALUE);
+        assertArrayEquals(VALUE, EncodingUtils.verifyJwsSignature(this.key, signed));
+        assertArrayEquals(EncodingUtils.signJws(this.key, VALUE), signed);
+    }
+
+    @Test
+    public void verifyTamperedValuesAreRejected() {
+        final byte[] signed = EncodingUtils.signJws(this.key, VALUE);
+        signed[signed.length - 2] ^= 1;
+        assertNull(this.cipher.decode(signed));
+    }
+
+    private static class SigningCipherExecutor extends AbstractCipherExecutor<byte[], byte[]> {
+        SigningCipherExecutor(final String signingSecretKey) {
+            super(signingSecretKey);
+        }
+
+        @Override
+        public byte[] encode(final byte[] value) {
+            return sign(value);
+        }
+
+        @Override
+        public byte[] decode(final byte[] value) {
+            return verifySignature(value);
+        }
+    }
+}
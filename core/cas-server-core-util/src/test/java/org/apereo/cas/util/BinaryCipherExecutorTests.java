@@ -29,4 +29,58 @@ public class BinaryCipherExecutorTests {
         final CipherExecutor<byte[], byte[]> cc = new BinaryCipherExecutor("0000", "1234", 512, 16);
         cc.encode(value.getBytes());
     }
+
+    @Test
+    public void checkAuthenticatedEncodingDecoding() {
+        final String value = "ThisIsATestValueThatIsGoingToBeEncodedAndDecodedAgainAndAgain";
+        final BinaryCipherExecutor cc = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        final byte[] signed = cc.encode(value.getBytes());
+        cc.setAuthenticatedEncryption(true);
+        final byte[] authenticated = cc.encode(value.getBytes());
+        assertTrue(authenticated.length < signed.length);
+        assertEquals(value, new String(cc.decode(authenticated)));
+        assertEquals(value, new String(cc.decode(signed)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void checkDecodingTamperedValue() {
+        final CipherExecutor<byte[], byte[]> cc = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        final byte[] bytes = cc.encode("ThisIsATestValue".getBytes());
+        bytes[bytes.length - 2] ^= 1;
+        cc.decode(bytes);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void checkDecodingTamperedAuthenticatedValue() {
+        final BinaryCipherExecutor cc = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        cc.setAuthenticatedEncryption(true);
+        final byte[] bytes = cc.encode("ThisIsATestValue".getBytes());
+        bytes[bytes.length - 2] ^= 1;
+        cc.decode(bytes);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void checkDecodingAuthenticatedValueWithoutAuthenticatedEncryption() {
+        final BinaryCipherExecutor authenticated = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        authenticated.setAuthenticatedEncryption(true);
+        final BinaryCipherExecutor signed = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        signed.decode(authenticated.encode("ThisIsATestValue".getBytes()));
+    }
+
+    @Test
+    public void checkEncodingDecodingWithOtherSecretKeyAlgorithm() {
+        final String value = "ThisIsATestValueThatIsGoingToBeEncodedAndDecodedAgainAndAgain";
+        final BinaryCipherExecutor aes = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        final BinaryCipherExecutor other = new BinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        other.setSecretKeyAlgorithm("Blowfish");
+        assertEquals(value, new String(other.decode(other.encode(value.getBytes()))));
+        assertEquals(value, new String(other.decode(aes.encode(value.getBytes()))));
+    }
 }
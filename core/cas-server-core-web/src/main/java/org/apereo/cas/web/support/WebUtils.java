@@ -13,6 +13,7 @@ import org.apereo.cas.authentication.principal.Service;
 import org.apereo.cas.authentication.principal.WebApplicationService;
 import org.apereo.cas.logout.LogoutRequest;
 import org.apereo.cas.services.MultifactorAuthenticationProvider;
+import org.apereo.cas.services.MultifactorAuthenticationProviderRegistry;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
@@ -663,7 +664,7 @@ public final class WebUtils {
     public static Map<String, MultifactorAuthenticationProvider> getAllMultifactorAuthenticationProviders(
             final ApplicationContext applicationContext) {
         try {
-            return applicationContext.getBeansOfType(MultifactorAuthenticationProvider.class, false, true);
+            return MultifactorAuthenticationProviderRegistry.getInstance(applicationContext).getProviders();
         } catch (final Exception e) {
             LOGGER.warn("Could not locate beans of type {} in the application context", MultifactorAuthenticationProvider.class);
         }
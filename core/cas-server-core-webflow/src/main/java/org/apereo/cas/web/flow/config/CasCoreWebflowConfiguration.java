@@ -223,12 +223,14 @@ public class CasCoreWebflowConfiguration {
     @Bean
     @RefreshScope
     public CipherExecutor<byte[], byte[]> webflowCipherExecutor() {
-        return new WebflowConversationStateCipherExecutor(
+        final WebflowConversationStateCipherExecutor cipher = new WebflowConversationStateCipherExecutor(
                 casProperties.getWebflow().getEncryption().getKey(),
                 casProperties.getWebflow().getSigning().getKey(),
                 casProperties.getWebflow().getAlg(),
                 casProperties.getWebflow().getSigning().getKeySize(),
                 casProperties.getWebflow().getEncryption().getKeySize());
+        cipher.setAuthenticatedEncryption(casProperties.getWebflow().isAuthenticatedEncryption());
+        return cipher;
     }
 
     @Bean
@@ -16,6 +16,7 @@ import org.apereo.cas.authentication.MessageDescriptor;
 import org.apereo.cas.authentication.principal.Principal;
 import org.apereo.cas.authentication.principal.Service;
 import org.apereo.cas.services.MultifactorAuthenticationProvider;
+import org.apereo.cas.services.MultifactorAuthenticationProviderRegistry;
 import org.apereo.cas.services.MultifactorAuthenticationProviderSelector;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.RegisteredServiceMultifactorPolicy;
@@ -452,9 +453,7 @@ public abstract class AbstractCasWebflowEventResolver implements CasWebflowEvent
             final String providerId) {
         try {
             logger.debug("Locating bean definition for {}", providerId);
-            return this.applicationContext.getBeansOfType(MultifactorAuthenticationProvider.class, false, true).values().stream()
-                    .filter(p -> p.matches(providerId))
-                    .findFirst();
+            return MultifactorAuthenticationProviderRegistry.getInstance(this.applicationContext).findProvider(providerId);
         } catch (final Exception e) {
             logger.debug("Could not locate [{}] bean id in the application context as an authentication provider.", providerId);
         }
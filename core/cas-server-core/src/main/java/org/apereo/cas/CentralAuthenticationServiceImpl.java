@@ -44,6 +44,7 @@ import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.validation.Assertion;
 import org.apereo.cas.validation.ImmutableAssertion;
 import org.apereo.inspektr.audit.annotation.Audit;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
@@ -69,6 +70,14 @@ public class CentralAuthenticationServiceImpl extends AbstractCentralAuthenticat
 
     private static final long serialVersionUID = -8943828074939533986L;
 
+    private static final int DEFAULT_MAX_TICKET_UPDATE_ATTEMPTS = 3;
+
+    /**
+     * Number of times a service ticket is attempted to be granted when the ticket registry
+     * reports that the ticket-granting ticket was concurrently updated.
+     */
+    private int maxTicketUpdateAttempts = DEFAULT_MAX_TICKET_UPDATE_ATTEMPTS;
+
     /**
      * Instantiates a new Central authentication service impl.
      */
@@ -142,6 +151,35 @@ public class CentralAuthenticationServiceImpl extends AbstractCentralAuthenticat
             final Service service, final AuthenticationResult authenticationResult)
             throws AuthenticationException, AbstractTicketException {
 
+        int attempt = 1;
+        while (true) {
+            try {
+                return grantServiceTicketInternal(ticketGrantingTicketId, service, authenticationResult);
+            } catch (final OptimisticLockingFailureException e) {
+                if (attempt >= this.maxTicketUpdateAttempts) {
+                    throw e;
+                }
+                logger.debug("Ticket-granting ticket [{}] was concurrently updated. Retrying attempt [{}] of [{}]",
+                        ticketGrantingTicketId, attempt + 1, this.maxTicketUpdateAttempts);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Grant service ticket once, using the ticket-granting ticket as currently found in the registry.
+     *
+     * @param ticketGrantingTicketId the ticket granting ticket id
+     * @param service                the service
+     * @param authenticationResult   the authentication result
+     * @return the service ticket
+     * @throws AuthenticationException the authentication exception
+     * @throws AbstractTicketException the abstract ticket exception
+     */
+    private ServiceTicket grantServiceTicketInternal(final String ticketGrantingTicketId,
+                                                     final Service service, final AuthenticationResult authenticationResult)
+            throws AuthenticationException, AbstractTicketException {
+
         final TicketGrantingTicket ticketGrantingTicket = getTicket(ticketGrantingTicketId, TicketGrantingTicket.class);
         final RegisteredService registeredService = this.servicesManager.findServiceBy(service);
         RegisteredServiceAccessStrategyUtils.ensurePrincipalAccessIsAllowedForService(service, registeredService, ticketGrantingTicket);
@@ -416,4 +454,8 @@ public class CentralAuthenticationServiceImpl extends AbstractCentralAuthenticat
         }
         return !StringUtils.isEmpty(ticketId);
     }
+
+    public void setMaxTicketUpdateAttempts(final int maxTicketUpdateAttempts) {
+        this.maxTicketUpdateAttempts = maxTicketUpdateAttempts;
+    }
 }
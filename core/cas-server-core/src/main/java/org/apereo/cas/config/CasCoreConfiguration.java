@@ -93,6 +93,7 @@ public class CasCoreConfiguration {
         impl.setServiceContextAuthenticationPolicyFactory(authenticationPolicyFactory());
         impl.setPrincipalFactory(principalFactory);
         impl.setCipherExecutor(cipherExecutor);
+        impl.setMaxTicketUpdateAttempts(casProperties.getTicket().getTgt().getMaxUpdateAttempts());
         return impl;
     }
 }
@@ -1,14 +1,20 @@
 package org.apereo.cas.audit.config;
 
+import com.codahale.metrics.MetricRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.audit.spi.BatchingJdbcAuditTrailManager;
 import org.apereo.cas.audit.spi.DefaultDelegatingAuditTrailManager;
 import org.apereo.cas.audit.spi.DelegatingAuditTrailManager;
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.audit.AuditProperties;
 import org.apereo.cas.configuration.model.support.jpa.JpaConfigDataHolder;
 import org.apereo.cas.configuration.support.Beans;
+import org.apereo.inspektr.audit.AuditTrailManager;
 import org.apereo.inspektr.audit.support.JdbcAuditTrailManager;
 import org.apereo.inspektr.audit.support.MaxAgeWhereClauseMatchCriteria;
 import org.apereo.inspektr.audit.support.WhereClauseMatchCriteria;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
@@ -22,6 +28,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.io.File;
 
 /**
  * This is {@link CasSupportJdbcAuditConfiguration}.
@@ -38,12 +45,38 @@ public class CasSupportJdbcAuditConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metrics;
+
     @Bean(name = {"jdbcAuditTrailManager", "auditTrailManager"})
     public DelegatingAuditTrailManager jdbcAuditTrailManager() {
-        final JdbcAuditTrailManager t = new JdbcAuditTrailManager(inspektrAuditTransactionTemplate());
+        return new DefaultDelegatingAuditTrailManager(inspektrAuditTrailManager());
+    }
+
+    @Bean
+    public AuditTrailManager inspektrAuditTrailManager() {
+        final AuditProperties.Queue queue = casProperties.getAudit().getJdbc().getQueue();
+        if (!queue.isEnabled()) {
+            final JdbcAuditTrailManager t = new JdbcAuditTrailManager(inspektrAuditTransactionTemplate());
+            t.setCleanupCriteria(auditCleanupCriteria());
+            t.setDataSource(inspektrAuditTrailDataSource());
+            return t;
+        }
+        final BatchingJdbcAuditTrailManager t = new BatchingJdbcAuditTrailManager(inspektrAuditTransactionTemplate(),
+                inspektrAuditTrailDataSource(), queue.getCapacity());
         t.setCleanupCriteria(auditCleanupCriteria());
-        t.setDataSource(inspektrAuditTrailDataSource());
-        return new DefaultDelegatingAuditTrailManager(t);
+        t.setBatchSize(queue.getBatchSize());
+        t.setFlushInterval(queue.getFlushInterval());
+        t.setShutdownTimeout(queue.getShutdownTimeout());
+        t.setOverflowPolicy(BatchingJdbcAuditTrailManager.OverflowPolicy.valueOf(queue.getOverflowPolicy().toUpperCase()));
+        if (StringUtils.isNotBlank(queue.getSpillFile())) {
+            t.setSpillFile(new File(queue.getSpillFile()));
+        }
+        if (this.metrics != null) {
+            t.registerMetrics(this.metrics);
+        }
+        return t;
     }
 
     @Lazy
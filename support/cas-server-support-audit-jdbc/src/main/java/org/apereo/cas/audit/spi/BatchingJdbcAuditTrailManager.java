@@ -0,0 +1,421 @@
+package org.apereo.cas.audit.spi;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Splitter;
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.util.EncodingUtils;
+import org.apereo.inspektr.audit.AuditActionContext;
+import org.apereo.inspektr.audit.AuditTrailManager;
+import org.apereo.inspektr.audit.support.NoMatchWhereClauseMatchCriteria;
+import org.apereo.inspektr.audit.support.WhereClauseMatchCriteria;
+import org.apereo.inspektr.common.Cleanable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * This is {@link BatchingJdbcAuditTrailManager}. Audit records are put on a bounded queue
+ * and written by a background writer that coalesces them into JDBC batch inserts,
+ * so that recording an audit action does not wait on the database.
+ * <p>
+ * When the queue is full, records are handled according to the {@link OverflowPolicy}.
+ * Records that are spilled to the local file are written to the database
+ * once the queue runs empty again. Records still queued when the manager is
+ * destroyed are written before it shuts down, within the configured timeout.
+ * <p>
+ * If the writer stops, for example because it was interrupted, a new writer is started
+ * for the next record, and callers waiting for room in the queue start one as well.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class BatchingJdbcAuditTrailManager implements AuditTrailManager, Cleanable, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingJdbcAuditTrailManager.class);
+
+    private static final String INSERT_SQL_TEMPLATE = "INSERT INTO %s (AUD_USER, AUD_CLIENT_IP, AUD_SERVER_IP, "
+            + "AUD_RESOURCE, AUD_ACTION, APPLIC_CD, AUD_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL_TEMPLATE = "DELETE FROM %s %s";
+
+    private static final int DEFAULT_COLUMN_LENGTH = 100;
+
+    private static final String SPILL_SEPARATOR = ",";
+
+    private static final int DATE_COLUMN = 6;
+
+    /**
+     * Policies that decide what happens to records when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the writer makes room in the queue.
+         */
+        BLOCK,
+        /**
+         * Discard the oldest queued record to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Append the record to a local file, to be written later.
+         */
+        SPILL
+    }
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final BlockingQueue<AuditActionContext> queue;
+
+    private final Object writerLock = new Object();
+
+    private final Object spillLock = new Object();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong spilled = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final Timer writeTimer = new Timer();
+
+    private volatile Thread writer;
+
+    private volatile boolean running = true;
+
+    private String tableName = "COM_AUDIT_TRAIL";
+
+    private int columnLength = DEFAULT_COLUMN_LENGTH;
+
+    private WhereClauseMatchCriteria cleanupCriteria = new NoMatchWhereClauseMatchCriteria();
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    private int batchSize = 100;
+
+    private long flushInterval = 1000;
+
+    private long shutdownTimeout = 10000;
+
+    private File spillFile = new File(System.getProperty("java.io.tmpdir"), "cas-audit-overflow.log");
+
+    /**
+     * Instantiates a new batching jdbc audit trail manager.
+     *
+     * @param transactionTemplate the transaction template
+     * @param dataSource          the data source
+     * @param capacity            the number of records the queue can hold
+     */
+    public BatchingJdbcAuditTrailManager(final TransactionTemplate transactionTemplate,
+                                         final DataSource dataSource,
+                                         final int capacity) {
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void record(final AuditActionContext context) {
+        ensureWriterIsRunning();
+        if (!this.running) {
+            LOGGER.warn("Audit trail manager is shut down; handling audit record as overflow");
+            overflow(context);
+            return;
+        }
+        if (!this.queue.offer(context)) {
+            overflow(context);
+        }
+    }
+
+    @Override
+    public void clean() {
+        final String sql = String.format(DELETE_SQL_TEMPLATE, this.tableName, this.cleanupCriteria);
+        final List<?> params = this.cleanupCriteria.getParameterValues();
+        LOGGER.info("Cleaning audit records with query [{}]", sql);
+        final int count = this.transactionTemplate.execute(status -> this.jdbcTemplate.update(sql, params.toArray()));
+        LOGGER.info("[{}] records deleted", count);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        final Thread current;
+        synchronized (this.writerLock) {
+            this.running = false;
+            current = this.writer;
+        }
+        if (current != null) {
+            current.join(this.shutdownTimeout);
+        }
+        final List<AuditActionContext> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            LOGGER.warn("[{}] audit records could not be written before shutdown", remaining.size());
+            remaining.forEach(this::overflow);
+        }
+    }
+
+    /**
+     * Register metrics for the queue depth, write latency and records that were dropped, spilled or failed.
+     *
+     * @param registry the registry
+     */
+    public void registerMetrics(final MetricRegistry registry) {
+        final String prefix = MetricRegistry.name(getClass());
+        registry.register(MetricRegistry.name(prefix, "queueDepth"), (Gauge<Integer>) this.queue::size);
+        registry.register(MetricRegistry.name(prefix, "writes"), this.writeTimer);
+        registry.register(MetricRegistry.name(prefix, "dropped"), (Gauge<Long>) this.dropped::get);
+        registry.register(MetricRegistry.name(prefix, "spilled"), (Gauge<Long>) this.spilled::get);
+        registry.register(MetricRegistry.name(prefix, "failed"), (Gauge<Long>) this.failed::get);
+    }
+
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    public long getSpilledCount() {
+        return this.spilled.get();
+    }
+
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    public void setTableName(final String tableName) {
+        this.tableName = tableName;
+    }
+
+    public void setColumnLength(final int columnLength) {
+        this.columnLength = columnLength;
+    }
+
+    public void setCleanupCriteria(final WhereClauseMatchCriteria cleanupCriteria) {
+        this.cleanupCriteria = cleanupCriteria;
+    }
+
+    public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setFlushInterval(final long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public void setShutdownTimeout(final long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public void setSpillFile(final File spillFile) {
+        this.spillFile = spillFile;
+    }
+
+    private void overflow(final AuditActionContext context) {
+        switch (this.overflowPolicy) {
+            case SPILL:
+                spill(context);
+                break;
+            case DROP_OLDEST:
+                if (this.running) {
+                    while (!this.queue.offer(context)) {
+                        if (this.queue.poll() != null) {
+                            this.dropped.incrementAndGet();
+                        }
+                    }
+                } else {
+                    this.dropped.incrementAndGet();
+                }
+                break;
+            case BLOCK:
+            default:
+                try {
+                    boolean queued = false;
+                    while (this.running && !queued) {
+                        queued = this.queue.offer(context, this.flushInterval, TimeUnit.MILLISECONDS);
+                        if (!queued) {
+                            ensureWriterIsRunning();
+                        }
+                    }
+                    if (!queued) {
+                        this.dropped.incrementAndGet();
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.warn("Interrupted while waiting to queue audit record; record is dropped");
+                    this.dropped.incrementAndGet();
+                }
+                break;
+        }
+    }
+
+    private void ensureWriterIsRunning() {
+        final Thread current = this.writer;
+        if (current != null && current.isAlive()) {
+            return;
+        }
+        synchronized (this.writerLock) {
+            if (this.running && (this.writer == null || !this.writer.isAlive())) {
+                if (this.writer != null) {
+                    LOGGER.warn("Audit writer has stopped; starting a new writer");
+                }
+                final Thread thread = new Thread(this::write, "cas-audit-jdbc-writer");
+                thread.setDaemon(true);
+                thread.start();
+                this.writer = thread;
+            }
+        }
+    }
+
+    private void write() {
+        final List<AuditActionContext> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                final AuditActionContext first = this.queue.poll(this.flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpilledRecords();
+                    continue;
+                }
+                batch.add(first);
+                this.queue.drainTo(batch, this.batchSize - 1);
+                final List<Object[]> rows = batch.stream().map(this::toRow).collect(Collectors.toList());
+                if (!insert(rows)) {
+                    batch.forEach(this::handleFailedRecord);
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.debug("Audit writer is interrupted");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                LOGGER.error(e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean insert(final List<Object[]> rows) {
+        final String sql = String.format(INSERT_SQL_TEMPLATE, this.tableName);
+        try (Timer.Context time = this.writeTimer.time()) {
+            this.transactionTemplate.execute(status -> this.jdbcTemplate.batchUpdate(sql, rows));
+            LOGGER.debug("Wrote [{}] audit records", rows.size());
+            return true;
+        } catch (final Exception e) {
+            LOGGER.error("Unable to write [{}] audit records: [{}]", rows.size(), e.getMessage());
+            LOGGER.debug(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void handleFailedRecord(final AuditActionContext context) {
+        if (this.overflowPolicy == OverflowPolicy.SPILL) {
+            spill(context);
+        } else {
+            this.failed.incrementAndGet();
+        }
+    }
+
+    private Object[] toRow(final AuditActionContext context) {
+        return new Object[]{
+                truncate(context.getPrincipal()),
+                context.getClientIpAddress(),
+                context.getServerIpAddress(),
+                truncate(context.getResourceOperatedUpon()),
+                truncate(context.getActionPerformed()),
+                context.getApplicationCode(),
+                context.getWhenActionWasPerformed()};
+    }
+
+    private String truncate(final String value) {
+        return StringUtils.substring(value, 0, this.columnLength);
+    }
+
+    private void spill(final AuditActionContext context) {
+        final String record = toSpilledRecord(toRow(context));
+        synchronized (this.spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(this.spillFile.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(record);
+                out.newLine();
+                this.spilled.incrementAndGet();
+            } catch (final IOException e) {
+                LOGGER.error("Unable to spill audit record to [{}]: [{}]", this.spillFile, e.getMessage());
+                this.dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void replaySpilledRecords() throws IOException {
+        final Path replay = new File(this.spillFile.getPath() + ".replay").toPath();
+        synchronized (this.spillLock) {
+            if (!replay.toFile().exists()) {
+                if (!this.spillFile.exists() || this.spillFile.length() == 0) {
+                    return;
+                }
+                Files.move(this.spillFile.toPath(), replay, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        final List<Object[]> rows = Files.readAllLines(replay, StandardCharsets.UTF_8)
+                .stream()
+                .filter(StringUtils::isNotBlank)
+                .map(this::fromSpilledRecord)
+                .collect(Collectors.toList());
+        LOGGER.info("Writing [{}] audit records spilled to [{}]", rows.size(), this.spillFile);
+        for (int i = 0; i < rows.size(); i += this.batchSize) {
+            if (!insert(rows.subList(i, Math.min(i + this.batchSize, rows.size())))) {
+                final Collection<Object[]> pending = rows.subList(i, rows.size());
+                Files.write(replay, pending.stream().map(this::toSpilledRecord).collect(Collectors.toList()), StandardCharsets.UTF_8);
+                return;
+            }
+        }
+        Files.deleteIfExists(replay);
+    }
+
+    private Object[] fromSpilledRecord(final String line) {
+        final List<String> values = Splitter.on(SPILL_SEPARATOR).splitToList(line);
+        final Object[] row = new Object[values.size()];
+        for (int i = 0; i < DATE_COLUMN; i++) {
+            row[i] = StringUtils.defaultIfEmpty(EncodingUtils.urlDecode(values.get(i)), null);
+        }
+        row[DATE_COLUMN] = new Timestamp(Long.parseLong(values.get(DATE_COLUMN)));
+        return row;
+    }
+
+    private String toSpilledRecord(final Object[] row) {
+        final List<String> values = new ArrayList<>(row.length);
+        for (int i = 0; i < DATE_COLUMN; i++) {
+            values.add(EncodingUtils.urlEncode(StringUtils.defaultString((String) row[i])));
+        }
+        values.add(String.valueOf(((Date) row[DATE_COLUMN]).getTime()));
+        return String.join(SPILL_SEPARATOR, values);
+    }
+}
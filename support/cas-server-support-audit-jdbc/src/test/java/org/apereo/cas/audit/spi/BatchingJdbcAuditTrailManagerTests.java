@@ -0,0 +1,176 @@
+package org.apereo.cas.audit.spi;
+
+import org.apereo.inspektr.audit.AuditActionContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link BatchingJdbcAuditTrailManagerTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class BatchingJdbcAuditTrailManagerTests {
+    private static final String CREATE_TABLE = "CREATE TABLE COM_AUDIT_TRAIL (AUD_USER VARCHAR(100), AUD_CLIENT_IP VARCHAR(15), "
+            + "AUD_SERVER_IP VARCHAR(15), AUD_RESOURCE VARCHAR(100), AUD_ACTION VARCHAR(100), APPLIC_CD VARCHAR(5), "
+            + "AUD_DATE TIMESTAMP)";
+
+    private static final long TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() {
+        this.dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:cas-audit-" + System.nanoTime(), "sa", "");
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+    }
+
+    @After
+    public void tearDown() {
+        this.jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void verifyRecordsAreWrittenInBatches() throws Exception {
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        final BatchingJdbcAuditTrailManager manager = new BatchingJdbcAuditTrailManager(this.transactionTemplate, this.dataSource, 1000);
+        manager.setBatchSize(50);
+        for (int i = 0; i < 250; i++) {
+            manager.record(newAuditActionContext("casuser" + i));
+        }
+        manager.destroy();
+        assertEquals(250, countRecords());
+        assertEquals(0, manager.getQueueDepth());
+        assertEquals(0, manager.getFailedCount());
+    }
+
+    @Test
+    public void verifyRecordsAreSpilledAndWrittenLater() throws Exception {
+        final File spillFile = new File(this.folder.getRoot(), "audit.log");
+        final BatchingJdbcAuditTrailManager manager = new BatchingJdbcAuditTrailManager(this.transactionTemplate, this.dataSource, 10);
+        manager.setOverflowPolicy(BatchingJdbcAuditTrailManager.OverflowPolicy.SPILL);
+        manager.setSpillFile(spillFile);
+        manager.setFlushInterval(50);
+        manager.record(newAuditActionContext("casuser,with|separators"));
+        manager.record(newAuditActionContext("casuser"));
+
+        waitUntil(() -> manager.getSpilledCount() >= 2);
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        waitUntil(() -> countRecords() >= 2);
+        manager.destroy();
+        assertEquals(2, countRecords());
+        assertEquals(1, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM COM_AUDIT_TRAIL WHERE AUD_USER = 'casuser,with|separators'", Integer.class).intValue());
+    }
+
+    @Test
+    public void verifyOldestRecordsAreDropped() throws Exception {
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final TransactionTemplate blockingTemplate = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public <T> T execute(final TransactionCallback<T> action) {
+                try {
+                    latch.await();
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.execute(action);
+            }
+        };
+        final BatchingJdbcAuditTrailManager manager = new BatchingJdbcAuditTrailManager(blockingTemplate, this.dataSource, 5);
+        manager.setOverflowPolicy(BatchingJdbcAuditTrailManager.OverflowPolicy.DROP_OLDEST);
+        manager.record(newAuditActionContext("casuser"));
+        waitUntil(() -> manager.getQueueDepth() == 0);
+        for (int i = 0; i < 10; i++) {
+            manager.record(newAuditActionContext("casuser" + i));
+        }
+        assertEquals(5, manager.getQueueDepth());
+        assertEquals(5, manager.getDroppedCount());
+
+        latch.countDown();
+        manager.destroy();
+        assertEquals(6, countRecords());
+        assertEquals(1, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM COM_AUDIT_TRAIL WHERE AUD_USER = 'casuser9'", Integer.class).intValue());
+    }
+
+    @Test
+    public void verifyWriterIsStartedAgainWhenInterrupted() throws Exception {
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        final AtomicBoolean interrupt = new AtomicBoolean(true);
+        final TransactionTemplate interruptingTemplate = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public <T> T execute(final TransactionCallback<T> action) {
+                if (interrupt.compareAndSet(true, false)) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Writer is interrupted");
+                }
+                return super.execute(action);
+            }
+        };
+        final BatchingJdbcAuditTrailManager manager = new BatchingJdbcAuditTrailManager(interruptingTemplate, this.dataSource, 1);
+        manager.setFlushInterval(50);
+        manager.record(newAuditActionContext("casuser"));
+        waitUntil(() -> manager.getFailedCount() == 1);
+
+        for (int i = 0; i < 5; i++) {
+            manager.record(newAuditActionContext("casuser" + i));
+        }
+        waitUntil(() -> countRecords() == 5);
+        manager.destroy();
+        assertEquals(5, countRecords());
+        assertEquals(0, manager.getDroppedCount());
+    }
+
+    private static void waitUntil(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition was not met within " + TIMEOUT + "ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private int countRecords() {
+        try {
+            return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM COM_AUDIT_TRAIL", Integer.class);
+        } catch (final Exception e) {
+            return 0;
+        }
+    }
+
+    private static AuditActionContext newAuditActionContext(final String principal) {
+        return new AuditActionContext(principal, "TGT-1", "TICKET_GRANTING_TICKET_CREATED", "CAS", new Date(),
+                "127.0.0.1", "127.0.0.1", () -> "test");
+    }
+}
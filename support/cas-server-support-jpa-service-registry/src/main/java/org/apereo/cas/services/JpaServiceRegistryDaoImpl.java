@@ -5,6 +5,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -36,8 +37,28 @@ public class JpaServiceRegistryDaoImpl implements ServiceRegistryDao {
         return this.entityManager.createQuery("select r from AbstractRegisteredService r", RegisteredService.class).getResultList();
     }
 
+    /**
+     * {@inheritDoc}
+     * Services that were saved by CAS are told apart by the time they were last saved.
+     * Services that are modified in the database by other means should have their
+     * {@code last_modified} column updated as well.
+     */
+    @Override
+    public ServiceRegistryChanges loadChangesSince(final long timestamp) {
+        final List<RegisteredService> changed = this.entityManager.createQuery(
+                "select r from AbstractRegisteredService r where r.lastModified >= :timestamp", RegisteredService.class)
+                .setParameter("timestamp", timestamp)
+                .getResultList();
+        final List<Long> ids = this.entityManager.createQuery("select r.id from AbstractRegisteredService r", Long.class)
+                .getResultList();
+        return new ServiceRegistryChanges(changed, new HashSet<>(ids));
+    }
+
     @Override
     public RegisteredService save(final RegisteredService registeredService) {
+        if (registeredService instanceof AbstractRegisteredService) {
+            ((AbstractRegisteredService) registeredService).setLastModified(System.currentTimeMillis());
+        }
         final boolean isNew = registeredService.getId() == RegisteredService.INITIAL_IDENTIFIER_VALUE;
         final RegisteredService r = this.entityManager.merge(registeredService);
         if (!isNew) {
@@ -102,6 +102,7 @@ public class JpaTicketRegistryConfiguration {
     public TicketRegistry jpaTicketRegistry() {
         final JpaTicketRegistry bean = new JpaTicketRegistry();
         bean.setLockTgt(casProperties.getTicket().getRegistry().getJpa().isJpaLockingTgtEnabled());
+        bean.setOptimisticLocking(casProperties.getTicket().getRegistry().getJpa().isJpaLockingTgtOptimistic());
         bean.setCipherExecutor(Beans.newTicketRegistryCipherExecutor(
                 casProperties.getTicket().getRegistry().getJpa().getCrypto()));
         return bean;
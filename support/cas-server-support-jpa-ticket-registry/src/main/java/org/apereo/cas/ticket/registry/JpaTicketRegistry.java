@@ -1,37 +1,47 @@
 package org.apereo.cas.ticket.registry;
 
-import org.apereo.cas.ticket.OAuthToken;
+import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.ticket.accesstoken.AccessToken;
 import org.apereo.cas.ticket.code.OAuthCode;
 import org.apereo.cas.ticket.code.OAuthCodeImpl;
 import org.apereo.cas.ticket.refreshtoken.RefreshToken;
-import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.ServiceTicketImpl;
 import org.apereo.cas.ticket.Ticket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.apereo.cas.ticket.TicketGrantingTicketImpl;
 import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JPA implementation of a CAS {@link TicketRegistry}. This implementation of
  * ticket registry is suitable for HA environments.
+ * <p>
+ * Ticket-granting tickets are either locked for the duration of the transaction
+ * when read, or when optimistic locking is enabled, read without locks and verified
+ * against their version when updated. A concurrent update in the latter mode is reported
+ * as an {@link OptimisticLockingFailureException} that does not roll back the
+ * ongoing transaction, so callers may read the ticket again and retry.
  *
  * @author Scott Battaglia
  * @author Marvin S. Addison
  * @since 3.2.1
  */
 @EnableTransactionManagement(proxyTargetClass = true)
-@Transactional(transactionManager = "ticketTransactionManager", readOnly = false)
+@Transactional(transactionManager = "ticketTransactionManager", readOnly = false,
+        noRollbackFor = OptimisticLockingFailureException.class)
 public class JpaTicketRegistry extends AbstractTicketRegistry {
 
     private static final String TABLE_OAUTH_TICKETS = OAuthCodeImpl.class.getSimpleName();
@@ -40,6 +50,13 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
 
     private boolean lockTgt = true;
 
+    private boolean optimisticLocking;
+
+    /**
+     * Id of the last ticket examined, by ticket type, among tickets without an expiration time.
+     */
+    private final Map<Class<? extends Ticket>, String> expirationTimeCursors = new ConcurrentHashMap<>();
+
     @PersistenceContext(unitName = "ticketEntityManagerFactory")
     private EntityManager entityManager;
 
@@ -47,8 +64,25 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
         this.lockTgt = lockTgt;
     }
 
+    public void setOptimisticLocking(final boolean optimisticLocking) {
+        this.optimisticLocking = optimisticLocking;
+    }
+
     @Override
     public void updateTicket(final Ticket ticket) {
+        if (isOptimisticLocking() && ticket instanceof TicketGrantingTicketImpl) {
+            final TicketGrantingTicketImpl ticketGrantingTicket = (TicketGrantingTicketImpl) ticket;
+            final int count = this.entityManager.createQuery("update " + TABLE_TICKET_GRANTING_TICKETS
+                    + " t set t.version = t.version + 1 where t.id = :id and t.version = :version")
+                    .setParameter("id", ticketGrantingTicket.getId())
+                    .setParameter("version", ticketGrantingTicket.getVersion())
+                    .executeUpdate();
+            if (count == 0) {
+                throw new OptimisticLockingFailureException("Ticket " + ticket.getId()
+                        + " has been updated or removed since it was read from the registry");
+            }
+            ticketGrantingTicket.setVersion(ticketGrantingTicket.getVersion() + 1);
+        }
         this.entityManager.merge(ticket);
         logger.debug("Updated ticket [{}].", ticket);
     }
@@ -59,24 +93,6 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
         logger.debug("Added ticket [{}] to registry.", ticket);
     }
 
-    /**
-     * Removes the ticket.
-     *
-     * @param ticket the ticket
-     * @return true if ticket was removed
-     */
-    public boolean removeTicket(final Ticket ticket) {
-        try {
-            final ZonedDateTime creationDate = ticket.getCreationTime();
-            logger.debug("Removing Ticket [{}] created: {}", ticket, creationDate.toString());
-            this.entityManager.remove(ticket);
-            return true;
-        } catch (final Exception e) {
-            logger.error("Error removing {} from registry.", ticket.getId(), e);
-        }
-        return false;
-    }
-
     @Override
     public Ticket getTicket(final String ticketId) {
         return getRawTicket(ticketId);
@@ -90,15 +106,21 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
      */
     public Ticket getRawTicket(final String ticketId) {
         try {
-            if (ticketId.startsWith(TicketGrantingTicket.PREFIX)
-                    || ticketId.startsWith(ProxyGrantingTicket.PROXY_GRANTING_TICKET_PREFIX)) {
+            if (isTicketGrantingTicket(ticketId)) {
                 // There is no need to distinguish between TGTs and PGTs since PGTs inherit from TGTs
+                if (isOptimisticLocking()) {
+                    // detached, so that changes are only written by updateTicket once the version is verified
+                    final TicketGrantingTicketImpl ticket = this.entityManager.find(TicketGrantingTicketImpl.class, ticketId);
+                    if (ticket != null) {
+                        this.entityManager.detach(ticket);
+                    }
+                    return ticket;
+                }
                 return this.entityManager.find(TicketGrantingTicketImpl.class, ticketId,
                         this.lockTgt ? LockModeType.PESSIMISTIC_WRITE : null);
             }
 
-            if (ticketId.startsWith(OAuthCode.PREFIX) || ticketId.startsWith(AccessToken.PREFIX)
-                    || ticketId.startsWith(RefreshToken.PREFIX)) {
+            if (isOAuthToken(ticketId)) {
                 return this.entityManager.find(OAuthCodeImpl.class, ticketId);
             }
 
@@ -142,24 +164,62 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
     }
 
     @Override
-    public boolean deleteSingleTicket(final String ticketId) {
-        final Ticket ticket = getTicket(ticketId);
-        if (ticket == null) {
-            return true;
-        }
+    public boolean isExpirationTracked() {
+        return true;
+    }
 
-        final int failureCount;
+    @Override
+    public Collection<Ticket> getExpiredTickets(final int limit) {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        final List<Ticket> tickets = new ArrayList<>(this.entityManager
+                .createQuery("select t from " + TABLE_TICKET_GRANTING_TICKETS
+                        + " t where t.expired = true or t.expirationTime < :now", TicketGrantingTicketImpl.class)
+                .setParameter("now", now)
+                .setMaxResults(limit)
+                .getResultList());
+
+        // tickets whose expiration policy cannot report an expiration time must be examined one by one
+        addExpiredTicketsWithoutExpirationTime(TicketGrantingTicketImpl.class, " and t.expired = false", limit, tickets);
+        addExpiredTicketsWithoutExpirationTime(ServiceTicketImpl.class, StringUtils.EMPTY, limit, tickets);
+        addExpiredTicketsWithoutExpirationTime(OAuthCodeImpl.class, StringUtils.EMPTY, limit, tickets);
+        return tickets;
+    }
 
-        if (ticket instanceof OAuthToken) {
-            failureCount = deleteOAuthTokens(ticketId);
-        } else if (ticket instanceof ServiceTicket) {
-            failureCount = deleteServiceTickets(ticketId);
-        } else if (ticket instanceof TicketGrantingTicket) {
-            failureCount = deleteTicketGrantingTickets(ticketId);
+    @Override
+    public int deleteExpiredTickets() {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        this.entityManager.flush();
+        int count = this.entityManager.createQuery("delete from " + TABLE_SERVICE_TICKETS + " s where s.expirationTime < :now")
+                .setParameter("now", now)
+                .executeUpdate();
+        count += this.entityManager.createQuery("delete from " + TABLE_OAUTH_TICKETS + " o where o.expirationTime < :now")
+                .setParameter("now", now)
+                .executeUpdate();
+        this.entityManager.clear();
+        logger.debug("Removed [{}] expired service tickets and tokens from the registry.", count);
+        return count;
+    }
+
+    @Override
+    public int deleteTicket(final String ticketId) {
+        if (ticketId == null) {
+            return 0;
+        }
+        final int count;
+        if (isTicketGrantingTicket(ticketId)) {
+            count = deleteTicketGrantingTickets(ticketId);
+        } else if (isOAuthToken(ticketId)) {
+            count = deleteOAuthTokens(ticketId);
         } else {
-            throw new IllegalArgumentException("Invalid ticket type with id " + ticketId);
+            count = deleteServiceTickets(ticketId);
         }
-        return failureCount == 0;
+        logger.debug("Removed [{}] ticket(s) from the registry for [{}].", count, ticketId);
+        return count;
+    }
+
+    @Override
+    public boolean deleteSingleTicket(final String ticketId) {
+        return deleteTicket(ticketId) > 0;
     }
 
     /**
@@ -182,68 +242,121 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
      * Delete o auth tokens int.
      *
      * @param ticketId the ticket id
-     * @return the int
+     * @return the number of tokens removed
      */
     public int deleteOAuthTokens(final String ticketId) {
-        final List<OAuthCodeImpl> oAuthCodeImpls = getTicketQueryResultList(ticketId,
-                "select o from " + TABLE_OAUTH_TICKETS + " o where o.id = :id", OAuthCodeImpl.class);
-        return deleteTicketsFromResultList(oAuthCodeImpls);
+        detach(OAuthCodeImpl.class, ticketId);
+        return executeDelete("delete from " + TABLE_OAUTH_TICKETS + " o where o.id = :id", ticketId);
     }
 
     /**
      * Delete service tickets int.
      *
      * @param ticketId the ticket id
-     * @return the int
+     * @return the number of service tickets removed
      */
     public int deleteServiceTickets(final String ticketId) {
-        final List<ServiceTicketImpl> serviceTicketImpls = getTicketQueryResultList(ticketId,
-                "select s from " + TABLE_SERVICE_TICKETS + " s where s.id = :id", ServiceTicketImpl.class);
-        return deleteTicketsFromResultList(serviceTicketImpls);
+        detach(ServiceTicketImpl.class, ticketId);
+        return executeDelete("delete from " + TABLE_SERVICE_TICKETS + " s where s.id = :id", ticketId);
     }
 
     /**
-     * Delete tickets from result list int.
+     * Delete the ticket granting ticket, along with its proxy-granting tickets
+     * and all service tickets issued by either of them. Rows are removed by
+     * set-based statements keyed on the parent ticket, without loading
+     * any of the child tickets.
      *
-     * @param serviceTicketImpls the service ticket impls
-     * @return the int
+     * @param ticketId the ticket id
+     * @return the number of tickets removed
      */
-    public int deleteTicketsFromResultList(final List<? extends Ticket> serviceTicketImpls) {
-        int failureCount = 0;
-        for (final Ticket serviceTicketImpl : serviceTicketImpls) {
-            if (!removeTicket(serviceTicketImpl)) {
-                failureCount++;
+    public int deleteTicketGrantingTickets(final String ticketId) {
+        int count = 0;
+
+        final List<String> proxyGrantingTicketIds = this.entityManager
+                .createQuery("select t.id from " + TABLE_TICKET_GRANTING_TICKETS
+                        + " t where t.ticketGrantingTicket.id = :id", String.class)
+                .setParameter("id", ticketId)
+                .getResultList();
+        for (final String proxyGrantingTicketId : proxyGrantingTicketIds) {
+            count += deleteTicketGrantingTickets(proxyGrantingTicketId);
+        }
+
+        detach(TicketGrantingTicketImpl.class, ticketId);
+        count += executeDelete("delete from " + TABLE_SERVICE_TICKETS
+                + " s where s.ticketGrantingTicket.id = :id", ticketId);
+        count += executeDelete("delete from " + TABLE_TICKET_GRANTING_TICKETS
+                + " t where t.id = :id", ticketId);
+        return count;
+    }
+
+    private int executeDelete(final String query, final String ticketId) {
+        return this.entityManager.createQuery(query)
+                .setParameter("id", ticketId)
+                .executeUpdate();
+    }
+
+    /**
+     * Examine the next tickets of the given type that have no expiration time, in order of their id,
+     * and add those that are expired. The position reached is remembered, so that the following
+     * call resumes from there and every ticket is eventually examined.
+     *
+     * @param clazz     the ticket type
+     * @param condition additional query condition, if any
+     * @param limit     the maximum number of expired tickets
+     * @param tickets   the expired tickets found so far
+     */
+    private void addExpiredTicketsWithoutExpirationTime(final Class<? extends Ticket> clazz, final String condition,
+                                                        final int limit, final List<Ticket> tickets) {
+        if (tickets.size() >= limit) {
+            return;
+        }
+        final String cursor = this.expirationTimeCursors.getOrDefault(clazz, StringUtils.EMPTY);
+        final List<? extends Ticket> candidates = this.entityManager.createQuery("select t from " + clazz.getSimpleName()
+                + " t where t.expirationTime is null" + condition + " and t.id > :cursor order by t.id", clazz)
+                .setParameter("cursor", cursor)
+                .setMaxResults(limit)
+                .getResultList();
+
+        String position = cursor;
+        boolean examinedAll = true;
+        for (final Ticket candidate : candidates) {
+            if (tickets.size() >= limit) {
+                examinedAll = false;
+                break;
+            }
+            position = candidate.getId();
+            if (candidate.isExpired()) {
+                tickets.add(candidate);
             }
         }
-        return failureCount;
+        // start over once the last ticket has been examined
+        this.expirationTimeCursors.put(clazz, examinedAll && candidates.size() < limit ? StringUtils.EMPTY : position);
     }
 
     /**
-     * Delete ticket granting tickets int.
+     * Detach the ticket if it is held by the persistence context, as bulk deletes
+     * bypass the context and the ticket would otherwise be written again when flushed.
+     * References do not load the ticket if it is not already held.
      *
+     * @param clazz    the ticket type
      * @param ticketId the ticket id
-     * @return the int
      */
-    public int deleteTicketGrantingTickets(final String ticketId) {
-        int failureCount = 0;
-
-        final List<ServiceTicketImpl> serviceTicketImpls = getTicketQueryResultList(ticketId,
-                "select s from "
-                        + TABLE_SERVICE_TICKETS
-                        + " s where s.ticketGrantingTicket.id = :id", ServiceTicketImpl.class);
-        failureCount += deleteTicketsFromResultList(serviceTicketImpls);
+    private void detach(final Class<? extends Ticket> clazz, final String ticketId) {
+        this.entityManager.detach(this.entityManager.getReference(clazz, ticketId));
+    }
 
-        List<TicketGrantingTicketImpl> ticketGrantingTicketImpls = getTicketQueryResultList(ticketId,
-                "select t from " + TABLE_TICKET_GRANTING_TICKETS
-                        + " t where t.ticketGrantingTicket.id = :id", TicketGrantingTicketImpl.class);
-        failureCount += deleteTicketsFromResultList(ticketGrantingTicketImpls);
+    private boolean isOptimisticLocking() {
+        return this.lockTgt && this.optimisticLocking;
+    }
 
-        ticketGrantingTicketImpls = getTicketQueryResultList(ticketId,
-                "select t from " + TABLE_TICKET_GRANTING_TICKETS
-                        + " t where t.id = :id", TicketGrantingTicketImpl.class);
-        failureCount += deleteTicketsFromResultList(ticketGrantingTicketImpls);
+    private static boolean isTicketGrantingTicket(final String ticketId) {
+        return ticketId.startsWith(TicketGrantingTicket.PREFIX)
+                || ticketId.startsWith(ProxyGrantingTicket.PROXY_GRANTING_TICKET_PREFIX);
+    }
 
-        return failureCount;
+    private static boolean isOAuthToken(final String ticketId) {
+        return ticketId.startsWith(OAuthCode.PREFIX) || ticketId.startsWith(AccessToken.PREFIX)
+                || ticketId.startsWith(RefreshToken.PREFIX);
     }
 
     /**
@@ -1,6 +1,8 @@
 package org.apereo.cas;
 
 import org.apereo.cas.monitor.SessionMonitorJpaTests;
+import org.apereo.cas.ticket.registry.JpaTicketRegistryContentionTests;
+import org.apereo.cas.ticket.registry.JpaTicketRegistryOptimisticLockingTests;
 import org.apereo.cas.ticket.registry.JpaTicketRegistryTests;
 import org.apereo.cas.ticket.registry.support.JpaLockingStrategyTests;
 import org.junit.runner.RunWith;
@@ -14,7 +16,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({SessionMonitorJpaTests.class, JpaTicketRegistryTests.class,
-        JpaLockingStrategyTests.class
+        JpaLockingStrategyTests.class, JpaTicketRegistryOptimisticLockingTests.class,
+        JpaTicketRegistryContentionTests.class
         })
 public class AllTestsSuite {
 }
@@ -0,0 +1,148 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.config.JpaTicketRegistryConfiguration;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.IfProfileValue;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link JpaTicketRegistryContentionTests}. It grants service tickets
+ * for a single ticket-granting ticket from many concurrent clients, against the
+ * embedded database, once with pessimistic and once with optimistic locking,
+ * and reports the throughput of each mode.
+ * <p>
+ * The benchmark is not run by default, and may be run with {@code -DjpaTicketRegistryBenchmark=true}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {RefreshAutoConfiguration.class, JpaTicketRegistryConfiguration.class})
+@IfProfileValue(name = "jpaTicketRegistryBenchmark", value = "true")
+public class JpaTicketRegistryContentionTests {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JpaTicketRegistryContentionTests.class);
+
+    private static final int CLIENTS = 10;
+
+    private static final int GRANTS_PER_CLIENT = 20;
+
+    private static final int MAX_UPDATE_ATTEMPTS = 100;
+
+    private static final long TIMEOUT_IN_MINUTES = 5;
+
+    @Autowired
+    @Qualifier("ticketTransactionManager")
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    @Qualifier("jpaTicketRegistry")
+    private TicketRegistry jpaTicketRegistry;
+
+    @After
+    public void tearDown() {
+        setOptimisticLocking(false);
+    }
+
+    @Test
+    public void verifyPessimisticLockingUnderContention() throws Exception {
+        setOptimisticLocking(false);
+        runBenchmark("pessimistic");
+    }
+
+    @Test
+    public void verifyOptimisticLockingUnderContention() throws Exception {
+        setOptimisticLocking(true);
+        runBenchmark("optimistic");
+    }
+
+    private void setOptimisticLocking(final boolean optimisticLocking) {
+        final JpaTicketRegistry registry = AopTestUtils.getUltimateTargetObject(this.jpaTicketRegistry);
+        registry.setLockTgt(true);
+        registry.setOptimisticLocking(optimisticLocking);
+    }
+
+    private void runBenchmark(final String mode) throws Exception {
+        final TicketGrantingTicket tgt = JpaTicketRegistryTests.newTGT();
+        new TransactionTemplate(this.txManager).execute(status -> {
+            this.jpaTicketRegistry.addTicket(tgt);
+            return null;
+        });
+
+        final AtomicInteger conflicts = new AtomicInteger();
+        final List<Callable<Integer>> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(() -> {
+                for (int j = 0; j < GRANTS_PER_CLIENT; j++) {
+                    grantServiceTicket(tgt.getId(), conflicts);
+                }
+                return GRANTS_PER_CLIENT;
+            });
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            final long start = System.nanoTime();
+            int granted = 0;
+            for (final Future<Integer> result : executor.invokeAll(clients, TIMEOUT_IN_MINUTES, TimeUnit.MINUTES)) {
+                granted += result.get();
+            }
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.info("Granted [{}] service tickets with {} locking in [{}] ms ({} grants/s); [{}] update conflicts were retried",
+                    granted, mode, elapsed, granted * 1000L / Math.max(elapsed, 1), conflicts.get());
+
+            final TicketGrantingTicket tgtFromDb = new TransactionTemplate(this.txManager).execute(
+                    status -> (TicketGrantingTicket) this.jpaTicketRegistry.getTicket(tgt.getId()));
+            assertEquals(granted, tgtFromDb.getCountOfUses());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Grant a service ticket as done by CentralAuthenticationServiceImpl#grantServiceTicket,
+     * retrying within the same transaction when the ticket-granting ticket was concurrently updated.
+     */
+    private void grantServiceTicket(final String tgtId, final AtomicInteger conflicts) {
+        new TransactionTemplate(this.txManager).execute(status -> {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    final TicketGrantingTicket tgt = (TicketGrantingTicket) this.jpaTicketRegistry.getTicket(tgtId);
+                    final ServiceTicket st = JpaTicketRegistryTests.newST(tgt);
+                    this.jpaTicketRegistry.updateTicket(tgt);
+                    this.jpaTicketRegistry.addTicket(st);
+                    return st;
+                } catch (final OptimisticLockingFailureException e) {
+                    if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                        throw e;
+                    }
+                    conflicts.incrementAndGet();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.CentralAuthenticationServiceImpl;
+import org.apereo.cas.config.JpaTicketRegistryConfiguration;
+import org.apereo.cas.logout.LogoutManager;
+import org.apereo.cas.mock.MockService;
+import org.apereo.cas.services.RegexRegisteredService;
+import org.apereo.cas.services.ServicesManager;
+import org.apereo.cas.ticket.DefaultProxyGrantingTicketFactory;
+import org.apereo.cas.ticket.DefaultProxyTicketFactory;
+import org.apereo.cas.ticket.DefaultServiceTicketFactory;
+import org.apereo.cas.ticket.DefaultTicketFactory;
+import org.apereo.cas.ticket.DefaultTicketGrantingTicketFactory;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.*;
+
+/**
+ * This is {@link JpaTicketRegistryOptimisticLockingTests}. Service tickets are granted
+ * while the ticket-granting ticket is made to look concurrently updated a given number of times,
+ * by handing out the ticket with a stale version.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {RefreshAutoConfiguration.class, JpaTicketRegistryConfiguration.class})
+public class JpaTicketRegistryOptimisticLockingTests {
+    private static final MockService SERVICE = new MockService("https://service.example.com");
+
+    @Autowired
+    @Qualifier("ticketTransactionManager")
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    @Qualifier("jpaTicketRegistry")
+    private TicketRegistry jpaTicketRegistry;
+
+    private TicketGrantingTicket ticketGrantingTicket;
+
+    @Before
+    public void setUp() {
+        setOptimisticLocking(true);
+        this.ticketGrantingTicket = JpaTicketRegistryTests.newTGT();
+        new TransactionTemplate(this.txManager).execute(status -> {
+            this.jpaTicketRegistry.addTicket(this.ticketGrantingTicket);
+            return null;
+        });
+    }
+
+    @After
+    public void tearDown() {
+        setOptimisticLocking(false);
+        new TransactionTemplate(this.txManager).execute(status -> this.jpaTicketRegistry.deleteTicket(this.ticketGrantingTicket.getId()));
+    }
+
+    @Test
+    public void verifyConcurrentUpdateIsRetried() throws Exception {
+        final AtomicInteger reads = new AtomicInteger();
+        final CentralAuthenticationServiceImpl cas = newCentralAuthenticationService(1, reads);
+        cas.setMaxTicketUpdateAttempts(3);
+
+        final ServiceTicket st = new TransactionTemplate(this.txManager).execute(status -> grantServiceTicket(cas));
+        assertNotNull(st);
+        assertEquals(2, reads.get());
+
+        final TicketGrantingTicketImpl tgt = getTicketGrantingTicket();
+        assertEquals(1, tgt.getCountOfUses());
+        assertEquals(1, tgt.getVersion());
+        assertNotNull(new TransactionTemplate(this.txManager).execute(status -> this.jpaTicketRegistry.getTicket(st.getId())));
+    }
+
+    @Test
+    public void verifyRetriesGiveUpAfterMaximumAttempts() {
+        final AtomicInteger reads = new AtomicInteger();
+        final CentralAuthenticationServiceImpl cas = newCentralAuthenticationService(Integer.MAX_VALUE, reads);
+        cas.setMaxTicketUpdateAttempts(2);
+
+        try {
+            new TransactionTemplate(this.txManager).execute(status -> grantServiceTicket(cas));
+            fail("Conflicting update should have been reported");
+        } catch (final OptimisticLockingFailureException e) {
+            assertEquals(2, reads.get());
+        }
+
+        final TicketGrantingTicketImpl tgt = getTicketGrantingTicket();
+        assertEquals(0, tgt.getCountOfUses());
+        assertEquals(0, tgt.getVersion());
+    }
+
+    private ServiceTicket grantServiceTicket(final CentralAuthenticationServiceImpl cas) {
+        try {
+            return cas.grantServiceTicket(this.ticketGrantingTicket.getId(), SERVICE, null);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private TicketGrantingTicketImpl getTicketGrantingTicket() {
+        return new TransactionTemplate(this.txManager).execute(status ->
+                (TicketGrantingTicketImpl) this.jpaTicketRegistry.getTicket(this.ticketGrantingTicket.getId()));
+    }
+
+    /**
+     * Create a service whose registry hands out the ticket-granting ticket with a stale version
+     * for the given number of reads, so that updating it is reported as a conflict.
+     */
+    private CentralAuthenticationServiceImpl newCentralAuthenticationService(final int conflicts, final AtomicInteger reads) {
+        final TicketRegistry registry = mock(TicketRegistry.class, delegatesTo(this.jpaTicketRegistry));
+        doAnswer(invocation -> {
+            final TicketGrantingTicketImpl tgt = this.jpaTicketRegistry.getTicket(this.ticketGrantingTicket.getId(),
+                    TicketGrantingTicketImpl.class);
+            if (reads.incrementAndGet() <= conflicts) {
+                tgt.setVersion(tgt.getVersion() - 1);
+            }
+            return tgt;
+        }).when(registry).getTicket(this.ticketGrantingTicket.getId(), TicketGrantingTicket.class);
+
+        final DefaultTicketFactory factory = new DefaultTicketFactory();
+        factory.setTicketGrantingTicketFactory(new DefaultTicketGrantingTicketFactory());
+        factory.setProxyGrantingTicketFactory(new DefaultProxyGrantingTicketFactory());
+        factory.setServiceTicketFactory(new DefaultServiceTicketFactory(new MultiTimeUseOrTimeoutExpirationPolicy(1, 1000)));
+        factory.setProxyTicketFactory(new DefaultProxyTicketFactory());
+        factory.initialize();
+
+        final RegexRegisteredService registeredService = new RegexRegisteredService();
+        registeredService.setServiceId(".+");
+        final ServicesManager servicesManager = mock(ServicesManager.class);
+        when(servicesManager.findServiceBy(SERVICE)).thenReturn(registeredService);
+
+        final CentralAuthenticationServiceImpl cas = new CentralAuthenticationServiceImpl(registry, factory,
+                servicesManager, mock(LogoutManager.class));
+        cas.setApplicationEventPublisher(mock(ApplicationEventPublisher.class));
+        return cas;
+    }
+
+    private void setOptimisticLocking(final boolean optimisticLocking) {
+        final JpaTicketRegistry registry = AopTestUtils.getUltimateTargetObject(this.jpaTicketRegistry);
+        registry.setLockTgt(true);
+        registry.setOptimisticLocking(optimisticLocking);
+    }
+}
@@ -15,8 +15,10 @@ import org.apereo.cas.ticket.TicketGrantingTicketImpl;
 import org.apereo.cas.ticket.UniqueTicketIdGenerator;
 import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
 import org.apereo.cas.ticket.proxy.ProxyTicket;
+import org.apereo.cas.ticket.support.AlwaysExpiresExpirationPolicy;
 import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
 import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
 import org.apereo.cas.util.DefaultUniqueTicketIdGenerator;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,6 +34,7 @@ import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -165,6 +168,87 @@ public class JpaTicketRegistryTests {
     }
 
 
+    @Test
+    public void verifyExpiredTicketsAreLocatedAndRemovedInBulk() {
+        final ExpirationPolicy expiredPolicy = new HardTimeoutExpirationPolicy(-1);
+        final TicketGrantingTicket expiredTgt = new TicketGrantingTicketImpl(
+                ID_GENERATOR.getNewTicketId(TicketGrantingTicket.PREFIX),
+                CoreAuthenticationTestUtils.getAuthentication(),
+                expiredPolicy);
+        addTicketInTransaction(expiredTgt);
+
+        final TicketGrantingTicket newTgt = newTGT();
+        addTicketInTransaction(newTgt);
+        final ServiceTicket newSt = grantServiceTicketInTransaction(newTgt);
+        final ServiceTicket expiredSt = new TransactionTemplate(txManager).execute(status -> {
+            final ServiceTicket st = newTgt.grantServiceTicket(
+                    ID_GENERATOR.getNewTicketId(ServiceTicket.PREFIX),
+                    new MockService("https://service.example.com"),
+                    expiredPolicy,
+                    false,
+                    true);
+            jpaTicketRegistry.addTicket(st);
+            return st;
+        });
+
+        final Collection<Ticket> expiredTickets = new TransactionTemplate(txManager)
+                .execute(status -> jpaTicketRegistry.getExpiredTickets(10));
+        assertEquals(1, expiredTickets.size());
+        assertEquals(expiredTgt.getId(), expiredTickets.iterator().next().getId());
+
+        final Integer removed = new TransactionTemplate(txManager)
+                .execute(status -> jpaTicketRegistry.deleteExpiredTickets());
+        assertEquals(1, removed.intValue());
+        assertNull(getTicketInTransaction(expiredSt.getId()));
+        assertNotNull(getTicketInTransaction(newSt.getId()));
+
+        deleteTicketInTransaction(expiredTgt.getId());
+        assertNull(getTicketInTransaction(expiredTgt.getId()));
+        deleteTicketInTransaction(newTgt.getId());
+        assertNull(getTicketInTransaction(newSt.getId()));
+    }
+
+    @Test
+    public void verifyTicketsWithoutExpirationTimeAreAllExamined() {
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-CURSOR-A" + i,
+                    CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+            addTicketInTransaction(tgt);
+            ids.add(tgt.getId());
+        }
+        final TicketGrantingTicket expiredTgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-CURSOR-B",
+                CoreAuthenticationTestUtils.getAuthentication(), new AlwaysExpiresExpirationPolicy());
+        addTicketInTransaction(expiredTgt);
+        ids.add(expiredTgt.getId());
+
+        final TransactionTemplate template = new TransactionTemplate(txManager);
+        assertTrue(template.execute(status -> jpaTicketRegistry.getExpiredTickets(2)).isEmpty());
+        final Collection<Ticket> expiredTickets = template.execute(status -> jpaTicketRegistry.getExpiredTickets(2));
+        assertEquals(1, expiredTickets.size());
+        assertEquals(expiredTgt.getId(), expiredTickets.iterator().next().getId());
+
+        ids.forEach(this::deleteTicketInTransaction);
+    }
+
+    @Test
+    public void verifyDeletingTicketKeepsOtherTicketsManaged() {
+        final TicketGrantingTicket newTgt = newTGT();
+        addTicketInTransaction(newTgt);
+        final ServiceTicket newSt = grantServiceTicketInTransaction(newTgt);
+
+        new TransactionTemplate(txManager).execute(status -> {
+            final TicketGrantingTicket tgt = (TicketGrantingTicket) jpaTicketRegistry.getTicket(newTgt.getId());
+            final ServiceTicket st = (ServiceTicket) jpaTicketRegistry.getTicket(newSt.getId());
+            assertEquals(1, jpaTicketRegistry.deleteTicket(st.getId()));
+            tgt.markTicketExpired();
+            return null;
+        });
+        assertNull(getTicketInTransaction(newSt.getId()));
+        assertTrue(getTicketInTransaction(newTgt.getId()).isExpired());
+        deleteTicketInTransaction(newTgt.getId());
+    }
+
     static TicketGrantingTicket newTGT() {
         final Principal principal = new DefaultPrincipalFactory().createPrincipal(
                 "bob", Collections.singletonMap("displayName", (Object) "Bob"));
@@ -21,6 +21,7 @@ import org.ldaptive.ModifyOperation;
 import org.ldaptive.ModifyRequest;
 import org.ldaptive.Response;
 import org.ldaptive.ResultCode;
+import org.ldaptive.ReturnAttributes;
 import org.ldaptive.SearchFilter;
 import org.ldaptive.SearchOperation;
 import org.ldaptive.SearchRequest;
@@ -174,9 +175,28 @@ public final class LdapUtils {
                                                                 final String baseDn,
                                                                 final SearchFilter filter)
             throws LdapException {
+        return executeSearchOperation(connectionFactory, baseDn, filter, ReturnAttributes.ALL_USER.value());
+    }
+
+    /**
+     * Execute search operation, and only return the given attributes.
+     *
+     * @param connectionFactory the connection factory
+     * @param baseDn            the base dn
+     * @param filter            the filter
+     * @param returnAttributes  the attributes to return
+     * @return the response
+     * @throws LdapException the ldap exception
+     */
+    public static Response<SearchResult> executeSearchOperation(final ConnectionFactory connectionFactory,
+                                                                final String baseDn,
+                                                                final SearchFilter filter,
+                                                                final String... returnAttributes)
+            throws LdapException {
         try (Connection connection = createConnection(connectionFactory)) {
             final SearchOperation searchOperation = new SearchOperation(connection);
             final SearchRequest request = Beans.newSearchRequest(baseDn, filter);
+            request.setReturnAttributes(returnAttributes);
             request.setReferralHandler(new SearchReferralHandler());
             return searchOperation.execute(request);
         }
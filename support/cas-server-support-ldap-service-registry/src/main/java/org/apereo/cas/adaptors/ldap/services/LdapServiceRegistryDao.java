@@ -3,6 +3,7 @@ package org.apereo.cas.adaptors.ldap.services;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.configuration.support.Beans;
 import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.ServiceRegistryChanges;
 import org.apereo.cas.services.ServiceRegistryDao;
 import org.apereo.cas.util.LdapUtils;
 import org.ldaptive.ConnectionFactory;
@@ -15,8 +16,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Implementation of the ServiceRegistryDao interface which stores the services in a LDAP Directory.
@@ -29,6 +35,9 @@ public class LdapServiceRegistryDao implements ServiceRegistryDao {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LdapServiceRegistryDao.class);
     
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
     private ConnectionFactory connectionFactory;
     private LdapRegisteredServiceMapper ldapServiceMapper = new DefaultLdapRegisteredServiceMapper();
     
@@ -157,6 +166,47 @@ public class LdapServiceRegistryDao implements ServiceRegistryDao {
         return list;
     }
 
+    /**
+     * {@inheritDoc}
+     * Changed entries are found by their operational {@code modifyTimestamp} and {@code createTimestamp}
+     * attributes, and the identifiers of all entries are fetched without their other attributes.
+     */
+    @Override
+    public ServiceRegistryChanges loadChangesSince(final long timestamp) {
+        if (this.ldapServiceMapper == null) {
+            return null;
+        }
+        try {
+            final String since = GENERALIZED_TIME.format(Instant.ofEpochMilli(timestamp));
+            final SearchFilter changedFilter = Beans.newSearchFilter("(&" + this.loadFilter
+                    + "(|(modifyTimestamp>={0})(createTimestamp>={0})))", since);
+            final List<RegisteredService> changed = new LinkedList<>();
+            final Response<SearchResult> changes = LdapUtils.executeSearchOperation(this.connectionFactory, this.baseDn, changedFilter);
+            if (LdapUtils.containsResultEntry(changes)) {
+                for (final LdapEntry entry : changes.getResult().getEntries()) {
+                    changed.add(this.ldapServiceMapper.mapToRegisteredService(entry));
+                }
+            }
+
+            final Set<Long> ids = new HashSet<>();
+            final String idAttribute = this.ldapServiceMapper.getIdAttribute();
+            final Response<SearchResult> all = LdapUtils.executeSearchOperation(this.connectionFactory, this.baseDn,
+                    Beans.newSearchFilter(this.loadFilter), idAttribute);
+            if (LdapUtils.containsResultEntry(all)) {
+                for (final LdapEntry entry : all.getResult().getEntries()) {
+                    final Long id = LdapUtils.getLong(entry, idAttribute);
+                    if (id != null) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return new ServiceRegistryChanges(changed, ids);
+        } catch (final LdapException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return null;
+    }
+
     private Response<SearchResult> getSearchResultResponse() throws LdapException {
         return LdapUtils.executeSearchOperation(this.connectionFactory,
                         this.baseDn, Beans.newSearchFilter(this.loadFilter));
@@ -11,6 +11,7 @@ import org.apereo.cas.configuration.support.Beans;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.MemCacheTicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRegistry;
+import org.apereo.cas.ticket.registry.TicketSerializer;
 import org.apereo.cas.ticket.registry.TicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.support.kryo.KryoTranscoder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +34,10 @@ public class MemcachedTicketRegistryConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("ticketSerializer")
+    private TicketSerializer ticketSerializer;
+
     /**
      * Memcached client memcached client factory bean.
      *
@@ -58,7 +63,10 @@ public class MemcachedTicketRegistryConfiguration {
 
     @Bean
     public KryoTranscoder kryoTranscoder() {
-        return new KryoTranscoder();
+        final KryoTranscoder transcoder = new KryoTranscoder();
+        transcoder.setCompressionThreshold(casProperties.getTicket().getRegistry().getMemcached().getKryoCompressionThreshold());
+        transcoder.setRegistrationRequired(casProperties.getTicket().getRegistry().getMemcached().isKryoRegistrationRequired());
+        return transcoder;
     }
     
     @Autowired
@@ -68,6 +76,9 @@ public class MemcachedTicketRegistryConfiguration {
         final MemCacheTicketRegistry registry = new MemCacheTicketRegistry(memcachedClientIF);
         registry.setCipherExecutor(Beans.newTicketRegistryCipherExecutor(
                 casProperties.getTicket().getRegistry().getMemcached().getCrypto()));
+        if (this.ticketSerializer != null) {
+            registry.setTicketSerializer(this.ticketSerializer);
+        }
         return registry;
     }
 
@@ -4,6 +4,7 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoPool;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers;
 import de.javakaffee.kryoserializers.CollectionsEmptyListSerializer;
 import de.javakaffee.kryoserializers.CollectionsEmptyMapSerializer;
@@ -19,10 +20,17 @@ import de.javakaffee.kryoserializers.guava.ImmutableListSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableMapSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableMultimapSerializer;
 import de.javakaffee.kryoserializers.guava.ImmutableSetSerializer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
 import net.spy.memcached.CachedData;
 import net.spy.memcached.transcoders.Transcoder;
+import org.apereo.cas.authentication.AccountDisabledException;
+import org.apereo.cas.authentication.AccountPasswordMustChangeException;
 import org.apereo.cas.authentication.BasicCredentialMetaData;
 import org.apereo.cas.authentication.DefaultHandlerResult;
+import org.apereo.cas.authentication.InvalidLoginLocationException;
+import org.apereo.cas.authentication.InvalidLoginTimeException;
+import org.apereo.cas.authentication.PreventedException;
 import org.apereo.cas.authentication.UsernamePasswordCredential;
 import org.apereo.cas.authentication.principal.SimplePrincipal;
 import org.apereo.cas.authentication.principal.SimpleWebApplicationServiceImpl;
@@ -41,14 +49,21 @@ import org.apereo.cas.ticket.support.ThrottledUseAndTimeoutExpirationPolicy;
 import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
 import org.apereo.cas.ticket.support.TimeoutExpirationPolicy;
 import org.apereo.cas.authentication.DefaultAuthentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import javax.security.auth.login.AccountExpiredException;
+import javax.security.auth.login.AccountLockedException;
+import javax.security.auth.login.AccountNotFoundException;
+import javax.security.auth.login.CredentialExpiredException;
+import javax.security.auth.login.FailedLoginException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.EnumSet;
@@ -62,23 +77,60 @@ import java.util.regex.Pattern;
 /**
  * {@link net.spy.memcached.MemcachedClient} transcoder implementation based on Kryo fast serialization framework
  * suited for efficient serialization of tickets.
+ * <p>
+ * Kryo instances are not thread-safe, and are borrowed from a pool for each operation.
+ * Each thread reuses its own output buffer, so encoding a ticket only allocates the encoded bytes.
+ * Encoded data that is larger than the compression threshold is compressed with LZ4.
+ * <p>
+ * Classes are registered in a fixed order, so they receive the same registration ids on all nodes
+ * that share the same memcached servers. New types must therefore be registered after existing ones.
  *
  * @author Marvin S. Addison
  * @since 3.0.0
  */
 @SuppressWarnings("rawtypes")
 public class KryoTranscoder implements Transcoder<Object> {
+    /**
+     * Flag set on cached data that is compressed.
+     */
+    public static final int COMPRESSED = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KryoTranscoder.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    private static final byte[] EMPTY_BUFFER = new byte[0];
+
+    private final LZ4Factory lz4 = LZ4Factory.fastestInstance();
+
+    private final ThreadLocal<Output> outputBuffer = ThreadLocal.withInitial(() -> new Output(INITIAL_BUFFER_SIZE, -1));
+
+    private final ThreadLocal<Input> inputBuffer = ThreadLocal.withInitial(Input::new);
 
     /**
-     * Kryo serializer.
+     * Pool of kryo serializers.
      */
-    private final Kryo kryo = new KryoReflectionFactorySupport();
+    private KryoPool kryoPool;
 
     /**
      * Map of class to serializer that handles it.
      */
     private Map<Class<?>, Serializer> serializerMap;
 
+    /**
+     * Size in bytes above which encoded data is compressed. Zero or negative disables compression.
+     */
+    private int compressionThreshold;
+
+    /**
+     * Whether all serialized classes must be registered.
+     */
+    private boolean registrationRequired;
+
     /**
      * Creates a Kryo-based transcoder.
      */
@@ -88,6 +140,7 @@ public class KryoTranscoder implements Transcoder<Object> {
     /**
      * Sets a map of additional types that should be regisetered with Kryo,
      * for example GoogleAccountsService and OpenIdService.
+     * Serializers are shared by all pooled Kryo instances and must be thread-safe.
      *
      * @param map Map of class to the serializer instance that handles it.
      */
@@ -96,65 +149,32 @@ public class KryoTranscoder implements Transcoder<Object> {
     }
 
     /**
-     * Initialize and register classes with kryo.
+     * Sets the size in bytes above which encoded data is compressed.
+     * Zero or negative values disable compression, which is the default.
+     *
+     * @param compressionThreshold the compression threshold
      */
-    @PostConstruct
-    public void initialize() {
-        // Register types we know about and do not require external configuration
-        this.kryo.register(ArrayList.class);
-        this.kryo.register(BasicCredentialMetaData.class);
-        this.kryo.register(Class.class, new DefaultSerializers.ClassSerializer());
-        this.kryo.register(ZonedDateTime.class, new ZonedDateTimeTranscoder());
-        this.kryo.register(HardTimeoutExpirationPolicy.class);
-        this.kryo.register(HashMap.class);
-        this.kryo.register(LinkedHashMap.class);
-        this.kryo.register(HashSet.class);
-        this.kryo.register(DefaultHandlerResult.class);
-        this.kryo.register(DefaultAuthentication.class);
-        this.kryo.register(MultiTimeUseOrTimeoutExpirationPolicy.class);
-        this.kryo.register(NeverExpiresExpirationPolicy.class);
-        this.kryo.register(RememberMeDelegatingExpirationPolicy.class);
-        this.kryo.register(ServiceTicketImpl.class);
-        this.kryo.register(SimpleWebApplicationServiceImpl.class, new SimpleWebApplicationServiceSerializer());
-        this.kryo.register(ThrottledUseAndTimeoutExpirationPolicy.class);
-        this.kryo.register(TicketGrantingTicketExpirationPolicy.class);
-        this.kryo.register(TicketGrantingTicketImpl.class);
-        this.kryo.register(TimeoutExpirationPolicy.class);
-        this.kryo.register(UsernamePasswordCredential.class);
-        this.kryo.register(SimplePrincipal.class);
-        this.kryo.register(URL.class, new URLSerializer());
-        this.kryo.register(URI.class, new URISerializer());
-        this.kryo.register(Pattern.class, new RegexSerializer());
-        this.kryo.register(UUID.class, new UUIDSerializer());
-        this.kryo.register(EnumMap.class, new EnumMapSerializer());
-        this.kryo.register(EnumSet.class, new EnumSetSerializer());
-
-        // we add these ones for tests only
-        this.kryo.register(RegexRegisteredService.class, new RegisteredServiceSerializer());
-
-
-        // from the kryo-serializers library (https://github.com/magro/kryo-serializers)
-        UnmodifiableCollectionsSerializer.registerSerializers(this.kryo);
-        ImmutableListSerializer.registerSerializers(this.kryo);
-        ImmutableSetSerializer.registerSerializers(this.kryo);
-        ImmutableMapSerializer.registerSerializers(this.kryo);
-        ImmutableMultimapSerializer.registerSerializers(this.kryo);
-
-        this.kryo.register(Collections.EMPTY_LIST.getClass(), new CollectionsEmptyListSerializer());
-        this.kryo.register(Collections.EMPTY_MAP.getClass(), new CollectionsEmptyMapSerializer());
-        this.kryo.register(Collections.EMPTY_SET.getClass(), new CollectionsEmptySetSerializer());
+    public void setCompressionThreshold(final int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
 
-        // Register other types
-        if (this.serializerMap != null) {
-            this.serializerMap.forEach(this.kryo::register);
-        }
+    /**
+     * Sets whether all serialized classes must be registered. When enabled, class names
+     * are not written along with the data, and serializing unregistered classes fails.
+     * Defaults to false.
+     *
+     * @param registrationRequired the registration required
+     */
+    public void setRegistrationRequired(final boolean registrationRequired) {
+        this.registrationRequired = registrationRequired;
+    }
 
-        // don't reinit the registered classes after every write or read
-        this.kryo.setAutoReset(false);
-        // don't replace objects by references
-        this.kryo.setReferences(false);
-        // Catchall for any classes not explicitly registered
-        this.kryo.setRegistrationRequired(false);
+    /**
+     * Initialize the pool of kryo instances.
+     */
+    @PostConstruct
+    public void initialize() {
+        this.kryoPool = new KryoPool.Builder(this::newKryo).softReferences().build();
     }
 
     /**
@@ -170,21 +190,38 @@ public class KryoTranscoder implements Transcoder<Object> {
 
     @Override
     public CachedData encode(final Object obj) {
-        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        try (Output output = new Output(byteStream)) {
-            this.kryo.writeClassAndObject(output, obj);
-            output.flush();
-            final byte[] bytes = byteStream.toByteArray();
-            return new CachedData(0, bytes, bytes.length);
+        final Output output = this.outputBuffer.get();
+        try {
+            output.clear();
+            this.kryoPool.run(kryo -> {
+                kryo.writeClassAndObject(output, obj);
+                return null;
+            });
+            final int length = output.position();
+            if (this.compressionThreshold > 0 && length > this.compressionThreshold) {
+                final byte[] compressed = compress(output.getBuffer(), length);
+                if (compressed.length < length) {
+                    LOGGER.trace("Compressed [{}] bytes to [{}] bytes", length, compressed.length);
+                    return new CachedData(COMPRESSED, compressed, getMaxSize());
+                }
+            }
+            return new CachedData(0, output.toBytes(), getMaxSize());
+        } finally {
+            if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+                this.outputBuffer.remove();
+            }
         }
     }
 
     @Override
     public Object decode(final CachedData d) {
-        final byte[] bytes = d.getData();
-        try (Input input = new Input(new ByteArrayInputStream(bytes))) {
-            final Object obj = this.kryo.readClassAndObject(input);
-            return obj;
+        final byte[] bytes = (d.getFlags() & COMPRESSED) != 0 ? decompress(d.getData()) : d.getData();
+        final Input input = this.inputBuffer.get();
+        try {
+            input.setBuffer(bytes);
+            return this.kryoPool.run(kryo -> kryo.readClassAndObject(input));
+        } finally {
+            input.setBuffer(EMPTY_BUFFER);
         }
     }
 
@@ -199,11 +236,105 @@ public class KryoTranscoder implements Transcoder<Object> {
     }
 
     /**
-     * Gets the kryo object that provides encoding and decoding services for this instance.
+     * Gets a kryo object configured like the ones that provide encoding and decoding services for this instance.
+     * Kryo objects are not thread-safe, and the returned instance is not shared with the transcoder.
      *
-     * @return Underlying Kryo instance.
+     * @return a new Kryo instance.
      */
     public Kryo getKryo() {
-        return this.kryo;
+        return newKryo();
+    }
+
+    private byte[] compress(final byte[] data, final int length) {
+        final LZ4Compressor compressor = this.lz4.fastCompressor();
+        final byte[] compressed = new byte[LENGTH_PREFIX_SIZE + compressor.maxCompressedLength(length)];
+        ByteBuffer.wrap(compressed).putInt(length);
+        final int compressedLength = compressor.compress(data, 0, length, compressed, LENGTH_PREFIX_SIZE);
+        return Arrays.copyOf(compressed, LENGTH_PREFIX_SIZE + compressedLength);
+    }
+
+    private byte[] decompress(final byte[] data) {
+        final int length = ByteBuffer.wrap(data).getInt();
+        final byte[] decompressed = new byte[length];
+        this.lz4.fastDecompressor().decompress(data, LENGTH_PREFIX_SIZE, decompressed, 0, length);
+        return decompressed;
+    }
+
+    /**
+     * Create a kryo instance and register the classes it serializes.
+     *
+     * @return the kryo instance
+     */
+    private Kryo newKryo() {
+        final Kryo kryo = new KryoReflectionFactorySupport();
+
+        // Register types we know about and do not require external configuration
+        kryo.register(ArrayList.class);
+        kryo.register(BasicCredentialMetaData.class);
+        kryo.register(Class.class, new DefaultSerializers.ClassSerializer());
+        kryo.register(ZonedDateTime.class, new ZonedDateTimeTranscoder());
+        kryo.register(HardTimeoutExpirationPolicy.class);
+        kryo.register(HashMap.class);
+        kryo.register(LinkedHashMap.class);
+        kryo.register(HashSet.class);
+        kryo.register(DefaultHandlerResult.class);
+        kryo.register(DefaultAuthentication.class);
+        kryo.register(MultiTimeUseOrTimeoutExpirationPolicy.class);
+        kryo.register(NeverExpiresExpirationPolicy.class);
+        kryo.register(RememberMeDelegatingExpirationPolicy.class);
+        kryo.register(ServiceTicketImpl.class);
+        kryo.register(SimpleWebApplicationServiceImpl.class, new SimpleWebApplicationServiceSerializer());
+        kryo.register(ThrottledUseAndTimeoutExpirationPolicy.class);
+        kryo.register(TicketGrantingTicketExpirationPolicy.class);
+        kryo.register(TicketGrantingTicketImpl.class);
+        kryo.register(TimeoutExpirationPolicy.class);
+        kryo.register(UsernamePasswordCredential.class);
+        kryo.register(SimplePrincipal.class);
+        kryo.register(URL.class, new URLSerializer());
+        kryo.register(URI.class, new URISerializer());
+        kryo.register(Pattern.class, new RegexSerializer());
+        kryo.register(UUID.class, new UUIDSerializer());
+        kryo.register(EnumMap.class, new EnumMapSerializer());
+        kryo.register(EnumSet.class, new EnumSetSerializer());
+
+        // we add these ones for tests only
+        kryo.register(RegexRegisteredService.class, new RegisteredServiceSerializer());
+
+
+        // from the kryo-serializers library (https://github.com/magro/kryo-serializers)
+        UnmodifiableCollectionsSerializer.registerSerializers(kryo);
+        ImmutableListSerializer.registerSerializers(kryo);
+        ImmutableSetSerializer.registerSerializers(kryo);
+        ImmutableMapSerializer.registerSerializers(kryo);
+        ImmutableMultimapSerializer.registerSerializers(kryo);
+
+        kryo.register(Collections.EMPTY_LIST.getClass(), new CollectionsEmptyListSerializer());
+        kryo.register(Collections.EMPTY_MAP.getClass(), new CollectionsEmptyMapSerializer());
+        kryo.register(Collections.EMPTY_SET.getClass(), new CollectionsEmptySetSerializer());
+
+        // Register other types
+        if (this.serializerMap != null) {
+            this.serializerMap.forEach(kryo::register);
+        }
+
+        // Authentication failures recorded on tickets
+        kryo.register(AccountNotFoundException.class);
+        kryo.register(FailedLoginException.class);
+        kryo.register(AccountLockedException.class);
+        kryo.register(AccountExpiredException.class);
+        kryo.register(CredentialExpiredException.class);
+        kryo.register(AccountDisabledException.class);
+        kryo.register(AccountPasswordMustChangeException.class);
+        kryo.register(InvalidLoginLocationException.class);
+        kryo.register(InvalidLoginTimeException.class);
+        kryo.register(PreventedException.class);
+
+        // forget class names written or read after every operation, since pooled instances do not share them
+        kryo.setAutoReset(true);
+        // don't replace objects by references
+        kryo.setReferences(false);
+        // Catchall for any classes not explicitly registered
+        kryo.setRegistrationRequired(this.registrationRequired);
+        return kryo;
     }
 }
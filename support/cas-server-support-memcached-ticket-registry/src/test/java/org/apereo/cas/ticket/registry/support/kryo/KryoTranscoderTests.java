@@ -1,6 +1,8 @@
 package org.apereo.cas.ticket.registry.support.kryo;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.pool.KryoPool;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import net.spy.memcached.CachedData;
 import org.apereo.cas.authentication.AcceptUsersAuthenticationHandler;
@@ -23,6 +25,7 @@ import org.apereo.cas.mock.MockServiceTicket;
 import org.apereo.cas.ticket.TicketGrantingTicketImpl;
 import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.security.auth.login.AccountNotFoundException;
 import java.net.MalformedURLException;
@@ -37,6 +40,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -62,7 +68,14 @@ public class KryoTranscoderTests {
     private final Map<String, Object> principalAttributes;
 
     public KryoTranscoderTests() {
-        transcoder = new KryoTranscoder();
+        transcoder = newTranscoder(false, 0);
+
+        this.principalAttributes = new HashMap<>();
+        this.principalAttributes.put(NICKNAME_KEY, NICKNAME_VALUE);
+    }
+
+    private static KryoTranscoder newTranscoder(final boolean registrationRequired, final int compressionThreshold) {
+        final KryoTranscoder transcoder = new KryoTranscoder();
         final Map<Class<?>, Serializer> serializerMap = new HashMap<>();
         serializerMap.put(
                 MockServiceTicket.class,
@@ -71,14 +84,13 @@ public class KryoTranscoderTests {
                 MockTicketGrantingTicket.class,
                 new FieldSerializer(transcoder.getKryo(), MockTicketGrantingTicket.class));
         transcoder.setSerializerMap(serializerMap);
+        transcoder.setRegistrationRequired(registrationRequired);
+        transcoder.setCompressionThreshold(compressionThreshold);
         transcoder.initialize();
-
-        this.principalAttributes = new HashMap<>();
-        this.principalAttributes.put(NICKNAME_KEY, NICKNAME_VALUE);
+        return transcoder;
     }
 
-    @Test
-    public void verifyEncodeDecodeTGTImpl() throws Exception {
+    private TicketGrantingTicket newTicketGrantingTicket() throws Exception {
         final Credential userPassCredential = new UsernamePasswordCredential(USERNAME, PASSWORD);
         final AuthenticationBuilder bldr = new DefaultAuthenticationBuilder(
                 new DefaultPrincipalFactory()
@@ -91,12 +103,15 @@ public class KryoTranscoderTests {
                 new AcceptUsersAuthenticationHandler(),
                 new BasicCredentialMetaData(userPassCredential)));
 
-        final TicketGrantingTicket expectedTGT =
-                new TicketGrantingTicketImpl(TGT_ID,
-                        RegisteredServiceTestUtils.getService(),
-                        null, bldr.build(),
-                        new NeverExpiresExpirationPolicy());
+        return new TicketGrantingTicketImpl(TGT_ID,
+                RegisteredServiceTestUtils.getService(),
+                null, bldr.build(),
+                new NeverExpiresExpirationPolicy());
+    }
 
+    @Test
+    public void verifyEncodeDecodeTGTImpl() throws Exception {
+        final TicketGrantingTicket expectedTGT = newTicketGrantingTicket();
         final ServiceTicket ticket = expectedTGT.grantServiceTicket(ST_ID,
                 RegisteredServiceTestUtils.getService(),
                 new NeverExpiresExpirationPolicy(), false, true);
@@ -209,6 +224,68 @@ public class KryoTranscoderTests {
         assertEquals(service, transcoder.decode(transcoder.encode(service)));
     }
 
+    @Test
+    public void verifyEncodeDecodeCompressed() throws Exception {
+        final KryoTranscoder compressingTranscoder = newTranscoder(false, 512);
+
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(NICKNAME_VALUE + i);
+        }
+        final Map<String, Object> newAttributes = new HashMap<>();
+        newAttributes.put(NICKNAME_KEY, values);
+        final Credential userPassCredential = new UsernamePasswordCredential(USERNAME, PASSWORD);
+        final TicketGrantingTicket expectedTGT = new MockTicketGrantingTicket(TGT_ID, userPassCredential, newAttributes);
+
+        final CachedData uncompressed = transcoder.encode(expectedTGT);
+        final CachedData compressed = compressingTranscoder.encode(expectedTGT);
+        assertEquals(0, uncompressed.getFlags());
+        assertEquals(KryoTranscoder.COMPRESSED, compressed.getFlags());
+        assertTrue(compressed.getData().length < uncompressed.getData().length);
+        assertEquals(expectedTGT, compressingTranscoder.decode(compressed));
+        assertEquals(expectedTGT, compressingTranscoder.decode(uncompressed));
+
+        assertEquals(0, compressingTranscoder.encode(NICKNAME_VALUE).getFlags());
+    }
+
+    @Test
+    public void verifyEncodeDecodeRegistrationRequired() throws Exception {
+        final KryoTranscoder strictTranscoder = newTranscoder(true, 0);
+        final TicketGrantingTicket expectedTGT = newTicketGrantingTicket();
+        final ServiceTicket ticket = expectedTGT.grantServiceTicket(ST_ID,
+                RegisteredServiceTestUtils.getService(),
+                new NeverExpiresExpirationPolicy(), false, true);
+
+        assertEquals(expectedTGT, strictTranscoder.decode(strictTranscoder.encode(expectedTGT)));
+        assertEquals(ticket, strictTranscoder.decode(strictTranscoder.encode(ticket)));
+    }
+
+    @Test
+    public void verifyConcurrentEncodeDecode() throws Exception {
+        final Credential userPassCredential = new UsernamePasswordCredential(USERNAME, PASSWORD);
+        final List<TicketGrantingTicket> tickets = IntStream.range(0, 500)
+                .mapToObj(i -> new MockTicketGrantingTicket(TGT_ID + i, userPassCredential, new HashMap<>(this.principalAttributes)))
+                .collect(Collectors.toList());
+        tickets.parallelStream().forEach(tgt -> assertEquals(tgt, transcoder.decode(transcoder.encode(tgt))));
+    }
+
+    @Test
+    public void verifyEncodeWithOnePooledInstanceAndDecodeWithAnother() throws Exception {
+        final Map<String, String> first = new TreeMap<>(Collections.singletonMap("first", "1"));
+        final Map<String, String> second = new TreeMap<>(Collections.singletonMap("second", "2"));
+        assertEquals(first, transcoder.decode(transcoder.encode(first)));
+        final CachedData result = transcoder.encode(second);
+
+        final KryoPool pool = (KryoPool) ReflectionTestUtils.getField(transcoder, "kryoPool");
+        final Kryo encoder = pool.borrow();
+        try {
+            assertEquals(second, transcoder.decode(result));
+        } finally {
+            pool.release(encoder);
+        }
+        assertEquals(second, newTranscoder(false, 0).decode(result));
+    }
+
     private static class MockAuthenticationHandler implements AuthenticationHandler {
 
         @Override
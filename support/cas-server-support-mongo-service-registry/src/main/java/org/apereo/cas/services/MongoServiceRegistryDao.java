@@ -10,6 +10,7 @@ import org.springframework.util.Assert;
 import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * <p>Implementation of {@code ServiceRegistryDao} that uses a MongoDb repository as the backend
@@ -95,11 +96,24 @@ public class MongoServiceRegistryDao implements ServiceRegistryDao {
         return this.mongoTemplate.findAll(RegisteredService.class, this.collectionName);
     }
 
+    @Override
+    public ServiceRegistryChanges loadChangesSince(final long timestamp) {
+        final List<RegisteredService> changed = this.mongoTemplate.find(new Query(Criteria.where("lastModified").gte(timestamp)),
+                RegisteredService.class, this.collectionName);
+        final List<?> ids = this.mongoTemplate.getCollection(this.collectionName).distinct("_id");
+        return new ServiceRegistryChanges(changed, ids.stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toSet()));
+    }
+
     @Override
     public RegisteredService save(final RegisteredService svc) {
         if (svc.getId() == AbstractRegisteredService.INITIAL_IDENTIFIER_VALUE) {
             ((AbstractRegisteredService) svc).setId(svc.hashCode());
         }
+        if (svc instanceof AbstractRegisteredService) {
+            ((AbstractRegisteredService) svc).setLastModified(System.currentTimeMillis());
+        }
         this.mongoTemplate.save(svc, this.collectionName);
         LOGGER.debug("Saved registered service: {}", svc);
         return this.findServiceById(svc.getId());
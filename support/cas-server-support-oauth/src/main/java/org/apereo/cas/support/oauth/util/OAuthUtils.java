@@ -2,7 +2,7 @@ package org.apereo.cas.support.oauth.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.http.HttpStatus;
-import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.RegisteredServiceIndex;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.support.oauth.OAuthConstants;
 import org.apereo.cas.support.oauth.services.OAuthRegisteredService;
@@ -26,6 +26,12 @@ import java.util.Map;
  */
 public final class OAuthUtils {
 
+    /**
+     * Index of {@link OAuthRegisteredService} instances by their client id.
+     */
+    public static final RegisteredServiceIndex<OAuthRegisteredService> CLIENT_ID_INDEX =
+            new RegisteredServiceIndex<>(OAuthRegisteredService.class, OAuthRegisteredService::getClientId);
+
     private static final Logger LOGGER = LoggerFactory.getLogger(OAuthUtils.class);
 
     private OAuthUtils() {}
@@ -76,15 +82,7 @@ public final class OAuthUtils {
      * @return null, or the located {@link OAuthRegisteredService} instance in the service registry.
      */
     public static OAuthRegisteredService getRegisteredOAuthService(final ServicesManager servicesManager, final String clientId) {
-        for (final RegisteredService aService : servicesManager.getAllServices()) {
-            if (aService instanceof OAuthRegisteredService) {
-                final OAuthRegisteredService service = (OAuthRegisteredService) aService;
-                if (service.getClientId().equals(clientId)) {
-                    return service;
-                }
-            }
-        }
-        return null;
+        return servicesManager.findServiceBy(CLIENT_ID_INDEX, clientId);
     }
 
     /**
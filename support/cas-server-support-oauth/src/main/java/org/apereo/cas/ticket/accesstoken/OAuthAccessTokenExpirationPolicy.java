@@ -77,6 +77,11 @@ public class OAuthAccessTokenExpirationPolicy extends AbstractCasExpirationPolic
         return this.timeToKillInSeconds;
     }
 
+    @Override
+    public ZonedDateTime getExpirationTime(final TicketState ticketState) {
+        return ticketState.getCreationTime().plus(this.maxTimeToLiveInSeconds, ChronoUnit.SECONDS);
+    }
+
 
     @Override
     public boolean equals(final Object obj) {
@@ -41,8 +41,7 @@ public class OAuthRefreshTokenExpirationPolicy extends AbstractCasExpirationPoli
 
     @Override
     public boolean isExpired(final TicketState ticketState) {
-        return ticketState == null || ticketState.getCreationTime()
-                .plus(this.timeToKillInMilliSeconds, ChronoUnit.MILLIS).isBefore(ZonedDateTime.now(ZoneOffset.UTC));
+        return ticketState == null || getExpirationTime(ticketState).isBefore(ZonedDateTime.now(ZoneOffset.UTC));
     }
 
     @Override
@@ -56,6 +55,11 @@ public class OAuthRefreshTokenExpirationPolicy extends AbstractCasExpirationPoli
         return 0L;
     }
 
+    @Override
+    public ZonedDateTime getExpirationTime(final TicketState ticketState) {
+        return ticketState.getCreationTime().plus(this.timeToKillInMilliSeconds, ChronoUnit.MILLIS);
+    }
+
 
     @Override
     public boolean equals(final Object obj) {
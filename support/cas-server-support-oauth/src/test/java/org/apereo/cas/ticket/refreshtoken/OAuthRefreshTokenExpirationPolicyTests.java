@@ -3,12 +3,20 @@ package org.apereo.cas.ticket.refreshtoken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.FileUtils;
 import org.apereo.cas.ticket.ExpirationPolicy;
+import org.apereo.cas.ticket.TicketState;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  * @author Misagh Moayyed
@@ -26,4 +34,37 @@ public class OAuthRefreshTokenExpirationPolicyTests {
         final ExpirationPolicy policyRead = MAPPER.readValue(JSON_FILE, OAuthRefreshTokenExpirationPolicy.class);
         assertEquals(policyWritten, policyRead);
     }
+
+    @Test
+    public void verifyTimeToKillIsMeasuredInMilliseconds() {
+        final OAuthRefreshTokenExpirationPolicy policy = new OAuthRefreshTokenExpirationPolicy(10000L);
+        assertEquals(10000L, policy.getTimeToLive().longValue());
+        assertFalse(policy.isExpired(createdSecondsAgo(5)));
+        assertTrue(policy.isExpired(createdSecondsAgo(15)));
+    }
+
+    @Test
+    public void verifyExpirationTimeIsCalculatedFromCreationTime() {
+        final OAuthRefreshTokenExpirationPolicy policy = new OAuthRefreshTokenExpirationPolicy(10000L);
+        final TicketState state = createdSecondsAgo(5);
+        assertEquals(state.getCreationTime().plusSeconds(10), policy.getExpirationTime(state));
+    }
+
+    @Test
+    public void verifyPolicyIsSerialized() throws Exception {
+        final OAuthRefreshTokenExpirationPolicy policy = new OAuthRefreshTokenExpirationPolicy(2592000000L);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(policy);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(policy, in.readObject());
+        }
+    }
+
+    private static TicketState createdSecondsAgo(final long seconds) {
+        final TicketState state = mock(TicketState.class);
+        when(state.getCreationTime()).thenReturn(ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(seconds));
+        return state;
+    }
 }
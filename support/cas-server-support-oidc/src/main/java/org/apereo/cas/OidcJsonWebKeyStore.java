@@ -0,0 +1,209 @@
+package org.apereo.cas;
+
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.commons.io.IOUtils;
+import org.apereo.cas.util.DigestUtils;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link OidcJsonWebKeyStore}. It keeps parsed JSON web key sets in memory,
+ * keyed by the resource they are read from. Resources are checked for changes
+ * at most once per the configured interval, and are only parsed again
+ * if they were modified since they were last read.
+ * <p>
+ * The store also keeps the public JSON representation of the keys it publishes,
+ * along with its entity tag, so the representation is only rebuilt when any
+ * of the published key sets change.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class OidcJsonWebKeyStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OidcJsonWebKeyStore.class);
+
+    private static final long MAX_CACHED_KEY_SETS = 1000;
+
+    private final LoadingCache<Resource, CachedJsonWebKeySet> keySets;
+
+    private final long cacheSeconds;
+
+    private volatile PublicJsonWebKeySet publicJsonWebKeySet;
+
+    /**
+     * Instantiates a new json web key store.
+     *
+     * @param cacheSeconds the number of seconds after which resources are checked for changes
+     */
+    public OidcJsonWebKeyStore(final long cacheSeconds) {
+        this(cacheSeconds, Ticker.systemTicker());
+    }
+
+    /**
+     * Instantiates a new json web key store.
+     *
+     * @param cacheSeconds the number of seconds after which resources are checked for changes
+     * @param ticker       the time source used to decide when resources are checked for changes
+     */
+    public OidcJsonWebKeyStore(final long cacheSeconds, final Ticker ticker) {
+        this.cacheSeconds = cacheSeconds;
+        this.keySets = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .maximumSize(MAX_CACHED_KEY_SETS)
+                .refreshAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+                .build(new CacheLoader<Resource, CachedJsonWebKeySet>() {
+                    @Override
+                    public CachedJsonWebKeySet load(final Resource resource) throws Exception {
+                        return read(resource);
+                    }
+
+                    @Override
+                    public ListenableFuture<CachedJsonWebKeySet> reload(final Resource resource,
+                                                                        final CachedJsonWebKeySet previous) throws Exception {
+                        final long lastModified = getLastModified(resource);
+                        if (lastModified > 0 && lastModified == previous.getLastModified()) {
+                            return Futures.immediateFuture(previous);
+                        }
+                        return Futures.immediateFuture(read(resource));
+                    }
+                });
+    }
+
+    /**
+     * Gets the json web key set read from the resource.
+     *
+     * @param resource the resource
+     * @return the json web key set
+     * @throws Exception if the resource cannot be read or parsed
+     */
+    public JsonWebKeySet getJsonWebKeySet(final Resource resource) throws Exception {
+        try {
+            return this.keySets.get(resource).getJsonWebKeySet();
+        } catch (final Exception e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Throwables.propagateIfPossible(cause, Exception.class);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the public json web key set that combines the keys read from all resources.
+     *
+     * @param resources the resources
+     * @return the public json web key set
+     * @throws Exception if any of the resources cannot be read or parsed
+     */
+    public PublicJsonWebKeySet getPublicJsonWebKeySet(final Collection<Resource> resources) throws Exception {
+        final List<JsonWebKeySet> sources = new ArrayList<>(resources.size());
+        for (final Resource resource : resources) {
+            sources.add(getJsonWebKeySet(resource));
+        }
+
+        final PublicJsonWebKeySet current = this.publicJsonWebKeySet;
+        if (current != null && current.isBuiltFrom(sources)) {
+            return current;
+        }
+
+        final JsonWebKeySet jsonWebKeySet = new JsonWebKeySet();
+        sources.forEach(s -> s.getJsonWebKeys().forEach(jsonWebKeySet::addJsonWebKey));
+        final String body = jsonWebKeySet.toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
+        final PublicJsonWebKeySet result = new PublicJsonWebKeySet(sources, body);
+        this.publicJsonWebKeySet = result;
+        LOGGER.debug("Built public JWKS from [{}] resource(s) with entity tag [{}]", sources.size(), result.getETag());
+        return result;
+    }
+
+    public long getCacheSeconds() {
+        return this.cacheSeconds;
+    }
+
+    private static CachedJsonWebKeySet read(final Resource resource) throws Exception {
+        LOGGER.debug("Loading JWKS from [{}]", resource);
+        final long lastModified = getLastModified(resource);
+        try (InputStream in = resource.getInputStream()) {
+            final String json = IOUtils.toString(in, StandardCharsets.UTF_8);
+            return new CachedJsonWebKeySet(new JsonWebKeySet(json), lastModified);
+        }
+    }
+
+    private static long getLastModified(final Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (final Exception e) {
+            LOGGER.trace("Unable to determine last modification time of [{}]: {}", resource, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Parsed key set along with the modification time of the resource it was read from.
+     */
+    private static class CachedJsonWebKeySet {
+        private final JsonWebKeySet jsonWebKeySet;
+        private final long lastModified;
+
+        CachedJsonWebKeySet(final JsonWebKeySet jsonWebKeySet, final long lastModified) {
+            this.jsonWebKeySet = jsonWebKeySet;
+            this.lastModified = lastModified;
+        }
+
+        JsonWebKeySet getJsonWebKeySet() {
+            return this.jsonWebKeySet;
+        }
+
+        long getLastModified() {
+            return this.lastModified;
+        }
+    }
+
+    /**
+     * Public JSON representation of the published keys.
+     */
+    public static class PublicJsonWebKeySet {
+        private final List<JsonWebKeySet> sources;
+        private final String body;
+        private final String eTag;
+
+        PublicJsonWebKeySet(final List<JsonWebKeySet> sources, final String body) {
+            this.sources = sources;
+            this.body = body;
+            this.eTag = '"' + DigestUtils.sha(body) + '"';
+        }
+
+        public String getBody() {
+            return this.body;
+        }
+
+        public String getETag() {
+            return this.eTag;
+        }
+
+        boolean isBuiltFrom(final List<JsonWebKeySet> keySets) {
+            if (keySets.size() != this.sources.size()) {
+                return false;
+            }
+            for (int i = 0; i < keySets.size(); i++) {
+                if (keySets.get(i) != this.sources.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
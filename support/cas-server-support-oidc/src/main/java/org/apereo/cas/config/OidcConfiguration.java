@@ -2,6 +2,7 @@ package org.apereo.cas.config;
 
 import org.apereo.cas.OidcCasClientRedirectActionBuilder;
 import org.apereo.cas.OidcConstants;
+import org.apereo.cas.OidcJsonWebKeyStore;
 import org.apereo.cas.authentication.principal.DefaultPrincipalFactory;
 import org.apereo.cas.authentication.principal.PrincipalFactory;
 import org.apereo.cas.configuration.CasConfigurationProperties;
@@ -228,6 +229,12 @@ public class OidcConfiguration extends WebMvcConfigurerAdapter {
         return new OidcCasClientRedirectActionBuilder();
     }
 
+    @Bean
+    @RefreshScope
+    public OidcJsonWebKeyStore oidcJsonWebKeyStore() {
+        return new OidcJsonWebKeyStore(casProperties.getAuthn().getOidc().getJwksCacheInSeconds());
+    }
+
     @Bean
     @RefreshScope
     public AccessTokenResponseGenerator oidcAccessTokenResponseGenerator() {
@@ -235,6 +242,7 @@ public class OidcConfiguration extends WebMvcConfigurerAdapter {
 
         gen.setIssuer(casProperties.getAuthn().getOidc().getIssuer());
         gen.setJwksFile(casProperties.getAuthn().getOidc().getJwksFile());
+        gen.setJsonWebKeyStore(oidcJsonWebKeyStore());
         gen.setSkew(casProperties.getAuthn().getOidc().getSkew());
 
         return gen;
@@ -272,6 +280,7 @@ public class OidcConfiguration extends WebMvcConfigurerAdapter {
     public OidcJwksEndpointController oidcJwksController() {
         final OidcJwksEndpointController c = new OidcJwksEndpointController();
         c.setJwksFile(casProperties.getAuthn().getOidc().getJwksFile());
+        c.setJsonWebKeyStore(oidcJsonWebKeyStore());
         c.setPrincipalFactory(oidcPrincipalFactory());
         c.setAccessTokenFactory(defaultAccessTokenFactory);
         c.setServicesManager(servicesManager);
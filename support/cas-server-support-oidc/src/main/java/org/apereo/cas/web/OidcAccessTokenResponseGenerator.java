@@ -2,9 +2,9 @@ package org.apereo.cas.web;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.OidcConstants;
+import org.apereo.cas.OidcJsonWebKeyStore;
 import org.apereo.cas.authentication.Authentication;
 import org.apereo.cas.authentication.AuthenticationHandler;
 import org.apereo.cas.authentication.principal.Principal;
@@ -31,7 +31,6 @@ import org.springframework.core.io.Resource;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
@@ -50,6 +49,8 @@ public class OidcAccessTokenResponseGenerator extends OAuth20AccessTokenResponse
 
     private Resource jwksFile;
 
+    private OidcJsonWebKeyStore jsonWebKeyStore;
+
     @Override
     protected void generateJsonInternal(final HttpServletRequest request,
                                         final HttpServletResponse response,
@@ -180,7 +181,7 @@ public class OidcAccessTokenResponseGenerator extends OAuth20AccessTokenResponse
             if (StringUtils.isNotBlank(service.getJwks())) {
                 logger.debug("Loading JWKS from {}", service.getJwks());
                 final Resource resource = this.resourceLoader.getResource(service.getJwks());
-                jsonWebKeySet = new JsonWebKeySet(IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8));
+                jsonWebKeySet = this.jsonWebKeyStore.getJsonWebKeySet(resource);
             }
         } catch (final Exception e) {
             logger.debug(e.getMessage(), e);
@@ -189,8 +190,7 @@ public class OidcAccessTokenResponseGenerator extends OAuth20AccessTokenResponse
                 logger.debug("Loading default JWKS from {}", this.jwksFile);
 
                 if (this.jwksFile != null) {
-                    final String jsonJwks = IOUtils.toString(this.jwksFile.getInputStream(), StandardCharsets.UTF_8);
-                    jsonWebKeySet = new JsonWebKeySet(jsonJwks);
+                    jsonWebKeySet = this.jsonWebKeyStore.getJsonWebKeySet(this.jwksFile);
                 }
             }
         }
@@ -208,5 +208,9 @@ public class OidcAccessTokenResponseGenerator extends OAuth20AccessTokenResponse
     public void setJwksFile(final Resource jwksFile) {
         this.jwksFile = jwksFile;
     }
+
+    public void setJsonWebKeyStore(final OidcJsonWebKeyStore jsonWebKeyStore) {
+        this.jsonWebKeyStore = jsonWebKeyStore;
+    }
 }
 
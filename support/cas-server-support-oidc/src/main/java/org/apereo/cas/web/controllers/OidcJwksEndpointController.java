@@ -2,29 +2,31 @@ package org.apereo.cas.web.controllers;
 
 
 import com.stormpath.sdk.lang.Assert;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.OidcConstants;
+import org.apereo.cas.OidcJsonWebKeyStore;
 import org.apereo.cas.services.OidcRegisteredService;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.support.oauth.web.BaseOAuthWrapperController;
-import org.jooq.lambda.Unchecked;
-import org.jose4j.jwk.JsonWebKey;
-import org.jose4j.jwk.JsonWebKeySet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is {@link OidcJwksEndpointController}.
@@ -42,6 +44,8 @@ public class OidcJwksEndpointController extends BaseOAuthWrapperController {
     
     private Resource jwksFile;
 
+    private OidcJsonWebKeyStore jsonWebKeyStore;
+
     @Autowired
     @Qualifier("servicesManager")
     private ServicesManager servicesManager;
@@ -64,22 +68,25 @@ public class OidcJwksEndpointController extends BaseOAuthWrapperController {
         Assert.notNull(this.jwksFile, "JWKS file cannot be undefined or null.");
         
         try {
-            final String jsonJwks = IOUtils.toString(this.jwksFile.getInputStream(), StandardCharsets.UTF_8);
-            final JsonWebKeySet jsonWebKeySet = new JsonWebKeySet(jsonJwks);
-
-            this.servicesManager.getAllServices()
+            final List<Resource> resources = new ArrayList<>();
+            resources.add(this.jwksFile);
+            this.servicesManager.findServicesBy(OidcRegisteredService.class)
                     .stream()
-                    .filter(s -> s instanceof OidcRegisteredService && StringUtils.isNotBlank(((OidcRegisteredService) s).getJwks()))
-                    .forEach(
-                            Unchecked.consumer(s -> {
-                                final OidcRegisteredService service = (OidcRegisteredService) s;
-                                final Resource resource = this.resourceLoader.getResource(service.getJwks());
-                                final JsonWebKeySet set = new JsonWebKeySet(IOUtils.toString(resource.getInputStream(), StandardCharsets.UTF_8));
-                                set.getJsonWebKeys().forEach(jsonWebKeySet::addJsonWebKey);
-                            }));
-            final String body = jsonWebKeySet.toJson(JsonWebKey.OutputControlLevel.PUBLIC_ONLY);
-            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            return new ResponseEntity<>(body, HttpStatus.OK);
+                    .filter(s -> StringUtils.isNotBlank(s.getJwks()))
+                    .forEach(s -> resources.add(this.resourceLoader.getResource(s.getJwks())));
+
+            final OidcJsonWebKeyStore.PublicJsonWebKeySet jwks = this.jsonWebKeyStore.getPublicJsonWebKeySet(resources);
+            final CacheControl cacheControl = CacheControl.maxAge(this.jsonWebKeyStore.getCacheSeconds(), TimeUnit.SECONDS);
+            if (new ServletWebRequest(request, response).checkNotModified(jwks.getETag())) {
+                final HttpHeaders headers = new HttpHeaders();
+                headers.setCacheControl(cacheControl.getHeaderValue());
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(jwks.getETag())
+                    .cacheControl(cacheControl)
+                    .body(jwks.getBody());
         } catch (final Exception e) {
             logger.error(e.getMessage(), e);
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
@@ -89,4 +96,8 @@ public class OidcJwksEndpointController extends BaseOAuthWrapperController {
     public void setJwksFile(final Resource jwksFile) {
         this.jwksFile = jwksFile;
     }
+
+    public void setJsonWebKeyStore(final OidcJsonWebKeyStore jsonWebKeyStore) {
+        this.jsonWebKeyStore = jsonWebKeyStore;
+    }
 }
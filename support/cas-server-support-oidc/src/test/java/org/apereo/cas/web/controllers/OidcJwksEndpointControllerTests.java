@@ -0,0 +1,158 @@
+package org.apereo.cas.web.controllers;
+
+import com.google.common.base.Ticker;
+import org.apache.commons.io.FileUtils;
+import org.apereo.cas.OidcJsonWebKeyStore;
+import org.apereo.cas.services.OidcRegisteredService;
+import org.apereo.cas.services.ServicesManager;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This is {@link OidcJwksEndpointControllerTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class OidcJwksEndpointControllerTests {
+
+    private static final long CACHE_SECONDS = 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    private final List<OidcRegisteredService> services = new ArrayList<>();
+
+    private OidcJwksEndpointController controller;
+
+    private File jwksFile;
+
+    private static String newKeySet(final String keyId) throws Exception {
+        final RsaJsonWebKey key = RsaJwkGenerator.generateJwk(2048);
+        key.setKeyId(keyId);
+        return new JsonWebKeySet(key).toJson(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE);
+    }
+
+    private static void write(final File file, final String keyId) throws Exception {
+        final long lastModified = file.exists() ? file.lastModified() : 0;
+        FileUtils.write(file, newKeySet(keyId), StandardCharsets.UTF_8);
+        if (file.lastModified() <= lastModified) {
+            assertTrue(file.setLastModified(lastModified + 2000));
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.jwksFile = this.folder.newFile("keystore.jwks");
+        write(this.jwksFile, "cas");
+
+        final ServicesManager servicesManager = mock(ServicesManager.class);
+        when(servicesManager.findServicesBy(OidcRegisteredService.class)).thenAnswer(invocation -> this.services);
+
+        this.controller = new OidcJwksEndpointController();
+        this.controller.setJwksFile(new FileSystemResource(this.jwksFile));
+        this.controller.setJsonWebKeyStore(new OidcJsonWebKeyStore(CACHE_SECONDS, this.ticker));
+        ReflectionTestUtils.setField(this.controller, "servicesManager", servicesManager);
+        ReflectionTestUtils.setField(this.controller, "resourceLoader", new DefaultResourceLoader());
+    }
+
+    @Test
+    public void verifyKeysAreNotSentAgainUntilModified() throws Exception {
+        final ResponseEntity<String> first = request(null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertTrue(first.getBody().contains("\"kid\":\"cas\""));
+        assertFalse(first.getBody().contains("\"d\""));
+        assertEquals("max-age=" + CACHE_SECONDS, first.getHeaders().getCacheControl());
+        final String eTag = first.getHeaders().getETag();
+        assertNotNull(eTag);
+
+        final ResponseEntity<String> second = request(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals("max-age=" + CACHE_SECONDS, second.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void verifyChangedKeySetIsSentWithNewEntityTag() throws Exception {
+        final String eTag = request(null).getHeaders().getETag();
+
+        write(this.jwksFile, "rotated");
+        assertEquals(HttpStatus.NOT_MODIFIED, request(eTag).getStatusCode());
+
+        this.ticker.advance(CACHE_SECONDS + 1, TimeUnit.SECONDS);
+        final ResponseEntity<String> response = request(eTag);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"kid\":\"rotated\""));
+        assertFalse(response.getBody().contains("\"kid\":\"cas\""));
+        assertNotEquals(eTag, response.getHeaders().getETag());
+    }
+
+    @Test
+    public void verifyServiceKeySetIsPublished() throws Exception {
+        final String eTag = request(null).getHeaders().getETag();
+
+        final File serviceJwks = this.folder.newFile("service.jwks");
+        write(serviceJwks, "service");
+        final OidcRegisteredService service = new OidcRegisteredService();
+        service.setJwks("file:" + serviceJwks.getCanonicalPath());
+        this.services.add(service);
+
+        final ResponseEntity<String> response = request(eTag);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"kid\":\"service\""));
+        assertTrue(response.getBody().contains("\"kid\":\"cas\""));
+        assertNotEquals(eTag, response.getHeaders().getETag());
+
+        this.services.clear();
+        final ResponseEntity<String> removed = request(response.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, removed.getStatusCode());
+        assertEquals(eTag, removed.getHeaders().getETag());
+    }
+
+    private ResponseEntity<String> request(final String eTag) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/oidc/jwks");
+        if (eTag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        }
+        return this.controller.handleRequestInternal(request, new MockHttpServletResponse(), new ExtendedModelMap());
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return this.nanos;
+        }
+
+        void advance(final long duration, final TimeUnit unit) {
+            this.nanos += unit.toNanos(duration);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package org.apereo.cas.web.report;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.CentralAuthenticationService;
 import org.apereo.cas.authentication.Authentication;
 import org.apereo.cas.authentication.AuthenticationSystemSupport;
 import org.apereo.cas.authentication.principal.Principal;
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.monitor.MonitorProperties;
 import org.apereo.cas.ticket.Ticket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.util.DateTimeUtils;
 import org.apereo.cas.util.ISOStandardDateFormat;
 import org.slf4j.Logger;
@@ -22,15 +25,27 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * SSO Report web controller that produces JSON data for the view.
+ * <p>
+ * Sessions are returned in pages that are ordered by the id of their ticket-granting ticket.
+ * Each page is picked while streaming over the tickets of the registry, keeping no more than
+ * a page of sessions in memory, and the id of its last ticket-granting ticket is handed back
+ * as the cursor from which the next page starts. Totals are read from the counters that the
+ * ticket registry maintains, if any, instead of being computed from the sessions.
  *
  * @author Misagh Moayyed
  * @author Dmitriy Kopylenko
@@ -45,9 +60,11 @@ public class SingleSignOnSessionsReportController {
     private static final String TICKET_GRANTING_TICKET = "ticketGrantingTicket";
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleSignOnSessionsReportController.class);
 
+    private static final Comparator<TicketGrantingTicket> BY_ID = Comparator.comparing(TicketGrantingTicket::getId);
+
     @Autowired
     private CasConfigurationProperties casProperties;
-    
+
     private enum SsoSessionReportOptions {
         ALL("all"),
         PROXIED("proxied"),
@@ -68,6 +85,23 @@ public class SingleSignOnSessionsReportController {
             return this.type;
         }
 
+        /**
+         * Whether the ticket-granting ticket is to be reported for this option.
+         *
+         * @param tgt the ticket-granting ticket
+         * @return true if the ticket should be reported
+         */
+        public boolean matches(final TicketGrantingTicket tgt) {
+            switch (this) {
+                case PROXIED:
+                    return tgt.getProxiedBy() != null;
+                case DIRECT:
+                    return tgt.getProxiedBy() == null;
+                default:
+                    return true;
+            }
+        }
+
         @Override
         public String toString() {
             return this.type;
@@ -111,6 +145,8 @@ public class SingleSignOnSessionsReportController {
 
     private AuthenticationSystemSupport authenticationSystemSupport;
 
+    private TicketRegistry ticketRegistry;
+
     /**
      * Instantiates a new Single sign on sessions report resource.
      */
@@ -118,113 +154,196 @@ public class SingleSignOnSessionsReportController {
     }
 
     /**
-     * Gets sso sessions.
+     * Gets a page of sso sessions, ordered by the id of their ticket-granting ticket.
+     * One more session than requested is returned if there are more sessions to report.
      *
-     * @param option the option
-     * @return the sso sessions
+     * @param option    the option
+     * @param principal the principal id, if any
+     * @param cursor    the id of the ticket-granting ticket after which the page starts, if any
+     * @param pageSize  the page size
+     * @return the ticket-granting tickets of the page
      */
-    private Collection<Map<String, Object>> getActiveSsoSessions(final SsoSessionReportOptions option) {
-        final Collection<Map<String, Object>> activeSessions = new ArrayList<>();
-        final ISOStandardDateFormat dateFormat = new ISOStandardDateFormat();
-
-        for (final Ticket ticket : getNonExpiredTicketGrantingTickets()) {
-            final TicketGrantingTicket tgt = (TicketGrantingTicket) ticket;
+    private List<TicketGrantingTicket> getActiveSsoSessions(final SsoSessionReportOptions option, final String principal,
+                                                            final String cursor, final int pageSize) {
+        final PriorityQueue<TicketGrantingTicket> page = new PriorityQueue<>(pageSize + 1, BY_ID.reversed());
+        getNonExpiredTicketGrantingTickets(option, principal)
+                .filter(tgt -> cursor == null || tgt.getId().compareTo(cursor) > 0)
+                .forEachOrdered(tgt -> {
+                    if (page.size() <= pageSize) {
+                        page.offer(tgt);
+                    } else if (BY_ID.compare(tgt, page.peek()) < 0) {
+                        page.poll();
+                        page.offer(tgt);
+                    }
+                });
+        final List<TicketGrantingTicket> sessions = new ArrayList<>(page);
+        sessions.sort(BY_ID);
+        return sessions;
+    }
 
-            if (option == SsoSessionReportOptions.DIRECT && tgt.getProxiedBy() != null) {
-                continue;
-            }
+    /**
+     * Gets non expired ticket granting tickets, filtered by the option and the principal.
+     *
+     * @param option    the option
+     * @param principal the principal id, if any
+     * @return the non expired ticket granting tickets
+     */
+    private Stream<TicketGrantingTicket> getNonExpiredTicketGrantingTickets(final SsoSessionReportOptions option,
+                                                                           final String principal) {
+        final Stream<? extends Ticket> tickets = principal != null && option == SsoSessionReportOptions.DIRECT
+                ? this.ticketRegistry.getSessionsFor(principal).stream()
+                : this.ticketRegistry.getTickets().stream();
+        return tickets
+                .filter(ticket -> ticket instanceof TicketGrantingTicket && !ticket.isExpired())
+                .map(TicketGrantingTicket.class::cast)
+                .filter(option::matches)
+                .filter(tgt -> principal == null || principal.equals(tgt.getAuthentication().getPrincipal().getId()));
+    }
 
-            final Authentication authentication = tgt.getAuthentication();
-            final Principal principal = authentication.getPrincipal();
+    /**
+     * Describe the sso session, with the requested fields only.
+     *
+     * @param tgt    the ticket-granting ticket
+     * @param option the option
+     * @param fields the fields
+     * @return the sso session
+     */
+    private static Map<String, Object> getSsoSession(final TicketGrantingTicket tgt, final SsoSessionReportOptions option,
+                                                     final Set<SsoSessionAttributeKeys> fields) {
+        final Authentication authentication = tgt.getAuthentication();
+        final Principal principal = authentication.getPrincipal();
 
-            final Map<String, Object> sso = new HashMap<>(SsoSessionAttributeKeys.values().length);
+        final Map<String, Object> sso = new HashMap<>(fields.size());
+        if (fields.contains(SsoSessionAttributeKeys.AUTHENTICATED_PRINCIPAL)) {
             sso.put(SsoSessionAttributeKeys.AUTHENTICATED_PRINCIPAL.toString(), principal.getId());
+        }
+        if (fields.contains(SsoSessionAttributeKeys.AUTHENTICATION_DATE)) {
             sso.put(SsoSessionAttributeKeys.AUTHENTICATION_DATE.toString(), authentication.getAuthenticationDate());
+        }
+        if (fields.contains(SsoSessionAttributeKeys.AUTHENTICATION_DATE_FORMATTED)) {
             sso.put(SsoSessionAttributeKeys.AUTHENTICATION_DATE_FORMATTED.toString(),
-                    dateFormat.format(DateTimeUtils.dateOf(authentication.getAuthenticationDate())));
+                    new ISOStandardDateFormat().format(DateTimeUtils.dateOf(authentication.getAuthenticationDate())));
+        }
+        if (fields.contains(SsoSessionAttributeKeys.NUMBER_OF_USES)) {
             sso.put(SsoSessionAttributeKeys.NUMBER_OF_USES.toString(), tgt.getCountOfUses());
+        }
+        if (fields.contains(SsoSessionAttributeKeys.TICKET_GRANTING_TICKET)) {
             sso.put(SsoSessionAttributeKeys.TICKET_GRANTING_TICKET.toString(), tgt.getId());
+        }
+        if (fields.contains(SsoSessionAttributeKeys.PRINCIPAL_ATTRIBUTES)) {
             sso.put(SsoSessionAttributeKeys.PRINCIPAL_ATTRIBUTES.toString(), principal.getAttributes());
+        }
+        if (fields.contains(SsoSessionAttributeKeys.AUTHENTICATION_ATTRIBUTES)) {
             sso.put(SsoSessionAttributeKeys.AUTHENTICATION_ATTRIBUTES.toString(), authentication.getAttributes());
+        }
 
-            if (option != SsoSessionReportOptions.DIRECT) {
-                if (tgt.getProxiedBy() != null) {
-                    sso.put(SsoSessionAttributeKeys.IS_PROXIED.toString(), Boolean.TRUE);
-                    sso.put(SsoSessionAttributeKeys.PROXIED_BY.toString(), tgt.getProxiedBy().getId());
-                } else {
-                    sso.put(SsoSessionAttributeKeys.IS_PROXIED.toString(), Boolean.FALSE);
-                }
+        if (option != SsoSessionReportOptions.DIRECT) {
+            if (fields.contains(SsoSessionAttributeKeys.IS_PROXIED)) {
+                sso.put(SsoSessionAttributeKeys.IS_PROXIED.toString(), tgt.getProxiedBy() != null);
+            }
+            if (fields.contains(SsoSessionAttributeKeys.PROXIED_BY) && tgt.getProxiedBy() != null) {
+                sso.put(SsoSessionAttributeKeys.PROXIED_BY.toString(), tgt.getProxiedBy().getId());
             }
+        }
 
+        if (fields.contains(SsoSessionAttributeKeys.AUTHENTICATED_SERVICES)) {
             sso.put(SsoSessionAttributeKeys.AUTHENTICATED_SERVICES.toString(), tgt.getServices());
+        }
+        return sso;
+    }
 
-            activeSessions.add(sso);
+    /**
+     * Gets the fields to report for each session out of a comma-separated list.
+     *
+     * @param fields the fields, if any
+     * @return the fields, or all fields if none are requested
+     */
+    private static Set<SsoSessionAttributeKeys> getFields(final String fields) {
+        if (StringUtils.isBlank(fields)) {
+            return EnumSet.allOf(SsoSessionAttributeKeys.class);
         }
-        return activeSessions;
+        final Set<String> requested = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .collect(Collectors.toSet());
+        final Set<SsoSessionAttributeKeys> keys = EnumSet.noneOf(SsoSessionAttributeKeys.class);
+        Arrays.stream(SsoSessionAttributeKeys.values())
+                .filter(key -> requested.contains(key.toString()))
+                .forEach(keys::add);
+        LOGGER.debug("Reporting fields [{}] of sso sessions", keys);
+        return keys;
     }
 
     /**
-     * Gets non expired ticket granting tickets.
+     * Gets the page size, bounded by the configured maximum.
      *
-     * @return the non expired ticket granting tickets
+     * @param limit the requested limit, or a value that is not positive for the default
+     * @return the page size
+     */
+    private int getPageSize(final int limit) {
+        final MonitorProperties.SsoSessions properties = casProperties.getMonitor().getSsoSessions();
+        if (limit <= 0) {
+            return properties.getPageSize();
+        }
+        return Math.min(limit, properties.getMaxPageSize());
+    }
+
+    /**
+     * Put the totals that the ticket registry keeps track of. Totals that the registry
+     * is unable to provide are left out.
+     *
+     * @param sessionsMap the sessions map
      */
-    private Collection<Ticket> getNonExpiredTicketGrantingTickets() {
-        return this.centralAuthenticationService.getTickets(ticket -> {
-            if (ticket instanceof TicketGrantingTicket) {
-                return !ticket.isExpired();
+    private void putTotals(final Map<String, Object> sessionsMap) {
+        final long totalTickets = this.ticketRegistry.sessionCount();
+        final long totalProxyGrantingTickets = this.ticketRegistry.proxyGrantingTicketCount();
+        final long totalPrincipals = this.ticketRegistry.principalCount();
+
+        if (totalTickets >= 0) {
+            sessionsMap.put("totalTickets", totalTickets);
+            if (totalProxyGrantingTickets >= 0) {
+                sessionsMap.put("totalProxyGrantingTickets", totalProxyGrantingTickets);
+                sessionsMap.put("totalTicketGrantingTickets", totalTickets - totalProxyGrantingTickets);
             }
-            return false;
-        });
+        }
+        if (totalPrincipals >= 0) {
+            sessionsMap.put("totalPrincipals", totalPrincipals);
+        }
     }
 
     /**
-     * Endpoint for getting SSO Sessions in JSON format.
+     * Endpoint for getting a page of SSO Sessions in JSON format.
      *
-     * @param type the type
+     * @param type      the type
+     * @param principal the principal id whose sessions are reported, if any
+     * @param cursor    the cursor returned with the previous page, if any
+     * @param limit     the maximum number of sessions in the page
+     * @param fields    comma-separated fields to report for each session, if not all
      * @return the sso sessions
      */
     @RequestMapping(value = "/getSsoSessions", method = RequestMethod.GET)
     @ResponseBody
-    public WebAsyncTask<Map<String, Object>> getSsoSessions(@RequestParam(defaultValue = "ALL") final String type) {
+    public WebAsyncTask<Map<String, Object>> getSsoSessions(@RequestParam(defaultValue = "ALL") final String type,
+                                                            @RequestParam(required = false) final String principal,
+                                                            @RequestParam(required = false) final String cursor,
+                                                            @RequestParam(defaultValue = "0") final int limit,
+                                                            @RequestParam(required = false) final String fields) {
 
         final Callable<Map<String, Object>> asyncTask = () -> {
-            final Map<String, Object> sessionsMap = new HashMap<>(1);
             final SsoSessionReportOptions option = SsoSessionReportOptions.valueOf(type);
-
-            final Collection<Map<String, Object>> activeSsoSessions = getActiveSsoSessions(option);
-            sessionsMap.put("activeSsoSessions", activeSsoSessions);
-
-            long totalTicketGrantingTickets = 0;
-            long totalProxyGrantingTickets = 0;
-            long totalUsageCount = 0;
-
-            final Set<String> uniquePrincipals = new HashSet<>();
-
-            for (final Map<String, Object> activeSsoSession : activeSsoSessions) {
-
-                if (activeSsoSession.containsKey(SsoSessionAttributeKeys.IS_PROXIED.toString())) {
-                    final Boolean isProxied = Boolean.valueOf(activeSsoSession.get(SsoSessionAttributeKeys.IS_PROXIED.toString()).toString());
-                    if (isProxied) {
-                        totalProxyGrantingTickets++;
-                    } else {
-                        totalTicketGrantingTickets++;
-                        final String principal = activeSsoSession.get(SsoSessionAttributeKeys.AUTHENTICATED_PRINCIPAL.toString()).toString();
-                        uniquePrincipals.add(principal);
-                    }
-                } else {
-                    totalTicketGrantingTickets++;
-                    final String principal = activeSsoSession.get(SsoSessionAttributeKeys.AUTHENTICATED_PRINCIPAL.toString()).toString();
-                    uniquePrincipals.add(principal);
-                }
-                totalUsageCount += Long.parseLong(activeSsoSession.get(SsoSessionAttributeKeys.NUMBER_OF_USES.toString()).toString());
-
-            }
-
-            sessionsMap.put("totalProxyGrantingTickets", totalProxyGrantingTickets);
-            sessionsMap.put("totalTicketGrantingTickets", totalTicketGrantingTickets);
-            sessionsMap.put("totalTickets", totalTicketGrantingTickets + totalProxyGrantingTickets);
-            sessionsMap.put("totalPrincipals", uniquePrincipals.size());
-            sessionsMap.put("totalUsageCount", totalUsageCount);
+            final Set<SsoSessionAttributeKeys> keys = getFields(fields);
+            final int pageSize = getPageSize(limit);
+
+            final List<TicketGrantingTicket> sessions = getActiveSsoSessions(option,
+                    StringUtils.trimToNull(principal), StringUtils.trimToNull(cursor), pageSize);
+            final boolean hasMore = sessions.size() > pageSize;
+            final List<TicketGrantingTicket> page = hasMore ? sessions.subList(0, pageSize) : sessions;
+
+            final Map<String, Object> sessionsMap = new LinkedHashMap<>();
+            sessionsMap.put("activeSsoSessions", page.stream()
+                    .map(tgt -> getSsoSession(tgt, option, keys))
+                    .collect(Collectors.toList()));
+            sessionsMap.put("nextCursor", hasMore ? page.get(page.size() - 1).getId() : null);
+            putTotals(sessionsMap);
             return sessionsMap;
         };
         return new WebAsyncTask<>(casProperties.getHttpClient().getAsyncTimeout(), asyncTask);
@@ -266,10 +385,10 @@ public class SingleSignOnSessionsReportController {
         final Map<String, String> failedTickets = new HashMap<>();
 
         final SsoSessionReportOptions option = SsoSessionReportOptions.valueOf(type);
-        final Collection<Map<String, Object>> collection = getActiveSsoSessions(option);
-        for (final Map<String, Object> sso : collection) {
-            final String ticketGrantingTicket =
-                    sso.get(SsoSessionAttributeKeys.TICKET_GRANTING_TICKET.toString()).toString();
+        final List<String> ticketGrantingTickets = getNonExpiredTicketGrantingTickets(option, null)
+                .map(Ticket::getId)
+                .collect(Collectors.toList());
+        for (final String ticketGrantingTicket : ticketGrantingTickets) {
             try {
                 this.centralAuthenticationService.destroyTicketGrantingTicket(ticketGrantingTicket);
             } catch (final Exception e) {
@@ -305,4 +424,8 @@ public class SingleSignOnSessionsReportController {
     public void setAuthenticationSystemSupport(final AuthenticationSystemSupport authenticationSystemSupport) {
         this.authenticationSystemSupport = authenticationSystemSupport;
     }
+
+    public void setTicketRegistry(final TicketRegistry ticketRegistry) {
+        this.ticketRegistry = ticketRegistry;
+    }
 }
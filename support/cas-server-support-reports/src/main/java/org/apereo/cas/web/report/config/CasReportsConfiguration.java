@@ -10,6 +10,7 @@ import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.monitor.HealthStatus;
 import org.apereo.cas.monitor.Monitor;
 import org.apereo.cas.support.events.dao.CasEventRepository;
+import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.trusted.authentication.api.MultifactorAuthenticationTrustStorage;
 import org.apereo.cas.web.report.AuthenticationEventsController;
 import org.apereo.cas.web.report.DashboardController;
@@ -56,6 +57,10 @@ public class CasReportsConfiguration extends AbstractWebSocketMessageBrokerConfi
     @Qualifier("centralAuthenticationService")
     private CentralAuthenticationService centralAuthenticationService;
 
+    @Autowired
+    @Qualifier("ticketRegistry")
+    private TicketRegistry ticketRegistry;
+
     @Autowired(required = false)
     @Qualifier("defaultAuthenticationSystemSupport")
     private AuthenticationSystemSupport authenticationSystemSupport;
@@ -93,6 +98,7 @@ public class CasReportsConfiguration extends AbstractWebSocketMessageBrokerConfi
         final SingleSignOnSessionsReportController c = new SingleSignOnSessionsReportController();
         c.setCentralAuthenticationService(centralAuthenticationService);
         c.setAuthenticationSystemSupport(authenticationSystemSupport);
+        c.setTicketRegistry(ticketRegistry);
         return c;
     }
 
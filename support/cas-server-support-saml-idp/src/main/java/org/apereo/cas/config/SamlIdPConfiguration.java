@@ -1,5 +1,6 @@
 package org.apereo.cas.config;
 
+import com.codahale.metrics.MetricRegistry;
 import net.shibboleth.utilities.java.support.xml.BasicParserPool;
 import org.apereo.cas.authentication.principal.ServiceFactory;
 import org.apereo.cas.authentication.principal.WebApplicationService;
@@ -12,6 +13,7 @@ import org.apereo.cas.support.saml.services.SamlIdPSingleLogoutServiceLogoutUrlB
 import org.apereo.cas.support.saml.services.idp.metadata.cache.ChainingMetadataResolverCacheLoader;
 import org.apereo.cas.support.saml.services.idp.metadata.cache.DefaultSamlRegisteredServiceCachingMetadataResolver;
 import org.apereo.cas.support.saml.services.idp.metadata.cache.SamlRegisteredServiceCachingMetadataResolver;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.SharedMetadataResolverStore;
 import org.apereo.cas.support.saml.web.idp.metadata.SamlIdpMetadataAndCertificatesGenerationService;
 import org.apereo.cas.support.saml.web.idp.metadata.ShibbolethIdpMetadataAndCertificatesGenerationService;
 import org.apereo.cas.support.saml.web.idp.profile.AbstractSamlProfileHandlerController;
@@ -86,6 +88,10 @@ public class SamlIdPConfiguration {
     @javax.annotation.Resource(name = "webApplicationServiceFactory")
     private ServiceFactory<WebApplicationService> webApplicationServiceFactory;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metrics;
+
     @Autowired(required = false)
     @Qualifier("authenticationContextClassMappings")
     private Map authenticationContextClassMappings;
@@ -166,16 +172,29 @@ public class SamlIdPConfiguration {
         c.setBasicAuthnUsername(md.getBasicAuthnUsername());
         c.setBasicAuthnPassword(md.getBasicAuthnPassword());
         c.setSupportedContentTypes(md.getSupportedContentTypes());
+        c.setSharedMetadataResolverStore(sharedMetadataResolverStore());
         return c;
     }
 
+    @Bean
+    @RefreshScope
+    public SharedMetadataResolverStore sharedMetadataResolverStore() {
+        final SamlIdPProperties.Metadata md = casProperties.getAuthn().getSamlIdp().getMetadata();
+        final long refreshMinutes = md.getCacheExpirationMinutes() - md.getCacheRefreshAheadMinutes();
+        return new SharedMetadataResolverStore(md.getCacheRefreshAheadMinutes() > 0 && refreshMinutes > 0
+                ? refreshMinutes : md.getCacheExpirationMinutes());
+    }
+
     @Bean
     @RefreshScope
     public SamlRegisteredServiceCachingMetadataResolver defaultSamlRegisteredServiceCachingMetadataResolver() {
+        final SamlIdPProperties.Metadata md = casProperties.getAuthn().getSamlIdp().getMetadata();
         final DefaultSamlRegisteredServiceCachingMetadataResolver r = new DefaultSamlRegisteredServiceCachingMetadataResolver();
         r.setChainingMetadataResolverCacheLoader(chainingMetadataResolverCacheLoader());
-        r.setMetadataCacheExpirationMinutes(casProperties.getAuthn().getSamlIdp().getMetadata().getCacheExpirationMinutes());
-        r.setChainingMetadataResolverCacheLoader(chainingMetadataResolverCacheLoader());
+        r.setMetadataCacheExpirationMinutes(md.getCacheExpirationMinutes());
+        r.setMetadataCacheRefreshAheadMinutes(md.getCacheRefreshAheadMinutes());
+        r.setMetadataCacheMaximumSize(md.getCacheMaximumSize());
+        r.setMetricRegistry(this.metrics);
         return r;
     }
 
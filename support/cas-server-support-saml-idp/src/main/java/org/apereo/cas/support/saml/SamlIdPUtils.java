@@ -1,11 +1,8 @@
 package org.apereo.cas.support.saml;
 
-import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 import com.google.common.collect.Lists;
 import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
 import org.apache.commons.lang3.StringUtils;
-import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.support.saml.services.SamlRegisteredService;
 import org.apereo.cas.support.saml.services.idp.metadata.SamlRegisteredServiceServiceProviderMetadataFacade;
@@ -88,14 +85,11 @@ public final class SamlIdPUtils {
     public static MetadataResolver getMetadataResolverForAllSamlServices(final ServicesManager servicesManager,
                                                                          final String entityID, final SamlRegisteredServiceCachingMetadataResolver resolver) {
         try {
-            final Predicate p = Predicates.instanceOf(SamlRegisteredService.class);
-            final Collection<RegisteredService> registeredServices = servicesManager.findServiceBy(p);
+            final Collection<SamlRegisteredService> registeredServices = servicesManager.findServicesBy(SamlRegisteredService.class);
             final List<MetadataResolver> resolvers = new ArrayList<>();
             final ChainingMetadataResolver chainingMetadataResolver = new ChainingMetadataResolver();
 
-            for (final RegisteredService registeredService : registeredServices) {
-                final SamlRegisteredService samlRegisteredService = SamlRegisteredService.class.cast(registeredService);
-
+            for (final SamlRegisteredService samlRegisteredService : registeredServices) {
                 final SamlRegisteredServiceServiceProviderMetadataFacade adaptor =
                         SamlRegisteredServiceServiceProviderMetadataFacade.get(resolver, samlRegisteredService, entityID);
                 resolvers.add(adaptor.getMetadataResolver());
@@ -22,9 +22,11 @@ import org.opensaml.saml.metadata.resolver.filter.impl.EntityRoleFilter;
 import org.opensaml.saml.metadata.resolver.filter.impl.PredicateFilter;
 import org.opensaml.saml.metadata.resolver.filter.impl.RequiredValidUntilFilter;
 import org.opensaml.saml.metadata.resolver.filter.impl.SignatureValidationFilter;
+import org.opensaml.saml.metadata.resolver.impl.AbstractBatchMetadataResolver;
 import org.opensaml.saml.metadata.resolver.impl.AbstractMetadataResolver;
 import org.opensaml.saml.metadata.resolver.impl.DOMMetadataResolver;
 import org.opensaml.saml.metadata.resolver.impl.FunctionDrivenDynamicHTTPMetadataResolver;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
 import org.opensaml.saml.saml2.metadata.IDPSSODescriptor;
 import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
 import org.opensaml.security.credential.BasicCredential;
@@ -50,12 +52,18 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * This is {@link ChainingMetadataResolverCacheLoader} that uses Guava's cache loading strategy
  * to keep track of metadata resources and resolvers. The cache loader here supports loading
  * metadata resources from SAML services, supports dynamic metadata queries and is able
  * to run various validation filters on the metadata before finally caching the resolver.
+ * Each invocation builds its own resolver chain, so metadata for different services
+ * may be loaded concurrently; the cache guarantees a single load per service at a time.
+ * When a {@link SharedMetadataResolverStore} is available, metadata resources are parsed
+ * once and shared by all services that point at them, with each service only seeing
+ * the entities that match its own criteria.
  *
  * @author Misagh Moayyed
  * @since 5.0.0
@@ -75,8 +83,6 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
 
     private long metadataCacheExpirationMinutes;
 
-    private transient Object lock = new Object();
-
     private boolean failFastInitialization = true;
 
     private boolean requireValidMetadata = true;
@@ -85,6 +91,8 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
     private String basicAuthnPassword;
     private List<String> supportedContentTypes = new ArrayList<>();
 
+    private SharedMetadataResolverStore sharedMetadataResolverStore;
+
     /**
      * Instantiates a new Chaining metadata resolver cache loader.
      */
@@ -109,11 +117,9 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
                         + " with metadata location " + service.getMetadataLocation());
             }
 
-            synchronized (this.lock) {
-                metadataResolver.setId(ChainingMetadataResolver.class.getCanonicalName());
-                metadataResolver.setResolvers(metadataResolvers);
-                metadataResolver.initialize();
-            }
+            metadataResolver.setId(ChainingMetadataResolver.class.getCanonicalName());
+            metadataResolver.setResolvers(metadataResolvers);
+            metadataResolver.initialize();
             return metadataResolver;
         } catch (final Exception e) {
             throw new SamlException(e.getMessage(), e);
@@ -172,6 +178,87 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
      */
     protected void resolveMetadataFromResource(final SamlRegisteredService service, final List<MetadataResolver> metadataResolvers)
             throws IOException {
+        try {
+            if (this.sharedMetadataResolverStore != null) {
+                final AbstractBatchMetadataResolver sharedResolver = this.sharedMetadataResolverStore.get(
+                        getSharedMetadataResolverKey(service), () -> buildSharedMetadataResolver(service));
+                logger.debug("Using shared metadata resolver for [{}] at [{}]", service.getName(), service.getMetadataLocation());
+                final List<QName> roles = StringUtils.isNotBlank(service.getMetadataCriteriaRoles())
+                        ? buildEntityRoles(service) : new ArrayList<>();
+                final EntityFilteringMetadataResolver resolver = new EntityFilteringMetadataResolver(sharedResolver,
+                        buildEntityPredicate(service), roles);
+                resolver.initialize();
+                metadataResolvers.add(resolver);
+            } else {
+                final DOMMetadataResolver metadataProvider = parseMetadataFromResource(service);
+                buildSingleMetadataResolver(metadataProvider, service);
+                metadataResolvers.add(metadataProvider);
+            }
+        } catch (final Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Build a metadata resolver for the metadata resource of the service that may be
+     * shared with other services, given they point at the same metadata resource and
+     * require the same validation filters. Only the filters that validate the metadata as
+     * a whole are applied here, and services apply their own entity criteria as a view.
+     *
+     * @param service the service
+     * @return the metadata resolver
+     * @throws Exception the exception
+     */
+    protected AbstractBatchMetadataResolver buildSharedMetadataResolver(final SamlRegisteredService service) throws Exception {
+        final DOMMetadataResolver metadataProvider = parseMetadataFromResource(service);
+        final List<MetadataFilter> metadataFilterList = new ArrayList<>();
+        buildRequiredValidUntilFilterIfNeeded(service, metadataFilterList);
+        buildSignatureValidationFilterIfNeeded(service, metadataFilterList);
+        configureMetadataResolver(metadataProvider, service, metadataFilterList);
+        return metadataProvider;
+    }
+
+    /**
+     * Gets the key under which the metadata resolver of the service is shared.
+     *
+     * @param service the service
+     * @return the key
+     */
+    protected String getSharedMetadataResolverKey(final SamlRegisteredService service) {
+        return StringUtils.trim(service.getMetadataLocation())
+                + '|' + StringUtils.trimToEmpty(service.getMetadataSignatureLocation())
+                + '|' + service.getMetadataMaxValidity();
+    }
+
+    /**
+     * Build the predicate that selects the entities exposed to the service,
+     * equivalent to the entity role and predicate filters defined by the service.
+     *
+     * @param service the service
+     * @return the predicate
+     */
+    protected Predicate<EntityDescriptor> buildEntityPredicate(final SamlRegisteredService service) {
+        Predicate<EntityDescriptor> predicate = entityDescriptor -> true;
+
+        if (StringUtils.isNotBlank(service.getMetadataCriteriaRoles()) && service.isMetadataCriteriaRemoveRolelessEntityDescriptors()) {
+            final List<QName> roles = buildEntityRoles(service);
+            logger.debug("Metadata entities for [{}] must carry one of the roles [{}]", service.getName(), roles);
+            predicate = predicate.and(entityDescriptor -> roles.stream()
+                    .anyMatch(role -> !entityDescriptor.getRoleDescriptors(role).isEmpty()));
+        }
+
+        if (isPredicateFilterDefined(service)) {
+            final PredicateFilter.Direction dir = PredicateFilter.Direction.valueOf(service.getMetadataCriteriaDirection());
+            final String pattern = service.getMetadataCriteriaPattern();
+            logger.debug("Metadata entities for [{}] are filtered with direction [{}] and pattern [{}]", service.getName(), dir, pattern);
+            final Predicate<EntityDescriptor> matches = entityDescriptor ->
+                    StringUtils.isNotBlank(entityDescriptor.getEntityID()) && entityDescriptor.getEntityID().matches(pattern);
+            predicate = predicate.and(dir == PredicateFilter.Direction.INCLUDE ? matches : matches.negate());
+        }
+        return predicate;
+    }
+
+    private DOMMetadataResolver parseMetadataFromResource(final SamlRegisteredService service) throws Exception {
         final String metadataLocation = service.getMetadataLocation();
         logger.info("Loading SAML metadata from [{}]", metadataLocation);
         final AbstractResource metadataResource = ResourceUtils.getResourceFrom(metadataLocation);
@@ -180,11 +267,7 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
             final Document document = this.configBean.getParserPool().parse(in);
 
             final Element metadataRoot = document.getDocumentElement();
-            final DOMMetadataResolver metadataProvider = new DOMMetadataResolver(metadataRoot);
-            buildSingleMetadataResolver(metadataProvider, service);
-            metadataResolvers.add(metadataProvider);
-        } catch (final Exception e) {
-            throw Throwables.propagate(e);
+            return new DOMMetadataResolver(metadataRoot);
         }
     }
 
@@ -207,12 +290,26 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
      */
     protected void buildSingleMetadataResolver(final AbstractMetadataResolver metadataProvider,
                                                final SamlRegisteredService service) throws Exception {
+        final List<MetadataFilter> metadataFilterList = new ArrayList<>();
+        buildMetadataFilters(service, metadataFilterList);
+        configureMetadataResolver(metadataProvider, service, metadataFilterList);
+    }
+
+    private void configureMetadataResolver(final AbstractMetadataResolver metadataProvider,
+                                           final SamlRegisteredService service,
+                                           final List<MetadataFilter> metadataFilterList) throws Exception {
         metadataProvider.setParserPool(this.configBean.getParserPool());
         metadataProvider.setFailFastInitialization(this.failFastInitialization);
         metadataProvider.setRequireValidMetadata(this.requireValidMetadata);
         metadataProvider.setId(metadataProvider.getClass().getCanonicalName());
 
-        buildMetadataFilters(service, metadataProvider);
+        if (!metadataFilterList.isEmpty()) {
+            final MetadataFilterChain metadataFilterChain = new MetadataFilterChain();
+            metadataFilterChain.setFilters(metadataFilterList);
+
+            logger.debug("Metadata filter chain initialized with [{}] filters", metadataFilterList.size());
+            metadataProvider.setMetadataFilter(metadataFilterChain);
+        }
 
         logger.info("Initializing metadata resolver from [{}]", service.getMetadataLocation());
         metadataProvider.initialize();
@@ -222,43 +319,44 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
     /**
      * Build metadata filters.
      *
-     * @param service          the service
-     * @param metadataProvider the metadata provider
+     * @param service            the service
+     * @param metadataFilterList the metadata filter list
      * @throws Exception the exception
      */
-    protected void buildMetadataFilters(final SamlRegisteredService service, final AbstractMetadataResolver metadataProvider) throws
-            Exception {
-        final List<MetadataFilter> metadataFilterList = new ArrayList<>();
-
+    protected void buildMetadataFilters(final SamlRegisteredService service, final List<MetadataFilter> metadataFilterList)
+            throws Exception {
         buildRequiredValidUntilFilterIfNeeded(service, metadataFilterList);
         buildSignatureValidationFilterIfNeeded(service, metadataFilterList);
 
         buildEntityRoleFilterIfNeeded(service, metadataFilterList);
         buildPredicateFilterIfNeeded(service, metadataFilterList);
+    }
 
-        if (!metadataFilterList.isEmpty()) {
-            final MetadataFilterChain metadataFilterChain = new MetadataFilterChain();
-            metadataFilterChain.setFilters(metadataFilterList);
+    private List<QName> buildEntityRoles(final SamlRegisteredService service) {
+        final List<QName> roles = Lists.newArrayList();
+        final Set<String> rolesSet = org.springframework.util.StringUtils.commaDelimitedListToSet(service.getMetadataCriteriaRoles());
+        rolesSet.stream().forEach(s -> {
+            if (s.equalsIgnoreCase(SPSSODescriptor.DEFAULT_ELEMENT_NAME.getLocalPart())) {
+                logger.debug("Added entity role filter [{}]", SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+                roles.add(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+            }
+            if (s.equalsIgnoreCase(IDPSSODescriptor.DEFAULT_ELEMENT_NAME.getLocalPart())) {
+                logger.debug("Added entity role filter [{}]", IDPSSODescriptor.DEFAULT_ELEMENT_NAME);
+                roles.add(IDPSSODescriptor.DEFAULT_ELEMENT_NAME);
+            }
+        });
+        return roles;
+    }
 
-            logger.debug("Metadata filter chain initialized with [{}] filters", metadataFilterList.size());
-            metadataProvider.setMetadataFilter(metadataFilterChain);
-        }
+    private static boolean isPredicateFilterDefined(final SamlRegisteredService service) {
+        return StringUtils.isNotBlank(service.getMetadataCriteriaDirection())
+                && StringUtils.isNotBlank(service.getMetadataCriteriaPattern())
+                && RegexUtils.isValidRegex(service.getMetadataCriteriaPattern());
     }
 
     private void buildEntityRoleFilterIfNeeded(final SamlRegisteredService service, final List<MetadataFilter> metadataFilterList) {
         if (StringUtils.isNotBlank(service.getMetadataCriteriaRoles())) {
-            final List<QName> roles = Lists.newArrayList();
-            final Set<String> rolesSet = org.springframework.util.StringUtils.commaDelimitedListToSet(service.getMetadataCriteriaRoles());
-            rolesSet.stream().forEach(s -> {
-                if (s.equalsIgnoreCase(SPSSODescriptor.DEFAULT_ELEMENT_NAME.getLocalPart())) {
-                    logger.debug("Added entity role filter [{}]", SPSSODescriptor.DEFAULT_ELEMENT_NAME);
-                    roles.add(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
-                }
-                if (s.equalsIgnoreCase(IDPSSODescriptor.DEFAULT_ELEMENT_NAME.getLocalPart())) {
-                    logger.debug("Added entity role filter [{}]", IDPSSODescriptor.DEFAULT_ELEMENT_NAME);
-                    roles.add(IDPSSODescriptor.DEFAULT_ELEMENT_NAME);
-                }
-            });
+            final List<QName> roles = buildEntityRoles(service);
             final EntityRoleFilter filter = new EntityRoleFilter(roles);
             filter.setRemoveEmptyEntitiesDescriptors(service.isMetadataCriteriaRemoveEmptyEntitiesDescriptors());
             filter.setRemoveRolelessEntityDescriptors(service.isMetadataCriteriaRemoveRolelessEntityDescriptors());
@@ -270,9 +368,7 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
 
 
     private void buildPredicateFilterIfNeeded(final SamlRegisteredService service, final List<MetadataFilter> metadataFilterList) {
-        if (StringUtils.isNotBlank(service.getMetadataCriteriaDirection())
-                && StringUtils.isNotBlank(service.getMetadataCriteriaPattern())
-                && RegexUtils.isValidRegex(service.getMetadataCriteriaPattern())) {
+        if (isPredicateFilterDefined(service)) {
 
             final PredicateFilter.Direction dir = PredicateFilter.Direction.valueOf(service.getMetadataCriteriaDirection());
             logger.debug("Metadata predicate filter configuring with direction [{}] and pattern [{}]",
@@ -380,6 +476,10 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
     public void setSupportedContentTypes(final List<String> supportedContentTypes) {
         this.supportedContentTypes = supportedContentTypes;
     }
+
+    public void setSharedMetadataResolverStore(final SharedMetadataResolverStore sharedMetadataResolverStore) {
+        this.sharedMetadataResolverStore = sharedMetadataResolverStore;
+    }
 }
 
 
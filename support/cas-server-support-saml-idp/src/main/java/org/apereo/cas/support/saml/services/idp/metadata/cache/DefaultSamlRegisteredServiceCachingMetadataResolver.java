@@ -1,19 +1,30 @@
 package org.apereo.cas.support.saml.services.idp.metadata.cache;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.apereo.cas.util.MetricsUtils;
 import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
  * An adaptation of metadata resolver which handles the resolution of metadata resources
  * inside a Guava cache. It basically is a fancy wrapper around Guava, and constructs the cache
  * semantics before processing the resolution of metadata for a SAML service.
+ * <p>
+ * Resolvers are cached per service, and each service is loaded independently of others.
+ * Entries that are in use are refreshed in the background ahead of their expiration,
+ * during which time the previously loaded resolver continues to be served.
  *
  * @author Misagh Moayyed
  * @since 5.0.0
@@ -21,23 +32,63 @@ import java.util.concurrent.TimeUnit;
 public class DefaultSamlRegisteredServiceCachingMetadataResolver
         implements SamlRegisteredServiceCachingMetadataResolver {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultSamlRegisteredServiceCachingMetadataResolver.class);
-    
+
+    private static final int REFRESH_THREADS = 2;
+
     private long metadataCacheExpirationMinutes;
-    
+
+    private long metadataCacheRefreshAheadMinutes;
+
+    private long metadataCacheMaximumSize = 500;
+
     private ChainingMetadataResolverCacheLoader chainingMetadataResolverCacheLoader;
 
+    private ExecutorService refreshExecutor;
+
     private LoadingCache<SamlRegisteredService, ChainingMetadataResolver> cache;
 
+    private MetricRegistry metricRegistry;
+
     /**
      * Instantiates a new Saml registered service caching metadata resolver.
      */
     public DefaultSamlRegisteredServiceCachingMetadataResolver() {}
-    
 
+
+    /**
+     * Build the metadata cache, and register its metrics if a registry is defined.
+     */
     @PostConstruct
-    private void init() {
-        this.cache = CacheBuilder.newBuilder().maximumSize(1)
-                .expireAfterWrite(this.metadataCacheExpirationMinutes, TimeUnit.MINUTES).build(this.chainingMetadataResolverCacheLoader);
+    public void init() {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(this.metadataCacheMaximumSize)
+                .expireAfterWrite(this.metadataCacheExpirationMinutes, TimeUnit.MINUTES)
+                .recordStats();
+
+        final long refreshMinutes = this.metadataCacheExpirationMinutes - this.metadataCacheRefreshAheadMinutes;
+        if (this.metadataCacheRefreshAheadMinutes > 0 && refreshMinutes > 0) {
+            this.refreshExecutor = Executors.newFixedThreadPool(REFRESH_THREADS,
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("saml-metadata-refresh-%d").build());
+            builder.refreshAfterWrite(refreshMinutes, TimeUnit.MINUTES);
+            this.cache = builder.build(CacheLoader.asyncReloading(this.chainingMetadataResolverCacheLoader, this.refreshExecutor));
+            LOGGER.debug("Cached SAML metadata will be refreshed [{}] minute(s) after it is loaded", refreshMinutes);
+        } else {
+            LOGGER.debug("Cached SAML metadata will not be refreshed ahead of its expiration");
+            this.cache = builder.build(this.chainingMetadataResolverCacheLoader);
+        }
+        if (this.metricRegistry != null) {
+            MetricsUtils.registerCacheMetrics(this.metricRegistry, MetricRegistry.name(getClass(), "cache"), this.cache);
+        }
+    }
+
+    /**
+     * Stop refreshing cached metadata.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (this.refreshExecutor != null) {
+            this.refreshExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -48,7 +99,7 @@ public class DefaultSamlRegisteredServiceCachingMetadataResolver
             resolver = this.cache.get(service);
             return resolver;
         } catch (final Exception e) {
-            throw new IllegalArgumentException("Metadata resolver could not be located from metadata " 
+            throw new IllegalArgumentException("Metadata resolver could not be located from metadata "
                     + service.getMetadataLocation(), e);
         } finally {
             if (resolver != null) {
@@ -67,4 +118,22 @@ public class DefaultSamlRegisteredServiceCachingMetadataResolver
     public void setMetadataCacheExpirationMinutes(final long metadataCacheExpirationMinutes) {
         this.metadataCacheExpirationMinutes = metadataCacheExpirationMinutes;
     }
+
+    public void setMetadataCacheRefreshAheadMinutes(final long metadataCacheRefreshAheadMinutes) {
+        this.metadataCacheRefreshAheadMinutes = metadataCacheRefreshAheadMinutes;
+    }
+
+    public void setMetadataCacheMaximumSize(final long metadataCacheMaximumSize) {
+        this.metadataCacheMaximumSize = metadataCacheMaximumSize;
+    }
+
+    /**
+     * Sets the registry with which gauges for the size of the metadata cache
+     * and its statistics, such as the hit rate and the average load time, are registered.
+     *
+     * @param metricRegistry the metric registry
+     */
+    public void setMetricRegistry(final MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
 }
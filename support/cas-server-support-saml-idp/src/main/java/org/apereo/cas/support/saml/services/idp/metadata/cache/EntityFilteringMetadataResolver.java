@@ -0,0 +1,156 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import net.shibboleth.utilities.java.support.component.AbstractIdentifiableInitializableComponent;
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
+import net.shibboleth.utilities.java.support.resolver.ResolverException;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.metadata.IterableMetadataSource;
+import org.opensaml.saml.metadata.resolver.MetadataResolver;
+import org.opensaml.saml.metadata.resolver.filter.MetadataFilter;
+import org.opensaml.saml.metadata.resolver.filter.impl.EntityRoleFilter;
+import org.opensaml.saml.metadata.resolver.impl.AbstractBatchMetadataResolver;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
+import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.namespace.QName;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * This is {@link EntityFilteringMetadataResolver}. It is a read-only view over a metadata resolver
+ * that may be shared by many services, and only exposes the entities that match the given predicate.
+ * Unlike metadata filters, the predicate does not modify the underlying metadata, and lookups by
+ * entity id continue to use the index maintained by the shared resolver.
+ * <p>
+ * When roles are given, entities are exposed with the role descriptors that are not in the list removed,
+ * the same way the {@link EntityRoleFilter} would. Such entities are copies of the shared entities
+ * that are kept for as long as the shared resolver holds on to the original.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class EntityFilteringMetadataResolver extends AbstractIdentifiableInitializableComponent
+        implements MetadataResolver, IterableMetadataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityFilteringMetadataResolver.class);
+
+    private final AbstractBatchMetadataResolver delegate;
+
+    private final Predicate<EntityDescriptor> predicate;
+
+    private final List<QName> roles;
+
+    private final Cache<EntityDescriptor, EntityDescriptor> filteredEntities = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * Instantiates a new entity filtering metadata resolver.
+     *
+     * @param delegate  the shared metadata resolver
+     * @param predicate the predicate entities must match to be exposed
+     */
+    public EntityFilteringMetadataResolver(final AbstractBatchMetadataResolver delegate,
+                                           final Predicate<EntityDescriptor> predicate) {
+        this(delegate, predicate, ImmutableList.of());
+    }
+
+    /**
+     * Instantiates a new entity filtering metadata resolver.
+     *
+     * @param delegate  the shared metadata resolver
+     * @param predicate the predicate entities must match to be exposed
+     * @param roles     the roles whose descriptors are exposed, or empty to expose all role descriptors
+     */
+    public EntityFilteringMetadataResolver(final AbstractBatchMetadataResolver delegate,
+                                           final Predicate<EntityDescriptor> predicate,
+                                           final List<QName> roles) {
+        this.delegate = delegate;
+        this.predicate = predicate;
+        this.roles = ImmutableList.copyOf(roles);
+        setId(getClass().getCanonicalName());
+    }
+
+    @Override
+    public Iterable<EntityDescriptor> resolve(final CriteriaSet criteria) throws ResolverException {
+        return Iterables.transform(Iterables.filter(this.delegate.resolve(criteria), this.predicate::test), this::filterRoles);
+    }
+
+    @Override
+    public EntityDescriptor resolveSingle(final CriteriaSet criteria) throws ResolverException {
+        final Iterator<EntityDescriptor> it = resolve(criteria).iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public Iterator<EntityDescriptor> iterator() {
+        return Iterators.transform(Iterators.filter(this.delegate.iterator(), this.predicate::test), this::filterRoles);
+    }
+
+    @Override
+    public boolean isRequireValidMetadata() {
+        return this.delegate.isRequireValidMetadata();
+    }
+
+    /**
+     * Does nothing. Metadata validity requirements are defined by the shared metadata resolver
+     * for all services that use it, and cannot be changed by a single view.
+     *
+     * @param requireValidMetadata the require valid metadata
+     */
+    @Override
+    public void setRequireValidMetadata(final boolean requireValidMetadata) {
+        LOGGER.debug("Ignoring metadata validity requirement [{}]; it is defined by the shared metadata resolver [{}]",
+                requireValidMetadata, this.delegate.getId());
+    }
+
+    @Override
+    public MetadataFilter getMetadataFilter() {
+        return this.delegate.getMetadataFilter();
+    }
+
+    /**
+     * Does nothing. Metadata filters are defined by the shared metadata resolver for all services
+     * that use it; per-service criteria are applied by this view instead.
+     *
+     * @param metadataFilter the metadata filter
+     */
+    @Override
+    public void setMetadataFilter(final MetadataFilter metadataFilter) {
+        LOGGER.debug("Ignoring metadata filter [{}]; filters are defined by the shared metadata resolver [{}]",
+                metadataFilter, this.delegate.getId());
+    }
+
+    public AbstractBatchMetadataResolver getDelegate() {
+        return this.delegate;
+    }
+
+    private EntityDescriptor filterRoles(final EntityDescriptor entityDescriptor) {
+        if (this.roles.isEmpty() || entityDescriptor.getRoleDescriptors().stream().allMatch(this::isAllowedRole)) {
+            return entityDescriptor;
+        }
+        try {
+            return this.filteredEntities.get(entityDescriptor, () -> {
+                LOGGER.debug("Removing role descriptors other than [{}] from [{}]", this.roles, entityDescriptor.getEntityID());
+                final EntityDescriptor copy = XMLObjectSupport.cloneXMLObject(entityDescriptor);
+                final EntityRoleFilter filter = new EntityRoleFilter(this.roles);
+                filter.setRemoveRolelessEntityDescriptors(false);
+                filter.filter(copy);
+                return copy;
+            });
+        } catch (final Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private boolean isAllowedRole(final RoleDescriptor role) {
+        return this.roles.contains(role.getElementQName()) || this.roles.contains(role.getSchemaType());
+    }
+}
@@ -0,0 +1,74 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.opensaml.saml.metadata.resolver.impl.AbstractBatchMetadataResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link SharedMetadataResolverStore}. It holds metadata resolvers that are parsed
+ * and validated once per metadata source, and shared by all services that point at the same source,
+ * such that large federation aggregates are kept in memory only once.
+ * <p>
+ * Resolvers are only weakly held, and are released once no service refers to them anymore.
+ * They are also expired after the configured period, so that services whose metadata is
+ * reloaded pick up a freshly parsed copy of the source.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class SharedMetadataResolverStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMetadataResolverStore.class);
+
+    private final Cache<String, AbstractBatchMetadataResolver> resolvers;
+
+    /**
+     * Instantiates a new shared metadata resolver store.
+     *
+     * @param expirationMinutes the number of minutes after which a parsed resolver is no longer shared
+     */
+    public SharedMetadataResolverStore(final long expirationMinutes) {
+        this.resolvers = CacheBuilder.newBuilder()
+                .weakValues()
+                .expireAfterWrite(expirationMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the resolver shared for the given metadata source, or build it if none is available.
+     * Concurrent requests for the same source wait for a single build.
+     *
+     * @param key    the key identifying the metadata source and the filters applied to it
+     * @param loader the loader that builds and initializes the resolver
+     * @return the shared resolver
+     * @throws Exception the exception thrown by the loader
+     */
+    public AbstractBatchMetadataResolver get(final String key, final Callable<AbstractBatchMetadataResolver> loader)
+            throws Exception {
+        try {
+            final AbstractBatchMetadataResolver resolver = this.resolvers.get(key, loader);
+            LOGGER.debug("Shared metadata resolvers are held for [{}] metadata source(s) with a hit rate of [{}]",
+                    this.resolvers.size(), this.resolvers.stats().hitRate());
+            return resolver;
+        } catch (final Exception e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Throwables.propagateIfPossible(cause, Exception.class);
+            throw e;
+        }
+    }
+
+    /**
+     * Number of metadata sources currently shared.
+     *
+     * @return the size
+     */
+    public long size() {
+        return this.resolvers.size();
+    }
+}
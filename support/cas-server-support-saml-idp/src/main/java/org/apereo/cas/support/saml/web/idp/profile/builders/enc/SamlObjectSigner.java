@@ -1,6 +1,9 @@
 package org.apereo.cas.support.saml.web.idp.profile.builders.enc;
 
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.configuration.CasConfigurationProperties;
@@ -62,18 +65,27 @@ import org.springframework.core.io.FileSystemResource;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This is {@link SamlObjectSigner}.
+ * <p>
+ * The signing credential is read from the configured key and certificate files once, and only
+ * read again when either file is modified. Signature signing parameters resolved for a service provider
+ * are remembered for as long as its metadata role descriptor remains in use, or until the signing
+ * credential is reloaded.
  *
  * @author Misagh Moayyed
  * @since 5.0.0
  */
 public class SamlObjectSigner {
+    private static final long MAX_CACHED_SIGNING_PARAMETERS = 1000;
+
     protected transient Logger logger = LoggerFactory.getLogger(this.getClass());
 
     /**
@@ -100,6 +112,10 @@ public class SamlObjectSigner {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    private final Object signingCredentialLock = new Object();
+
+    private volatile SigningCredential signingCredential;
+
     /**
      * Encode a given saml object by invoking a number of outbound security handlers on the context.
      *
@@ -219,9 +235,33 @@ public class SamlObjectSigner {
      * @throws SAMLException the saml exception
      */
     protected SignatureSigningParameters buildSignatureSigningParameters(final RoleDescriptor descriptor) throws SAMLException {
+        try {
+            final SigningCredential current = getCurrentSigningCredential();
+            return current.getSigningParameters().get(descriptor,
+                    () -> resolveSignatureSigningParameters(descriptor, current.getCredential()));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof SAMLException) {
+                throw (SAMLException) e.getCause();
+            }
+            throw new SAMLException(e.getMessage(), e);
+        } catch (final Exception e) {
+            throw new SAMLException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resolve signature signing parameters for the role descriptor from metadata.
+     *
+     * @param descriptor the descriptor
+     * @param credential the signing credential
+     * @return the signature signing parameters
+     * @throws SAMLException the saml exception
+     */
+    protected SignatureSigningParameters resolveSignatureSigningParameters(final RoleDescriptor descriptor,
+                                                                           final Credential credential) throws SAMLException {
         try {
             final CriteriaSet criteria = new CriteriaSet();
-            criteria.add(new SignatureSigningConfigurationCriterion(getSignatureSigningConfiguration()));
+            criteria.add(new SignatureSigningConfigurationCriterion(getSignatureSigningConfiguration(credential)));
             criteria.add(new RoleDescriptorCriterion(descriptor));
             final SAMLMetadataSignatureSigningParametersResolver resolver = new SAMLMetadataSignatureSigningParametersResolver();
             logger.debug("Resolving signature signing parameters for [{}]", descriptor.getElementQName().getLocalPart());
@@ -279,6 +319,17 @@ public class SamlObjectSigner {
      * @throws Exception the exception
      */
     protected SignatureSigningConfiguration getSignatureSigningConfiguration() throws Exception {
+        return getSignatureSigningConfiguration(getSignatureSigningCredential());
+    }
+
+    /**
+     * Gets signature signing configuration for the given signing credential.
+     *
+     * @param credential the signing credential
+     * @return the signature signing configuration
+     * @throws Exception the exception
+     */
+    protected SignatureSigningConfiguration getSignatureSigningConfiguration(final Credential credential) throws Exception {
         final BasicSignatureSigningConfiguration config =
                 DefaultSecurityConfigurationBootstrap.buildDefaultSignatureSigningConfiguration();
         final SamlIdPProperties samlIdp = casProperties.getAuthn().getSamlIdp();
@@ -309,17 +360,54 @@ public class SamlObjectSigner {
         logger.debug("Signature signing whitelisted algorithms: {}", config.getWhitelistedAlgorithms());
         logger.debug("Signature signing reference digest methods: [{}]", config.getSignatureReferenceDigestMethods());
 
-        final PrivateKey privateKey = getSigningPrivateKey();
-        final X509Certificate certificate = getSigningCertificate();
-
         final List<Credential> creds = new ArrayList<>();
-        creds.add(new BasicX509Credential(certificate, privateKey));
+        creds.add(credential);
         config.setSigningCredentials(creds);
         logger.debug("Signature signing credentials configured");
 
         return config;
     }
 
+    /**
+     * Gets the signature signing credential, reading the signing key and certificate
+     * again if either file has changed since the credential was last loaded.
+     * Reloading the credential discards any cached signature signing parameters.
+     *
+     * @return the signing credential
+     * @throws Exception the exception
+     */
+    protected Credential getSignatureSigningCredential() throws Exception {
+        return getCurrentSigningCredential().getCredential();
+    }
+
+    /**
+     * Gets the current signing credential, loading it again if either file has changed.
+     * Signature signing parameters are cached along with the credential they were resolved with,
+     * so parameters resolved while the credential is being reloaded never outlive the old credential.
+     */
+    private SigningCredential getCurrentSigningCredential() throws Exception {
+        final SamlIdPProperties samlIdp = casProperties.getAuthn().getSamlIdp();
+        final File keyFile = samlIdp.getMetadata().getSigningKeyFile().getFile();
+        final File certFile = samlIdp.getMetadata().getSigningCertFile().getFile();
+
+        SigningCredential current = this.signingCredential;
+        if (current == null || !current.isCurrent(keyFile, certFile)) {
+            synchronized (this.signingCredentialLock) {
+                current = this.signingCredential;
+                if (current == null || !current.isCurrent(keyFile, certFile)) {
+                    logger.debug("Loading signature signing credential from [{}] and [{}]", keyFile, certFile);
+                    final long keyFileLastModified = keyFile.lastModified();
+                    final long certFileLastModified = certFile.lastModified();
+                    final Credential credential = new BasicX509Credential(getSigningCertificate(), getSigningPrivateKey());
+                    current = new SigningCredential(credential, keyFile, keyFileLastModified, certFile, certFileLastModified);
+                    this.signingCredential = current;
+                    logger.info("Loaded signature signing credential from [{}] and [{}]", keyFile, certFile);
+                }
+            }
+        }
+        return current;
+    }
+
     /**
      * Gets signing certificate.
      *
@@ -470,4 +558,44 @@ public class SamlObjectSigner {
             throw Throwables.propagate(e);
         }
     }
+
+    /**
+     * Signing credential along with the state of the files it was loaded from,
+     * and the signature signing parameters resolved with it.
+     */
+    private static class SigningCredential {
+        private final Cache<RoleDescriptor, SignatureSigningParameters> signingParameters = CacheBuilder.newBuilder()
+                .weakKeys()
+                .maximumSize(MAX_CACHED_SIGNING_PARAMETERS)
+                .build();
+
+        private final Credential credential;
+        private final File keyFile;
+        private final long keyFileLastModified;
+        private final File certFile;
+        private final long certFileLastModified;
+
+        SigningCredential(final Credential credential, final File keyFile, final long keyFileLastModified,
+                          final File certFile, final long certFileLastModified) {
+            this.credential = credential;
+            this.keyFile = keyFile;
+            this.keyFileLastModified = keyFileLastModified;
+            this.certFile = certFile;
+            this.certFileLastModified = certFileLastModified;
+        }
+
+        Credential getCredential() {
+            return this.credential;
+        }
+
+        Cache<RoleDescriptor, SignatureSigningParameters> getSigningParameters() {
+            return this.signingParameters;
+        }
+
+        boolean isCurrent(final File currentKeyFile, final File currentCertFile) {
+            return this.keyFile.equals(currentKeyFile) && this.certFile.equals(currentCertFile)
+                    && this.keyFileLastModified == currentKeyFile.lastModified()
+                    && this.certFileLastModified == currentCertFile.lastModified();
+        }
+    }
 }
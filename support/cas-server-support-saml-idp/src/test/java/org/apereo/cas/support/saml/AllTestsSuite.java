@@ -1,5 +1,8 @@
 package org.apereo.cas.support.saml;
 
+import org.apereo.cas.support.saml.services.idp.metadata.cache.ChainingMetadataResolverCacheLoaderTests;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.DefaultSamlRegisteredServiceCachingMetadataResolverTests;
+import org.apereo.cas.support.saml.web.idp.profile.builders.enc.SamlObjectSignerTests;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -10,7 +13,9 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-
+        DefaultSamlRegisteredServiceCachingMetadataResolverTests.class,
+        ChainingMetadataResolverCacheLoaderTests.class,
+        SamlObjectSignerTests.class
 })
 public class AllTestsSuite {
 }
@@ -0,0 +1,128 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import net.shibboleth.utilities.java.support.resolver.CriteriaSet;
+import net.shibboleth.utilities.java.support.xml.BasicParserPool;
+import org.apereo.cas.support.saml.OpenSamlConfigBean;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensaml.core.criterion.EntityIdCriterion;
+import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
+import org.opensaml.saml.metadata.resolver.filter.impl.PredicateFilter;
+import org.opensaml.saml.saml2.metadata.AttributeAuthorityDescriptor;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
+import org.opensaml.saml.saml2.metadata.IDPSSODescriptor;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link ChainingMetadataResolverCacheLoaderTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class ChainingMetadataResolverCacheLoaderTests {
+
+    private static final String ENTITY_ID = "mmoayyed.unicon.net";
+
+    private ChainingMetadataResolverCacheLoader loader;
+
+    private SharedMetadataResolverStore store;
+
+    private static SamlRegisteredService newService(final long id) throws Exception {
+        final SamlRegisteredService service = new SamlRegisteredService();
+        service.setId(id);
+        service.setName("SAMLService" + id);
+        service.setServiceId("http://sp" + id + ".example.org");
+        service.setMetadataLocation(new ClassPathResource("sample-idp-metadata.xml").getFile().getCanonicalPath());
+        service.setMetadataCriteriaRoles("IDPSSODescriptor");
+        return service;
+    }
+
+    private static CriteriaSet newCriteria() {
+        final CriteriaSet criteria = new CriteriaSet();
+        criteria.add(new EntityIdCriterion(ENTITY_ID));
+        return criteria;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final BasicParserPool pool = new BasicParserPool();
+        pool.initialize();
+        final OpenSamlConfigBean configBean = new OpenSamlConfigBean();
+        configBean.setParserPool(pool);
+        configBean.init();
+
+        this.store = new SharedMetadataResolverStore(30);
+        this.loader = new ChainingMetadataResolverCacheLoader();
+        this.loader.setConfigBean(configBean);
+        this.loader.setMetadataCacheExpirationMinutes(30);
+        this.loader.setSharedMetadataResolverStore(this.store);
+    }
+
+    @Test
+    public void verifyMetadataIsSharedAcrossServices() throws Exception {
+        final ChainingMetadataResolver resolver1 = this.loader.load(newService(1));
+        final ChainingMetadataResolver resolver2 = this.loader.load(newService(2));
+
+        final EntityFilteringMetadataResolver view1 = (EntityFilteringMetadataResolver) resolver1.getResolvers().get(0);
+        final EntityFilteringMetadataResolver view2 = (EntityFilteringMetadataResolver) resolver2.getResolvers().get(0);
+        assertSame(view1.getDelegate(), view2.getDelegate());
+        assertEquals(1, this.store.size());
+
+        assertEquals(ENTITY_ID, resolver1.resolveSingle(newCriteria()).getEntityID());
+        assertEquals(ENTITY_ID, resolver2.resolveSingle(newCriteria()).getEntityID());
+    }
+
+    @Test
+    public void verifyServiceCriteriaAreAppliedToSharedMetadata() throws Exception {
+        final SamlRegisteredService spOnly = newService(1);
+        spOnly.setMetadataCriteriaRoles("SPSSODescriptor");
+        assertNull(this.loader.load(spOnly).resolveSingle(newCriteria()));
+
+        final SamlRegisteredService excluded = newService(2);
+        excluded.setMetadataCriteriaDirection(PredicateFilter.Direction.EXCLUDE.name());
+        excluded.setMetadataCriteriaPattern("mmoayyed.+");
+        assertNull(this.loader.load(excluded).resolveSingle(newCriteria()));
+
+        final SamlRegisteredService included = newService(3);
+        included.setMetadataCriteriaDirection(PredicateFilter.Direction.INCLUDE.name());
+        included.setMetadataCriteriaPattern("mmoayyed.+");
+        final ChainingMetadataResolver resolver = this.loader.load(included);
+        assertNotNull(resolver.resolveSingle(newCriteria()));
+        assertTrue(((EntityFilteringMetadataResolver) resolver.getResolvers().get(0)).iterator().hasNext());
+
+        assertEquals(1, this.store.size());
+    }
+
+    @Test
+    public void verifyRoleDescriptorsOutsideServiceCriteriaAreRemoved() throws Exception {
+        final ChainingMetadataResolver resolver = this.loader.load(newService(1));
+        final EntityFilteringMetadataResolver view = (EntityFilteringMetadataResolver) resolver.getResolvers().get(0);
+
+        final EntityDescriptor entity = resolver.resolveSingle(newCriteria());
+        assertEquals(1, entity.getRoleDescriptors().size());
+        assertEquals(IDPSSODescriptor.DEFAULT_ELEMENT_NAME, entity.getRoleDescriptors().get(0).getElementQName());
+        assertSame(entity, resolver.resolveSingle(newCriteria()));
+
+        final EntityDescriptor shared = view.getDelegate().resolveSingle(newCriteria());
+        assertEquals(2, shared.getRoleDescriptors().size());
+        assertFalse(shared.getRoleDescriptors(AttributeAuthorityDescriptor.DEFAULT_ELEMENT_NAME).isEmpty());
+
+        final SamlRegisteredService allRoles = newService(2);
+        allRoles.setMetadataCriteriaRoles(null);
+        assertSame(shared, this.loader.load(allRoles).resolveSingle(newCriteria()));
+    }
+
+    @Test
+    public void verifySharedMetadataSettingsAreNotChangedByView() throws Exception {
+        final EntityFilteringMetadataResolver view =
+                (EntityFilteringMetadataResolver) this.loader.load(newService(1)).getResolvers().get(0);
+        final boolean requireValidMetadata = view.isRequireValidMetadata();
+        view.setRequireValidMetadata(!requireValidMetadata);
+        view.setMetadataFilter(null);
+        assertEquals(requireValidMetadata, view.getDelegate().isRequireValidMetadata());
+        assertNotNull(view.resolveSingle(newCriteria()));
+    }
+}
@@ -0,0 +1,84 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import net.shibboleth.utilities.java.support.xml.BasicParserPool;
+import org.apereo.cas.support.saml.OpenSamlConfigBean;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link DefaultSamlRegisteredServiceCachingMetadataResolverTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class DefaultSamlRegisteredServiceCachingMetadataResolverTests {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private DefaultSamlRegisteredServiceCachingMetadataResolver resolver;
+
+    private static SamlRegisteredService newService(final long id) throws Exception {
+        final SamlRegisteredService service = new SamlRegisteredService();
+        service.setId(id);
+        service.setName("SAMLService" + id);
+        service.setServiceId("http://sp" + id + ".example.org");
+        service.setMetadataLocation(new ClassPathResource("sample-idp-metadata.xml").getFile().getCanonicalPath());
+        return service;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final BasicParserPool pool = new BasicParserPool();
+        pool.initialize();
+        final OpenSamlConfigBean configBean = new OpenSamlConfigBean();
+        configBean.setParserPool(pool);
+        configBean.init();
+
+        final ChainingMetadataResolverCacheLoader loader = new ChainingMetadataResolverCacheLoader();
+        loader.setConfigBean(configBean);
+        loader.setMetadataCacheExpirationMinutes(30);
+
+        this.resolver = new DefaultSamlRegisteredServiceCachingMetadataResolver();
+        this.resolver.setChainingMetadataResolverCacheLoader(loader);
+        this.resolver.setMetadataCacheExpirationMinutes(30);
+        this.resolver.setMetadataCacheRefreshAheadMinutes(5);
+        this.resolver.setMetricRegistry(this.metrics);
+        this.resolver.init();
+    }
+
+    @After
+    public void tearDown() {
+        this.resolver.destroy();
+    }
+
+    @Test
+    public void verifyMetadataIsCachedPerService() throws Exception {
+        final SamlRegisteredService service1 = newService(1);
+        final SamlRegisteredService service2 = newService(2);
+
+        final ChainingMetadataResolver resolver1 = this.resolver.resolve(service1);
+        final ChainingMetadataResolver resolver2 = this.resolver.resolve(service2);
+        assertNotSame(resolver1, resolver2);
+        assertSame(resolver1, this.resolver.resolve(service1));
+        assertSame(resolver2, this.resolver.resolve(service2));
+
+        final String prefix = MetricRegistry.name(DefaultSamlRegisteredServiceCachingMetadataResolver.class, "cache");
+        assertEquals(2L, this.metrics.getGauges().get(MetricRegistry.name(prefix, "size")).getValue());
+        assertEquals(2L, this.metrics.getGauges().get(MetricRegistry.name(prefix, "loads")).getValue());
+        assertEquals(2L, this.metrics.getGauges().get(MetricRegistry.name(prefix, "hits")).getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verifyUnknownMetadataLocationFails() throws Exception {
+        final SamlRegisteredService service = newService(1);
+        service.setMetadataLocation("missing-metadata.xml");
+        this.resolver.resolve(service);
+    }
+}
@@ -0,0 +1,164 @@
+package org.apereo.cas.support.saml.web.idp.profile.builders.enc;
+
+import net.shibboleth.utilities.java.support.xml.BasicParserPool;
+import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.support.saml.OpenSamlConfigBean;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.common.SAMLException;
+import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.xmlsec.SignatureSigningParameters;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This is {@link SamlObjectSignerTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class SamlObjectSignerTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CountingSamlObjectSigner signer;
+
+    private File signingKeyFile;
+
+    private RoleDescriptor descriptor;
+
+    @Before
+    public void setUp() throws Exception {
+        final BasicParserPool pool = new BasicParserPool();
+        pool.initialize();
+        final OpenSamlConfigBean configBean = new OpenSamlConfigBean();
+        configBean.setParserPool(pool);
+        configBean.init();
+
+        final CasConfigurationProperties casProperties = new CasConfigurationProperties();
+        casProperties.getAuthn().getSamlIdp().getMetadata().setLocation(new FileSystemResource(this.folder.getRoot()));
+        this.signingKeyFile = this.folder.newFile("idp-signing.key");
+        this.folder.newFile("idp-signing.crt");
+
+        this.signer = new CountingSamlObjectSigner();
+        ReflectionTestUtils.setField(this.signer, "casProperties", casProperties);
+        this.descriptor = (RoleDescriptor) XMLObjectSupport.buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+    }
+
+    @Test
+    public void verifySigningParametersAreCached() throws Exception {
+        final SignatureSigningParameters params = this.signer.buildSignatureSigningParameters(this.descriptor);
+        assertSame(params, this.signer.buildSignatureSigningParameters(this.descriptor));
+        assertEquals(1, this.signer.credentialLoads.get());
+        assertEquals(1, this.signer.parameterResolutions.get());
+
+        final RoleDescriptor other = (RoleDescriptor) XMLObjectSupport.buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+        assertNotSame(params, this.signer.buildSignatureSigningParameters(other));
+        assertEquals(1, this.signer.credentialLoads.get());
+        assertEquals(2, this.signer.parameterResolutions.get());
+    }
+
+    @Test
+    public void verifySigningParametersAreResolvedAgainWhenCredentialChanges() throws Exception {
+        final SignatureSigningParameters params = this.signer.buildSignatureSigningParameters(this.descriptor);
+        final Credential credential = params.getSigningCredential();
+
+        touch(this.signingKeyFile);
+        final SignatureSigningParameters reloaded = this.signer.buildSignatureSigningParameters(this.descriptor);
+        assertNotSame(params, reloaded);
+        assertNotSame(credential, reloaded.getSigningCredential());
+        assertEquals(2, this.signer.credentialLoads.get());
+        assertEquals(2, this.signer.parameterResolutions.get());
+
+        assertSame(reloaded, this.signer.buildSignatureSigningParameters(this.descriptor));
+        assertEquals(2, this.signer.parameterResolutions.get());
+    }
+
+    @Test
+    public void verifySigningParametersResolvedDuringReloadAreNotCachedForNewCredential() throws Exception {
+        this.signer.duringResolution = () -> {
+            touch(this.signingKeyFile);
+            return this.signer.getSignatureSigningCredential();
+        };
+        final SignatureSigningParameters stale = this.signer.buildSignatureSigningParameters(this.descriptor);
+        final Credential reloaded = this.signer.reloadedDuringResolution;
+        assertNotSame(reloaded, stale.getSigningCredential());
+        assertEquals(2, this.signer.credentialLoads.get());
+
+        final SignatureSigningParameters params = this.signer.buildSignatureSigningParameters(this.descriptor);
+        assertNotSame(stale, params);
+        assertSame(reloaded, params.getSigningCredential());
+        assertEquals(2, this.signer.parameterResolutions.get());
+    }
+
+    private static void touch(final File file) {
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+    }
+
+    @FunctionalInterface
+    private interface Reload {
+        Credential reload() throws Exception;
+    }
+
+    private static class CountingSamlObjectSigner extends SamlObjectSigner {
+        private final KeyPair keyPair;
+
+        private final AtomicInteger credentialLoads = new AtomicInteger();
+
+        private final AtomicInteger parameterResolutions = new AtomicInteger();
+
+        private Reload duringResolution;
+
+        private Credential reloadedDuringResolution;
+
+        CountingSamlObjectSigner() throws Exception {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            this.keyPair = generator.generateKeyPair();
+        }
+
+        @Override
+        protected X509Certificate getSigningCertificate() throws Exception {
+            this.credentialLoads.incrementAndGet();
+            final X509Certificate certificate = mock(X509Certificate.class);
+            when(certificate.getPublicKey()).thenReturn(this.keyPair.getPublic());
+            return certificate;
+        }
+
+        @Override
+        protected PrivateKey getSigningPrivateKey() throws Exception {
+            return this.keyPair.getPrivate();
+        }
+
+        @Override
+        protected SignatureSigningParameters resolveSignatureSigningParameters(final RoleDescriptor descriptor,
+                                                                               final Credential credential) throws SAMLException {
+            this.parameterResolutions.incrementAndGet();
+            if (this.duringResolution != null) {
+                try {
+                    this.reloadedDuringResolution = this.duringResolution.reload();
+                    this.duringResolution = null;
+                } catch (final Exception e) {
+                    throw new SAMLException(e.getMessage(), e);
+                }
+            }
+            return super.resolveSignatureSigningParameters(descriptor, credential);
+        }
+    }
+}
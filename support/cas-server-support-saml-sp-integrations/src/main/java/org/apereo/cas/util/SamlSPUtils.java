@@ -11,8 +11,8 @@ import org.apereo.cas.services.ServicesManager;
 import org.apereo.cas.support.saml.services.SamlRegisteredService;
 import org.apereo.cas.support.saml.services.idp.metadata.cache.SamlRegisteredServiceCachingMetadataResolver;
 import org.opensaml.saml.common.xml.SAMLConstants;
+import org.opensaml.saml.metadata.IterableMetadataSource;
 import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
-import org.opensaml.saml.metadata.resolver.impl.AbstractBatchMetadataResolver;
 import org.opensaml.saml.saml2.metadata.EntityDescriptor;
 import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
 import org.slf4j.Logger;
@@ -78,8 +78,8 @@ public final class SamlSPUtils {
             
             final List<String> builder = Lists.newArrayList();
             chainingResolver.getResolvers().forEach(r -> {
-                if (r instanceof AbstractBatchMetadataResolver) {
-                    final Iterator<EntityDescriptor> it = ((AbstractBatchMetadataResolver) r).iterator();
+                if (r instanceof IterableMetadataSource) {
+                    final Iterator<EntityDescriptor> it = ((IterableMetadataSource) r).iterator();
                     final Optional<EntityDescriptor> descriptor =
                             StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
                                     .filter(e -> e.getSPSSODescriptor(SAMLConstants.SAML20P_NS) != null)
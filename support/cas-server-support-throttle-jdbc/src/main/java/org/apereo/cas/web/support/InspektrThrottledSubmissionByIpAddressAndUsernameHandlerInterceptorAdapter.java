@@ -1,5 +1,6 @@
 package org.apereo.cas.web.support;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.util.DateTimeUtils;
 import org.apereo.inspektr.audit.AuditActionContext;
 import org.apereo.inspektr.audit.AuditPointRuntimeInfo;
@@ -7,6 +8,7 @@ import org.apereo.inspektr.audit.AuditTrailManager;
 import org.apereo.inspektr.common.web.ClientInfo;
 import org.apereo.inspektr.common.web.ClientInfoHolder;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
@@ -15,7 +17,14 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
 
 /**
  * Works in conjunction with the Inspektr Library to block attempts to dictionary attack users.
@@ -25,6 +34,12 @@ import java.util.List;
  * <p>
  * This relies on the default Inspektr table layout and username construction.  The username construction can be overridden
  * in a subclass.
+ * <p>
+ * By default, the times of the last two failures for each IP address and username are tracked in memory,
+ * so that checking a request does not query the database. That state is rebuilt from the audit table on startup,
+ * and may be periodically reloaded from it to account for failures recorded by other nodes.
+ * At most {@code maxEntries} IP addresses and usernames are tracked; when that limit is reached,
+ * those whose last failure is the oldest are evicted first.
  *
  * @author Scott Battaglia
  * @since 3.3.5
@@ -35,6 +50,12 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
     private static final double NUMBER_OF_MILLISECONDS_IN_SECOND = 1000.0;
 
     private static final String INSPEKTR_ACTION = "THROTTLED_LOGIN_ATTEMPT";
+
+    private static final int RECENT_FAILURE_DATE_COLUMN = 3;
+
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private static final int EVICTION_RATIO = 10;
     
     private AuditTrailManager auditTrailManager;
 
@@ -46,7 +67,17 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
 
     private String sqlQueryAudit;
 
+    private String sqlQueryRecentFailures;
+
+    private boolean inMemory;
+
+    private boolean synchronize;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
     private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMap<String, FailureWindow> failures = new ConcurrentHashMap<>();
     
     /**
      * Instantiates a new Inspektr throttled submission by ip address and username handler interceptor adapter.
@@ -73,6 +104,9 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
     public void init() {
         if (this.dataSource != null) {
             this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+            if (this.inMemory && StringUtils.isNotBlank(this.sqlQueryRecentFailures)) {
+                loadRecentFailures();
+            }
         } else {
             logger.debug("No data source is defined for {}. Ignoring the construction of JDBC template",
                     this.getName());
@@ -83,6 +117,10 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
     public boolean exceedsThreshold(final HttpServletRequest request) {
         if (this.dataSource != null && this.jdbcTemplate != null) {
             final String userToUse = constructUsername(request, getUsernameParameter());
+            if (this.inMemory) {
+                final FailureWindow window = this.failures.get(constructKey(ClientInfoHolder.getClientInfo().getClientIpAddress(), userToUse));
+                return window != null && window.exceeds(System.currentTimeMillis() - getFailureRangeInMillis(), getThresholdRate());
+            }
             final ZonedDateTime cutoff = ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(getFailureRangeInSeconds());
 
             final ClientInfo clientInfo = ClientInfoHolder.getClientInfo();
@@ -107,9 +145,98 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
 
     @Override
     public void recordSubmissionFailure(final HttpServletRequest request) {
+        if (this.inMemory) {
+            final String userToUse = constructUsername(request, getUsernameParameter());
+            if (StringUtils.isNotBlank(userToUse)) {
+                final String key = constructKey(ClientInfoHolder.getClientInfo().getClientIpAddress(), userToUse);
+                final long now = System.currentTimeMillis();
+                this.failures.compute(key, (k, window) -> {
+                    final FailureWindow result = window == null ? new FailureWindow() : window;
+                    result.record(now);
+                    return result;
+                });
+                if (this.failures.size() > this.maxEntries) {
+                    evict();
+                }
+            }
+        }
         recordThrottle(request);
     }
 
+    /**
+     * Removes failures that fall outside the failure range, and reloads failures from
+     * the audit table if synchronization is turned on.
+     */
+    @Override
+    public void decrement() {
+        if (!this.inMemory) {
+            super.decrement();
+            return;
+        }
+        if (this.synchronize && this.jdbcTemplate != null && StringUtils.isNotBlank(this.sqlQueryRecentFailures)) {
+            loadRecentFailures();
+        }
+        final long cutoff = System.currentTimeMillis() - getFailureRangeInMillis();
+        this.failures.values().removeIf(window -> window.isBefore(cutoff));
+        logger.debug("Tracking failures for [{}] IP addresses and usernames", this.failures.size());
+    }
+
+    /**
+     * Load failures recorded within the failure range from the audit table.
+     * Each tracked entry is updated in place, and failures recorded in memory after the table is read are kept.
+     */
+    private void loadRecentFailures() {
+        try {
+            final long start = System.currentTimeMillis();
+            final ZonedDateTime cutoff = ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(getFailureRangeInSeconds());
+            final Map<String, FailureWindow> loaded = new HashMap<>();
+            this.jdbcTemplate.query(this.sqlQueryRecentFailures,
+                    new Object[]{this.authenticationFailureCode, this.applicationCode, DateTimeUtils.timestampOf(cutoff)},
+                    new int[]{Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP},
+                    (RowCallbackHandler) rs -> loaded.computeIfAbsent(constructKey(rs.getString(1), rs.getString(2)),
+                            k -> new FailureWindow()).record(rs.getTimestamp(RECENT_FAILURE_DATE_COLUMN).getTime()));
+            loaded.forEach((key, failure) -> this.failures.compute(key, (k, window) -> {
+                if (window == null) {
+                    return failure;
+                }
+                window.reload(failure, start);
+                return window;
+            }));
+            this.failures.keySet().stream()
+                    .filter(key -> !loaded.containsKey(key))
+                    .forEach(key -> this.failures.computeIfPresent(key, (k, window) -> {
+                        window.reload(new FailureWindow(), start);
+                        return window.isEmpty() ? null : window;
+                    }));
+            if (this.failures.size() > this.maxEntries) {
+                evict();
+            }
+            logger.debug("Loaded failures for [{}] IP addresses and usernames from the audit table", loaded.size());
+        } catch (final Exception e) {
+            logger.warn("Unable to load recent failures from the audit table: [{}]", e.getMessage());
+            logger.debug(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Evict entries whose failures fall outside the failure range and, if there are still too many,
+     * the entries whose last failure is the oldest, so that a tenth of the limit is free again.
+     */
+    private synchronized void evict() {
+        final long cutoff = System.currentTimeMillis() - getFailureRangeInMillis();
+        this.failures.values().removeIf(window -> window.isBefore(cutoff));
+        final int excess = this.failures.size() - (this.maxEntries - this.maxEntries / EVICTION_RATIO);
+        if (excess > 0) {
+            logger.warn("Tracking failures for more than [{}] IP addresses and usernames; evicting [{}] of them",
+                    this.maxEntries, excess);
+            this.failures.entrySet().stream()
+                    .map(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().getLatest()))
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(excess)
+                    .forEach(entry -> this.failures.remove(entry.getKey()));
+        }
+    }
+
     @Override
     protected void recordThrottle(final HttpServletRequest request) {
         if (this.dataSource != null && this.jdbcTemplate != null) {
@@ -152,6 +279,30 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
         this.sqlQueryAudit = sqlQueryAudit;
     }
 
+    public void setSqlQueryRecentFailures(final String sqlQueryRecentFailures) {
+        this.sqlQueryRecentFailures = sqlQueryRecentFailures;
+    }
+
+    public void setInMemory(final boolean inMemory) {
+        this.inMemory = inMemory;
+    }
+
+    public void setSynchronize(final boolean synchronize) {
+        this.synchronize = synchronize;
+    }
+
+    public void setMaxEntries(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    private long getFailureRangeInMillis() {
+        return TimeUnit.SECONDS.toMillis(getFailureRangeInSeconds());
+    }
+
+    private static String constructKey(final String remoteAddress, final String username) {
+        return remoteAddress + ';' + username;
+    }
+
     /**
      * Construct username from the request.
      *
@@ -167,4 +318,70 @@ public class InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
     public String getName() {
         return "inspektrIpAddressUsernameThrottle";
     }
+
+    /**
+     * Times of the last two failures for an IP address and username.
+     */
+    private static class FailureWindow {
+        private long latest;
+
+        private long previous;
+
+        /**
+         * Record a failure.
+         *
+         * @param time the time of the failure
+         */
+        synchronized void record(final long time) {
+            if (time >= this.latest) {
+                this.previous = this.latest;
+                this.latest = time;
+            } else if (time > this.previous) {
+                this.previous = time;
+            }
+        }
+
+        /**
+         * Whether the rate in submissions/sec between the last two failures after the cutoff exceeds the threshold rate.
+         *
+         * @param cutoff        the cutoff
+         * @param thresholdRate the threshold rate
+         * @return true/false
+         */
+        synchronized boolean exceeds(final long cutoff, final double thresholdRate) {
+            return this.previous > 0 && this.previous >= cutoff
+                    && NUMBER_OF_MILLISECONDS_IN_SECOND / (this.latest - this.previous) > thresholdRate;
+        }
+
+        synchronized boolean isBefore(final long cutoff) {
+            return this.latest < cutoff;
+        }
+
+        synchronized boolean isEmpty() {
+            return this.latest == 0;
+        }
+
+        synchronized long getLatest() {
+            return this.latest;
+        }
+
+        /**
+         * Replace the failures with those that were loaded, keeping the failures recorded since the given time.
+         *
+         * @param loaded the failures that were loaded
+         * @param time   the time at which failures were loaded
+         */
+        void reload(final FailureWindow loaded, final long time) {
+            final long[] times;
+            synchronized (loaded) {
+                times = new long[]{loaded.previous, loaded.latest};
+            }
+            synchronized (this) {
+                final long[] kept = LongStream.of(this.previous, this.latest).filter(t -> t >= time).toArray();
+                this.previous = 0;
+                this.latest = 0;
+                LongStream.concat(LongStream.of(times).filter(t -> t > 0), LongStream.of(kept)).forEach(this::record);
+            }
+        }
+    }
 }
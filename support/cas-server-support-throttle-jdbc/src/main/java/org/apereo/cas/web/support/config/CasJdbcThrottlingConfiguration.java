@@ -52,6 +52,10 @@ public class CasJdbcThrottlingConfiguration {
         bean.setApplicationCode(casProperties.getAuthn().getThrottle().getAppcode());
         bean.setAuthenticationFailureCode(casProperties.getAuthn().getThrottle().getFailure().getCode());
         bean.setSqlQueryAudit(casProperties.getAuthn().getThrottle().getJdbc().getAuditQuery());
+        bean.setSqlQueryRecentFailures(casProperties.getAuthn().getThrottle().getJdbc().getRecentFailuresQuery());
+        bean.setInMemory(casProperties.getAuthn().getThrottle().getJdbc().isInMemory());
+        bean.setSynchronize(casProperties.getAuthn().getThrottle().getJdbc().isSynchronize());
+        bean.setMaxEntries(casProperties.getAuthn().getThrottle().getJdbc().getMaxEntries());
         return configureThrottleHandlerInterceptorAdaptor(bean);
     }
 
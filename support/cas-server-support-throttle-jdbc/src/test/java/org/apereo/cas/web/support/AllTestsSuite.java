@@ -11,7 +11,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses(
-        InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapterTests.class
+        InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapterTests.class,
+        InMemoryInspektrThrottledSubmissionHandlerInterceptorAdapterTests.class
 )
 public class AllTestsSuite {
 }
@@ -0,0 +1,188 @@
+package org.apereo.cas.web.support;
+
+import org.apereo.inspektr.audit.AuditActionContext;
+import org.apereo.inspektr.common.web.ClientInfo;
+import org.apereo.inspektr.common.web.ClientInfoHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link InMemoryInspektrThrottledSubmissionHandlerInterceptorAdapterTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class InMemoryInspektrThrottledSubmissionHandlerInterceptorAdapterTests {
+
+    private static final String IP_ADDRESS = "1.2.3.4";
+
+    private static final String FAILURE_CODE = "AUTHENTICATION_FAILED";
+
+    private static final String APP_CODE = "CAS";
+
+    private static final String RECENT_FAILURES_QUERY = "SELECT AUD_CLIENT_IP, AUD_USER, AUD_DATE FROM COM_AUDIT_TRAIL "
+            + "WHERE AUD_ACTION = ? AND APPLIC_CD = ? AND AUD_DATE >= ?";
+
+    private final List<AuditActionContext> audits = new ArrayList<>();
+
+    private DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        this.dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:cas-throttle-" + System.nanoTime(), "sa", "");
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.jdbcTemplate.execute("CREATE TABLE COM_AUDIT_TRAIL (AUD_USER VARCHAR(100), AUD_CLIENT_IP VARCHAR(15), "
+                + "AUD_SERVER_IP VARCHAR(15), AUD_RESOURCE VARCHAR(100), AUD_ACTION VARCHAR(100), "
+                + "APPLIC_CD VARCHAR(5), AUD_DATE TIMESTAMP)");
+        ClientInfoHolder.setClientInfo(new ClientInfo(IP_ADDRESS, IP_ADDRESS));
+    }
+
+    @After
+    public void tearDown() {
+        this.jdbcTemplate.execute("SHUTDOWN");
+        ClientInfoHolder.setClientInfo(null);
+    }
+
+    @Test
+    public void verifyFailuresAreTrackedInMemory() {
+        final InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter throttle = newThrottle(false);
+        this.jdbcTemplate.execute("DROP TABLE COM_AUDIT_TRAIL");
+
+        final MockHttpServletRequest request = newRequest("casuser");
+        assertFalse(throttle.exceedsThreshold(request));
+        throttle.recordSubmissionFailure(request);
+        assertFalse(throttle.exceedsThreshold(request));
+        throttle.recordSubmissionFailure(request);
+        assertTrue(throttle.exceedsThreshold(request));
+        assertFalse(throttle.exceedsThreshold(newRequest("someone")));
+        assertEquals(2, this.audits.size());
+    }
+
+    @Test
+    public void verifyFailuresAreLoadedOnStartup() {
+        final long now = System.currentTimeMillis();
+        insertFailure("casuser", now - 100);
+        insertFailure("casuser", now - 50);
+        insertFailure("someone", now - 60000);
+        insertFailure("someone", now - 59950);
+
+        final InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter throttle = newThrottle(false);
+        assertTrue(throttle.exceedsThreshold(newRequest("casuser")));
+        assertFalse(throttle.exceedsThreshold(newRequest("someone")));
+    }
+
+    @Test
+    public void verifyFailuresAreSynchronized() {
+        final InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter throttle = newThrottle(true);
+        final MockHttpServletRequest request = newRequest("casuser");
+        assertFalse(throttle.exceedsThreshold(request));
+
+        final long now = System.currentTimeMillis();
+        insertFailure("casuser", now - 100);
+        insertFailure("casuser", now - 50);
+        throttle.decrement();
+        assertTrue(throttle.exceedsThreshold(request));
+
+        this.jdbcTemplate.update("DELETE FROM COM_AUDIT_TRAIL");
+        throttle.decrement();
+        assertFalse(throttle.exceedsThreshold(request));
+    }
+
+    @Test
+    public void verifyFailuresRecordedDuringReloadAreKept() {
+        final MockHttpServletRequest request = newRequest("casuser");
+        final AtomicReference<Runnable> onConnection = new AtomicReference<>();
+        final InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter throttle =
+                newThrottle(true, new DelegatingDataSource(this.dataSource) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        final Runnable action = onConnection.getAndSet(null);
+                        if (action != null) {
+                            action.run();
+                        }
+                        return super.getConnection();
+                    }
+                });
+        final long now = System.currentTimeMillis();
+        insertFailure("casuser", now - 100);
+        throttle.recordSubmissionFailure(request);
+        assertFalse(throttle.exceedsThreshold(request));
+
+        onConnection.set(() -> throttle.recordSubmissionFailure(request));
+        throttle.decrement();
+        assertNull(onConnection.get());
+        assertTrue(throttle.exceedsThreshold(request));
+    }
+
+    @Test
+    public void verifyNumberOfTrackedFailuresIsCapped() {
+        final InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter throttle = newThrottle(false);
+        throttle.setMaxEntries(10);
+        this.jdbcTemplate.execute("DROP TABLE COM_AUDIT_TRAIL");
+
+        final MockHttpServletRequest request = newRequest("casuser");
+        throttle.recordSubmissionFailure(request);
+        throttle.recordSubmissionFailure(request);
+        for (int i = 0; i < 100; i++) {
+            throttle.recordSubmissionFailure(newRequest("user" + i));
+        }
+        final Map<?, ?> failures = (Map<?, ?>) ReflectionTestUtils.getField(throttle, "failures");
+        assertTrue(failures.size() <= 10);
+        assertFalse(throttle.exceedsThreshold(request));
+        assertTrue(failures.containsKey(IP_ADDRESS + ";user99"));
+    }
+
+    private InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter newThrottle(final boolean synchronize) {
+        return newThrottle(synchronize, this.dataSource);
+    }
+
+    private InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter newThrottle(final boolean synchronize,
+                                                                                                  final DataSource dataSource) {
+        final InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter throttle =
+                new InspektrThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter(this.audits::add, dataSource);
+        throttle.setApplicationCode(APP_CODE);
+        throttle.setAuthenticationFailureCode(FAILURE_CODE);
+        throttle.setSqlQueryRecentFailures(RECENT_FAILURES_QUERY);
+        throttle.setInMemory(true);
+        throttle.setSynchronize(synchronize);
+        throttle.setUsernameParameter("username");
+        throttle.setFailureThreshold(10);
+        throttle.setFailureRangeInSeconds(5);
+        throttle.afterPropertiesSet();
+        throttle.init();
+        return throttle;
+    }
+
+    private void insertFailure(final String username, final long time) {
+        this.jdbcTemplate.update("INSERT INTO COM_AUDIT_TRAIL (AUD_USER, AUD_CLIENT_IP, AUD_SERVER_IP, AUD_RESOURCE, "
+                + "AUD_ACTION, APPLIC_CD, AUD_DATE) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                username, IP_ADDRESS, IP_ADDRESS, username, FAILURE_CODE, APP_CODE, new Timestamp(time));
+    }
+
+    private static MockHttpServletRequest newRequest(final String username) {
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setMethod("POST");
+        request.setParameter("username", username);
+        request.setRemoteAddr(IP_ADDRESS);
+        return request;
+    }
+}
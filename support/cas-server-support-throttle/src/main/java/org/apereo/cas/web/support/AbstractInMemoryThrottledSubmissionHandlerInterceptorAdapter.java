@@ -1,17 +1,15 @@
 package org.apereo.cas.web.support;
 
 import javax.servlet.http.HttpServletRequest;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of a HandlerInterceptorAdapter that keeps track of a mapping
  * of IP Addresses to number of failures to authenticate.
+ * <p>
+ * Failures are tracked in {@link ThrottledSubmissionBuckets}, which hold a token bucket per key
+ * in a table of bounded size. With the default capacity of one token, a submission is throttled if it
+ * follows the last failure faster than the threshold rate allows. Throttling is turned off when the
+ * failure threshold or range is not positive.
  *
  * @author Scott Battaglia
  * @since 3.0.0
@@ -20,19 +18,37 @@ public abstract class AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapt
         extends AbstractThrottledSubmissionHandlerInterceptorAdapter
         implements InMemoryThrottledSubmissionHandlerInterceptor {
 
-    private static final double SUBMISSION_RATE_DIVIDEND = 1000.0;
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
 
-    private ConcurrentMap<String, ZonedDateTime> ipMap = new ConcurrentHashMap<>();
+    private int capacity = 1;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private ThrottledSubmissionBuckets buckets;
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (getFailureThreshold() <= 0 || getFailureRangeInSeconds() <= 0) {
+            logger.warn("Failure threshold [{}] and range [{}] seconds must both be positive to throttle submissions. "
+                    + "Throttling is turned off", getFailureThreshold(), getFailureRangeInSeconds());
+            this.buckets = null;
+            return;
+        }
+        this.buckets = new ThrottledSubmissionBuckets(getThresholdRate(), this.capacity, this.maxEntries);
+        logger.debug("Tracking up to {} keys with buckets of {} tokens", this.buckets.getMaxEntries(), this.capacity);
+    }
 
     @Override
     public boolean exceedsThreshold(final HttpServletRequest request) {
-        final ZonedDateTime last = this.ipMap.get(constructKey(request));
-        return last != null && submissionRate(ZonedDateTime.now(ZoneOffset.UTC), last) > getThresholdRate();
+        return this.buckets != null && this.buckets.isEmpty(constructKey(request), System.currentTimeMillis());
     }
 
     @Override
     public void recordSubmissionFailure(final HttpServletRequest request) {
-        this.ipMap.put(constructKey(request), ZonedDateTime.now(ZoneOffset.UTC));
+        if (this.buckets != null) {
+            this.buckets.take(constructKey(request), System.currentTimeMillis());
+        }
     }
     
     /**
@@ -41,30 +57,21 @@ public abstract class AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapt
      */
     @Override
     public void decrement() {
+        if (this.buckets == null) {
+            logger.debug("Throttling is turned off. No cleanup will take place");
+            return;
+        }
         logger.info("Beginning audit cleanup...");
+        final int count = this.buckets.expire(System.currentTimeMillis());
+        logger.debug("Done decrementing count for throttler. Remaining key count: {}, evicted keys: {}",
+                count, this.buckets.getEvictions());
+    }
 
-        final Set<Entry<String, ZonedDateTime>> keys = this.ipMap.entrySet();
-        logger.debug("Decrementing counts for throttler.  Starting key count: {}", keys.size());
-
-        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
-        for (final Iterator<Entry<String, ZonedDateTime>> iter = keys.iterator(); iter.hasNext();) {
-            final Entry<String, ZonedDateTime> entry = iter.next();
-            if (submissionRate(now, entry.getValue()) < getThresholdRate()) {
-                logger.trace("Removing entry for key {}", entry.getKey());
-                iter.remove();
-            }
-        }
-        logger.debug("Done decrementing count for throttler.");
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
     }
 
-    /**
-     * Computes the instantaneous rate in between two given dates corresponding to two submissions.
-     *
-     * @param a First date.
-     * @param b Second date.
-     * @return Instantaneous submission rate in submissions/sec, e.g. {@code a - b}.
-     */
-    private static double submissionRate(final ZonedDateTime a, final ZonedDateTime b) {
-        return SUBMISSION_RATE_DIVIDEND / (a.toInstant().toEpochMilli() - b.toInstant().toEpochMilli());
+    public void setMaxEntries(final int maxEntries) {
+        this.maxEntries = maxEntries;
     }
 }
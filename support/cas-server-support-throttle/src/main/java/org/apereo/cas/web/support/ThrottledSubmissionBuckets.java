@@ -0,0 +1,219 @@
+package org.apereo.cas.web.support;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link ThrottledSubmissionBuckets}. It keeps a token bucket of failed submissions
+ * for each key, in a table of fixed size that does not allocate once created.
+ * <p>
+ * Each bucket holds up to {@code capacity} tokens and is refilled at the threshold rate.
+ * A failure takes a token, and submissions are throttled once the bucket is empty.
+ * A bucket is stored as a single timestamp, which is the time at which it is full again,
+ * next to a 64-bit hash of its key. Buckets that are full are free, so entries expire lazily.
+ * <p>
+ * The table is split into stripes that are locked separately. Each key may be stored in a short
+ * run of slots in its stripe. When that run holds no free slot, the bucket that is due to be full
+ * the soonest is evicted, which caps memory no matter how many distinct keys are seen.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class ThrottledSubmissionBuckets {
+
+    private static final int STRIPES = 64;
+
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+
+    private static final int PROBE_LENGTH = 8;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    private static final int MIX_SHIFT = 33;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final long emissionIntervalInMillis;
+
+    private final long burstInMillis;
+
+    /**
+     * Instantiates new buckets.
+     *
+     * @param thresholdRate the rate of failures per second at which buckets are refilled
+     * @param capacity      the number of tokens a bucket holds
+     * @param maxEntries    the maximum number of buckets that are kept
+     */
+    public ThrottledSubmissionBuckets(final double thresholdRate, final int capacity, final int maxEntries) {
+        if (thresholdRate <= 0 || capacity <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Threshold rate, capacity and maximum number of entries must be positive");
+        }
+        this.emissionIntervalInMillis = Math.max(1, Math.round(TimeUnit.SECONDS.toMillis(1) / thresholdRate));
+        this.burstInMillis = this.emissionIntervalInMillis * capacity;
+
+        final int stripeSize = Math.max(PROBE_LENGTH, Integer.highestOneBit(Math.max(1, (maxEntries - 1) / STRIPES)) << 1);
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * Whether the bucket for the key is empty.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     * @return true if submissions for the key should be throttled
+     */
+    public boolean isEmpty(final String key, final long now) {
+        final long hash = hash(key);
+        return stripeOf(hash).fullAt(hash) - now > this.burstInMillis - this.emissionIntervalInMillis;
+    }
+
+    /**
+     * Take a token from the bucket for the key.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     */
+    public void take(final String key, final long now) {
+        final long hash = hash(key);
+        stripeOf(hash).take(hash, now, this.emissionIntervalInMillis, this.burstInMillis);
+    }
+
+    /**
+     * Free the buckets that are full.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of buckets that remain in use
+     */
+    public int expire(final long now) {
+        int count = 0;
+        for (final Stripe stripe : this.stripes) {
+            count += stripe.expire(now);
+        }
+        return count;
+    }
+
+    /**
+     * The maximum number of buckets that are kept.
+     *
+     * @return the capacity of the table
+     */
+    public int getMaxEntries() {
+        return STRIPES * this.stripes[0].hashes.length;
+    }
+
+    /**
+     * The number of buckets that were evicted to make room for others.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        long count = 0;
+        for (final Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                count += stripe.evictions;
+            }
+        }
+        return count;
+    }
+
+    private Stripe stripeOf(final long hash) {
+        return this.stripes[(int) (hash >>> STRIPE_SHIFT)];
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of the key, with a final mix so that high bits select the stripe
+     * and low bits select the slot. Zero is reserved for free slots.
+     *
+     * @param key the key
+     * @return the hash
+     */
+    private static long hash(final String key) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * FNV_PRIME;
+        }
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_1;
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_2;
+        h ^= h >>> MIX_SHIFT;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * A stripe of the table, with its own lock.
+     */
+    private static class Stripe {
+        private final long[] hashes;
+
+        private final long[] fullAt;
+
+        private final int mask;
+
+        private long evictions;
+
+        Stripe(final int size) {
+            this.hashes = new long[size];
+            this.fullAt = new long[size];
+            this.mask = size - 1;
+        }
+
+        synchronized long fullAt(final long hash) {
+            final int start = (int) hash & this.mask;
+            for (int i = 0; i < PROBE_LENGTH; i++) {
+                final int slot = (start + i) & this.mask;
+                if (this.hashes[slot] == hash) {
+                    return this.fullAt[slot];
+                }
+            }
+            return 0;
+        }
+
+        synchronized void take(final long hash, final long now, final long emissionInterval, final long burst) {
+            final int start = (int) hash & this.mask;
+            int target = -1;
+            int soonest = start;
+            for (int i = 0; i < PROBE_LENGTH; i++) {
+                final int slot = (start + i) & this.mask;
+                if (this.hashes[slot] == hash) {
+                    target = slot;
+                    break;
+                }
+                if (target < 0 && this.fullAt[slot] <= now) {
+                    target = slot;
+                } else if (this.fullAt[slot] < this.fullAt[soonest]) {
+                    soonest = slot;
+                }
+            }
+            if (target < 0) {
+                target = soonest;
+                this.evictions++;
+            }
+            final long base = this.hashes[target] == hash ? Math.max(this.fullAt[target], now) : now;
+            this.hashes[target] = hash;
+            this.fullAt[target] = Math.min(base + emissionInterval, now + burst);
+        }
+
+        synchronized int expire(final long now) {
+            int count = 0;
+            for (int slot = 0; slot < this.hashes.length; slot++) {
+                if (this.hashes[slot] != 0) {
+                    if (this.fullAt[slot] <= now) {
+                        this.hashes[slot] = 0;
+                        this.fullAt[slot] = 0;
+                    } else {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
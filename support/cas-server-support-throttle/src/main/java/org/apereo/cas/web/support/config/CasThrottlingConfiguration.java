@@ -44,6 +44,13 @@ public class CasThrottlingConfiguration {
             }
             return inMemoryIpAddressThrottle();
         }
+        if (casProperties.getAuthn().getThrottle().getFailure().getThreshold() > 0
+                || casProperties.getAuthn().getThrottle().getFailure().getRangeSeconds() > 0) {
+            LOGGER.warn("Both cas.authn.throttle.failure.threshold [{}] and cas.authn.throttle.failure.rangeSeconds [{}] "
+                            + "must be positive to throttle authentication attempts. Throttling is turned off",
+                    casProperties.getAuthn().getThrottle().getFailure().getThreshold(),
+                    casProperties.getAuthn().getThrottle().getFailure().getRangeSeconds());
+        }
         return neverThrottle();
     }
 
@@ -79,6 +86,8 @@ public class CasThrottlingConfiguration {
 
     private ThrottledSubmissionHandlerInterceptor
     configureInMemoryInterceptorAdaptor(final AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapter interceptorAdapter) {
+        interceptorAdapter.setCapacity(casProperties.getAuthn().getThrottle().getBucket().getCapacity());
+        interceptorAdapter.setMaxEntries(casProperties.getAuthn().getThrottle().getBucket().getMaxEntries());
         return configureThrottleHandlerInterceptorAdaptor(interceptorAdapter);
     }
 
@@ -0,0 +1,102 @@
+package org.apereo.cas.web.support;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link ThrottledSubmissionBucketsTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class ThrottledSubmissionBucketsTests {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThrottledSubmissionBucketsTests.class);
+
+    private static final String KEY = "1.2.3.4;casuser";
+
+    private static final int ATTACKERS = 1_000_000;
+
+    @Test
+    public void verifySingleTokenThrottlesFasterFailures() {
+        final ThrottledSubmissionBuckets buckets = new ThrottledSubmissionBuckets(2, 1, 100);
+        assertFalse(buckets.isEmpty(KEY, 1000));
+        buckets.take(KEY, 1000);
+        assertTrue(buckets.isEmpty(KEY, 1200));
+        assertFalse(buckets.isEmpty(KEY, 1500));
+        assertFalse(buckets.isEmpty("1.2.3.4;someone", 1200));
+    }
+
+    @Test
+    public void verifyCapacityAllowsBursts() {
+        final ThrottledSubmissionBuckets buckets = new ThrottledSubmissionBuckets(2, 3, 100);
+        buckets.take(KEY, 1000);
+        buckets.take(KEY, 1000);
+        assertFalse(buckets.isEmpty(KEY, 1000));
+        buckets.take(KEY, 1000);
+        assertTrue(buckets.isEmpty(KEY, 1000));
+        assertFalse(buckets.isEmpty(KEY, 1500));
+
+        for (int i = 0; i < 10; i++) {
+            buckets.take(KEY, 2000);
+        }
+        assertFalse(buckets.isEmpty(KEY, 3000));
+    }
+
+    @Test
+    public void verifyFullBucketsExpire() {
+        final ThrottledSubmissionBuckets buckets = new ThrottledSubmissionBuckets(2, 1, 100);
+        buckets.take(KEY, 1000);
+        buckets.take("1.2.3.4;someone", 1400);
+        assertEquals(1, buckets.expire(1600));
+        assertEquals(0, buckets.expire(2000));
+    }
+
+    @Test
+    public void verifyBucketsAreEvictedWhenTableIsFull() {
+        final ThrottledSubmissionBuckets buckets = new ThrottledSubmissionBuckets(2, 1, 1000);
+        final int attackers = buckets.getMaxEntries() * 4;
+        for (int i = 0; i < attackers; i++) {
+            buckets.take("10.0." + (i >>> 8) + '.' + (i & 0xff) + ";casuser", 1000);
+        }
+        assertTrue(buckets.expire(1000) <= buckets.getMaxEntries());
+        assertTrue(buckets.getEvictions() >= attackers - buckets.getMaxEntries());
+
+        buckets.take(KEY, 1000);
+        assertTrue(buckets.isEmpty(KEY, 1000));
+        assertEquals(0, buckets.expire(2000));
+    }
+
+    /**
+     * Records failures from a million distinct addresses, and reports the time it took.
+     * The benchmark is not run by default, and may be run with {@code -DthrottledSubmissionBucketsBenchmark=true}.
+     */
+    @Test
+    public void verifyMillionDistinctAttackers() {
+        Assume.assumeTrue(Boolean.getBoolean("throttledSubmissionBucketsBenchmark"));
+        final ThrottledSubmissionBuckets buckets = new ThrottledSubmissionBuckets(2, 1, 100_000);
+        final long now = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        for (int i = 0; i < ATTACKERS; i++) {
+            final String key = ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + '.' + (i & 0xff) + ".1;casuser";
+            buckets.isEmpty(key, now);
+            buckets.take(key, now);
+        }
+        final long elapsed = System.nanoTime() - start;
+        LOGGER.info("Recorded failures from [{}] addresses in [{}] ms; tracking [{}] of at most [{}] keys, evicted [{}]",
+                ATTACKERS, TimeUnit.NANOSECONDS.toMillis(elapsed), buckets.expire(now), buckets.getMaxEntries(),
+                buckets.getEvictions());
+
+        assertTrue(buckets.expire(now) <= buckets.getMaxEntries());
+        assertTrue(buckets.getEvictions() >= ATTACKERS - buckets.getMaxEntries());
+
+        buckets.take(KEY, now);
+        assertTrue(buckets.isEmpty(KEY, now));
+        assertEquals(0, buckets.expire(now + TimeUnit.SECONDS.toMillis(1)));
+    }
+}
@@ -3,6 +3,7 @@ package org.apereo.cas.adaptors.x509.authentication.revocation.checker;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.Element;
 import org.apereo.cas.adaptors.x509.authentication.CRLFetcher;
@@ -14,8 +15,8 @@ import org.bouncycastle.asn1.x509.DistributionPoint;
 import org.bouncycastle.asn1.x509.DistributionPointName;
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.cryptacular.x509.ExtensionReader;
-import org.springframework.core.io.ByteArrayResource;
 
+import javax.annotation.PreDestroy;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
@@ -24,7 +25,14 @@ import java.nio.charset.StandardCharsets;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Performs CRL-based revocation checking by consulting resources defined in
@@ -34,18 +42,34 @@ import java.util.List;
  * implementation.  This implementation caches CRL resources fetched from remote
  * URLs to improve performance by avoiding CRL fetching on every revocation
  * check.
+ * <p>
+ * CRLs are cached in parsed form, with their revoked entries indexed by serial number,
+ * so that revocation checks do not grow with the size of the CRL. Distribution points
+ * are fetched once when concurrently requested, and CRLs that are in use are fetched
+ * again in the background once they are due to be updated, as indicated by their
+ * {@code nextUpdate} field.
  *
  * @author Marvin S. Addison
  * @since 3.4.6
  */
 public class CRLDistributionPointRevocationChecker extends AbstractCRLRevocationChecker {
-    
+    private static final long DEFAULT_REFRESH_RETRY_INTERVAL = 300;
+
     private Cache crlCache;
     
     private CRLFetcher fetcher;
 
     private boolean throwOnFetchFailure;
 
+    /** Number of seconds after which a CRL is fetched again, if it could not be refreshed when due. */
+    private long refreshRetryInterval = DEFAULT_REFRESH_RETRY_INTERVAL;
+
+    private final Map<URI, Object> fetchLocks = new ConcurrentHashMap<>();
+
+    private final Map<URI, ScheduledFuture<?>> refreshTasks = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
     /**
      * Used for serialization and auto wiring.
      */
@@ -96,6 +120,16 @@ public class CRLDistributionPointRevocationChecker extends AbstractCRLRevocation
         this.throwOnFetchFailure = throwOnFetchFailure;
     }
 
+    /**
+     * Sets the number of seconds after which a CRL is fetched again,
+     * if it could not be refreshed when due. Defaults to 5 minutes.
+     *
+     * @param refreshRetryInterval the refresh retry interval in seconds
+     */
+    public void setRefreshRetryInterval(final long refreshRetryInterval) {
+        this.refreshRetryInterval = refreshRetryInterval;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -125,32 +159,17 @@ public class CRLDistributionPointRevocationChecker extends AbstractCRLRevocation
         try {
             for (int index = 0; !stopFetching && index < urls.length; index++) {
                 final URI url = urls[index];
-                final Element item = this.crlCache.get(url);
-
-                if (item != null) {
-                    logger.debug("Found CRL in cache for {}", CertUtils.toString(cert));
-                    final byte[] encodedCrl = (byte[]) item.getObjectValue();
-                    final X509CRL crlFetched = this.fetcher.fetch(new ByteArrayResource(encodedCrl));
-
-                    if (crlFetched != null) {
-                        listOfLocations.add(crlFetched);
+                try {
+                    final X509CRL crl = getOrFetchCRL(url);
+                    if (crl != null) {
+                        listOfLocations.add(crl);
                     } else {
-                        logger.warn("Could fetch X509 CRL for {}. Returned value is null", url);
+                        logger.warn("Could not fetch X509 CRL for {}. Returned value is null", url);
                     }
-                } else {
-                    logger.debug("CRL for {} is not cached. Fetching and caching...", CertUtils.toString(cert));
-                    try {
-                        final X509CRL crl = this.fetcher.fetch(url);
-                        if (crl != null) {
-                            logger.info("Success. Caching fetched CRL at {}.", url);
-                            addCRL(url, crl);
-                            listOfLocations.add(crl);
-                        }
-                    } catch (final Exception e) {
-                        logger.error("Error fetching CRL at {}", url, e);
-                        if (this.throwOnFetchFailure) {
-                            throw Throwables.propagate(e);
-                        }
+                } catch (final Exception e) {
+                    logger.error("Error fetching CRL at {}", url, e);
+                    if (this.throwOnFetchFailure) {
+                        throw Throwables.propagate(e);
                     }
                 }
 
@@ -172,11 +191,12 @@ public class CRLDistributionPointRevocationChecker extends AbstractCRLRevocation
         try {
             if (crl == null) {
                 logger.debug("No CRL was passed. Removing {} from cache...", id);
+                cancelRefresh(id);
                 return this.crlCache.remove(id);
             }
 
-            this.crlCache.put(new Element(id, crl.getEncoded()));
-            return this.crlCache.get(id) != null;
+            cacheCRL(id, crl);
+            return this.crlCache.isKeyInCache(id);
 
         } catch (final Exception e) {
             logger.warn("Failed to add the crl entry [{}] to the cache", crl);
@@ -184,6 +204,131 @@ public class CRLDistributionPointRevocationChecker extends AbstractCRLRevocation
         }
     }
 
+    /**
+     * Stop refreshing cached CRLs.
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this.refreshTasks) {
+            if (this.scheduler != null) {
+                this.scheduler.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Gets the parsed CRL for the distribution point from the cache, or fetches it.
+     * Concurrent requests for a distribution point that is not cached wait for a single fetch.
+     *
+     * @param url the distribution point
+     * @return the CRL, or null if none could be fetched
+     * @throws Exception the exception thrown by the fetcher
+     */
+    private X509CRL getOrFetchCRL(final URI url) throws Exception {
+        final X509CRL cached = getCachedCRL(url);
+        if (cached != null) {
+            logger.debug("Found CRL in cache for {}", url);
+            return cached;
+        }
+        synchronized (this.fetchLocks.computeIfAbsent(url, k -> new Object())) {
+            final X509CRL fetched = getCachedCRL(url);
+            if (fetched != null) {
+                logger.debug("CRL for {} was fetched by a concurrent request", url);
+                return fetched;
+            }
+            logger.debug("CRL for {} is not cached. Fetching and caching...", url);
+            final X509CRL crl = this.fetcher.fetch(url);
+            if (crl == null) {
+                return null;
+            }
+            logger.info("Success. Caching fetched CRL at {}.", url);
+            return cacheCRL(url, crl);
+        }
+    }
+
+    private X509CRL getCachedCRL(final Object id) {
+        final Element item = this.crlCache.get(id);
+        if (item != null && item.getObjectValue() instanceof X509CRL) {
+            return (X509CRL) item.getObjectValue();
+        }
+        return null;
+    }
+
+    /**
+     * Caches the parsed CRL along with its index of revoked serial numbers,
+     * and schedules it to be fetched again once it is due to be updated.
+     *
+     * @param id  the cache key
+     * @param crl the CRL
+     * @return the cached CRL
+     */
+    private X509CRL cacheCRL(final Object id, final X509CRL crl) {
+        final IndexedX509CRL indexed = crl instanceof IndexedX509CRL ? (IndexedX509CRL) crl : new IndexedX509CRL(crl);
+        logger.debug("Caching CRL for {} with [{}] revoked certificate(s), next update on {}",
+                id, indexed.size(), indexed.getNextUpdate());
+        this.crlCache.put(new Element(id, indexed));
+        if (id instanceof URI && indexed.getNextUpdate() != null) {
+            scheduleRefresh((URI) id, indexed.getNextUpdate().getTime() - System.currentTimeMillis());
+        }
+        return indexed;
+    }
+
+    private void scheduleRefresh(final URI url, final long delayInMillis) {
+        final long delay = delayInMillis > 0 ? delayInMillis : TimeUnit.SECONDS.toMillis(this.refreshRetryInterval);
+        synchronized (this.refreshTasks) {
+            if (this.scheduler == null) {
+                this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("crl-refresh-%d").build());
+            }
+            if (this.scheduler.isShutdown()) {
+                return;
+            }
+            final ScheduledFuture<?> previous = this.refreshTasks.put(url,
+                    this.scheduler.schedule(() -> refresh(url), delay, TimeUnit.MILLISECONDS));
+            if (previous != null) {
+                previous.cancel(false);
+            }
+        }
+        logger.debug("CRL at {} will be refreshed in [{}] second(s)", url, TimeUnit.MILLISECONDS.toSeconds(delay));
+    }
+
+    private void cancelRefresh(final Object id) {
+        synchronized (this.refreshTasks) {
+            final ScheduledFuture<?> task = this.refreshTasks.remove(id);
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Fetches the CRL again in the background, while the cached copy continues to be served.
+     * CRLs that have been evicted, or were not used since they were last fetched, are left to expire.
+     *
+     * @param url the distribution point
+     */
+    private void refresh(final URI url) {
+        final Element item = this.crlCache.getQuiet(url);
+        if (item == null || item.getHitCount() == 0) {
+            logger.debug("CRL at {} is no longer in use and will not be refreshed", url);
+            cancelRefresh(url);
+            return;
+        }
+        synchronized (this.fetchLocks.computeIfAbsent(url, k -> new Object())) {
+            try {
+                final X509CRL crl = this.fetcher.fetch(url);
+                if (crl != null) {
+                    logger.debug("Refreshed CRL at {}", url);
+                    cacheCRL(url, crl);
+                    return;
+                }
+                logger.warn("Could not refresh X509 CRL at {}. Returned value is null", url);
+            } catch (final Exception e) {
+                logger.warn("Error refreshing CRL at {}", url, e);
+            }
+            scheduleRefresh(url, 0);
+        }
+    }
 
     /**
      * Gets the distribution points.
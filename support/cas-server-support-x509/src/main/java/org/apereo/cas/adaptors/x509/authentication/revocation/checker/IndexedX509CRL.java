@@ -0,0 +1,210 @@
+package org.apereo.cas.adaptors.x509.authentication.revocation.checker;
+
+import javax.security.auth.x500.X500Principal;
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Principal;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.cert.CRLException;
+import java.security.cert.Certificate;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This is {@link IndexedX509CRL}. It wraps a parsed CRL and indexes its revoked
+ * entries by serial number once, so that revocation lookups take constant time
+ * regardless of the size of the CRL and of the provider that parsed it.
+ * <p>
+ * Indirect CRLs, whose entries may name a different certificate issuer,
+ * are not indexed and lookups are handed to the wrapped CRL.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class IndexedX509CRL extends X509CRL {
+    private final X509CRL crl;
+
+    private final Map<BigInteger, X509CRLEntry> revokedCertificates;
+
+    /**
+     * Instantiates a new indexed CRL.
+     *
+     * @param crl the parsed CRL
+     */
+    public IndexedX509CRL(final X509CRL crl) {
+        this.crl = crl;
+        this.revokedCertificates = buildIndex(crl);
+    }
+
+    @Override
+    public X509CRLEntry getRevokedCertificate(final BigInteger serialNumber) {
+        if (this.revokedCertificates == null) {
+            return this.crl.getRevokedCertificate(serialNumber);
+        }
+        return this.revokedCertificates.get(serialNumber);
+    }
+
+    @Override
+    public X509CRLEntry getRevokedCertificate(final X509Certificate certificate) {
+        if (this.revokedCertificates == null) {
+            return this.crl.getRevokedCertificate(certificate);
+        }
+        if (!certificate.getIssuerX500Principal().equals(getIssuerX500Principal())) {
+            return null;
+        }
+        return this.revokedCertificates.get(certificate.getSerialNumber());
+    }
+
+    @Override
+    public boolean isRevoked(final Certificate certificate) {
+        if (this.revokedCertificates == null || !(certificate instanceof X509Certificate)) {
+            return this.crl.isRevoked(certificate);
+        }
+        return getRevokedCertificate((X509Certificate) certificate) != null;
+    }
+
+    /**
+     * Number of revoked certificates listed by this CRL.
+     *
+     * @return the number of revoked certificates
+     */
+    public int size() {
+        if (this.revokedCertificates == null) {
+            final Set<? extends X509CRLEntry> entries = this.crl.getRevokedCertificates();
+            return entries == null ? 0 : entries.size();
+        }
+        return this.revokedCertificates.size();
+    }
+
+    public X509CRL getCRL() {
+        return this.crl;
+    }
+
+    @Override
+    public Set<? extends X509CRLEntry> getRevokedCertificates() {
+        return this.crl.getRevokedCertificates();
+    }
+
+    @Override
+    public byte[] getEncoded() throws CRLException {
+        return this.crl.getEncoded();
+    }
+
+    @Override
+    public void verify(final PublicKey key) throws CRLException, NoSuchAlgorithmException,
+            InvalidKeyException, NoSuchProviderException, SignatureException {
+        this.crl.verify(key);
+    }
+
+    @Override
+    public void verify(final PublicKey key, final String sigProvider) throws CRLException, NoSuchAlgorithmException,
+            InvalidKeyException, NoSuchProviderException, SignatureException {
+        this.crl.verify(key, sigProvider);
+    }
+
+    @Override
+    public void verify(final PublicKey key, final Provider sigProvider) throws CRLException, NoSuchAlgorithmException,
+            InvalidKeyException, SignatureException {
+        this.crl.verify(key, sigProvider);
+    }
+
+    @Override
+    public int getVersion() {
+        return this.crl.getVersion();
+    }
+
+    @Override
+    public Principal getIssuerDN() {
+        return this.crl.getIssuerDN();
+    }
+
+    @Override
+    public X500Principal getIssuerX500Principal() {
+        return this.crl.getIssuerX500Principal();
+    }
+
+    @Override
+    public Date getThisUpdate() {
+        return this.crl.getThisUpdate();
+    }
+
+    @Override
+    public Date getNextUpdate() {
+        return this.crl.getNextUpdate();
+    }
+
+    @Override
+    public byte[] getTBSCertList() throws CRLException {
+        return this.crl.getTBSCertList();
+    }
+
+    @Override
+    public byte[] getSignature() {
+        return this.crl.getSignature();
+    }
+
+    @Override
+    public String getSigAlgName() {
+        return this.crl.getSigAlgName();
+    }
+
+    @Override
+    public String getSigAlgOID() {
+        return this.crl.getSigAlgOID();
+    }
+
+    @Override
+    public byte[] getSigAlgParams() {
+        return this.crl.getSigAlgParams();
+    }
+
+    @Override
+    public boolean hasUnsupportedCriticalExtension() {
+        return this.crl.hasUnsupportedCriticalExtension();
+    }
+
+    @Override
+    public Set<String> getCriticalExtensionOIDs() {
+        return this.crl.getCriticalExtensionOIDs();
+    }
+
+    @Override
+    public Set<String> getNonCriticalExtensionOIDs() {
+        return this.crl.getNonCriticalExtensionOIDs();
+    }
+
+    @Override
+    public byte[] getExtensionValue(final String oid) {
+        return this.crl.getExtensionValue(oid);
+    }
+
+    @Override
+    public String toString() {
+        return this.crl.toString();
+    }
+
+    private static Map<BigInteger, X509CRLEntry> buildIndex(final X509CRL crl) {
+        final Set<? extends X509CRLEntry> entries = crl.getRevokedCertificates();
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<BigInteger, X509CRLEntry> index = new HashMap<>(entries.size() * 4 / 3 + 1);
+        for (final X509CRLEntry entry : entries) {
+            if (entry.getCertificateIssuer() != null) {
+                return null;
+            }
+            index.put(entry.getSerialNumber(), entry);
+        }
+        return index;
+    }
+}
@@ -195,7 +195,7 @@ public class ResourceCRLRevocationChecker extends AbstractCRLRevocationChecker {
     @Override
     protected boolean addCRL(final Object issuer, final X509CRL crl) {
         logger.debug("Adding CRL for issuer {}", issuer);
-        this.crlIssuerMap.put((X500Principal) issuer, crl);
+        this.crlIssuerMap.put((X500Principal) issuer, new IndexedX509CRL(crl));
         return this.crlIssuerMap.containsKey(issuer);
     }
 
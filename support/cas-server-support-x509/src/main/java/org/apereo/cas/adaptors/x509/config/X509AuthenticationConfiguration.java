@@ -29,6 +29,8 @@ import org.apereo.cas.configuration.model.support.x509.X509Properties;
 import org.apereo.cas.configuration.support.Beans;
 import org.apereo.cas.services.ServicesManager;
 import org.apereo.services.persondir.IPersonAttributeDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -52,6 +54,7 @@ import java.util.UUID;
 @Configuration("x509AuthenticationConfiguration")
 @EnableConfigurationProperties(CasConfigurationProperties.class)
 public class X509AuthenticationConfiguration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(X509AuthenticationConfiguration.class);
 
     @Autowired
     private ResourceLoader resourceLoader;
@@ -96,8 +99,12 @@ public class X509AuthenticationConfiguration {
     @Bean
     public RevocationChecker crlDistributionPointRevocationChecker() {
         final X509Properties x509 = casProperties.getAuthn().getX509();
+        if (x509.isCacheDiskOverflow()) {
+            LOGGER.warn("CRLs are cached in memory only, since cached CRLs cannot be serialized to disk. "
+                    + "The setting to overflow the cache to disk is ignored.");
+        }
         final Cache cache = new Cache("CRL".concat(UUID.randomUUID().toString()),
-                x509.getCacheMaxElementsInMemory(), x509.isCacheDiskOverflow(),
+                x509.getCacheMaxElementsInMemory(), false,
                 x509.isCacheEternal(), x509.getCacheTimeToLiveSeconds(), x509.getCacheTimeToIdleSeconds());
 
         final CRLDistributionPointRevocationChecker c = new CRLDistributionPointRevocationChecker(cache, getCrlFetcher());
@@ -0,0 +1,56 @@
+package org.apereo.cas.adaptors.x509.authentication.handler.support;
+
+import org.apereo.cas.adaptors.x509.authentication.ResourceCRLFetcher;
+import org.apereo.cas.adaptors.x509.authentication.revocation.checker.IndexedX509CRL;
+import org.apereo.cas.adaptors.x509.util.CertUtils;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link IndexedX509CRLTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class IndexedX509CRLTests {
+
+    @Test
+    public void verifyRevokedCertificateIsFound() throws Exception {
+        final X509CRL crl = new ResourceCRLFetcher().fetch(new ClassPathResource("userCA-valid.crl"));
+        final IndexedX509CRL indexed = new IndexedX509CRL(crl);
+        final X509Certificate revoked = CertUtils.readCertificate(new ClassPathResource("user-revoked.crt"));
+
+        final X509CRLEntry entry = indexed.getRevokedCertificate(revoked);
+        assertNotNull(entry);
+        assertEquals(crl.getRevokedCertificate(revoked), entry);
+        assertEquals(entry, indexed.getRevokedCertificate(revoked.getSerialNumber()));
+        assertTrue(indexed.isRevoked(revoked));
+        assertEquals(crl.getRevokedCertificates().size(), indexed.size());
+    }
+
+    @Test
+    public void verifyValidCertificateIsNotFound() throws Exception {
+        final X509CRL crl = new ResourceCRLFetcher().fetch(new ClassPathResource("userCA-valid.crl"));
+        final IndexedX509CRL indexed = new IndexedX509CRL(crl);
+        final X509Certificate valid = CertUtils.readCertificate(new ClassPathResource("user-valid.crt"));
+
+        assertNull(indexed.getRevokedCertificate(valid));
+        assertFalse(indexed.isRevoked(valid));
+        assertEquals(crl.getNextUpdate(), indexed.getNextUpdate());
+        assertEquals(crl, indexed);
+    }
+
+    @Test
+    public void verifyCertificateOfAnotherIssuerIsNotFound() throws Exception {
+        final IndexedX509CRL indexed = new IndexedX509CRL(
+                new ResourceCRLFetcher().fetch(new ClassPathResource("intermediateCA-valid.crl")));
+        final X509Certificate revoked = CertUtils.readCertificate(new ClassPathResource("user-revoked.crt"));
+        assertNull(indexed.getRevokedCertificate(revoked));
+    }
+}
@@ -83,11 +83,11 @@ function format ( d ) {
 }
 
 function updateAdminPanels( data ) {
-    //$('#totalUsers').text(data.totalPrincipals);
-    $('#totalUsers').text(data.activeSsoSessions.length);
+    // Totals are left out by ticket registries that do not keep track of them
+    $('#totalUsers').text(data.totalPrincipals === undefined ? '-' : data.totalPrincipals);
     $('#totalUsageSessions').text( sum(data.activeSsoSessions, 'number_of_uses') );
     //$('#totalProxied').text(data.totalTicketGrantingTickets);
-    $('#totalTGTs').text(data.totalTicketGrantingTickets);
+    $('#totalTGTs').text(data.totalTicketGrantingTickets === undefined ? '-' : data.totalTicketGrantingTickets);
     //$('#totalTGTs').text( sum(data.activeSsoSessions, 'is_proxied' ) );
 }
 
@@ -172,6 +172,37 @@ function removeSession( ticketId ) {
     });
 }
 
+/**
+ * The cursors from which the pages that were shown start, the last one being the page shown,
+ * and the cursor of the page that follows it, if any.
+ */
+var pages = {
+    cursors: [null],
+    next: null
+};
+
+function updatePageButtons() {
+    $('#previousPageButton').prop('disabled', pages.cursors.length < 2);
+    $('#nextPageButton').prop('disabled', !pages.next);
+}
+
+/**
+ * Load the page of sessions that is shown, and hand it to the table.
+ */
+function loadSessions( callback ) {
+    var cursor = pages.cursors[pages.cursors.length - 1];
+    $.getJSON(urls.getSessions, cursor ? { cursor: cursor } : {}, function (json) {
+        pages.next = json.nextCursor;
+        json.data = json.activeSsoSessions;
+        updateAdminPanels( json );
+        updatePageButtons();
+        callback(json);
+    }).fail(function () {
+        alertUser('There appears to be an error. Please try your request again.', 'danger');
+        callback({ data: [], activeSsoSessions: [] });
+    });
+}
+
 var ssoSessions = (function () {
     var createDataTable = function() {
         $('#ssoSessions').DataTable( {
@@ -181,8 +212,6 @@ var ssoSessions = (function () {
                     $('#loadingMessage').hide();
                     $('#no-cas-sessions').show();
                 } else {
-                    updateAdminPanels( json );
-
                     $('#loadingMessage').hide();
                     $("#no-cas-sessions").hide();
                     $("#cas-sessions").show();
@@ -194,9 +223,8 @@ var ssoSessions = (function () {
                 "zeroRecords": "No matching sessions found"
             },
             "processing": true,
-            "ajax": {
-                "url": urls.getSessions,
-                "dataSrc": "activeSsoSessions"
+            "ajax": function (data, callback, settings) {
+                loadSessions(callback);
             },
 
             columnDefs: [
@@ -280,6 +308,25 @@ var ssoSessions = (function () {
             removeSession( this.value );
         });
 
+        /**
+         * The page buttons
+         */
+        $('#previousPageButton').on('click', function(e) {
+            e.preventDefault();
+            if (pages.cursors.length > 1) {
+                pages.cursors.pop();
+                $('#ssoSessions').DataTable().ajax.reload();
+            }
+        });
+
+        $('#nextPageButton').on('click', function(e) {
+            e.preventDefault();
+            if (pages.next) {
+                pages.cursors.push(pages.next);
+                $('#ssoSessions').DataTable().ajax.reload();
+            }
+        });
+
         /**
          * The filter buttons
          */